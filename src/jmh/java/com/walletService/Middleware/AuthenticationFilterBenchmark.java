@@ -0,0 +1,64 @@
+package com.walletService.Middleware;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Verifying and parsing a bearer token, the per-request cost of the filter in JWT mode, against resolving
+ * an already verified token from the filter's cache.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AuthenticationFilterBenchmark {
+
+    private static final String SECRET = "benchmark-secret-key-that-is-at-least-256-bits-long";
+
+    private AuthenticationFilter filter;
+
+    private String token;
+
+    @Setup
+    public void setUp() {
+        filter = new AuthenticationFilter(SECRET, true, true, 1_000, new SimpleMeterRegistry());
+
+        token = Jwts.builder()
+                .setSubject("player@example.com")
+                .claim("userId", 42L)
+                .setIssuedAt(new Date())
+                .setExpiration(Date.from(Instant.now().plus(1, ChronoUnit.DAYS)))
+                .signWith(Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8)))
+                .compact();
+    }
+
+    @Benchmark
+    public Claims validateAndParseToken() {
+        return filter.validateAndParseToken(token);
+    }
+
+    @Benchmark
+    public AuthenticationFilter.VerifiedToken authenticateCached() {
+        return filter.authenticate(token);
+    }
+}
@@ -0,0 +1,57 @@
+package com.walletService.Service;
+
+import com.walletService.Dto.LedgerEntryView;
+import com.walletService.Dto.TransactionHistoryResponseDto;
+import com.walletService.Entity.TransactionType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mapping a history page of ledger rows to response DTOs, at the maximum page size and beyond.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TransactionHistoryBenchmark {
+
+    @Param({"1000", "100000"})
+    public int rows;
+
+    private List<LedgerEntryView> entries;
+
+    @Setup
+    public void setUp() {
+        LocalDateTime start = LocalDateTime.of(2024, 1, 1, 0, 0);
+        entries = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            entries.add(new LedgerEntryView((long) i, i % 3 == 0 ? TransactionType.DEBIT : TransactionType.CREDIT,
+                    new BigDecimal("10.0000"), BigDecimal.valueOf(1000 + i, 4), "Wallet top-up", "ref-" + i,
+                    start.plusSeconds(i)));
+        }
+    }
+
+    @Benchmark
+    public List<TransactionHistoryResponseDto.TransactionDto> convertToTransactionDtos() {
+        return entries.stream()
+                .map(TransactionHistoryService::convertToTransactionDto)
+                .toList();
+    }
+}
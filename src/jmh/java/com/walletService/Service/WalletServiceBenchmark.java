@@ -0,0 +1,114 @@
+package com.walletService.Service;
+
+import com.walletService.Dto.WalletOperationResponseDto;
+import com.walletService.Entity.AssetType;
+import com.walletService.Entity.LedgerEntry;
+import com.walletService.Entity.TransactionType;
+import com.walletService.Entity.Wallet;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.boot.Banner;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.jackson.autoconfigure.JacksonAutoConfiguration;
+import org.springframework.context.ConfigurableApplicationContext;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-request work on the write path that does not touch the database: amount validation, response
+ * building and the idempotency response round trip through Jackson. The mapper is the one the application
+ * gets: Spring Boot's Jackson auto-configuration with the application's {@code spring.jackson.*} properties.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class WalletServiceBenchmark {
+
+    private ConfigurableApplicationContext context;
+
+    private ObjectMapper objectMapper;
+
+    private BigDecimal amount;
+
+    private LedgerEntry ledgerEntry;
+
+    private WalletOperationResponseDto response;
+
+    private String serializedResponse;
+
+    @Setup
+    public void setUp() {
+        context = new SpringApplicationBuilder(JacksonAutoConfiguration.class)
+                .web(WebApplicationType.NONE)
+                .bannerMode(Banner.Mode.OFF)
+                .logStartupInfo(false)
+                .run();
+        objectMapper = context.getBean(JsonMapper.class);
+
+        amount = new BigDecimal("125.5000");
+
+        Wallet wallet = Wallet.builder()
+                .id(7L)
+                .assetType(AssetType.GOLD_COINS)
+                .balance(new BigDecimal("1000.0000"))
+                .build();
+        ledgerEntry = LedgerEntry.builder()
+                .id(123456L)
+                .wallet(wallet)
+                .transactionType(TransactionType.CREDIT)
+                .amount(amount)
+                .balanceAfter(new BigDecimal("1125.5000"))
+                .description("Wallet top-up")
+                .referenceId("order-98765")
+                .idempotencyKey("4f1c2e8a-9b7d-4e21-a0c3-6d5e4f3a2b1c")
+                .createdAt(LocalDateTime.of(2024, 2, 13, 11, 15))
+                .build();
+
+        response = WalletService.buildResponse(ledgerEntry, "Top-up successful");
+        serializedResponse = objectMapper.writeValueAsString(response);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public void validateAmount(Blackhole blackhole) {
+        WalletService.validateAmount(amount);
+        blackhole.consume(amount);
+    }
+
+    @Benchmark
+    public WalletOperationResponseDto buildResponse() {
+        return WalletService.buildResponse(ledgerEntry, "Top-up successful");
+    }
+
+    @Benchmark
+    public String serializeIdempotencyResponse() {
+        return objectMapper.writeValueAsString(response);
+    }
+
+    @Benchmark
+    public WalletOperationResponseDto deserializeIdempotencyResponse() {
+        return objectMapper.readValue(serializedResponse, WalletOperationResponseDto.class);
+    }
+}
@@ -0,0 +1,83 @@
+package com.walletService.Config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingStream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Guards the virtual-thread mode against carrier pinning. On Java 21 a virtual thread that blocks inside a
+ * {@code synchronized} block or a native frame cannot unmount, so it holds one of the few carrier threads
+ * for the whole database wait and request throughput collapses to the carrier count. This streams the JDK's
+ * own {@code jdk.VirtualThreadPinned} events, counts them as {@code wallet.virtual-threads.pinned} and logs
+ * the top frames of the pinned stack, so a pinning call site shows up in the first load test rather than
+ * as an unexplained p99 regression.
+ */
+@Component
+@ConditionalOnProperty(name = "spring.threads.virtual.enabled", havingValue = "true")
+@Slf4j
+public class VirtualThreadPinningMonitor {
+
+    private static final int LOGGED_FRAMES = 8;
+
+    private final Counter pinnedCounter;
+
+    private final Duration threshold;
+
+    private RecordingStream recordingStream;
+
+    public VirtualThreadPinningMonitor(MeterRegistry meterRegistry,
+                                       @Value("${wallet.virtual-threads.pinning.threshold-ms:20}") long thresholdMs) {
+        this.pinnedCounter = Counter.builder("wallet.virtual-threads.pinned")
+                .description("Virtual threads that blocked while pinned to their carrier")
+                .register(meterRegistry);
+        this.threshold = Duration.ofMillis(thresholdMs);
+    }
+
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        recordingStream = new RecordingStream();
+        recordingStream.enable("jdk.VirtualThreadPinned").withThreshold(threshold).withStackTrace();
+        recordingStream.onEvent("jdk.VirtualThreadPinned", this::onPinned);
+        recordingStream.startAsync();
+
+        log.info("Virtual-thread pinning monitor started (threshold {} ms)", threshold.toMillis());
+    }
+
+
+    @PreDestroy
+    public void stop() {
+        if (recordingStream != null) {
+            recordingStream.close();
+        }
+    }
+
+
+    private void onPinned(RecordedEvent event) {
+        pinnedCounter.increment();
+
+        if (log.isWarnEnabled()) {
+            List<RecordedFrame> frames = event.getStackTrace() != null ? event.getStackTrace().getFrames() : List.of();
+            String stack = frames.stream()
+                    .limit(LOGGED_FRAMES)
+                    .map(frame -> frame.getMethod().getType().getName() + "." + frame.getMethod().getName()
+                            + ":" + frame.getLineNumber())
+                    .collect(Collectors.joining("\n\tat "));
+
+            log.warn("Virtual thread pinned for {} ms\n\tat {}", event.getDuration().toMillis(), stack);
+        }
+    }
+}
@@ -2,16 +2,21 @@ package com.walletService.Controller;
 
 import com.walletService.Dto.TransactionHistoryResponseDto;
 import com.walletService.Entity.AssetType;
+import com.walletService.Service.LedgerExportFormat;
+import com.walletService.Service.LedgerExportService;
 import com.walletService.Service.TransactionHistoryService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.time.LocalDateTime;
 
@@ -23,30 +28,51 @@ import java.time.LocalDateTime;
 public class TransactionController {
 
     private final TransactionHistoryService transactionHistoryService;
+    private final LedgerExportService ledgerExportService;
 
+    /**
+     * One page of history, newest first. {@code limit} is capped at
+     * {@value TransactionHistoryService#MAX_PAGE_SIZE}; pass back {@code nextCursor} for the next page.
+     */
     @GetMapping("/transactions")
     public ResponseEntity<TransactionHistoryResponseDto> getTransactionHistory(
             @RequestParam AssetType assetType,
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime fromTime,
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime toTime,
             @RequestParam(required = false, defaultValue = "100") int limit,
+            @RequestParam(required = false) String cursor,
             Authentication authentication) {
 
         Long userId = getUserIdFromAuth(authentication);
         log.info("Transaction history request for user {} and asset type {}", userId, assetType);
 
-        TransactionHistoryResponseDto response;
-
-        if (fromTime != null && toTime != null) {
-            response = transactionHistoryService.getTransactionHistory(userId, assetType, fromTime, toTime);
-        } else {
-            response = transactionHistoryService.getRecentTransactions(userId, assetType, limit);
-        }
+        TransactionHistoryResponseDto response = transactionHistoryService.getTransactionPage(
+                userId, assetType, fromTime, toTime, cursor, limit);
 
         return ResponseEntity.ok(response);
     }
 
 
+    @GetMapping("/transactions/export")
+    public ResponseEntity<StreamingResponseBody> exportTransactions(
+            @RequestParam AssetType assetType,
+            @RequestParam(required = false, defaultValue = "NDJSON") LedgerExportFormat format,
+            Authentication authentication) {
+
+        Long userId = getUserIdFromAuth(authentication);
+        log.info("Ledger export request for user {} and asset type {} as {}", userId, assetType, format);
+
+        Long walletId = ledgerExportService.resolveWalletId(userId, assetType);
+        StreamingResponseBody body = outputStream -> ledgerExportService.export(walletId, format, outputStream);
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(format.getContentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION, String.format("attachment; filename=\"wallet-%d-%s.%s\"",
+                        walletId, assetType, format.getFileExtension()))
+                .body(body);
+    }
+
+
     private Long getUserIdFromAuth(Authentication authentication) {
         if (authentication.getPrincipal() instanceof Long) {
             return (Long) authentication.getPrincipal();
@@ -1,17 +1,32 @@
 package com.walletService.Controller;
 
+import com.walletService.Dto.BalanceAtResponseDto;
 import com.walletService.Dto.BalanceResponseDto;
+import com.walletService.Dto.BulkWalletOperationRequestDto;
+import com.walletService.Dto.BulkWalletOperationResponseDto;
+import com.walletService.Dto.ReconciliationResponseDto;
+import com.walletService.Dto.TransferRequestDto;
+import com.walletService.Dto.TransferResponseDto;
+import com.walletService.Dto.WalletBalancesResponseDto;
 import com.walletService.Dto.WalletOperationRequestDto;
 import com.walletService.Dto.WalletOperationResponseDto;
 import com.walletService.Entity.AssetType;
+import com.walletService.Service.BalanceSnapshotService;
+import com.walletService.Service.WalletBulkOperationService;
+import com.walletService.Service.WalletOperationDispatcher;
 import com.walletService.Service.WalletService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+
+import java.time.LocalDateTime;
+import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/api/v1/wallets")
@@ -20,6 +35,9 @@ import org.springframework.web.bind.annotation.*;
 public class WalletController {
 
     private final WalletService walletService;
+    private final WalletOperationDispatcher walletOperationDispatcher;
+    private final WalletBulkOperationService walletBulkOperationService;
+    private final BalanceSnapshotService balanceSnapshotService;
 
 
     @PostMapping("/topup")
@@ -30,7 +48,7 @@ public class WalletController {
         Long userId = getUserIdFromAuth(authentication);
         log.info("Top-up request received for user {}", userId);
 
-        WalletOperationResponseDto response = walletService.topUp(userId, request);
+        WalletOperationResponseDto response = walletOperationDispatcher.topUp(userId, request);
         return ResponseEntity.status(HttpStatus.OK).body(response);
     }
 
@@ -43,7 +61,7 @@ public class WalletController {
         Long userId = getUserIdFromAuth(authentication);
         log.info("Incentive grant request received for user {}", userId);
 
-        WalletOperationResponseDto response = walletService.grantIncentive(userId, request);
+        WalletOperationResponseDto response = walletOperationDispatcher.grantIncentive(userId, request);
         return ResponseEntity.status(HttpStatus.OK).body(response);
     }
 
@@ -56,7 +74,33 @@ public class WalletController {
         Long userId = getUserIdFromAuth(authentication);
         log.info("Spend request received for user {}", userId);
 
-        WalletOperationResponseDto response = walletService.spend(userId, request);
+        WalletOperationResponseDto response = walletOperationDispatcher.spend(userId, request);
+        return ResponseEntity.status(HttpStatus.OK).body(response);
+    }
+
+
+    @PostMapping("/transfer")
+    public ResponseEntity<TransferResponseDto> transfer(
+            @Valid @RequestBody TransferRequestDto request,
+            Authentication authentication) {
+
+        Long userId = getUserIdFromAuth(authentication);
+        log.info("Transfer request received from user {} to user {}", userId, request.getToUserId());
+
+        TransferResponseDto response = walletOperationDispatcher.transfer(userId, request);
+        return ResponseEntity.status(HttpStatus.OK).body(response);
+    }
+
+
+    @PostMapping("/batch")
+    public ResponseEntity<BulkWalletOperationResponseDto> applyBatch(
+            @Valid @RequestBody BulkWalletOperationRequestDto request,
+            Authentication authentication) {
+
+        Long callerId = getUserIdFromAuth(authentication);
+        log.info("Batch request with {} operations received from caller {}", request.getOperations().size(), callerId);
+
+        BulkWalletOperationResponseDto response = walletBulkOperationService.apply(callerId, request);
         return ResponseEntity.status(HttpStatus.OK).body(response);
     }
 
@@ -69,11 +113,68 @@ public class WalletController {
         Long userId = getUserIdFromAuth(authentication);
         log.info("Balance request received for user {} and asset type {}", userId, assetType);
 
-        BalanceResponseDto response = walletService.getBalance(userId, assetType);
+        BalanceResponseDto response = walletOperationDispatcher.getBalance(userId, assetType);
+        return ResponseEntity.ok(response);
+    }
+
+
+    @GetMapping("/balance/at")
+    public ResponseEntity<BalanceAtResponseDto> getBalanceAt(
+            @RequestParam AssetType assetType,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime at,
+            Authentication authentication) {
+
+        Long userId = getUserIdFromAuth(authentication);
+        log.info("Point-in-time balance request received for user {} and asset type {} at {}", userId, assetType, at);
+
+        BalanceAtResponseDto response = balanceSnapshotService.getBalanceAt(userId, assetType, at);
+        return ResponseEntity.ok(response);
+    }
+
+
+    @GetMapping("/reconciliation")
+    public ResponseEntity<ReconciliationResponseDto> reconcile(
+            @RequestParam AssetType assetType,
+            Authentication authentication) {
+
+        Long userId = getUserIdFromAuth(authentication);
+        log.info("Reconciliation request received for user {} and asset type {}", userId, assetType);
+
+        ReconciliationResponseDto response = balanceSnapshotService.reconcile(userId, assetType);
         return ResponseEntity.ok(response);
     }
 
 
+    @GetMapping("/balances")
+    public ResponseEntity<WalletBalancesResponseDto> getBalances(
+            Authentication authentication,
+            WebRequest webRequest) {
+
+        Long userId = getUserIdFromAuth(authentication);
+        log.info("Balances request received for user {}", userId);
+
+        WalletBalancesResponseDto response = walletService.getBalances(userId);
+        String etag = balancesETag(response);
+
+        if (webRequest.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+
+        return ResponseEntity.ok().eTag(etag).body(response);
+    }
+
+
+    /**
+     * Wallet versions change with every committed balance change, so they identify the representation.
+     * The sharded treasury reports the sum of its row and slot versions, which moves with every slot write.
+     */
+    private String balancesETag(WalletBalancesResponseDto response) {
+        return "\"" + response.getUserId() + ":" + response.getBalances().stream()
+                .map(balance -> balance.getAssetType().ordinal() + "." + balance.getVersion())
+                .collect(Collectors.joining("-")) + "\"";
+    }
+
+
     private Long getUserIdFromAuth(Authentication authentication) {
         String email = authentication.getName();
 
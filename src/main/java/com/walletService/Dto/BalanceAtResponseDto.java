@@ -0,0 +1,29 @@
+package com.walletService.Dto;
+
+import com.walletService.Entity.AssetType;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BalanceAtResponseDto {
+
+    private Long userId;
+
+    private AssetType assetType;
+
+    private LocalDateTime at;
+
+    private BigDecimal balance;
+
+    private LocalDateTime snapshotAsOf;
+
+    private long replayedEntries;
+}
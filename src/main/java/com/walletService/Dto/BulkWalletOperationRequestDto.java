@@ -0,0 +1,39 @@
+package com.walletService.Dto;
+
+import com.walletService.Service.WalletOperationType;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BulkWalletOperationRequestDto {
+
+    @NotEmpty(message = "At least one operation is required")
+    private List<@Valid @NotNull BulkOperationItemDto> operations;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class BulkOperationItemDto {
+
+        @NotNull(message = "User id is required")
+        private Long userId;
+
+        @NotNull(message = "Operation type is required")
+        private WalletOperationType type;
+
+        @Valid
+        @NotNull(message = "Operation is required")
+        private WalletOperationRequestDto operation;
+    }
+}
@@ -0,0 +1,40 @@
+package com.walletService.Dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BulkWalletOperationResponseDto {
+
+    private int succeeded;
+
+    private int failed;
+
+    private List<BulkOperationResultDto> results;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class BulkOperationResultDto {
+
+        private int index;
+
+        private Long userId;
+
+        private String idempotencyKey;
+
+        private boolean success;
+
+        private WalletOperationResponseDto response;
+
+        private String error;
+    }
+}
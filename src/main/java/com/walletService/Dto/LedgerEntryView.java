@@ -0,0 +1,19 @@
+package com.walletService.Dto;
+
+import com.walletService.Entity.TransactionType;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Read-only projection of a ledger row with just the columns history responses need. Selected via a
+ * constructor expression, so Hibernate never hydrates or tracks a {@code LedgerEntry} entity for it.
+ */
+public record LedgerEntryView(Long id,
+                              TransactionType transactionType,
+                              BigDecimal amount,
+                              BigDecimal balanceAfter,
+                              String description,
+                              String referenceId,
+                              LocalDateTime createdAt) {
+}
@@ -0,0 +1,37 @@
+package com.walletService.Dto;
+
+import com.walletService.Entity.AssetType;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ReconciliationResponseDto {
+
+    private Long userId;
+
+    private Long walletId;
+
+    private AssetType assetType;
+
+    private BigDecimal walletBalance;
+
+    private BigDecimal ledgerBalance;
+
+    private BigDecimal discrepancy;
+
+    private boolean consistent;
+
+    private LocalDateTime snapshotAsOf;
+
+    private long replayedEntries;
+
+    private LocalDateTime checkedAt;
+}
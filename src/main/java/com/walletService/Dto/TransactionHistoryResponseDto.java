@@ -23,6 +23,8 @@ public class TransactionHistoryResponseDto {
 
     private List<TransactionDto> transactions;
 
+    private String nextCursor;
+
     @Data
     @NoArgsConstructor
     @AllArgsConstructor
@@ -0,0 +1,38 @@
+package com.walletService.Dto;
+
+import com.walletService.Entity.AssetType;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class TransferRequestDto {
+
+    @NotBlank(message = "Idempotency key is required")
+    @Size(max = 90, message = "Idempotency key must be at most 90 characters")
+    private String idempotencyKey;
+
+    @NotNull(message = "Recipient user id is required")
+    private Long toUserId;
+
+    @NotNull(message = "Amount is required")
+    @DecimalMin(value = "0.0001", inclusive = true, message = "Amount must be greater than 0")
+    private BigDecimal amount;
+
+    @NotNull(message = "Asset type is required")
+    private AssetType assetType;
+
+    private String description;
+
+    private String referenceId;
+}
@@ -0,0 +1,39 @@
+package com.walletService.Dto;
+
+import com.walletService.Entity.AssetType;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class TransferResponseDto {
+
+    private Long debitTransactionId;
+
+    private Long creditTransactionId;
+
+    private Long fromUserId;
+
+    private Long toUserId;
+
+    private AssetType assetType;
+
+    private BigDecimal amount;
+
+    private BigDecimal balanceAfter;
+
+    private String description;
+
+    private String referenceId;
+
+    private LocalDateTime timestamp;
+
+    private String message;
+}
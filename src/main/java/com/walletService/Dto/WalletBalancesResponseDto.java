@@ -0,0 +1,34 @@
+package com.walletService.Dto;
+
+import com.walletService.Entity.AssetType;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class WalletBalancesResponseDto {
+
+    private Long userId;
+
+    private List<AssetBalanceDto> balances;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class AssetBalanceDto {
+
+        private AssetType assetType;
+
+        private BigDecimal balance;
+
+        private Long version;
+    }
+}
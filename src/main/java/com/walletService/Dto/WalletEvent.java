@@ -0,0 +1,29 @@
+package com.walletService.Dto;
+
+import com.walletService.Entity.AssetType;
+import com.walletService.Entity.TransactionType;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * A ledger entry as published to downstream consumers. {@code eventId} increases with every event of a balance:
+ * the wallet's, or for a sharded treasury wallet the slot named by {@code slotIndex}, which is null otherwise.
+ * Delivery is at least once, so consumers drop an event whose id they have already processed.
+ * {@code occurredAt} is the ledger entry's timestamp, {@code recordedAt} when its outbox row was written.
+ */
+public record WalletEvent(long eventId,
+                          long walletId,
+                          Integer slotIndex,
+                          long userId,
+                          AssetType assetType,
+                          long ledgerEntryId,
+                          TransactionType transactionType,
+                          BigDecimal amount,
+                          BigDecimal balanceAfter,
+                          String description,
+                          String referenceId,
+                          String idempotencyKey,
+                          LocalDateTime occurredAt,
+                          LocalDateTime recordedAt) {
+}
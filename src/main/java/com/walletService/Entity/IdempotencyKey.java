@@ -10,7 +10,7 @@ import java.time.ZoneOffset;
 @NoArgsConstructor
 @AllArgsConstructor
 @Table(name = "idempotency_keys", indexes = {
-        @Index(name = "idx_key_user", columnList = "idempotency_key,user_id", unique = true)
+        @Index(name = "idx_key_user", columnList = "key,user_id", unique = true)
 })
 @Getter
 @Setter
@@ -18,7 +18,8 @@ import java.time.ZoneOffset;
 public class IdempotencyKey {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "idempotency_keys_seq")
+    @SequenceGenerator(name = "idempotency_keys_seq", sequenceName = "idempotency_keys_seq", allocationSize = 50)
     private Long id;
 
     @Column(name = "key", nullable = false, unique = true, length = 100)
@@ -11,8 +11,7 @@ import java.time.ZoneOffset;
 @NoArgsConstructor
 @AllArgsConstructor
 @Table(name = "ledger_entries", indexes = {
-        @Index(name = "idx_wallet_created", columnList = "wallet_id,created_at"),
-        @Index(name = "idx_idempotency_key", columnList = "idempotency_key")
+        @Index(name = "idx_wallet_created", columnList = "wallet_id,created_at")
 })
 @Getter
 @Setter
@@ -20,7 +19,8 @@ import java.time.ZoneOffset;
 public class LedgerEntry {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "ledger_entries_seq")
+    @SequenceGenerator(name = "ledger_entries_seq", sequenceName = "ledger_entries_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -43,6 +43,11 @@ public class LedgerEntry {
     @Column(name = "reference_id", length = 100)
     private String referenceId;
 
+    // Slot of a sharded wallet this entry changed; balanceAfter is then that slot's balance (V8)
+    @Column(name = "slot_index")
+    private Integer slotIndex;
+
+    // Globally unique through ledger_entry_keys; the table is partitioned by created_at (V6)
     @Column(name = "idempotency_key", unique = true, nullable = false, length = 100)
     private String idempotencyKey;
 
@@ -21,10 +21,11 @@ import java.time.ZoneOffset;
 @Builder
 public class Wallet {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "wallets_seq")
+    @SequenceGenerator(name = "wallets_seq", sequenceName = "wallets_seq", allocationSize = 50)
     private Long id;
 
-    @OneToOne(fetch = FetchType.LAZY)
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", nullable = false)
     private User user;
 
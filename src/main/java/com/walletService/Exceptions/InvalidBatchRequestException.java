@@ -0,0 +1,12 @@
+package com.walletService.Exceptions;
+
+public class InvalidBatchRequestException extends RuntimeException {
+
+    public InvalidBatchRequestException(String message) {
+        super(message);
+    }
+
+    public InvalidBatchRequestException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,12 @@
+package com.walletService.Exceptions;
+
+public class InvalidTransferException extends RuntimeException {
+
+    public InvalidTransferException(String message) {
+        super(message);
+    }
+
+    public InvalidTransferException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
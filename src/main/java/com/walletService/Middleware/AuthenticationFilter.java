@@ -1,13 +1,18 @@
 package com.walletService.Middleware;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
 import io.jsonwebtoken.security.SignatureException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
@@ -17,27 +22,67 @@ import org.springframework.stereotype.Component;
 import org.springframework.util.StringUtils;
 import org.springframework.web.filter.OncePerRequestFilter;
 
-import javax.crypto.SecretKey;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.Collections;
 import java.util.List;
 
+/**
+ * Authenticates requests from a bearer JWT, or from the {@code X-User-Id} header when JWT is disabled.
+ * The signing key and parser are built once. Verified tokens are remembered by their SHA-256 hash until
+ * the token's own {@code exp}, so a client re-sending the same token skips signature verification and
+ * claim parsing. Tokens without an expiry are verified every time. Cache hit/miss counters are published
+ * under {@code wallet.auth.token.cache}.
+ */
 @Component
-@RequiredArgsConstructor
 @Slf4j
 public class AuthenticationFilter extends OncePerRequestFilter {
 
-    @Value("${jwt.secret:your-secret-key-change-this-in-production-min-256-bits}")
-    private String jwtSecret;
-
-    @Value("${jwt.enabled:true}")
-    private boolean jwtEnabled;
-
     private static final String AUTHORIZATION_HEADER = "Authorization";
     private static final String BEARER_PREFIX = "Bearer ";
     private static final String USER_ID_HEADER = "X-User-Id";
 
+    private final boolean jwtEnabled;
+
+    private final JwtParser jwtParser;
+
+    private final boolean tokenCacheEnabled;
+
+    private final Cache<TokenHash, VerifiedToken> verifiedTokens;
+
+    private final MeterRegistry meterRegistry;
+
+    public AuthenticationFilter(
+            @Value("${jwt.secret:your-secret-key-change-this-in-production-min-256-bits}") String jwtSecret,
+            @Value("${jwt.enabled:true}") boolean jwtEnabled,
+            @Value("${jwt.token-cache.enabled:true}") boolean tokenCacheEnabled,
+            @Value("${jwt.token-cache.max-size:100000}") long tokenCacheMaxSize,
+            MeterRegistry meterRegistry) {
+        this.jwtEnabled = jwtEnabled;
+        this.tokenCacheEnabled = tokenCacheEnabled;
+        this.meterRegistry = meterRegistry;
+
+        // Keys.hmacShaKeyFor rejects short secrets, which only matter when tokens are actually checked
+        this.jwtParser = jwtEnabled
+                ? Jwts.parserBuilder()
+                        .setSigningKey(Keys.hmacShaKeyFor(jwtSecret.getBytes(StandardCharsets.UTF_8)))
+                        .build()
+                : null;
+
+        this.verifiedTokens = Caffeine.newBuilder()
+                .maximumSize(tokenCacheMaxSize)
+                .expireAfter(new TokenExpiry())
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, verifiedTokens, "wallet.auth.token.cache");
+    }
+
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
                                     FilterChain filterChain) throws ServletException, IOException {
@@ -47,8 +92,7 @@ public class AuthenticationFilter extends OncePerRequestFilter {
                 String token = extractTokenFromRequest(request);
 
                 if (token != null) {
-                    Claims claims = validateAndParseToken(token);
-                    setAuthentication(claims);
+                    setAuthentication(authenticate(token));
                 }
             } else {
                 String userIdHeader = request.getHeader(USER_ID_HEADER);
@@ -91,19 +135,61 @@ public class AuthenticationFilter extends OncePerRequestFilter {
     }
 
 
-    private Claims validateAndParseToken(String token) {
-        SecretKey key = Keys.hmacShaKeyFor(jwtSecret.getBytes(StandardCharsets.UTF_8));
+    /**
+     * Resolves the token's user from the cache of verified tokens, verifying and caching it on a miss.
+     */
+    VerifiedToken authenticate(String token) {
+        if (!tokenCacheEnabled) {
+            return toVerifiedToken(timedValidateAndParseToken(token));
+        }
+
+        TokenHash hash = TokenHash.of(token);
+        VerifiedToken cached = verifiedTokens.getIfPresent(hash);
+        if (cached != null) {
+            return cached;
+        }
+
+        VerifiedToken verified = toVerifiedToken(timedValidateAndParseToken(token));
+        if (verified.expiresAt() != null) {
+            verifiedTokens.put(hash, verified);
+        }
+        return verified;
+    }
 
-        return Jwts.parserBuilder()
-                .setSigningKey(key)
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+
+    /**
+     * Records the verification time as {@code wallet.auth.jwt.validation}, tagged with the outcome
+     * (valid, expired, invalid or error).
+     */
+    private Claims timedValidateAndParseToken(String token) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "valid";
+
+        try {
+            return validateAndParseToken(token);
+        } catch (ExpiredJwtException e) {
+            outcome = "expired";
+            throw e;
+        } catch (JwtException e) {
+            outcome = "invalid";
+            throw e;
+        } catch (RuntimeException e) {
+            outcome = "error";
+            throw e;
+        } finally {
+            sample.stop(Timer.builder("wallet.auth.jwt.validation")
+                    .tag("outcome", outcome)
+                    .register(meterRegistry));
+        }
     }
 
 
-    private void setAuthentication(Claims claims) {
+    Claims validateAndParseToken(String token) {
+        return jwtParser.parseClaimsJws(token).getBody();
+    }
 
+
+    private VerifiedToken toVerifiedToken(Claims claims) {
         Long userId = null;
 
         if (claims.containsKey("userId")) {
@@ -118,7 +204,15 @@ public class AuthenticationFilter extends OncePerRequestFilter {
             throw new IllegalArgumentException("JWT token must contain userId claim");
         }
 
-        String email = claims.getSubject();
+        Instant expiresAt = claims.getExpiration() != null ? claims.getExpiration().toInstant() : null;
+
+        return new VerifiedToken(userId, claims.getSubject(), expiresAt);
+    }
+
+
+    private void setAuthentication(VerifiedToken token) {
+        Long userId = token.userId();
+        String email = token.email();
 
         List<SimpleGrantedAuthority> authorities = Collections.singletonList(
                 new SimpleGrantedAuthority("ROLE_USER")
@@ -165,4 +259,44 @@ public class AuthenticationFilter extends OncePerRequestFilter {
 
         return path.startsWith("/actuator") || path.startsWith("/h2-console");
     }
+
+
+    record VerifiedToken(Long userId, String email, Instant expiresAt) {
+    }
+
+
+    /**
+     * First 128 bits of the token's SHA-256 digest; the raw token is never kept in memory.
+     */
+    private record TokenHash(long high, long low) {
+
+        static TokenHash of(String token) {
+            try {
+                byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+                ByteBuffer buffer = ByteBuffer.wrap(digest);
+                return new TokenHash(buffer.getLong(), buffer.getLong());
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException("SHA-256 is not available", e);
+            }
+        }
+    }
+
+
+    private static final class TokenExpiry implements Expiry<TokenHash, VerifiedToken> {
+
+        @Override
+        public long expireAfterCreate(TokenHash key, VerifiedToken value, long currentTime) {
+            return Math.max(0, Duration.between(Instant.now(), value.expiresAt()).toNanos());
+        }
+
+        @Override
+        public long expireAfterUpdate(TokenHash key, VerifiedToken value, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(TokenHash key, VerifiedToken value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
 }
@@ -0,0 +1,100 @@
+package com.walletService.Repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Balance checkpoints of wallets and the ledger sums replayed on top of them. A checkpoint chains from the
+ * wallet's previous one, so writing it only reads the entries created since.
+ */
+@Repository
+@RequiredArgsConstructor
+public class BalanceSnapshotRepository {
+
+    private static final String SIGNED_AMOUNT =
+            "CASE WHEN e.transaction_type = 'CREDIT' THEN e.amount ELSE -e.amount END";
+
+    /**
+     * One snapshot per wallet in the id range that has ledger entries after its previous snapshot and up to
+     * {@code as_of}. Wallets without new entries keep their previous snapshot.
+     */
+    private static final String CHECKPOINT_RANGE_SQL =
+            "INSERT INTO wallet_balance_snapshots " +
+                    "(wallet_id, as_of, balance, entry_count, last_ledger_id, created_at) " +
+                    "SELECT w.id, ?, COALESCE(s.balance, 0) + d.delta, COALESCE(s.entry_count, 0) + d.entries, " +
+                    "(SELECT e.id FROM ledger_entries e WHERE e.wallet_id = w.id AND e.created_at <= ? " +
+                    "ORDER BY e.created_at DESC, e.id DESC LIMIT 1), ? " +
+                    "FROM wallets w " +
+                    "LEFT JOIN LATERAL (SELECT s.as_of, s.balance, s.entry_count FROM wallet_balance_snapshots s " +
+                    "WHERE s.wallet_id = w.id AND s.as_of <= ? ORDER BY s.as_of DESC LIMIT 1) s ON true " +
+                    "CROSS JOIN LATERAL (SELECT COALESCE(SUM(" + SIGNED_AMOUNT + "), 0) AS delta, " +
+                    "COUNT(*) AS entries " +
+                    "FROM ledger_entries e WHERE e.wallet_id = w.id " +
+                    "AND e.created_at > COALESCE(s.as_of, '-infinity'::timestamp) AND e.created_at <= ?) d " +
+                    "WHERE w.id > ? AND w.id <= ? AND d.entries > 0 " +
+                    "ON CONFLICT (wallet_id, as_of) DO NOTHING";
+
+    private final JdbcTemplate jdbcTemplate;
+
+
+    /**
+     * Returns the highest wallet id among the next {@code batchSize} wallets after {@code afterId}, or empty
+     * when there are none.
+     */
+    public Optional<Long> nextRangeEnd(long afterId, int batchSize) {
+        return Optional.ofNullable(jdbcTemplate.queryForObject(
+                "SELECT MAX(id) FROM (SELECT id FROM wallets WHERE id > ? ORDER BY id LIMIT ?) batch",
+                Long.class, afterId, batchSize));
+    }
+
+
+    public int checkpointRange(long afterId, long throughId, LocalDateTime asOf, LocalDateTime now) {
+        Timestamp asOfTimestamp = Timestamp.valueOf(asOf);
+        return jdbcTemplate.update(CHECKPOINT_RANGE_SQL, asOfTimestamp, asOfTimestamp, Timestamp.valueOf(now),
+                asOfTimestamp, asOfTimestamp, afterId, throughId);
+    }
+
+
+    public Optional<BalanceSnapshot> findLatest(Long walletId, LocalDateTime atOrBefore) {
+        List<BalanceSnapshot> rows = jdbcTemplate.query(
+                "SELECT wallet_id, as_of, balance, entry_count, last_ledger_id FROM wallet_balance_snapshots " +
+                        "WHERE wallet_id = ? AND as_of <= ? ORDER BY as_of DESC LIMIT 1",
+                (rs, rowNum) -> new BalanceSnapshot(rs.getLong(1), rs.getTimestamp(2).toLocalDateTime(),
+                        rs.getBigDecimal(3), rs.getLong(4), rs.getObject(5, Long.class)),
+                walletId, Timestamp.valueOf(atOrBefore));
+
+        return rows.stream().findFirst();
+    }
+
+
+    /**
+     * Signed sum and count of the wallet's entries created after {@code after} (from the beginning when null)
+     * and up to {@code upTo} (without upper bound when null).
+     */
+    public LedgerDelta sumEntries(Long walletId, LocalDateTime after, LocalDateTime upTo) {
+        return jdbcTemplate.queryForObject(
+                "SELECT COALESCE(SUM(" + SIGNED_AMOUNT + "), 0), COUNT(*) FROM ledger_entries e " +
+                        "WHERE e.wallet_id = ? AND e.created_at > COALESCE(CAST(? AS timestamp), '-infinity') " +
+                        "AND e.created_at <= COALESCE(CAST(? AS timestamp), 'infinity')",
+                (rs, rowNum) -> new LedgerDelta(rs.getBigDecimal(1), rs.getLong(2)),
+                walletId,
+                after != null ? Timestamp.valueOf(after) : null,
+                upTo != null ? Timestamp.valueOf(upTo) : null);
+    }
+
+
+    public record BalanceSnapshot(Long walletId, LocalDateTime asOf, BigDecimal balance, long entryCount,
+                                  Long lastLedgerId) {
+    }
+
+
+    public record LedgerDelta(BigDecimal amount, long entries) {
+    }
+}
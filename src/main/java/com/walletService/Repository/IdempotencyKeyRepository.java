@@ -6,8 +6,11 @@ import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -16,7 +19,24 @@ public interface IdempotencyKeyRepository extends JpaRepository<IdempotencyKey,
 
     Optional<IdempotencyKey> findByKeyAndUserId(String key, Long userId);
 
+    @Query("SELECT i FROM IdempotencyKey i WHERE i.user.id IN :userIds AND i.key IN :keys")
+    List<IdempotencyKey> findByUserIdInAndKeyIn(@Param("userIds") Collection<Long> userIds,
+                                                @Param("keys") Collection<String> keys);
+
     @Modifying
     @Query("DELETE FROM IdempotencyKey i WHERE i.expiresAt < :now")
     int deleteExpiredKeys(@Param("now") LocalDateTime now);
+
+    @Query("SELECT COUNT(i) FROM IdempotencyKey i WHERE i.expiresAt < :now")
+    long countExpiredKeys(@Param("now") LocalDateTime now);
+
+    /**
+     * Deletes at most {@code limit} keys that expired before {@code now}, earliest expiry first. The keys are
+     * found through idx_idempotency_keys_expires_at_id alone, so live rows are never read.
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "DELETE FROM idempotency_keys WHERE id IN (SELECT id FROM idempotency_keys " +
+            "WHERE expires_at < :now ORDER BY expires_at LIMIT :limit)", nativeQuery = true)
+    int deleteExpiredKeys(@Param("now") LocalDateTime now, @Param("limit") int limit);
 }
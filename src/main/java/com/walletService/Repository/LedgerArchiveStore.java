@@ -0,0 +1,586 @@
+package com.walletService.Repository;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.walletService.Dto.LedgerEntryView;
+import com.walletService.Entity.TransactionType;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Repository;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Cold ledger months in local segment files, one per month named ledger_entries_pYYYYMM.seg. A segment holds
+ * deflated blocks of up to {@value #BLOCK_ROWS} entries of one wallet in (created_at, id) order, stored column
+ * by column: ids, timestamps (epoch microseconds), amounts and balances (scaled by 10^4) as zigzag varint
+ * deltas, transaction types and descriptions as codes into per-segment dictionaries, references and
+ * idempotency keys as strings. The index at the end of the file lists each block's wallet, time span, offset
+ * and row count, so reading a wallet's month inflates only that wallet's blocks.
+ * <p>
+ * Segments are written once to a temporary file and moved into place complete; they are never modified.
+ */
+@Repository
+@Slf4j
+public class LedgerArchiveStore {
+
+    private static final int MAGIC = 0x574C4131;
+    private static final int FOOTER_BYTES = Long.BYTES + Integer.BYTES;
+    private static final int BLOCK_ROWS = 4096;
+    private static final int DICTIONARY_LIMIT = 65_536;
+    private static final int AMOUNT_SCALE = 4;
+
+    /**
+     * Dictionary-coded column values: 0 is NULL, 1 is followed by the value inline, n >= 2 is dictionary entry n - 2.
+     */
+    private static final int NULL_CODE = 0;
+    private static final int INLINE_CODE = 1;
+    private static final int FIRST_DICTIONARY_CODE = 2;
+
+    private static final Pattern SEGMENT_NAME = Pattern.compile("ledger_entries_p(\\d{6})\\.seg");
+    private static final DateTimeFormatter SEGMENT_MONTH = DateTimeFormatter.ofPattern("yyyyMM");
+
+    private final Path directory;
+    private final Cache<SegmentVersion, SegmentIndex> indexes;
+
+
+    public LedgerArchiveStore(@Value("${wallet.ledger.archive.dir:ledger-archive}") String directory,
+                              @Value("${wallet.ledger.archive.index-cache-size:24}") int indexCacheSize) {
+        this.directory = Path.of(directory);
+        this.indexes = Caffeine.newBuilder().maximumSize(indexCacheSize).build();
+
+        if (Files.isDirectory(this.directory)) {
+            log.info("Ledger archive {} holds {} monthly segments", this.directory, archivedMonths().size());
+        }
+    }
+
+
+    /**
+     * The months with a segment in the directory. The directory is listed on every call, so a segment committed
+     * by another instance sharing it is seen as soon as it has been moved into place.
+     */
+    public NavigableSet<YearMonth> archivedMonths() {
+        if (!Files.isDirectory(directory)) {
+            return Collections.emptyNavigableSet();
+        }
+
+        NavigableSet<YearMonth> months = new TreeSet<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            files.map(file -> SEGMENT_NAME.matcher(file.getFileName().toString()))
+                    .filter(Matcher::matches)
+                    .forEach(matcher -> months.add(YearMonth.parse(matcher.group(1), SEGMENT_MONTH)));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot list ledger archive " + directory, e);
+        }
+        return Collections.unmodifiableNavigableSet(months);
+    }
+
+
+    /**
+     * Starts a segment for the month. Entries must be appended grouped by wallet in (created_at, id) order;
+     * the segment becomes visible on {@link SegmentWriter#commit()} and replaces an earlier one of the month.
+     */
+    public SegmentWriter openSegment(YearMonth month) {
+        try {
+            Files.createDirectories(directory);
+            return new SegmentWriter(month, Files.createTempFile(directory, segmentName(month), ".tmp"));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot create ledger archive segment for " + month, e);
+        }
+    }
+
+
+    /**
+     * The wallet's archived entries of the month with createdAt in [fromTime, toTime], in (createdAt, id) order.
+     * Indexes are cached per segment file version, so a segment replaced by another instance is not read through
+     * the index of the one it replaced.
+     */
+    public List<ArchivedLedgerEntry> read(YearMonth month, long walletId, LocalDateTime fromTime,
+                                          LocalDateTime toTime) {
+        SegmentVersion version;
+        try {
+            version = new SegmentVersion(month, Files.getLastModifiedTime(segmentPath(month)));
+        } catch (NoSuchFileException e) {
+            return List.of();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read ledger archive segment for " + month, e);
+        }
+
+        SegmentIndex index = indexes.get(version, this::loadIndex);
+        List<BlockRef> blocks = index.blocks().getOrDefault(walletId, List.of());
+        if (blocks.isEmpty()) {
+            return List.of();
+        }
+        long fromMicros = micros(fromTime);
+        long toMicros = micros(toTime);
+
+        List<ArchivedLedgerEntry> entries = new ArrayList<>();
+        try (FileChannel channel = FileChannel.open(segmentPath(month), StandardOpenOption.READ)) {
+            for (BlockRef block : blocks) {
+                if (block.lastMicros() < fromMicros || block.firstMicros() > toMicros) {
+                    continue;
+                }
+                for (ArchivedLedgerEntry entry : decodeBlock(readFully(channel, block.offset(), block.length()),
+                        walletId, index)) {
+                    long at = micros(entry.createdAt());
+                    if (at >= fromMicros && at <= toMicros) {
+                        entries.add(entry);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read ledger archive segment for " + month, e);
+        }
+        return entries;
+    }
+
+
+    private SegmentIndex loadIndex(SegmentVersion version) {
+        YearMonth month = version.month();
+        try (FileChannel channel = FileChannel.open(segmentPath(month), StandardOpenOption.READ)) {
+            long size = channel.size();
+            ByteBuffer footer = ByteBuffer.wrap(readFully(channel, size - FOOTER_BYTES, FOOTER_BYTES));
+            long indexOffset = footer.getLong();
+            if (footer.getInt() != MAGIC) {
+                throw new IllegalStateException("Not a ledger archive segment: " + segmentPath(month));
+            }
+
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(
+                    readFully(channel, indexOffset, (int) (size - FOOTER_BYTES - indexOffset))));
+            List<String> types = readDictionary(in);
+            List<String> descriptions = readDictionary(in);
+
+            Map<Long, List<BlockRef>> blocks = new HashMap<>();
+            int blockCount = in.readInt();
+            for (int i = 0; i < blockCount; i++) {
+                BlockRef block = new BlockRef(in.readLong(), in.readLong(), in.readLong(), in.readLong(),
+                        in.readInt(), in.readInt());
+                blocks.computeIfAbsent(block.walletId(), walletId -> new ArrayList<>()).add(block);
+            }
+            return new SegmentIndex(types, descriptions, blocks);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read ledger archive index for " + month, e);
+        }
+    }
+
+
+    private static byte[] encodeBlock(List<ArchivedLedgerEntry> entries, Dictionary types, Dictionary descriptions)
+            throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        try (DataOutputStream out = new DataOutputStream(new DeflaterOutputStream(bytes, deflater))) {
+            writeVarLong(out, entries.size());
+
+            long previous = 0;
+            for (ArchivedLedgerEntry entry : entries) {
+                writeVarLong(out, zigzag(entry.id() - previous));
+                previous = entry.id();
+            }
+            previous = 0;
+            for (ArchivedLedgerEntry entry : entries) {
+                long at = micros(entry.createdAt());
+                writeVarLong(out, zigzag(at - previous));
+                previous = at;
+            }
+            previous = 0;
+            for (ArchivedLedgerEntry entry : entries) {
+                long amount = unscaled(entry.amount());
+                writeVarLong(out, zigzag(amount - previous));
+                previous = amount;
+            }
+            previous = 0;
+            for (ArchivedLedgerEntry entry : entries) {
+                long balance = unscaled(entry.balanceAfter());
+                writeVarLong(out, zigzag(balance - previous));
+                previous = balance;
+            }
+            for (ArchivedLedgerEntry entry : entries) {
+                writeCoded(out, types, entry.transactionType().name());
+            }
+            for (ArchivedLedgerEntry entry : entries) {
+                writeCoded(out, descriptions, entry.description());
+            }
+            for (ArchivedLedgerEntry entry : entries) {
+                writeString(out, entry.referenceId());
+            }
+            for (ArchivedLedgerEntry entry : entries) {
+                writeString(out, entry.idempotencyKey());
+            }
+        } finally {
+            deflater.end();
+        }
+        return bytes.toByteArray();
+    }
+
+
+    private static List<ArchivedLedgerEntry> decodeBlock(byte[] block, long walletId, SegmentIndex index)
+            throws IOException {
+        Inflater inflater = new Inflater();
+        try (DataInputStream in = new DataInputStream(new InflaterInputStream(new ByteArrayInputStream(block),
+                inflater))) {
+            int count = (int) readVarLong(in);
+            long[] ids = readDeltas(in, count);
+            long[] micros = readDeltas(in, count);
+            long[] amounts = readDeltas(in, count);
+            long[] balances = readDeltas(in, count);
+            String[] types = readCoded(in, count, index.types());
+            String[] descriptions = readCoded(in, count, index.descriptions());
+            String[] references = readStrings(in, count);
+            String[] keys = readStrings(in, count);
+
+            List<ArchivedLedgerEntry> entries = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                entries.add(new ArchivedLedgerEntry(ids[i], walletId, TransactionType.valueOf(types[i]),
+                        BigDecimal.valueOf(amounts[i], AMOUNT_SCALE), BigDecimal.valueOf(balances[i], AMOUNT_SCALE),
+                        descriptions[i], references[i], keys[i], dateTime(micros[i])));
+            }
+            return entries;
+        } finally {
+            inflater.end();
+        }
+    }
+
+
+    private static long[] readDeltas(DataInput in, int count) throws IOException {
+        long[] values = new long[count];
+        long previous = 0;
+        for (int i = 0; i < count; i++) {
+            previous += unzigzag(readVarLong(in));
+            values[i] = previous;
+        }
+        return values;
+    }
+
+
+    private static void writeCoded(DataOutput out, Dictionary dictionary, String value) throws IOException {
+        if (value == null) {
+            writeVarLong(out, NULL_CODE);
+            return;
+        }
+
+        int code = dictionary.code(value);
+        if (code < 0) {
+            writeVarLong(out, INLINE_CODE);
+            writeString(out, value);
+        } else {
+            writeVarLong(out, FIRST_DICTIONARY_CODE + code);
+        }
+    }
+
+
+    private static String[] readCoded(DataInput in, int count, List<String> dictionary) throws IOException {
+        String[] values = new String[count];
+        for (int i = 0; i < count; i++) {
+            int code = (int) readVarLong(in);
+            values[i] = switch (code) {
+                case NULL_CODE -> null;
+                case INLINE_CODE -> readString(in);
+                default -> dictionary.get(code - FIRST_DICTIONARY_CODE);
+            };
+        }
+        return values;
+    }
+
+
+    private static void writeString(DataOutput out, String value) throws IOException {
+        if (value == null) {
+            writeVarLong(out, 0);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarLong(out, bytes.length + 1L);
+        out.write(bytes);
+    }
+
+
+    private static String readString(DataInput in) throws IOException {
+        int length = (int) readVarLong(in);
+        if (length == 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length - 1];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+
+    private static String[] readStrings(DataInput in, int count) throws IOException {
+        String[] values = new String[count];
+        for (int i = 0; i < count; i++) {
+            values[i] = readString(in);
+        }
+        return values;
+    }
+
+
+    private static List<String> readDictionary(DataInput in) throws IOException {
+        int size = in.readInt();
+        List<String> values = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            values.add(in.readUTF());
+        }
+        return values;
+    }
+
+
+    private static void writeVarLong(DataOutput out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+
+    private static long readVarLong(DataInput in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < Long.SIZE; shift += 7) {
+            byte b = in.readByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed varint in ledger archive");
+    }
+
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+
+    /**
+     * NUMERIC(19, 4) scaled to a long; the rare amount beyond about 9.2 * 10^14 fails the segment.
+     */
+    private static long unscaled(BigDecimal amount) {
+        return amount.setScale(AMOUNT_SCALE).unscaledValue().longValueExact();
+    }
+
+
+    private static long micros(LocalDateTime dateTime) {
+        return dateTime.toEpochSecond(ZoneOffset.UTC) * 1_000_000 + dateTime.getNano() / 1_000;
+    }
+
+
+    private static LocalDateTime dateTime(long micros) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(micros, 1_000_000),
+                (int) Math.floorMod(micros, 1_000_000) * 1_000, ZoneOffset.UTC);
+    }
+
+
+    private static byte[] readFully(FileChannel channel, long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Truncated ledger archive segment");
+            }
+        }
+        return buffer.array();
+    }
+
+
+    private Path segmentPath(YearMonth month) {
+        return directory.resolve(segmentName(month) + ".seg");
+    }
+
+
+    private static String segmentName(YearMonth month) {
+        return "ledger_entries_p" + month.format(SEGMENT_MONTH);
+    }
+
+
+    /**
+     * Writes one segment. Closing it without {@link #commit()} discards the temporary file.
+     */
+    public final class SegmentWriter implements AutoCloseable {
+
+        private final YearMonth month;
+        private final Path file;
+        private final FileOutputStream stream;
+        private final DataOutputStream out;
+        private final Dictionary types = new Dictionary();
+        private final Dictionary descriptions = new Dictionary();
+        private final List<BlockRef> blocks = new ArrayList<>();
+        private final List<ArchivedLedgerEntry> block = new ArrayList<>(BLOCK_ROWS);
+        private long position;
+        private long rows;
+        private boolean committed;
+
+        private SegmentWriter(YearMonth month, Path file) throws IOException {
+            this.month = month;
+            this.file = file;
+            this.stream = new FileOutputStream(file.toFile());
+            this.out = new DataOutputStream(new BufferedOutputStream(stream, 1 << 16));
+            out.writeInt(MAGIC);
+            position = Integer.BYTES;
+        }
+
+        public void append(ArchivedLedgerEntry entry) {
+            if (!block.isEmpty() && (block.size() == BLOCK_ROWS || block.get(0).walletId() != entry.walletId())) {
+                flushBlock();
+            }
+            block.add(entry);
+        }
+
+        /**
+         * Writes the index, syncs the file, moves it into place and syncs the directory, so the new name is
+         * durable before the caller drops the month from the database. Returns the number of entries archived.
+         */
+        public long commit() {
+            flushBlock();
+            try {
+                long indexOffset = position;
+                types.write(out);
+                descriptions.write(out);
+                out.writeInt(blocks.size());
+                for (BlockRef ref : blocks) {
+                    out.writeLong(ref.walletId());
+                    out.writeLong(ref.firstMicros());
+                    out.writeLong(ref.lastMicros());
+                    out.writeLong(ref.offset());
+                    out.writeInt(ref.length());
+                    out.writeInt(ref.rows());
+                }
+                out.writeLong(indexOffset);
+                out.writeInt(MAGIC);
+                out.flush();
+                stream.getFD().sync();
+                out.close();
+
+                Files.move(file, segmentPath(month), StandardCopyOption.ATOMIC_MOVE,
+                        StandardCopyOption.REPLACE_EXISTING);
+                try (FileChannel dir = FileChannel.open(directory, StandardOpenOption.READ)) {
+                    dir.force(true);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot write ledger archive segment for " + month, e);
+            }
+
+            committed = true;
+            return rows;
+        }
+
+        @Override
+        public void close() {
+            if (committed) {
+                return;
+            }
+            try {
+                out.close();
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                log.warn("Could not remove unfinished ledger archive segment {}", file, e);
+            }
+        }
+
+        private void flushBlock() {
+            if (block.isEmpty()) {
+                return;
+            }
+            try {
+                byte[] encoded = encodeBlock(block, types, descriptions);
+                out.write(encoded);
+                blocks.add(new BlockRef(block.get(0).walletId(), micros(block.get(0).createdAt()),
+                        micros(block.get(block.size() - 1).createdAt()), position, encoded.length, block.size()));
+                position += encoded.length;
+                rows += block.size();
+                block.clear();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot write ledger archive segment for " + month, e);
+            }
+        }
+    }
+
+
+    /**
+     * Values in first-seen order; once {@value #DICTIONARY_LIMIT} are known, new values are stored inline.
+     */
+    private static final class Dictionary {
+
+        private final Map<String, Integer> codes = new HashMap<>();
+        private final List<String> values = new ArrayList<>();
+
+        int code(String value) {
+            Integer code = codes.get(value);
+            if (code == null && values.size() < DICTIONARY_LIMIT) {
+                code = values.size();
+                codes.put(value, code);
+                values.add(value);
+            }
+            return code != null ? code : -1;
+        }
+
+        void write(DataOutput out) throws IOException {
+            out.writeInt(values.size());
+            for (String value : values) {
+                out.writeUTF(value);
+            }
+        }
+    }
+
+
+    private record SegmentVersion(YearMonth month, FileTime modified) {
+    }
+
+
+    private record BlockRef(long walletId, long firstMicros, long lastMicros, long offset, int length, int rows) {
+    }
+
+
+    private record SegmentIndex(List<String> types, List<String> descriptions, Map<Long, List<BlockRef>> blocks) {
+    }
+
+
+    public record ArchivedLedgerEntry(long id, long walletId, TransactionType transactionType, BigDecimal amount,
+                                      BigDecimal balanceAfter, String description, String referenceId,
+                                      String idempotencyKey, LocalDateTime createdAt) {
+
+        public LedgerEntryView toView() {
+            return new LedgerEntryView(id, transactionType, amount, balanceAfter, description, referenceId,
+                    createdAt);
+        }
+    }
+}
@@ -1,6 +1,8 @@
 package com.walletService.Repository;
 
+import com.walletService.Dto.LedgerEntryView;
 import com.walletService.Entity.LedgerEntry;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -10,6 +12,10 @@ import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
+/**
+ * ledger_entries is range-partitioned by month of created_at. Queries that bound createdAt with plain
+ * comparisons let Postgres skip the months outside the bounds, also for bind parameters at execution time.
+ */
 @Repository
 public interface LedgerEntryRepository extends JpaRepository<LedgerEntry, Long> {
 
@@ -25,7 +31,41 @@ public interface LedgerEntryRepository extends JpaRepository<LedgerEntry, Long>
                                                         @Param("toTime") LocalDateTime toTime);
 
 
-    Optional<LedgerEntry> findByIdempotencyKey(String idempotencyKey);
+    /**
+     * Keyset page of a wallet's history inside [fromTime, toTime], strictly after the cursor position
+     * in (createdAt DESC, id DESC) order. Served from idx_wallet_created with the limit applied in SQL,
+     * and projected straight into {@link LedgerEntryView} without loading entities. The cursor is repeated
+     * as a plain upper bound so the index range scan starts at the cursor and later pages also skip the
+     * months newer than the cursor; the OR alone does neither.
+     */
+    @Query("SELECT new com.walletService.Dto.LedgerEntryView(l.id, l.transactionType, l.amount, " +
+            "l.balanceAfter, l.description, l.referenceId, l.createdAt) " +
+            "FROM LedgerEntry l WHERE l.wallet.id = :walletId " +
+            "AND l.createdAt BETWEEN :fromTime AND :toTime " +
+            "AND l.createdAt <= :cursorTime " +
+            "AND (l.createdAt < :cursorTime OR (l.createdAt = :cursorTime AND l.id < :cursorId)) " +
+            "ORDER BY l.createdAt DESC, l.id DESC")
+    List<LedgerEntryView> findPage(@Param("walletId") Long walletId,
+                                   @Param("fromTime") LocalDateTime fromTime,
+                                   @Param("toTime") LocalDateTime toTime,
+                                   @Param("cursorTime") LocalDateTime cursorTime,
+                                   @Param("cursorId") Long cursorId,
+                                   Limit limit);
+
+
+    /**
+     * Entity-loading counterpart of {@link #findPage} without range or cursor, kept for comparison benchmarks.
+     */
+    List<LedgerEntry> findByWalletIdOrderByCreatedAtDescIdDesc(Long walletId, Limit limit);
+
+
+    /**
+     * Resolves the key's created_at through ledger_entry_keys first, so only one partition is read.
+     */
+    @Query(value = "SELECT e.* FROM ledger_entry_keys k JOIN ledger_entries e " +
+            "ON e.id = k.ledger_entry_id AND e.created_at = k.created_at " +
+            "WHERE k.idempotency_key = :idempotencyKey", nativeQuery = true)
+    Optional<LedgerEntry> findByIdempotencyKey(@Param("idempotencyKey") String idempotencyKey);
 
 
     @Query("SELECT l FROM LedgerEntry l WHERE l.wallet.id = :walletId " +
@@ -0,0 +1,198 @@
+package com.walletService.Repository;
+
+import com.walletService.Entity.TransactionType;
+import com.walletService.Repository.LedgerArchiveStore.ArchivedLedgerEntry;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Monthly partitions of ledger_entries: creating upcoming months, detaching old ones into the ledger_archive
+ * schema and reading detached ones out for the file archive. Partition names are ledger_entries_pYYYYMM, see
+ * V6__partition_ledger_entries.sql.
+ */
+@Repository
+@RequiredArgsConstructor
+public class LedgerPartitionRepository {
+
+    private static final Pattern PARTITION_NAME = Pattern.compile("ledger_entries_p(\\d{6})");
+    private static final DateTimeFormatter PARTITION_MONTH = DateTimeFormatter.ofPattern("yyyyMM");
+
+    private static final String ATTACHED_PARTITIONS_SQL =
+            "SELECT c.relname FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid " +
+                    "WHERE i.inhparent = 'ledger_entries'::regclass AND NOT i.inhdetachpending ORDER BY c.relname";
+
+    /**
+     * Partitions a DETACH ... CONCURRENTLY left half done, either still marked pending in pg_inherits or detached
+     * but not yet moved out of the current schema.
+     */
+    private static final String INTERRUPTED_DETACHES_SQL =
+            "SELECT c.relname FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid " +
+                    "WHERE i.inhparent = 'ledger_entries'::regclass AND i.inhdetachpending " +
+                    "UNION SELECT c.relname FROM pg_class c JOIN pg_namespace n ON n.oid = c.relnamespace " +
+                    "WHERE n.nspname = current_schema() AND c.relkind = 'r' " +
+                    "AND c.relname LIKE 'ledger\\_entries\\_p%' " +
+                    "AND NOT EXISTS (SELECT 1 FROM pg_inherits i WHERE i.inhrelid = c.oid) ORDER BY 1";
+
+    private static final String STREAM_DETACHED_SQL =
+            "SELECT id, wallet_id, transaction_type, amount, balance_after, description, reference_id, " +
+                    "idempotency_key, created_at FROM ledger_archive.%s ORDER BY wallet_id, created_at, id";
+
+    /**
+     * A wallet with entries in the partition and no snapshot taken at or after its last entry there. Detaching
+     * the month would leave that wallet's later balances without a starting point. Snapshots are only written
+     * for wallets with new entries, so a wallet that went dormant during the month is covered by the snapshot
+     * after its last entry rather than by one at the month's end.
+     */
+    private static final String UNCOVERED_WALLET_SQL =
+            "SELECT EXISTS (SELECT 1 FROM (SELECT wallet_id, MAX(created_at) AS last_entry FROM %s " +
+                    "GROUP BY wallet_id) e WHERE NOT EXISTS (SELECT 1 FROM wallet_balance_snapshots s " +
+                    "WHERE s.wallet_id = e.wallet_id AND s.as_of >= e.last_entry))";
+
+    private final JdbcTemplate jdbcTemplate;
+
+
+    /**
+     * Creates the missing partitions for every month from {@code from} through {@code to}.
+     */
+    public int createPartitions(YearMonth from, YearMonth to) {
+        Integer created = jdbcTemplate.queryForObject("SELECT create_ledger_entries_partitions(?, ?)",
+                Integer.class, Timestamp.valueOf(startOf(from)), Timestamp.valueOf(startOf(to)));
+        return Objects.requireNonNull(created);
+    }
+
+
+    public List<LedgerPartition> findAttachedPartitions() {
+        return toPartitions(jdbcTemplate.queryForList(ATTACHED_PARTITIONS_SQL, String.class));
+    }
+
+
+    /**
+     * Partitions detached into ledger_archive and not yet written to the file archive.
+     */
+    public List<LedgerPartition> findDetachedPartitions() {
+        return toPartitions(jdbcTemplate.queryForList(
+                "SELECT tablename FROM pg_tables WHERE schemaname = 'ledger_archive' ORDER BY tablename",
+                String.class));
+    }
+
+
+    /**
+     * Whether every wallet with entries in the partition has a balance snapshot as of its last entry there
+     * or later.
+     */
+    public boolean isCoveredBySnapshots(LedgerPartition partition) {
+        Boolean uncovered = jdbcTemplate.queryForObject(
+                String.format(UNCOVERED_WALLET_SQL, partition.name()), Boolean.class);
+        return !Boolean.TRUE.equals(uncovered);
+    }
+
+
+    /**
+     * Whether the wallet_events outbox still has rows for entries of the partition. Their events are published
+     * from ledger_entries, so the month must stay attached until they are delivered.
+     */
+    public boolean hasPendingEvents(LedgerPartition partition) {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                "SELECT EXISTS (SELECT 1 FROM wallet_events WHERE ledger_created_at >= ? AND ledger_created_at < ?)",
+                Boolean.class, Timestamp.valueOf(partition.start()), Timestamp.valueOf(partition.end())));
+    }
+
+
+    /**
+     * Detaches the partition without blocking writers to the other months and moves it to ledger_archive.
+     * DETACH ... CONCURRENTLY cannot run inside a transaction, so this must be called without one.
+     */
+    public void detachToArchive(LedgerPartition partition) {
+        jdbcTemplate.execute("ALTER TABLE ledger_entries DETACH PARTITION " + partition.name() + " CONCURRENTLY");
+        jdbcTemplate.execute("ALTER TABLE " + partition.name() + " SET SCHEMA ledger_archive");
+    }
+
+
+    /**
+     * Partitions whose detach was interrupted, for example by a crash or a cancelled statement, oldest first.
+     */
+    public List<LedgerPartition> findInterruptedDetaches() {
+        return toPartitions(jdbcTemplate.queryForList(INTERRUPTED_DETACHES_SQL, String.class));
+    }
+
+
+    /**
+     * Completes an interrupted {@link #detachToArchive}: finalizes a pending detach, then moves the partition
+     * to ledger_archive. Must be called without a transaction, like the detach itself.
+     */
+    public void finishDetachToArchive(LedgerPartition partition) {
+        Boolean pending = jdbcTemplate.queryForObject(
+                "SELECT EXISTS (SELECT 1 FROM pg_inherits WHERE inhrelid = ?::regclass AND inhdetachpending)",
+                Boolean.class, partition.name());
+        if (Boolean.TRUE.equals(pending)) {
+            jdbcTemplate.execute("ALTER TABLE ledger_entries DETACH PARTITION " + partition.name() + " FINALIZE");
+        }
+        jdbcTemplate.execute("ALTER TABLE " + partition.name() + " SET SCHEMA ledger_archive");
+    }
+
+
+    /**
+     * Streams a detached partition grouped by wallet in (created_at, id) order through a server-side cursor.
+     * Must run inside a transaction: the PostgreSQL driver only honours the fetch size with auto-commit off.
+     */
+    public void streamDetachedPartition(LedgerPartition partition, int fetchSize,
+                                        Consumer<ArchivedLedgerEntry> consumer) {
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(
+                    String.format(STREAM_DETACHED_SQL, partition.name()));
+            statement.setFetchSize(fetchSize);
+            return statement;
+        }, rs -> {
+            consumer.accept(new ArchivedLedgerEntry(rs.getLong(1), rs.getLong(2),
+                    TransactionType.valueOf(rs.getString(3)), rs.getBigDecimal(4), rs.getBigDecimal(5),
+                    rs.getString(6), rs.getString(7), rs.getString(8), rs.getTimestamp(9).toLocalDateTime()));
+        });
+    }
+
+
+    public void dropDetached(LedgerPartition partition) {
+        jdbcTemplate.execute("DROP TABLE ledger_archive." + partition.name());
+    }
+
+
+    private static List<LedgerPartition> toPartitions(List<String> tableNames) {
+        return tableNames.stream()
+                .map(PARTITION_NAME::matcher)
+                .filter(Matcher::matches)
+                .map(matcher -> new LedgerPartition(matcher.group(0),
+                        YearMonth.parse(matcher.group(1), PARTITION_MONTH)))
+                .toList();
+    }
+
+
+    private static LocalDateTime startOf(YearMonth month) {
+        return month.atDay(1).atStartOfDay();
+    }
+
+
+    /**
+     * One month of ledger entries, created_at in [month start, next month start).
+     */
+    public record LedgerPartition(String name, YearMonth month) {
+
+        public LocalDateTime start() {
+            return startOf(month);
+        }
+
+        public LocalDateTime end() {
+            return startOf(month.plusMonths(1));
+        }
+    }
+}
@@ -0,0 +1,210 @@
+package com.walletService.Repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Runs, ranges and discrepancies of the whole-ledger reconciliation, and the streaming read of a range.
+ */
+@Repository
+@RequiredArgsConstructor
+public class ReconciliationRepository {
+
+    /**
+     * Amounts are NUMERIC(19, 4); multiplied by 10^4 they fit a long unless they exceed about 9.2 * 10^14.
+     * Larger values come back as NULL and the caller reads the exact column instead.
+     */
+    private static final String SCALE_LIMIT = "900000000000000";
+
+    /**
+     * Transaction-scoped advisory lock held while a run is looked up or created, so two callers starting at
+     * once cannot both create one.
+     */
+    private static final long RUN_START_LOCK_KEY = 0x57414C4C45545243L;
+
+    /**
+     * Every wallet of the range with its ledger entries in ledger order; a wallet without entries yields one
+     * row with NULL entry columns. Each row carries the wallet's total balance including its treasury slots,
+     * the wallet row's own balance, and for an entry that changed a slot, that slot's current balance. The
+     * last two columns are the balance of the wallet's latest snapshot at or before the given start of the
+     * attached ledger, NULL without one; only the entries created after that snapshot are returned.
+     */
+    private static final String STREAM_RANGE_SQL =
+            "SELECT w.id, " + scaled("w.total") + ", w.total, " + scaled("w.balance") + ", w.balance, " +
+                    "e.transaction_type, " + scaled("e.amount") + ", e.amount, " + scaled("e.balance_after") +
+                    ", e.balance_after, e.slot_index, es.balance, " + scaled("w.snapshot_balance") +
+                    ", w.snapshot_balance " +
+                    "FROM (SELECT w.id, w.balance, w.balance + COALESCE(s.balance, 0) AS total, " +
+                    "b.as_of AS snapshot_as_of, b.balance AS snapshot_balance " +
+                    "FROM wallets w LEFT JOIN (SELECT wallet_id, SUM(balance) AS balance FROM wallet_slots " +
+                    "WHERE wallet_id BETWEEN ? AND ? GROUP BY wallet_id) s ON s.wallet_id = w.id " +
+                    "LEFT JOIN LATERAL (SELECT b.as_of, b.balance FROM wallet_balance_snapshots b " +
+                    "WHERE b.wallet_id = w.id AND b.as_of <= ? ORDER BY b.as_of DESC LIMIT 1) b ON true " +
+                    "WHERE w.id BETWEEN ? AND ?) w " +
+                    "LEFT JOIN ledger_entries e ON e.wallet_id = w.id " +
+                    "AND e.created_at > COALESCE(w.snapshot_as_of, '-infinity'::timestamp) " +
+                    "LEFT JOIN wallet_slots es ON es.wallet_id = e.wallet_id AND es.slot_index = e.slot_index " +
+                    "ORDER BY w.id, e.created_at, e.id";
+
+    private final JdbcTemplate jdbcTemplate;
+
+
+    /**
+     * Returns the unfinished run, or creates one when there is none, under the run start lock. Empty when another
+     * caller holds the lock, which means that caller is starting or resuming the run at this moment.
+     */
+    @Transactional
+    public Optional<RunStart> startOrResumeRun(int rangeSize, LocalDateTime now) {
+        if (!Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                "SELECT pg_try_advisory_xact_lock(?)", Boolean.class, RUN_START_LOCK_KEY))) {
+            return Optional.empty();
+        }
+
+        Optional<Long> unfinished = findUnfinishedRun();
+        if (unfinished.isPresent()) {
+            return Optional.of(new RunStart(unfinished.get(), true));
+        }
+        return Optional.of(new RunStart(createRun(rangeSize, now), false));
+    }
+
+
+    public Optional<Long> findUnfinishedRun() {
+        return jdbcTemplate.queryForList(
+                "SELECT id FROM reconciliation_runs WHERE status = 'RUNNING' ORDER BY id DESC LIMIT 1", Long.class)
+                .stream().findFirst();
+    }
+
+
+    /**
+     * Creates a run and splits the current wallets into ranges of {@code rangeSize} wallets each.
+     */
+    public long createRun(int rangeSize, LocalDateTime now) {
+        Long runId = jdbcTemplate.queryForObject(
+                "INSERT INTO reconciliation_runs (status, started_at) VALUES ('RUNNING', ?) RETURNING id",
+                Long.class, Timestamp.valueOf(now));
+
+        jdbcTemplate.update(
+                "INSERT INTO reconciliation_ranges (run_id, range_start, range_end, status) " +
+                        "SELECT ?, MIN(id), MAX(id), 'PENDING' FROM " +
+                        "(SELECT id, (row_number() OVER (ORDER BY id) - 1) / ? AS bucket FROM wallets) w " +
+                        "GROUP BY bucket",
+                runId, rangeSize);
+
+        return runId;
+    }
+
+
+    public List<ReconciliationRange> findPendingRanges(long runId) {
+        return jdbcTemplate.query(
+                "SELECT run_id, range_start, range_end FROM reconciliation_ranges " +
+                        "WHERE run_id = ? AND status = 'PENDING' ORDER BY range_start",
+                (rs, rowNum) -> new ReconciliationRange(rs.getLong(1), rs.getLong(2), rs.getLong(3)),
+                runId);
+    }
+
+
+    /**
+     * Streams the range row by row through a server-side cursor. Months before {@code ledgerStart}, the lower
+     * bound of the oldest attached partition, are no longer in ledger_entries and are accounted for by each
+     * wallet's snapshot at or before it; a null {@code ledgerStart} replays every entry. Must run inside a
+     * transaction: the PostgreSQL driver only honours the fetch size with auto-commit off.
+     */
+    public void streamRange(ReconciliationRange range, LocalDateTime ledgerStart, int fetchSize,
+                            RowCallbackHandler handler) {
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(STREAM_RANGE_SQL);
+            statement.setFetchSize(fetchSize);
+            statement.setLong(1, range.rangeStart());
+            statement.setLong(2, range.rangeEnd());
+            statement.setTimestamp(3, ledgerStart != null ? Timestamp.valueOf(ledgerStart) : null);
+            statement.setLong(4, range.rangeStart());
+            statement.setLong(5, range.rangeEnd());
+            return statement;
+        }, handler);
+    }
+
+
+    /**
+     * Records the discrepancies of a range and marks it done. Discrepancies already recorded by an earlier
+     * attempt at the same range are kept.
+     */
+    public void completeRange(ReconciliationRange range, long wallets, long entries,
+                              List<WalletDiscrepancy> discrepancies, LocalDateTime now) {
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO reconciliation_discrepancies " +
+                        "(run_id, wallet_id, stored_balance, last_balance_after, ledger_sum, entry_count) " +
+                        "VALUES (?, ?, ?, ?, ?, ?) ON CONFLICT (run_id, wallet_id) DO NOTHING",
+                discrepancies, discrepancies.size(), (statement, discrepancy) -> {
+                    statement.setLong(1, range.runId());
+                    statement.setLong(2, discrepancy.walletId());
+                    statement.setBigDecimal(3, discrepancy.storedBalance());
+                    statement.setBigDecimal(4, discrepancy.lastBalanceAfter());
+                    statement.setBigDecimal(5, discrepancy.ledgerSum());
+                    statement.setLong(6, discrepancy.entryCount());
+                });
+
+        jdbcTemplate.update(
+                "UPDATE reconciliation_ranges SET status = 'DONE', wallets = ?, entries = ?, completed_at = ? " +
+                        "WHERE run_id = ? AND range_start = ?",
+                wallets, entries, Timestamp.valueOf(now), range.runId(), range.rangeStart());
+    }
+
+
+    /**
+     * Marks the run finished with totals summed over its ranges and returns them.
+     */
+    public RunTotals completeRun(long runId, LocalDateTime now) {
+        return jdbcTemplate.queryForObject(
+                "UPDATE reconciliation_runs r SET status = 'DONE', finished_at = ?, " +
+                        "wallets = t.wallets, entries = t.entries, discrepancies = t.discrepancies " +
+                        "FROM (SELECT COALESCE(SUM(wallets), 0) AS wallets, COALESCE(SUM(entries), 0) AS entries, " +
+                        "(SELECT COUNT(*) FROM reconciliation_discrepancies WHERE run_id = ?) AS discrepancies " +
+                        "FROM reconciliation_ranges WHERE run_id = ?) t " +
+                        "WHERE r.id = ? RETURNING r.started_at, r.wallets, r.entries, r.discrepancies",
+                (rs, rowNum) -> new RunTotals(rs.getTimestamp(1).toLocalDateTime(), rs.getLong(2), rs.getLong(3),
+                        rs.getLong(4)),
+                Timestamp.valueOf(now), runId, runId, runId);
+    }
+
+
+    public List<WalletDiscrepancy> findDiscrepancies(long runId) {
+        return jdbcTemplate.query(
+                "SELECT wallet_id, stored_balance, last_balance_after, ledger_sum, entry_count " +
+                        "FROM reconciliation_discrepancies WHERE run_id = ? ORDER BY wallet_id",
+                (rs, rowNum) -> new WalletDiscrepancy(rs.getLong(1), rs.getBigDecimal(2), rs.getBigDecimal(3),
+                        rs.getBigDecimal(4), rs.getLong(5)),
+                runId);
+    }
+
+
+    private static String scaled(String column) {
+        return "CASE WHEN abs(" + column + ") < " + SCALE_LIMIT + " THEN (" + column + " * 10000)::bigint END";
+    }
+
+
+    public record ReconciliationRange(long runId, long rangeStart, long rangeEnd) {
+    }
+
+
+    public record WalletDiscrepancy(long walletId, BigDecimal storedBalance, BigDecimal lastBalanceAfter,
+                                    BigDecimal ledgerSum, long entryCount) {
+    }
+
+
+    public record RunTotals(LocalDateTime startedAt, long wallets, long entries, long discrepancies) {
+    }
+
+
+    public record RunStart(long runId, boolean resumed) {
+    }
+}
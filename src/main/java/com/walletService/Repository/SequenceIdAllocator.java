@@ -0,0 +1,97 @@
+package com.walletService.Repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Hands out ids for JDBC inserts from the same pooled sequences Hibernate uses. Each {@code nextval}
+ * reserves the block {@code (value - increment, value]}, exactly as Hibernate's pooled optimizer
+ * interprets it, so ids from both never collide. The increment is read from the database.
+ * <p>
+ * No database call is made while holding a monitor: blocks are guarded by a {@link ReentrantLock} and
+ * created outside {@link ConcurrentHashMap#computeIfAbsent}, so a virtual thread waiting on
+ * {@code nextval} unmounts instead of pinning its carrier thread.
+ */
+@Component
+@RequiredArgsConstructor
+public class SequenceIdAllocator {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final ConcurrentHashMap<String, Block> blocks = new ConcurrentHashMap<>();
+
+
+    public long nextId(String sequenceName) {
+        return block(sequenceName).nextIds(1)[0];
+    }
+
+
+    /**
+     * Reserves {@code count} ids in one go, issuing at most one {@code nextval} per exhausted block.
+     */
+    public long[] nextIds(String sequenceName, int count) {
+        return block(sequenceName).nextIds(count);
+    }
+
+
+    private Block block(String sequenceName) {
+        Block block = blocks.get(sequenceName);
+        if (block != null) {
+            return block;
+        }
+
+        Block created = newBlock(sequenceName);
+        block = blocks.putIfAbsent(sequenceName, created);
+        return block != null ? block : created;
+    }
+
+
+    private Block newBlock(String sequenceName) {
+        Long increment = jdbcTemplate.queryForObject(
+                "SELECT increment_by FROM pg_sequences WHERE schemaname = current_schema() AND sequencename = ?",
+                Long.class, sequenceName);
+
+        if (increment == null) {
+            throw new IllegalStateException("Sequence not found: " + sequenceName);
+        }
+
+        return new Block(sequenceName, increment);
+    }
+
+
+    private final class Block {
+
+        private final String sequenceName;
+        private final long increment;
+        private final ReentrantLock lock = new ReentrantLock();
+        private long next;
+        private long last = -1;
+
+        private Block(String sequenceName, long increment) {
+            this.sequenceName = sequenceName;
+            this.increment = increment;
+        }
+
+        private long[] nextIds(int count) {
+            long[] ids = new long[count];
+            lock.lock();
+            try {
+                for (int i = 0; i < count; i++) {
+                    if (next > last) {
+                        long high = jdbcTemplate.queryForObject("SELECT nextval(?)", Long.class, sequenceName);
+                        next = Math.max(high - increment + 1, 1);
+                        last = high;
+                    }
+                    ids[i] = next++;
+                }
+            } finally {
+                lock.unlock();
+            }
+            return ids;
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.walletService.Repository;
+
+import com.walletService.Entity.AssetType;
+import com.walletService.Entity.UserStatus;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Single-statement balance changes for the atomic write mode. The balance guard and the owner's
+ * status check are evaluated by Postgres under the row lock the UPDATE itself takes.
+ */
+@Repository
+@RequiredArgsConstructor
+public class WalletBalanceRepository {
+
+    private static final String APPLY_DELTA_SQL =
+            "UPDATE wallets w SET balance = w.balance + ?, version = w.version + 1, updated_at = ? " +
+                    "FROM users u " +
+                    "WHERE u.id = w.user_id AND w.user_id = ? AND w.asset_type = ? " +
+                    "AND u.status = ? AND w.balance + ? >= 0 " +
+                    "RETURNING w.id, w.balance, w.version";
+
+    private final JdbcTemplate jdbcTemplate;
+
+
+    /**
+     * Adds {@code delta} (negative for debits) to the wallet balance if the owner is active and the
+     * result stays non-negative. Returns empty when no row qualified: the wallet does not exist,
+     * the user is not active, or the balance is insufficient.
+     */
+    public Optional<BalanceUpdate> applyDelta(Long userId, AssetType assetType, BigDecimal delta, LocalDateTime now) {
+        List<BalanceUpdate> rows = jdbcTemplate.query(APPLY_DELTA_SQL,
+                (rs, rowNum) -> new BalanceUpdate(rs.getLong(1), rs.getBigDecimal(2), rs.getLong(3)),
+                delta, Timestamp.valueOf(now), userId, assetType.name(), UserStatus.ACTIVE.name(), delta);
+
+        return rows.stream().findFirst();
+    }
+
+
+    public record BalanceUpdate(Long walletId, BigDecimal balance, Long version) {
+    }
+}
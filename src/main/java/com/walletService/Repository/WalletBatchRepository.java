@@ -0,0 +1,93 @@
+package com.walletService.Repository;
+
+import com.walletService.Entity.IdempotencyKey;
+import com.walletService.Entity.LedgerEntry;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.List;
+
+/**
+ * JDBC batch writers for the ledger and idempotency tables. Ids come from the entities' pooled sequences
+ * via {@link SequenceIdAllocator}, so a whole batch is sent in one round trip without reading keys back.
+ * Multi-operation write paths go through here and share the surrounding transaction. Ledger inserts also
+ * append their outbox events.
+ */
+@Repository
+@RequiredArgsConstructor
+public class WalletBatchRepository {
+
+    private static final String LEDGER_ENTRIES_SEQUENCE = "ledger_entries_seq";
+    private static final String IDEMPOTENCY_KEYS_SEQUENCE = "idempotency_keys_seq";
+
+    private static final String INSERT_LEDGER_ENTRY_SQL =
+            "INSERT INTO ledger_entries (id, wallet_id, transaction_type, amount, balance_after, " +
+                    "description, reference_id, slot_index, idempotency_key, created_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String INSERT_IDEMPOTENCY_KEY_SQL =
+            "INSERT INTO idempotency_keys (id, key, user_id, ledger_entry_id, response_data, created_at, expires_at) " +
+                    "VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final SequenceIdAllocator sequenceIdAllocator;
+    private final WalletEventRepository walletEventRepository;
+
+
+    /**
+     * Assigns ids to all entries and inserts them in one JDBC batch, followed by one batch of outbox events.
+     * Callers must set {@code createdAt} since the JPA lifecycle callbacks do not run here.
+     */
+    public void insertLedgerEntries(List<LedgerEntry> entries) {
+        if (entries.isEmpty()) {
+            return;
+        }
+
+        long[] ids = sequenceIdAllocator.nextIds(LEDGER_ENTRIES_SEQUENCE, entries.size());
+        for (int i = 0; i < entries.size(); i++) {
+            entries.get(i).setId(ids[i]);
+        }
+
+        jdbcTemplate.batchUpdate(INSERT_LEDGER_ENTRY_SQL, entries, entries.size(), (statement, entry) -> {
+            statement.setLong(1, entry.getId());
+            statement.setLong(2, entry.getWallet().getId());
+            statement.setString(3, entry.getTransactionType().name());
+            statement.setBigDecimal(4, entry.getAmount());
+            statement.setBigDecimal(5, entry.getBalanceAfter());
+            statement.setString(6, entry.getDescription());
+            statement.setString(7, entry.getReferenceId());
+            statement.setObject(8, entry.getSlotIndex(), Types.INTEGER);
+            statement.setString(9, entry.getIdempotencyKey());
+            statement.setTimestamp(10, Timestamp.valueOf(entry.getCreatedAt()));
+        });
+
+        walletEventRepository.append(entries);
+    }
+
+
+    /**
+     * Inserts idempotency records in one JDBC batch. Callers must set {@code createdAt} and {@code expiresAt}.
+     */
+    public void insertIdempotencyKeys(List<IdempotencyKey> keys) {
+        if (keys.isEmpty()) {
+            return;
+        }
+
+        long[] ids = sequenceIdAllocator.nextIds(IDEMPOTENCY_KEYS_SEQUENCE, keys.size());
+        for (int i = 0; i < keys.size(); i++) {
+            keys.get(i).setId(ids[i]);
+        }
+
+        jdbcTemplate.batchUpdate(INSERT_IDEMPOTENCY_KEY_SQL, keys, keys.size(), (statement, key) -> {
+            statement.setLong(1, key.getId());
+            statement.setString(2, key.getKey());
+            statement.setLong(3, key.getUser().getId());
+            statement.setLong(4, key.getLedgerEntryId());
+            statement.setString(5, key.getResponseData());
+            statement.setTimestamp(6, Timestamp.valueOf(key.getCreatedAt()));
+            statement.setTimestamp(7, Timestamp.valueOf(key.getExpiresAt()));
+        });
+    }
+}
@@ -0,0 +1,140 @@
+package com.walletService.Repository;
+
+import com.walletService.Dto.WalletEvent;
+import com.walletService.Entity.AssetType;
+import com.walletService.Entity.LedgerEntry;
+import com.walletService.Entity.TransactionType;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The wallet_events outbox: rows appended next to each ledger insert and drained by the relay.
+ * <p>
+ * Ids come from a sequence at insert time, after the balance the entry changes has been locked: the wallet row,
+ * or one slot of a sharded treasury wallet. That lock is held until commit, so the events of one balance get
+ * increasing ids in commit order and publishing in id order keeps them in order. Entries of different slots of
+ * the same wallet are not ordered against each other, nor are different wallets.
+ */
+@Repository
+@RequiredArgsConstructor
+public class WalletEventRepository {
+
+    /**
+     * Transaction-scoped advisory lock held by the relay that is draining, so one instance publishes at a time
+     * and per-balance order holds across instances.
+     */
+    private static final long RELAY_LOCK_KEY = 0x57414C4C45545256L;
+
+    private static final String INSERT_EVENT_SQL =
+            "INSERT INTO wallet_events (wallet_id, ledger_entry_id, ledger_created_at, created_at) " +
+                    "VALUES (?, ?, ?, ?)";
+
+    /**
+     * The oldest rows with their ledger entries. The joins are outer so that a row whose entry is no longer in
+     * ledger_entries still comes back, with NULL entry columns, instead of dropping out after the LIMIT and
+     * holding up every batch behind it.
+     */
+    private static final String FIND_BATCH_SQL =
+            "SELECT o.id, o.wallet_id, w.user_id, w.asset_type, e.id, e.transaction_type, e.amount, " +
+                    "e.balance_after, e.description, e.reference_id, e.idempotency_key, e.created_at, o.created_at, " +
+                    "e.slot_index " +
+                    "FROM (SELECT * FROM wallet_events ORDER BY id LIMIT ?) o " +
+                    "LEFT JOIN ledger_entries e ON e.id = o.ledger_entry_id AND e.created_at = o.ledger_created_at " +
+                    "LEFT JOIN wallets w ON w.id = o.wallet_id " +
+                    "ORDER BY o.id";
+
+    private static final String DEAD_LETTER_SQL =
+            "WITH moved AS (DELETE FROM wallet_events WHERE id = ANY (?) RETURNING *) " +
+                    "INSERT INTO wallet_events_dead_letter " +
+                    "(id, wallet_id, ledger_entry_id, ledger_created_at, created_at, dead_lettered_at) " +
+                    "SELECT id, wallet_id, ledger_entry_id, ledger_created_at, created_at, ? FROM moved";
+
+    private final JdbcTemplate jdbcTemplate;
+
+
+    /**
+     * Appends one event per ledger entry, in list order. Must run in the transaction that inserts the entries,
+     * after their ids and {@code createdAt} are assigned.
+     */
+    public void append(List<LedgerEntry> entries) {
+        if (entries.isEmpty()) {
+            return;
+        }
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now(ZoneOffset.UTC));
+        jdbcTemplate.batchUpdate(INSERT_EVENT_SQL, entries, entries.size(), (statement, entry) -> {
+            statement.setLong(1, entry.getWallet().getId());
+            statement.setLong(2, entry.getId());
+            statement.setTimestamp(3, Timestamp.valueOf(entry.getCreatedAt()));
+            statement.setTimestamp(4, now);
+        });
+    }
+
+
+    /**
+     * Takes the relay lock for the current transaction; false when another relay holds it.
+     */
+    public boolean tryLockRelay() {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                "SELECT pg_try_advisory_xact_lock(?)", Boolean.class, RELAY_LOCK_KEY));
+    }
+
+
+    /**
+     * The oldest committed events, in id order, with their ledger entries, and the ids of the rows among them
+     * whose ledger entry is gone.
+     */
+    public OutboxBatch findBatch(int limit) {
+        List<WalletEvent> events = new ArrayList<>();
+        List<Long> orphanIds = new ArrayList<>();
+
+        jdbcTemplate.query(FIND_BATCH_SQL, rs -> {
+            if (rs.getObject(5) == null || rs.getString(4) == null) {
+                orphanIds.add(rs.getLong(1));
+                return;
+            }
+            events.add(new WalletEvent(
+                    rs.getLong(1), rs.getLong(2), rs.getObject(14, Integer.class), rs.getLong(3),
+                    AssetType.valueOf(rs.getString(4)), rs.getLong(5),
+                    TransactionType.valueOf(rs.getString(6)), rs.getBigDecimal(7), rs.getBigDecimal(8),
+                    rs.getString(9), rs.getString(10), rs.getString(11), rs.getTimestamp(12).toLocalDateTime(),
+                    rs.getTimestamp(13).toLocalDateTime()));
+        }, limit);
+
+        return new OutboxBatch(events, orphanIds);
+    }
+
+
+    /**
+     * Moves the rows to wallet_events_dead_letter, where they stay for inspection instead of being retried.
+     */
+    public int deadLetter(List<Long> ids, LocalDateTime now) {
+        Long[] idArray = ids.toArray(Long[]::new);
+        return jdbcTemplate.update(DEAD_LETTER_SQL, statement -> {
+            statement.setArray(1, statement.getConnection().createArrayOf("bigint", idArray));
+            statement.setTimestamp(2, Timestamp.valueOf(now));
+        });
+    }
+
+
+    /**
+     * Deletes exactly the published events. A range delete could take an event that committed after the batch
+     * was read with a lower id.
+     */
+    public int delete(List<WalletEvent> events) {
+        Long[] ids = events.stream().map(WalletEvent::eventId).toArray(Long[]::new);
+        return jdbcTemplate.update("DELETE FROM wallet_events WHERE id = ANY (?)",
+                statement -> statement.setArray(1, statement.getConnection().createArrayOf("bigint", ids)));
+    }
+
+
+    public record OutboxBatch(List<WalletEvent> events, List<Long> orphanIds) {
+    }
+}
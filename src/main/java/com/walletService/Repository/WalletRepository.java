@@ -9,6 +9,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -25,7 +26,25 @@ public interface WalletRepository extends JpaRepository<Wallet, Long> {
     Optional<Wallet> findByUserIdAndAssetType(Long userId, AssetType assetType);
 
 
-    List<Wallet> findByUserId(Long userId);
+    @Query("SELECT w.id FROM Wallet w WHERE w.user.id = :userId AND w.assetType = :assetType")
+    Optional<Long> findIdByUserIdAndAssetType(@Param("userId") Long userId,
+                                              @Param("assetType") AssetType assetType);
+
+
+    /**
+     * Locks the given users' wallets of one asset type in wallet id order.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT w FROM Wallet w WHERE w.user.id IN :userIds AND w.assetType = :assetType ORDER BY w.id")
+    List<Wallet> findByUserIdInAndAssetTypeForUpdate(@Param("userIds") Collection<Long> userIds,
+                                                     @Param("assetType") AssetType assetType);
+
+
+    /**
+     * All wallets of a user with the owning user fetched in the same query, ordered by asset type.
+     */
+    @Query("SELECT w FROM Wallet w JOIN FETCH w.user WHERE w.user.id = :userId ORDER BY w.assetType")
+    List<Wallet> findByUserId(@Param("userId") Long userId);
 
 
     boolean existsByUserIdAndAssetType(Long userId, AssetType assetType);
@@ -0,0 +1,135 @@
+package com.walletService.Repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.IntStream;
+
+/**
+ * Sub-balance slots of a sharded wallet. Writers change one slot with a single conditional UPDATE;
+ * only the rebalancer locks all slots of a wallet, always in slot order. A writer that already holds
+ * slots reaches for another one only through {@link #applyDeltaToFreeSlot}, which never waits.
+ */
+@Repository
+@RequiredArgsConstructor
+public class WalletSlotRepository {
+
+    private static final String APPLY_DELTA_SQL =
+            "UPDATE wallet_slots SET balance = balance + ?, version = version + 1, updated_at = ? " +
+                    "WHERE wallet_id = ? AND slot_index = ? AND balance + ? >= 0 " +
+                    "RETURNING wallet_id, slot_index, balance";
+
+    private static final String APPLY_DELTA_TO_FREE_SLOT_SQL =
+            "UPDATE wallet_slots SET balance = balance + ?, version = version + 1, updated_at = ? " +
+                    "WHERE wallet_id = ? AND slot_index = (" +
+                    "SELECT slot_index FROM wallet_slots " +
+                    "WHERE wallet_id = ? AND slot_index <> ? AND balance + ? >= 0 " +
+                    "ORDER BY balance DESC LIMIT 1 FOR UPDATE SKIP LOCKED) " +
+                    "RETURNING wallet_id, slot_index, balance";
+
+    private static final String TOTALS_SQL =
+            "SELECT w.balance + COALESCE(SUM(s.balance), 0), w.version + COALESCE(SUM(s.version), 0) " +
+                    "FROM wallets w LEFT JOIN wallet_slots s ON s.wallet_id = w.id " +
+                    "WHERE w.id = ? GROUP BY w.id, w.balance, w.version";
+
+    private static final String INSERT_SLOT_SQL =
+            "INSERT INTO wallet_slots (wallet_id, slot_index, balance, version, updated_at) " +
+                    "VALUES (?, ?, 0, 0, ?) ON CONFLICT (wallet_id, slot_index) DO NOTHING";
+
+    private final JdbcTemplate jdbcTemplate;
+
+
+    /**
+     * Adds {@code delta} (negative for debits) to one slot if the result stays non-negative.
+     * Returns empty when the slot does not exist or holds too little.
+     */
+    public Optional<SlotUpdate> applyDelta(Long walletId, int slotIndex, BigDecimal delta, LocalDateTime now) {
+        List<SlotUpdate> rows = jdbcTemplate.query(APPLY_DELTA_SQL,
+                (rs, rowNum) -> new SlotUpdate(rs.getLong(1), rs.getInt(2), rs.getBigDecimal(3)),
+                delta, Timestamp.valueOf(now), walletId, slotIndex, delta);
+
+        return rows.stream().findFirst();
+    }
+
+
+    /**
+     * Adds {@code delta} to the fullest slot other than {@code excludedSlot} that can take it and is not
+     * locked by another transaction. Slots held elsewhere are skipped rather than waited for. Returns empty
+     * when no such slot exists.
+     */
+    public Optional<SlotUpdate> applyDeltaToFreeSlot(Long walletId, int excludedSlot, BigDecimal delta,
+                                                     LocalDateTime now) {
+        List<SlotUpdate> rows = jdbcTemplate.query(APPLY_DELTA_TO_FREE_SLOT_SQL,
+                (rs, rowNum) -> new SlotUpdate(rs.getLong(1), rs.getInt(2), rs.getBigDecimal(3)),
+                delta, Timestamp.valueOf(now), walletId, walletId, excludedSlot, delta);
+
+        return rows.stream().findFirst();
+    }
+
+
+    public BigDecimal sumBalances(Long walletId) {
+        return jdbcTemplate.queryForObject(
+                "SELECT COALESCE(SUM(balance), 0) FROM wallet_slots WHERE wallet_id = ?", BigDecimal.class, walletId);
+    }
+
+
+    /**
+     * The wallet row plus all its slots, read by one statement so a concurrent sweep from the row into the
+     * slots is never counted twice. The version is the sum of the row's and the slots' versions; every
+     * committed change to any of them increases it.
+     */
+    public WalletTotals findTotals(Long walletId) {
+        return jdbcTemplate.queryForObject(TOTALS_SQL,
+                (rs, rowNum) -> new WalletTotals(rs.getBigDecimal(1), rs.getLong(2)), walletId);
+    }
+
+
+    public void insertMissingSlots(Long walletId, int slotCount, LocalDateTime now) {
+        Timestamp updatedAt = Timestamp.valueOf(now);
+        jdbcTemplate.batchUpdate(INSERT_SLOT_SQL, IntStream.range(0, slotCount).boxed().toList(),
+                slotCount, (statement, slotIndex) -> {
+                    statement.setLong(1, walletId);
+                    statement.setInt(2, slotIndex);
+                    statement.setTimestamp(3, updatedAt);
+                });
+    }
+
+
+    /**
+     * Locks every slot of the wallet in slot order and returns their balances.
+     */
+    public List<SlotUpdate> lockSlots(Long walletId) {
+        return jdbcTemplate.query(
+                "SELECT wallet_id, slot_index, balance FROM wallet_slots WHERE wallet_id = ? " +
+                        "ORDER BY slot_index FOR UPDATE",
+                (rs, rowNum) -> new SlotUpdate(rs.getLong(1), rs.getInt(2), rs.getBigDecimal(3)),
+                walletId);
+    }
+
+
+    public void setBalances(List<SlotUpdate> slots, LocalDateTime now) {
+        jdbcTemplate.batchUpdate(
+                "UPDATE wallet_slots SET balance = ?, version = version + 1, updated_at = ? " +
+                        "WHERE wallet_id = ? AND slot_index = ?",
+                slots, slots.size(), (statement, slot) -> {
+                    statement.setBigDecimal(1, slot.balance());
+                    statement.setTimestamp(2, Timestamp.valueOf(now));
+                    statement.setLong(3, slot.walletId());
+                    statement.setInt(4, slot.slotIndex());
+                });
+    }
+
+
+    public record SlotUpdate(Long walletId, int slotIndex, BigDecimal balance) {
+    }
+
+
+    public record WalletTotals(BigDecimal balance, Long version) {
+    }
+}
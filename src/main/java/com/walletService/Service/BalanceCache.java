@@ -0,0 +1,148 @@
+package com.walletService.Service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.walletService.Entity.AssetType;
+import com.walletService.Entity.Wallet;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Read-through cache of wallet balances keyed by (userId, assetType) and versioned by {@code Wallet.version}.
+ * From just before a write commits until its committed balance is published, the wallet is marked pending:
+ * reads bypass the cache and read-through puts are dropped. An entry is only ever replaced by one with an
+ * equal or higher version. A read on this node therefore never sees a balance older than this node's last
+ * commit; changes committed by other nodes are bounded by {@code wallet.balance.cache.ttl-ms}. Only balances
+ * are cached: callers still check the user before serving an entry.
+ */
+@Component
+public class BalanceCache {
+
+    private final Cache<WalletKey, CachedBalance> cache;
+
+    private final ConcurrentHashMap<WalletKey, Integer> pendingCommits = new ConcurrentHashMap<>();
+
+    private final DistributionSummary staleness;
+
+    private final boolean enabled;
+
+    public BalanceCache(@Value("${wallet.balance.cache.enabled:true}") boolean enabled,
+                        @Value("${wallet.balance.cache.max-size:100000}") long maxSize,
+                        @Value("${wallet.balance.cache.ttl-ms:60000}") long ttlMs,
+                        MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofMillis(ttlMs))
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "wallet.balance.cache");
+        this.staleness = DistributionSummary.builder("wallet.balance.cache.staleness")
+                .description("Age of cached balances when served")
+                .baseUnit("milliseconds")
+                .register(meterRegistry);
+    }
+
+
+    public Optional<BigDecimal> get(Long userId, AssetType assetType) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+
+        WalletKey key = new WalletKey(userId, assetType);
+        if (pendingCommits.containsKey(key)) {
+            return Optional.empty();
+        }
+
+        CachedBalance cached = cache.getIfPresent(key);
+        if (cached == null) {
+            return Optional.empty();
+        }
+
+        staleness.record((System.nanoTime() - cached.cachedAtNanos()) / 1_000_000.0);
+        return Optional.of(cached.balance());
+    }
+
+
+    /**
+     * Caches a balance read from the database, unless a write to the wallet is committing right now
+     * or a newer version is already cached.
+     */
+    public void putFromRead(Long userId, AssetType assetType, BigDecimal balance, Long version) {
+        WalletKey key = new WalletKey(userId, assetType);
+        if (enabled && !pendingCommits.containsKey(key)) {
+            merge(key, balance, version);
+        }
+    }
+
+
+    public void invalidate(Long userId, AssetType assetType) {
+        cache.invalidate(new WalletKey(userId, assetType));
+    }
+
+
+    /**
+     * Ties the cached balance to the outcome of the current write transaction: the wallet is marked pending
+     * before commit, the committed balance is published from {@code wallet} (whose version the flush has
+     * incremented) after commit, and the entry is dropped on rollback.
+     */
+    public void refreshAfterCommit(Long userId, Wallet wallet) {
+        if (!enabled) {
+            return;
+        }
+
+        WalletKey key = new WalletKey(userId, wallet.getAssetType());
+
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            merge(key, wallet.getBalance(), wallet.getVersion());
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            private boolean pending;
+
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                pendingCommits.merge(key, 1, Integer::sum);
+                pending = true;
+            }
+
+            @Override
+            public void afterCommit() {
+                merge(key, wallet.getBalance(), wallet.getVersion());
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    cache.invalidate(key);
+                }
+                if (pending) {
+                    pendingCommits.computeIfPresent(key, (k, count) -> count > 1 ? count - 1 : null);
+                }
+            }
+        });
+    }
+
+
+    private void merge(WalletKey key, BigDecimal balance, Long version) {
+        CachedBalance candidate = new CachedBalance(balance, version, System.nanoTime());
+        cache.asMap().merge(key, candidate,
+                (current, fresh) -> fresh.version() >= current.version() ? fresh : current);
+    }
+
+
+    private record CachedBalance(BigDecimal balance, Long version, long cachedAtNanos) {
+    }
+}
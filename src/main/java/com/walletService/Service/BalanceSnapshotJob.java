@@ -0,0 +1,63 @@
+package com.walletService.Service;
+
+import com.walletService.Repository.BalanceSnapshotRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Optional;
+
+/**
+ * Periodically checkpoints every wallet with new ledger entries. Snapshots are taken as of a moment
+ * {@code wallet.snapshot.lag-seconds} in the past, so an entry stamped before that moment by a transaction
+ * still in flight is committed by the time it is summed. Wallets are processed in id ranges, one short
+ * transaction per range.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class BalanceSnapshotJob {
+
+    private final BalanceSnapshotService balanceSnapshotService;
+    private final BalanceSnapshotRepository balanceSnapshotRepository;
+
+    @Value("${wallet.snapshot.enabled:true}")
+    private boolean enabled;
+
+    @Value("${wallet.snapshot.lag-seconds:300}")
+    private long lagSeconds;
+
+    @Value("${wallet.snapshot.batch-size:1000}")
+    private int batchSize;
+
+
+    @Scheduled(fixedDelayString = "${wallet.snapshot.interval-ms:3600000}",
+            initialDelayString = "${wallet.snapshot.interval-ms:3600000}")
+    public void checkpoint() {
+        if (enabled) {
+            checkpointAll(LocalDateTime.now(ZoneOffset.UTC).minusSeconds(lagSeconds));
+        }
+    }
+
+
+    public int checkpointAll(LocalDateTime asOf) {
+        long start = System.nanoTime();
+        long afterId = 0;
+        int written = 0;
+
+        for (Optional<Long> end = balanceSnapshotRepository.nextRangeEnd(afterId, batchSize);
+             end.isPresent();
+             end = balanceSnapshotRepository.nextRangeEnd(afterId, batchSize)) {
+            written += balanceSnapshotService.checkpointRange(afterId, end.get(), asOf);
+            afterId = end.get();
+        }
+
+        log.info("Wrote {} balance snapshots as of {} in {} ms",
+                written, asOf, (System.nanoTime() - start) / 1_000_000);
+        return written;
+    }
+}
@@ -0,0 +1,121 @@
+package com.walletService.Service;
+
+import com.walletService.Dto.BalanceAtResponseDto;
+import com.walletService.Dto.ReconciliationResponseDto;
+import com.walletService.Entity.AssetType;
+import com.walletService.Entity.Wallet;
+import com.walletService.Exceptions.WalletNotFoundException;
+import com.walletService.Repository.BalanceSnapshotRepository;
+import com.walletService.Repository.BalanceSnapshotRepository.BalanceSnapshot;
+import com.walletService.Repository.BalanceSnapshotRepository.LedgerDelta;
+import com.walletService.Repository.WalletRepository;
+import com.walletService.Repository.WalletSlotRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Optional;
+
+/**
+ * Point-in-time balances and ledger reconciliation on top of the balance checkpoints. Both start from the
+ * wallet's latest snapshot at or before the time asked for and replay only the entries created after it,
+ * so their cost is bounded by the checkpoint interval rather than by the wallet's whole history.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class BalanceSnapshotService {
+
+    private final BalanceSnapshotRepository balanceSnapshotRepository;
+    private final WalletRepository walletRepository;
+    private final WalletSlotRepository walletSlotRepository;
+    private final LedgerArchiveService ledgerArchiveService;
+
+
+    /**
+     * The wallet's balance as of {@code at}: the sum of all its ledger entries created up to that instant. When
+     * {@code at} falls in an archived month, the entries between the snapshot and {@code at} are read from the
+     * archive segments instead of ledger_entries.
+     */
+    @Transactional(readOnly = true, isolation = Isolation.REPEATABLE_READ)
+    public BalanceAtResponseDto getBalanceAt(Long userId, AssetType assetType, LocalDateTime at) {
+        log.info("Fetching balance of user {} and asset type {} as of {}", userId, assetType, at);
+
+        Wallet wallet = findWallet(userId, assetType);
+
+        Optional<BalanceSnapshot> snapshot = balanceSnapshotRepository.findLatest(wallet.getId(), at);
+        LocalDateTime after = snapshot.map(BalanceSnapshot::asOf).orElse(null);
+        LedgerDelta delta = balanceSnapshotRepository.sumEntries(wallet.getId(), after, at);
+        LedgerDelta archived = ledgerArchiveService.sumEntries(wallet.getId(), after, at);
+
+        return BalanceAtResponseDto.builder()
+                .userId(userId)
+                .assetType(assetType)
+                .at(at)
+                .balance(snapshot.map(BalanceSnapshot::balance).orElse(BigDecimal.ZERO)
+                        .add(delta.amount()).add(archived.amount()))
+                .snapshotAsOf(after)
+                .replayedEntries(delta.entries() + archived.entries())
+                .build();
+    }
+
+
+    /**
+     * Compares the stored balance (wallet row plus any treasury slots) with the balance the ledger adds up to.
+     * Runs at REPEATABLE READ so both sides are read from the same database snapshot.
+     */
+    @Transactional(readOnly = true, isolation = Isolation.REPEATABLE_READ)
+    public ReconciliationResponseDto reconcile(Long userId, AssetType assetType) {
+        log.info("Reconciling wallet of user {} and asset type {}", userId, assetType);
+
+        LocalDateTime now = LocalDateTime.now(ZoneOffset.UTC);
+        Wallet wallet = findWallet(userId, assetType);
+        BigDecimal walletBalance = wallet.getBalance().add(walletSlotRepository.sumBalances(wallet.getId()));
+
+        Optional<BalanceSnapshot> snapshot = balanceSnapshotRepository.findLatest(wallet.getId(), now);
+        LedgerDelta delta = balanceSnapshotRepository.sumEntries(
+                wallet.getId(), snapshot.map(BalanceSnapshot::asOf).orElse(null), null);
+        BigDecimal ledgerBalance = snapshot.map(BalanceSnapshot::balance).orElse(BigDecimal.ZERO).add(delta.amount());
+        BigDecimal discrepancy = walletBalance.subtract(ledgerBalance);
+
+        if (discrepancy.signum() != 0) {
+            log.warn("Wallet {} of user {} is off by {}: stored {}, ledger {}",
+                    wallet.getId(), userId, discrepancy, walletBalance, ledgerBalance);
+        }
+
+        return ReconciliationResponseDto.builder()
+                .userId(userId)
+                .walletId(wallet.getId())
+                .assetType(assetType)
+                .walletBalance(walletBalance)
+                .ledgerBalance(ledgerBalance)
+                .discrepancy(discrepancy)
+                .consistent(discrepancy.signum() == 0)
+                .snapshotAsOf(snapshot.map(BalanceSnapshot::asOf).orElse(null))
+                .replayedEntries(delta.entries())
+                .checkedAt(now)
+                .build();
+    }
+
+
+    /**
+     * Checkpoints the wallets with ids in {@code (afterId, throughId]} as of {@code asOf}, in one transaction.
+     */
+    @Transactional(isolation = Isolation.READ_COMMITTED)
+    public int checkpointRange(long afterId, long throughId, LocalDateTime asOf) {
+        return balanceSnapshotRepository.checkpointRange(afterId, throughId, asOf, LocalDateTime.now(ZoneOffset.UTC));
+    }
+
+
+    private Wallet findWallet(Long userId, AssetType assetType) {
+        return walletRepository.findByUserIdAndAssetType(userId, assetType)
+                .orElseThrow(() -> new WalletNotFoundException(
+                        String.format("Wallet not found for user %d and asset type %s", userId, assetType)
+                ));
+    }
+}
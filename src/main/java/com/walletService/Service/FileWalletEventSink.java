@@ -0,0 +1,65 @@
+package com.walletService.Service;
+
+import com.walletService.Dto.WalletEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import tools.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Appends events as JSON lines to {@code wallet.outbox.file} and syncs the file before the batch counts as
+ * delivered. The default sink; other processes tail the file.
+ */
+@Component
+@ConditionalOnProperty(name = "wallet.outbox.sink", havingValue = "file", matchIfMissing = true)
+@Slf4j
+public class FileWalletEventSink implements WalletEventSink {
+
+    private final ObjectMapper objectMapper;
+
+    private final Path file;
+
+    public FileWalletEventSink(ObjectMapper objectMapper,
+                               @Value("${wallet.outbox.file:wallet-events.jsonl}") String file) {
+        this.objectMapper = objectMapper;
+        this.file = Path.of(file);
+        log.info("Publishing wallet events to {}", this.file.toAbsolutePath());
+    }
+
+
+    @Override
+    public void publish(List<WalletEvent> events) {
+        StringBuilder lines = new StringBuilder();
+        for (WalletEvent event : events) {
+            lines.append(objectMapper.writeValueAsString(event)).append('\n');
+        }
+
+        try {
+            Path parent = file.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.APPEND)) {
+                ByteBuffer buffer = ByteBuffer.wrap(lines.toString().getBytes(StandardCharsets.UTF_8));
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                channel.force(false);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot append wallet events to " + file, e);
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.walletService.Service;
+
+import com.walletService.Exceptions.InvalidCursorException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+/**
+ * Keyset position in a wallet's history, ordered by (createdAt DESC, id DESC). Encoded as an opaque
+ * URL-safe token so clients only ever echo back the {@code nextCursor} they were given.
+ */
+public record HistoryCursor(LocalDateTime createdAt, Long id) {
+
+    /**
+     * Position before the newest possible entry; used for the first page.
+     */
+    public static final HistoryCursor START = new HistoryCursor(LocalDateTime.of(9999, 12, 31, 23, 59, 59), Long.MAX_VALUE);
+
+    private static final String SEPARATOR = "|";
+
+    public String encode() {
+        String raw = createdAt + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static HistoryCursor decode(String token) {
+        if (token == null || token.isBlank()) {
+            return START;
+        }
+
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = raw.lastIndexOf(SEPARATOR);
+            return new HistoryCursor(LocalDateTime.parse(raw.substring(0, separator)),
+                    Long.parseLong(raw.substring(separator + 1)));
+        } catch (RuntimeException e) {
+            throw new InvalidCursorException("Invalid pagination cursor: " + token, e);
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package com.walletService.Service;
+
+import com.walletService.Repository.IdempotencyKeyRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Deletes expired idempotency keys in chunks of at most {@code batch-size} rows, each in its own transaction,
+ * so the purge never holds long locks or produces a burst of WAL. Chunks are picked by expiry through the
+ * (expires_at, id) index rather than by id: ids come from pooled sequence blocks and are not in creation order.
+ * The backlog gauge is the number of expired keys left in the current run. The job runs on its own thread, so
+ * the pauses between chunks never hold up the jobs on Spring's shared scheduler.
+ */
+@Component
+@Slf4j
+public class IdempotencyKeyPurgeJob {
+
+    private final IdempotencyKeyRepository idempotencyKeyRepository;
+
+    private final Counter purgedRows;
+
+    private final Timer chunkTimer;
+
+    private final AtomicLong backlog = new AtomicLong();
+
+    @Value("${wallet.idempotency.purge.enabled:true}")
+    private boolean enabled;
+
+    @Value("${wallet.idempotency.purge.batch-size:5000}")
+    private int batchSize;
+
+    @Value("${wallet.idempotency.purge.pause-ms:50}")
+    private long pauseMs;
+
+    @Value("${wallet.idempotency.purge.interval-ms:300000}")
+    private long intervalMs;
+
+    private ScheduledExecutorService executor;
+
+    public IdempotencyKeyPurgeJob(IdempotencyKeyRepository idempotencyKeyRepository, MeterRegistry meterRegistry) {
+        this.idempotencyKeyRepository = idempotencyKeyRepository;
+        this.purgedRows = Counter.builder("wallet.idempotency.purge.rows")
+                .description("Expired idempotency keys deleted")
+                .register(meterRegistry);
+        this.chunkTimer = Timer.builder("wallet.idempotency.purge.chunk")
+                .description("Latency of one purge chunk")
+                .register(meterRegistry);
+        meterRegistry.gauge("wallet.idempotency.purge.backlog", backlog);
+    }
+
+
+    @PostConstruct
+    void start() {
+        if (!enabled) {
+            return;
+        }
+
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "idempotency-purge");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleWithFixedDelay(this::purgeSafely, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+    }
+
+
+    @PreDestroy
+    void stop() {
+        if (executor != null) {
+            // Interrupts the pause between chunks; each chunk is its own transaction
+            executor.shutdownNow();
+        }
+    }
+
+
+    private void purgeSafely() {
+        // An exception escaping a fixed-delay task would cancel every later run
+        try {
+            purgeExpiredKeys();
+        } catch (RuntimeException e) {
+            log.error("Idempotency key purge failed", e);
+        }
+    }
+
+
+    public void purgeExpiredKeys() {
+        if (!enabled) {
+            return;
+        }
+
+        LocalDateTime now = LocalDateTime.now(ZoneOffset.UTC);
+
+        long expired = idempotencyKeyRepository.countExpiredKeys(now);
+        backlog.set(expired);
+        if (expired == 0) {
+            return;
+        }
+
+        log.info("Purging {} expired idempotency keys", expired);
+
+        long total = 0;
+
+        try {
+            while (true) {
+                Timer.Sample sample = Timer.start();
+                int deleted = idempotencyKeyRepository.deleteExpiredKeys(now, batchSize);
+                sample.stop(chunkTimer);
+
+                purgedRows.increment(deleted);
+                total += deleted;
+                backlog.set(Math.max(expired - total, 0));
+
+                if (deleted < batchSize) {
+                    break;
+                }
+                if (pauseMs > 0) {
+                    Thread.sleep(pauseMs);
+                }
+            }
+            backlog.set(0);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("Idempotency key purge interrupted after {} rows", total);
+            return;
+        }
+
+        log.info("Purged {} expired idempotency keys", total);
+    }
+}
@@ -0,0 +1,115 @@
+package com.walletService.Service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.walletService.Dto.WalletOperationResponseDto;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Optional;
+
+/**
+ * Already-deserialized responses for committed idempotency keys, so client retries are answered
+ * without a transaction, a database lookup or JSON parsing. Entries live until the key's own
+ * {@code expiresAt} and the cache is bounded by size. Hit/miss/eviction counters are published
+ * under {@code wallet.idempotency.cache}.
+ */
+@Component
+@Slf4j
+public class IdempotencyResponseCache {
+
+    private final Cache<CacheKey, CachedResponse> cache;
+
+    private final boolean enabled;
+
+    public IdempotencyResponseCache(@Value("${wallet.idempotency.cache.enabled:true}") boolean enabled,
+                                    @Value("${wallet.idempotency.cache.max-size:100000}") long maxSize,
+                                    MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new ExpiresAtExpiry())
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "wallet.idempotency.cache");
+    }
+
+
+    public Optional<WalletOperationResponseDto> get(Long userId, String key) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+
+        CachedResponse cached = cache.getIfPresent(new CacheKey(userId, key));
+        return Optional.ofNullable(cached).map(CachedResponse::response);
+    }
+
+
+    public void put(Long userId, String key, WalletOperationResponseDto response, LocalDateTime expiresAt) {
+        if (!enabled || !expiresAt.isAfter(LocalDateTime.now(ZoneOffset.UTC))) {
+            return;
+        }
+
+        cache.put(new CacheKey(userId, key), new CachedResponse(response, expiresAt));
+    }
+
+
+    /**
+     * Caches the response once the surrounding transaction commits, so a rolled-back operation is never
+     * served to a retry. Outside a transaction the response is cached immediately.
+     */
+    public void putAfterCommit(Long userId, String key, WalletOperationResponseDto response, LocalDateTime expiresAt) {
+        if (!enabled) {
+            return;
+        }
+
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            put(userId, key, response, expiresAt);
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                put(userId, key, response, expiresAt);
+            }
+        });
+    }
+
+
+    private record CacheKey(Long userId, String key) {
+    }
+
+
+    private record CachedResponse(WalletOperationResponseDto response, LocalDateTime expiresAt) {
+    }
+
+
+    private static final class ExpiresAtExpiry implements Expiry<CacheKey, CachedResponse> {
+
+        @Override
+        public long expireAfterCreate(CacheKey key, CachedResponse value, long currentTime) {
+            return Math.max(0, Duration.between(LocalDateTime.now(ZoneOffset.UTC), value.expiresAt()).toNanos());
+        }
+
+        @Override
+        public long expireAfterUpdate(CacheKey key, CachedResponse value, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(CacheKey key, CachedResponse value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.walletService.Service;
+
+import com.walletService.Dto.WalletEvent;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Keeps published events in memory, for tests and local runs ({@code wallet.outbox.sink=memory}).
+ */
+@Component
+@ConditionalOnProperty(name = "wallet.outbox.sink", havingValue = "memory")
+public class InMemoryWalletEventSink implements WalletEventSink {
+
+    private final List<WalletEvent> events = new CopyOnWriteArrayList<>();
+
+
+    @Override
+    public void publish(List<WalletEvent> batch) {
+        events.addAll(batch);
+    }
+
+
+    public List<WalletEvent> events() {
+        return List.copyOf(events);
+    }
+
+
+    public void clear() {
+        events.clear();
+    }
+}
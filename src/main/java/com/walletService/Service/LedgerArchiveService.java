@@ -0,0 +1,168 @@
+package com.walletService.Service;
+
+import com.walletService.Dto.LedgerEntryView;
+import com.walletService.Entity.TransactionType;
+import com.walletService.Exceptions.TransactionProcessingException;
+import com.walletService.Repository.BalanceSnapshotRepository.LedgerDelta;
+import com.walletService.Repository.LedgerArchiveStore;
+import com.walletService.Repository.LedgerArchiveStore.ArchivedLedgerEntry;
+import com.walletService.Repository.LedgerArchiveStore.SegmentWriter;
+import com.walletService.Repository.LedgerPartitionRepository;
+import com.walletService.Repository.LedgerPartitionRepository.LedgerPartition;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.function.Consumer;
+
+/**
+ * Moves detached ledger months into the segment files of {@link LedgerArchiveStore} and reads them back for
+ * history pages, point-in-time balances and exports. Archived months all precede the oldest attached partition,
+ * so archived entries always come after every hot entry in (createdAt DESC, id DESC) order.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class LedgerArchiveService {
+
+    private final LedgerArchiveStore ledgerArchiveStore;
+    private final LedgerPartitionRepository ledgerPartitionRepository;
+
+    @Value("${wallet.ledger.archive.fetch-size:5000}")
+    private int fetchSize;
+
+
+    /**
+     * Writes a detached partition to its month's segment and returns the number of entries archived. The
+     * partition is left in place; the caller drops it once this has returned.
+     */
+    @Transactional(readOnly = true)
+    public long archive(LedgerPartition partition) {
+        long start = System.nanoTime();
+
+        try (SegmentWriter writer = ledgerArchiveStore.openSegment(partition.month())) {
+            ledgerPartitionRepository.streamDetachedPartition(partition, fetchSize, writer::append);
+            long entries = writer.commit();
+
+            log.info("Archived {} ledger entries of {} in {} ms",
+                    entries, partition.month(), (System.nanoTime() - start) / 1_000_000);
+            return entries;
+        }
+    }
+
+
+    /**
+     * The archived part of a history page: the wallet's entries inside [fromTime, toTime] strictly after the
+     * cursor position in (createdAt DESC, id DESC) order, at most {@code limit} of them. The archive is only
+     * read when {@code fromTime} precedes the oldest attached month; a page starting inside the hot table has
+     * nothing archived to add. Fails while a month of the span is detached but not yet in its segment.
+     */
+    public List<LedgerEntryView> findPage(Long walletId, LocalDateTime fromTime, LocalDateTime toTime,
+                                          LocalDateTime cursorTime, Long cursorId, int limit) {
+        List<LedgerEntryView> page = new ArrayList<>();
+        LocalDateTime upTo = toTime.isBefore(cursorTime) ? toTime : cursorTime;
+
+        LocalDateTime ledgerStart = ledgerPartitionRepository.findAttachedPartitions().stream()
+                .findFirst()
+                .map(LedgerPartition::start)
+                .orElse(null);
+        if (ledgerStart != null && !fromTime.isBefore(ledgerStart)) {
+            return page;
+        }
+        failIfDetached(YearMonth.from(fromTime), YearMonth.from(upTo));
+
+        for (YearMonth month : ledgerArchiveStore.archivedMonths().headSet(YearMonth.from(upTo), true)
+                .descendingSet()) {
+            if (page.size() >= limit || !month.plusMonths(1).atDay(1).atStartOfDay().isAfter(fromTime)) {
+                break;
+            }
+
+            List<ArchivedLedgerEntry> entries = ledgerArchiveStore.read(month, walletId, fromTime, upTo);
+            for (int i = entries.size() - 1; i >= 0 && page.size() < limit; i--) {
+                ArchivedLedgerEntry entry = entries.get(i);
+                if (entry.createdAt().isBefore(cursorTime)
+                        || (entry.createdAt().isEqual(cursorTime) && entry.id() < cursorId)) {
+                    page.add(entry.toView());
+                }
+            }
+        }
+
+        return page;
+    }
+
+
+    /**
+     * Passes the wallet's archived entries created after {@code after} (from the first archived month when null)
+     * and up to {@code upTo} (through the last one when null) to the consumer, oldest first. Only one month is
+     * held in memory at a time. Fails while a month of that span is detached but not yet in its segment, since
+     * its entries are then in neither ledger_entries nor the archive.
+     */
+    public void streamEntries(Long walletId, LocalDateTime after, LocalDateTime upTo,
+                              Consumer<ArchivedLedgerEntry> consumer) {
+        YearMonth firstMonth = after != null ? YearMonth.from(after) : null;
+        YearMonth lastMonth = upTo != null ? YearMonth.from(upTo) : null;
+        failIfDetached(firstMonth, lastMonth);
+
+        NavigableSet<YearMonth> months = ledgerArchiveStore.archivedMonths();
+        if (firstMonth != null) {
+            months = months.tailSet(firstMonth, true);
+        }
+        if (lastMonth != null) {
+            months = months.headSet(lastMonth, true);
+        }
+
+        for (YearMonth month : months) {
+            LocalDateTime monthStart = month.atDay(1).atStartOfDay();
+            LocalDateTime nextMonthStart = month.plusMonths(1).atDay(1).atStartOfDay();
+            LocalDateTime from = after != null && after.isAfter(monthStart) ? after : monthStart;
+            LocalDateTime to = upTo != null && upTo.isBefore(nextMonthStart) ? upTo : nextMonthStart;
+
+            for (ArchivedLedgerEntry entry : ledgerArchiveStore.read(month, walletId, from, to)) {
+                if (after == null || entry.createdAt().isAfter(after)) {
+                    consumer.accept(entry);
+                }
+            }
+        }
+    }
+
+
+    /**
+     * Signed sum and count of the archived entries {@link #streamEntries} passes on for the same span.
+     */
+    public LedgerDelta sumEntries(Long walletId, LocalDateTime after, LocalDateTime upTo) {
+        BigDecimal[] amount = {BigDecimal.ZERO};
+        long[] entries = {0};
+
+        streamEntries(walletId, after, upTo, entry -> {
+            amount[0] = entry.transactionType() == TransactionType.CREDIT
+                    ? amount[0].add(entry.amount())
+                    : amount[0].subtract(entry.amount());
+            entries[0]++;
+        });
+
+        return new LedgerDelta(amount[0], entries[0]);
+    }
+
+
+    /**
+     * Fails when a month from {@code firstMonth} through {@code lastMonth} (open-ended where null) is detached
+     * but not yet in its segment, since its entries are then in neither ledger_entries nor the archive.
+     */
+    private void failIfDetached(YearMonth firstMonth, YearMonth lastMonth) {
+        for (LedgerPartition partition : ledgerPartitionRepository.findDetachedPartitions()) {
+            if ((firstMonth == null || !partition.month().isBefore(firstMonth))
+                    && (lastMonth == null || !partition.month().isAfter(lastMonth))) {
+                throw new TransactionProcessingException(String.format(
+                        "Ledger month %s is being archived, please retry", partition.month()));
+            }
+        }
+    }
+}
@@ -0,0 +1,199 @@
+package com.walletService.Service;
+
+import com.walletService.Dto.TransactionHistoryResponseDto;
+import com.walletService.Entity.AssetType;
+import com.walletService.Entity.TransactionType;
+import com.walletService.Entity.Wallet;
+import com.walletService.Exceptions.WalletNotFoundException;
+import com.walletService.Repository.WalletRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import tools.jackson.databind.ObjectMapper;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Streams a wallet's full ledger straight from a forward-only JDBC cursor to the response. Rows are
+ * written as they are fetched, so memory stays bounded by the fetch size whatever the ledger length.
+ * Archived months come first, read from their segments one month at a time.
+ */
+@Service
+@Slf4j
+public class LedgerExportService {
+
+    private static final String EXPORT_SQL =
+            "SELECT id, transaction_type, amount, balance_after, description, reference_id, created_at " +
+                    "FROM ledger_entries WHERE wallet_id = ? ORDER BY created_at, id";
+
+    private static final String CSV_HEADER = "id,type,amount,balanceAfter,description,referenceId,timestamp\n";
+
+    private final WalletRepository walletRepository;
+    private final LedgerArchiveService ledgerArchiveService;
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final Counter exportedRows;
+    private final Timer exportTimer;
+
+    @Value("${wallet.export.fetch-size:1000}")
+    private int fetchSize;
+
+    public LedgerExportService(WalletRepository walletRepository, LedgerArchiveService ledgerArchiveService,
+                               JdbcTemplate jdbcTemplate, ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        this.walletRepository = walletRepository;
+        this.ledgerArchiveService = ledgerArchiveService;
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+        this.exportedRows = Counter.builder("wallet.ledger.export.rows")
+                .description("Ledger rows written by exports")
+                .register(meterRegistry);
+        this.exportTimer = Timer.builder("wallet.ledger.export")
+                .description("Duration of full ledger exports")
+                .register(meterRegistry);
+    }
+
+
+    @Transactional(readOnly = true)
+    public Long resolveWalletId(Long userId, AssetType assetType) {
+        return walletRepository.findByUserIdAndAssetType(userId, assetType)
+                .map(Wallet::getId)
+                .orElseThrow(() -> new WalletNotFoundException(
+                        String.format("Wallet not found for user %d and asset type %s", userId, assetType)
+                ));
+    }
+
+
+    /**
+     * Writes every ledger entry of the wallet, oldest first: the archived months, then ledger_entries. Runs in
+     * a read-only transaction because the Postgres driver only honours the fetch size (server-side cursor)
+     * with autocommit off.
+     */
+    @Transactional(readOnly = true)
+    public long export(Long walletId, LedgerExportFormat format, OutputStream outputStream) throws IOException {
+        log.info("Exporting ledger of wallet {} as {}", walletId, format);
+
+        Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8), 64 * 1024);
+        RowCounter counter = new RowCounter(writer, format);
+        long startNanos = System.nanoTime();
+
+        if (format == LedgerExportFormat.CSV) {
+            writer.write(CSV_HEADER);
+        }
+
+        try {
+            ledgerArchiveService.streamEntries(walletId, null, null,
+                    entry -> counter.write(TransactionHistoryService.convertToTransactionDto(entry.toView())));
+            jdbcTemplate.query(connection -> {
+                PreparedStatement statement = connection.prepareStatement(EXPORT_SQL,
+                        ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                statement.setFetchSize(fetchSize);
+                statement.setLong(1, walletId);
+                return statement;
+            }, counter);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+
+        writer.flush();
+
+        long elapsedNanos = System.nanoTime() - startNanos;
+        exportTimer.record(elapsedNanos, TimeUnit.NANOSECONDS);
+        exportedRows.increment(counter.rows);
+
+        double seconds = Math.max(elapsedNanos, 1) / 1_000_000_000.0;
+        log.info("Exported {} ledger rows of wallet {} in {} ms ({} rows/s)",
+                counter.rows, walletId, elapsedNanos / 1_000_000, Math.round(counter.rows / seconds));
+        return counter.rows;
+    }
+
+
+    private void writeNdjson(Writer writer, TransactionHistoryResponseDto.TransactionDto row) throws IOException {
+        writer.write(objectMapper.writeValueAsString(row));
+        writer.write('\n');
+    }
+
+
+    private void writeCsv(Writer writer, TransactionHistoryResponseDto.TransactionDto row) throws IOException {
+        writer.write(String.valueOf(row.getId()));
+        writer.write(',');
+        writer.write(row.getType().name());
+        writer.write(',');
+        writer.write(row.getAmount().toPlainString());
+        writer.write(',');
+        writer.write(row.getBalanceAfter().toPlainString());
+        writer.write(',');
+        writer.write(csvEscape(row.getDescription()));
+        writer.write(',');
+        writer.write(csvEscape(row.getReferenceId()));
+        writer.write(',');
+        writer.write(row.getTimestamp().toString());
+        writer.write('\n');
+    }
+
+
+    private static String csvEscape(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+
+    private final class RowCounter implements RowCallbackHandler {
+
+        private final Writer writer;
+        private final LedgerExportFormat format;
+        private long rows;
+
+        private RowCounter(Writer writer, LedgerExportFormat format) {
+            this.writer = writer;
+            this.format = format;
+        }
+
+        @Override
+        public void processRow(ResultSet rs) throws SQLException {
+            TransactionHistoryResponseDto.TransactionDto row = TransactionHistoryResponseDto.TransactionDto.builder()
+                    .id(rs.getLong("id"))
+                    .type(TransactionType.valueOf(rs.getString("transaction_type")))
+                    .amount(rs.getBigDecimal("amount"))
+                    .balanceAfter(rs.getBigDecimal("balance_after"))
+                    .description(rs.getString("description"))
+                    .referenceId(rs.getString("reference_id"))
+                    .timestamp(rs.getTimestamp("created_at").toLocalDateTime())
+                    .build();
+            write(row);
+        }
+
+        private void write(TransactionHistoryResponseDto.TransactionDto row) {
+            try {
+                if (format == LedgerExportFormat.CSV) {
+                    writeCsv(writer, row);
+                } else {
+                    writeNdjson(writer, row);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            rows++;
+        }
+    }
+}
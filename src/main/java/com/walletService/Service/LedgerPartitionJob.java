@@ -0,0 +1,139 @@
+package com.walletService.Service;
+
+import com.walletService.Repository.LedgerPartitionRepository;
+import com.walletService.Repository.LedgerPartitionRepository.LedgerPartition;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Keeps the monthly ledger_entries partitions ahead of the clock and, when a retention is configured, detaches
+ * months older than it into the ledger_archive schema. Before a month is detached, every wallet is checkpointed
+ * as of the month's end, so the readers of ledger_entries can start from the snapshot at the oldest attached
+ * partition's lower bound. A month is only detached once every wallet with entries in it has a balance snapshot
+ * taken at or after its last entry in that month, so later balances never need archived rows, and once the
+ * outbox has delivered every event of its entries.
+ * Detached months are then written to the file archive and dropped.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class LedgerPartitionJob {
+
+    private final LedgerPartitionRepository ledgerPartitionRepository;
+    private final LedgerArchiveService ledgerArchiveService;
+    private final BalanceSnapshotJob balanceSnapshotJob;
+
+    @Value("${wallet.ledger.partitions.enabled:true}")
+    private boolean enabled;
+
+    @Value("${wallet.ledger.partitions.months-ahead:3}")
+    private int monthsAhead;
+
+    @Value("${wallet.ledger.partitions.retention-months:0}")
+    private int retentionMonths;
+
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        maintain();
+    }
+
+
+    @Scheduled(cron = "${wallet.ledger.partitions.cron:0 30 2 * * *}", zone = "UTC")
+    public void maintain() {
+        if (!enabled) {
+            return;
+        }
+
+        try {
+            YearMonth current = YearMonth.now(ZoneOffset.UTC);
+            createUpcoming(current);
+            if (retentionMonths > 0) {
+                archiveBefore(current.minusMonths(retentionMonths));
+            }
+            moveDetachedToFiles();
+        } catch (RuntimeException e) {
+            log.error("Ledger partition maintenance failed", e);
+        }
+    }
+
+
+    /**
+     * Creates the partitions of the current month and the {@code months-ahead} months after it that are missing.
+     */
+    public int createUpcoming(YearMonth current) {
+        int created = ledgerPartitionRepository.createPartitions(current, current.plusMonths(monthsAhead));
+        if (created > 0) {
+            log.info("Created {} ledger partitions up to {}", created, current.plusMonths(monthsAhead));
+        }
+        return created;
+    }
+
+
+    /**
+     * Detaches every attached partition of a month before {@code cutoff} whose wallets are covered by snapshots,
+     * oldest first, checkpointing every wallet as of the partition's end before it goes. Stops at the first
+     * month it has to keep, so the archived months always precede every attached one. A detach an earlier run
+     * did not complete is finished first; such a partition is no longer attached and would otherwise stay
+     * out of both ledger_entries and the archive.
+     */
+    public List<LedgerPartition> archiveBefore(YearMonth cutoff) {
+        List<LedgerPartition> archived = new ArrayList<>();
+
+        for (LedgerPartition partition : ledgerPartitionRepository.findInterruptedDetaches()) {
+            ledgerPartitionRepository.finishDetachToArchive(partition);
+            archived.add(partition);
+            log.warn("Finished the interrupted detach of ledger partition {} into ledger_archive", partition.name());
+        }
+
+        for (LedgerPartition partition : ledgerPartitionRepository.findAttachedPartitions()) {
+            if (!partition.month().isBefore(cutoff)) {
+                continue;
+            }
+            balanceSnapshotJob.checkpointAll(partition.end());
+            if (!ledgerPartitionRepository.isCoveredBySnapshots(partition)) {
+                log.warn("Keeping ledger partition {} and later months: some of its wallets have no snapshot " +
+                        "after their last entry", partition.name());
+                break;
+            }
+            if (ledgerPartitionRepository.hasPendingEvents(partition)) {
+                log.warn("Keeping ledger partition {} and later months: the outbox still has events for its entries",
+                        partition.name());
+                break;
+            }
+
+            ledgerPartitionRepository.detachToArchive(partition);
+            archived.add(partition);
+            log.info("Detached ledger partition {} into ledger_archive", partition.name());
+        }
+
+        return archived;
+    }
+
+
+    /**
+     * Writes every partition in ledger_archive to its segment file, then drops it. A partition whose segment
+     * fails stays in ledger_archive and is retried on the next run.
+     */
+    public int moveDetachedToFiles() {
+        int moved = 0;
+
+        for (LedgerPartition partition : ledgerPartitionRepository.findDetachedPartitions()) {
+            ledgerArchiveService.archive(partition);
+            ledgerPartitionRepository.dropDetached(partition);
+            moved++;
+        }
+
+        return moved;
+    }
+}
@@ -0,0 +1,247 @@
+package com.walletService.Service;
+
+import com.walletService.Repository.LedgerPartitionRepository;
+import com.walletService.Repository.LedgerPartitionRepository.LedgerPartition;
+import com.walletService.Repository.ReconciliationRepository;
+import com.walletService.Repository.ReconciliationRepository.ReconciliationRange;
+import com.walletService.Repository.ReconciliationRepository.WalletDiscrepancy;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reconciles one wallet id range. The range is streamed wallet by wallet in ledger order, and each wallet's
+ * stored balance is checked against both its last {@code balance_after} and the signed sum of its amounts.
+ * Sums are kept as longs scaled by 10^4 (the ledger's NUMERIC scale) and only fall back to
+ * {@link BigDecimal} for a value or sum that does not fit. A sharded wallet's entries form one
+ * {@code balance_after} chain per slot besides the wallet row's own; each chain must end at the balance
+ * it belongs to, and the signed sum must match the row and slots together. Ledger order is
+ * {@code created_at}, which every write path stamps only after it holds the lock of the balance it changes.
+ * <p>
+ * Archived months are no longer in ledger_entries. Each wallet's sum therefore starts from its latest balance
+ * snapshot at or before the oldest attached partition's lower bound, which {@link LedgerPartitionJob} takes
+ * before it detaches a month, and adds the entries created after it. A wallet with such a snapshot and no row
+ * entry after it has no {@code balance_after} to compare the row with, so only its sum is checked.
+ */
+@Component
+@RequiredArgsConstructor
+public class LedgerRangeReconciler {
+
+    private static final int SCALE = 4;
+
+    private final ReconciliationRepository reconciliationRepository;
+    private final LedgerPartitionRepository ledgerPartitionRepository;
+
+    @Value("${wallet.reconciliation.fetch-size:5000}")
+    private int fetchSize;
+
+
+    /**
+     * Reads the whole range from one REPEATABLE READ snapshot, so a write committed mid-scan cannot make a
+     * consistent wallet look broken.
+     */
+    @Transactional(readOnly = true, isolation = Isolation.REPEATABLE_READ)
+    public RangeResult reconcile(ReconciliationRange range) {
+        LocalDateTime ledgerStart = ledgerPartitionRepository.findAttachedPartitions().stream()
+                .findFirst()
+                .map(LedgerPartition::start)
+                .orElse(null);
+
+        RangeScan scan = new RangeScan();
+        reconciliationRepository.streamRange(range, ledgerStart, fetchSize, scan::accept);
+        scan.finishWallet();
+        return new RangeResult(range, scan.wallets, scan.entries, scan.discrepancies);
+    }
+
+
+    @Transactional
+    public void record(RangeResult result) {
+        reconciliationRepository.completeRange(result.range(), result.wallets(), result.entries(),
+                result.discrepancies(), LocalDateTime.now(ZoneOffset.UTC));
+    }
+
+
+    public record RangeResult(ReconciliationRange range, long wallets, long entries,
+                              List<WalletDiscrepancy> discrepancies) {
+    }
+
+
+    /**
+     * Row-by-row state of a range scan. Column order follows the repository's stream query.
+     */
+    private static final class RangeScan {
+
+        private final List<WalletDiscrepancy> discrepancies = new ArrayList<>();
+        private long wallets;
+        private long entries;
+
+        private long walletId = -1;
+        private final ScaledAmount stored = new ScaledAmount();
+        private final ScaledAmount rowBalance = new ScaledAmount();
+        private final ScaledAmount sum = new ScaledAmount();
+        private final ScaledAmount lastBalanceAfter = new ScaledAmount();
+        private boolean hasLastBalanceAfter;
+        private boolean hasSnapshot;
+        private final Map<Integer, SlotChain> slotChains = new HashMap<>();
+        private long walletEntries;
+
+        void accept(ResultSet rs) throws SQLException {
+            long id = rs.getLong(1);
+            if (id != walletId) {
+                finishWallet();
+                startWallet(id, rs);
+            }
+
+            if (rs.getString(6) == null) {
+                return;
+            }
+
+            boolean credit = "CREDIT".equals(rs.getString(6));
+            long amount = rs.getLong(7);
+            if (rs.wasNull()) {
+                BigDecimal exact = rs.getBigDecimal(8);
+                sum.add(credit ? exact : exact.negate());
+            } else {
+                sum.add(credit ? amount : -amount);
+            }
+            walletEntries++;
+
+            int slotIndex = rs.getInt(11);
+            if (!rs.wasNull()) {
+                // Slot entries are rare (the treasury only), so their chains are compared exactly
+                BigDecimal slotBalance = rs.getBigDecimal(12);
+                slotChains.put(slotIndex, new SlotChain(rs.getBigDecimal(10),
+                        slotBalance != null ? slotBalance : BigDecimal.ZERO));
+                return;
+            }
+
+            long balanceAfter = rs.getLong(9);
+            if (rs.wasNull()) {
+                lastBalanceAfter.set(rs.getBigDecimal(10));
+            } else {
+                lastBalanceAfter.set(balanceAfter);
+            }
+            hasLastBalanceAfter = true;
+        }
+
+        private void startWallet(long id, ResultSet rs) throws SQLException {
+            walletId = id;
+            long total = rs.getLong(2);
+            if (rs.wasNull()) {
+                stored.set(rs.getBigDecimal(3));
+            } else {
+                stored.set(total);
+            }
+            long row = rs.getLong(4);
+            if (rs.wasNull()) {
+                rowBalance.set(rs.getBigDecimal(5));
+            } else {
+                rowBalance.set(row);
+            }
+            long snapshot = rs.getLong(13);
+            if (!rs.wasNull()) {
+                sum.set(snapshot);
+                hasSnapshot = true;
+            } else {
+                BigDecimal exact = rs.getBigDecimal(14);
+                hasSnapshot = exact != null;
+                if (hasSnapshot) {
+                    sum.set(exact);
+                } else {
+                    sum.set(0);
+                }
+            }
+            hasLastBalanceAfter = false;
+            slotChains.clear();
+            walletEntries = 0;
+        }
+
+        void finishWallet() {
+            if (walletId < 0) {
+                return;
+            }
+
+            wallets++;
+            entries += walletEntries;
+
+            boolean lastMatches = hasLastBalanceAfter
+                    ? lastBalanceAfter.sameAs(rowBalance)
+                    : hasSnapshot || rowBalance.isZero();
+            for (SlotChain chain : slotChains.values()) {
+                lastMatches &= chain.lastBalanceAfter().compareTo(chain.slotBalance()) == 0;
+            }
+            if (!lastMatches || !sum.sameAs(stored)) {
+                discrepancies.add(new WalletDiscrepancy(walletId, stored.toBigDecimal(),
+                        hasLastBalanceAfter ? lastBalanceAfter.toBigDecimal() : null,
+                        sum.toBigDecimal(), walletEntries));
+            }
+            walletId = -1;
+        }
+    }
+
+
+    private record SlotChain(BigDecimal lastBalanceAfter, BigDecimal slotBalance) {
+    }
+
+
+    /**
+     * A decimal of scale 4 held as an unscaled long, switching to {@link BigDecimal} once it overflows.
+     */
+    private static final class ScaledAmount {
+
+        private long unscaled;
+        private BigDecimal exact;
+
+        void set(long value) {
+            unscaled = value;
+            exact = null;
+        }
+
+        void set(BigDecimal value) {
+            exact = value.setScale(SCALE);
+        }
+
+        void add(long value) {
+            if (exact != null) {
+                exact = exact.add(BigDecimal.valueOf(value, SCALE));
+                return;
+            }
+            try {
+                unscaled = Math.addExact(unscaled, value);
+            } catch (ArithmeticException overflow) {
+                exact = BigDecimal.valueOf(unscaled, SCALE).add(BigDecimal.valueOf(value, SCALE));
+            }
+        }
+
+        void add(BigDecimal value) {
+            exact = toBigDecimal().add(value.setScale(SCALE));
+        }
+
+        boolean isZero() {
+            return exact != null ? exact.signum() == 0 : unscaled == 0;
+        }
+
+        BigDecimal toBigDecimal() {
+            return exact != null ? exact : BigDecimal.valueOf(unscaled, SCALE);
+        }
+
+        boolean sameAs(ScaledAmount other) {
+            if (exact == null && other.exact == null) {
+                return unscaled == other.unscaled;
+            }
+            return toBigDecimal().compareTo(other.toBigDecimal()) == 0;
+        }
+    }
+}
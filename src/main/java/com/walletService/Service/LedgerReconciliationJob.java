@@ -0,0 +1,35 @@
+package com.walletService.Service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Nightly whole-ledger reconciliation; an interrupted run is picked up by the next trigger.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class LedgerReconciliationJob {
+
+    private final LedgerReconciliationService ledgerReconciliationService;
+
+    @Value("${wallet.reconciliation.enabled:true}")
+    private boolean enabled;
+
+
+    @Scheduled(cron = "${wallet.reconciliation.cron:0 0 3 * * *}", zone = "UTC")
+    public void reconcile() {
+        if (!enabled) {
+            return;
+        }
+
+        try {
+            ledgerReconciliationService.run();
+        } catch (RuntimeException e) {
+            log.error("Ledger reconciliation failed", e);
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package com.walletService.Service;
+
+import com.walletService.Repository.ReconciliationRepository;
+import com.walletService.Repository.ReconciliationRepository.ReconciliationRange;
+import com.walletService.Repository.ReconciliationRepository.RunStart;
+import com.walletService.Repository.ReconciliationRepository.RunTotals;
+import com.walletService.Repository.ReconciliationRepository.WalletDiscrepancy;
+import com.walletService.Service.LedgerRangeReconciler.RangeResult;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import tools.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Proves every wallet balance against its ledger. A run splits the wallets into id ranges of
+ * {@code wallet.reconciliation.range-size} and reconciles them on a fixed pool of
+ * {@code wallet.reconciliation.parallelism} threads, each range on its own connection and streaming cursor.
+ * A finished range is recorded with its discrepancies, so a run interrupted by a crash or a failed range is
+ * resumed by the next call rather than restarted. The finished run is written as a JSON report.
+ * <p>
+ * Finding or creating the run happens under an advisory lock, so instances triggered together start one run
+ * between them. A caller that arrives while the lock is held skips. A caller that arrives after it was
+ * released resumes the same run and may repeat ranges still in progress; recording a range twice keeps the
+ * first attempt's discrepancies, so the report is unaffected.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class LedgerReconciliationService {
+
+    private final ReconciliationRepository reconciliationRepository;
+    private final LedgerRangeReconciler ledgerRangeReconciler;
+    private final ObjectMapper objectMapper;
+
+    @Value("${wallet.reconciliation.parallelism:4}")
+    private int parallelism;
+
+    @Value("${wallet.reconciliation.range-size:10000}")
+    private int rangeSize;
+
+    @Value("${wallet.reconciliation.report-dir:reconciliation-reports}")
+    private String reportDir;
+
+
+    /**
+     * Resumes the unfinished run if there is one, otherwise starts a new one. Returns the report of the run,
+     * or of its progress so far when some ranges failed and it stays resumable. Empty when another caller was
+     * starting a run at the same moment.
+     */
+    public Optional<ReconciliationReport> run() {
+        Optional<RunStart> start =
+                reconciliationRepository.startOrResumeRun(rangeSize, LocalDateTime.now(ZoneOffset.UTC));
+        if (start.isEmpty()) {
+            log.info("Another reconciliation run is being started, skipping this one");
+            return Optional.empty();
+        }
+        long runId = start.get().runId();
+
+        List<ReconciliationRange> ranges = reconciliationRepository.findPendingRanges(runId);
+        log.info("{} reconciliation run {}: {} ranges pending",
+                start.get().resumed() ? "Resuming" : "Starting", runId, ranges.size());
+
+        long startNanos = System.nanoTime();
+        AtomicLong wallets = new AtomicLong();
+        AtomicLong entries = new AtomicLong();
+        AtomicInteger failedRanges = new AtomicInteger();
+
+        AtomicInteger threadCounter = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism, runnable -> {
+            Thread thread = new Thread(runnable, "ledger-reconciliation-" + threadCounter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            List<Future<?>> futures = new ArrayList<>(ranges.size());
+            for (ReconciliationRange range : ranges) {
+                futures.add(executor.submit(() -> {
+                    try {
+                        RangeResult result = ledgerRangeReconciler.reconcile(range);
+                        ledgerRangeReconciler.record(result);
+                        wallets.addAndGet(result.wallets());
+                        entries.addAndGet(result.entries());
+                    } catch (RuntimeException e) {
+                        failedRanges.incrementAndGet();
+                        log.error("Reconciliation of wallets {}..{} failed, left for the next run",
+                                range.rangeStart(), range.rangeEnd(), e);
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("Reconciliation run {} interrupted, it resumes on the next call", runId);
+            return Optional.of(report(runId, "INTERRUPTED", null, wallets.get(), entries.get(), startNanos));
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Reconciliation worker failed", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+
+        if (failedRanges.get() > 0) {
+            log.warn("Reconciliation run {}: {} ranges failed and stay pending", runId, failedRanges.get());
+            return Optional.of(report(runId, "INCOMPLETE", null, wallets.get(), entries.get(), startNanos));
+        }
+
+        RunTotals totals = reconciliationRepository.completeRun(runId, LocalDateTime.now(ZoneOffset.UTC));
+        return Optional.of(report(runId, "DONE", totals, wallets.get(), entries.get(), startNanos));
+    }
+
+
+    private ReconciliationReport report(long runId, String status, RunTotals totals, long wallets, long entries,
+                                        long startNanos) {
+        double seconds = Math.max((System.nanoTime() - startNanos) / 1e9, 1e-9);
+        List<WalletDiscrepancy> discrepancies = reconciliationRepository.findDiscrepancies(runId);
+
+        ReconciliationReport report = new ReconciliationReport(runId, status,
+                totals != null ? totals.wallets() : null,
+                totals != null ? totals.entries() : null,
+                wallets, entries, Math.round(seconds * 1000) / 1000.0,
+                Math.round(wallets / seconds), Math.round(entries / seconds),
+                discrepancies);
+
+        log.info("Reconciliation run {} {}: {} wallets and {} entries in {} s ({} wallets/s, {} entries/s), " +
+                        "{} discrepancies", runId, status, wallets, entries, report.elapsedSeconds(),
+                report.walletsPerSecond(), report.entriesPerSecond(), discrepancies.size());
+
+        writeReport(report);
+        return report;
+    }
+
+
+    private void writeReport(ReconciliationReport report) {
+        Path path = Path.of(reportDir, "reconciliation-run-" + report.runId() + ".json");
+        try {
+            Files.createDirectories(path.toAbsolutePath().getParent());
+            Map<String, Object> document = new LinkedHashMap<>();
+            document.put("generatedAt", LocalDateTime.now(ZoneOffset.UTC).toString());
+            document.put("report", report);
+            Files.writeString(path, objectMapper.writeValueAsString(document));
+        } catch (IOException e) {
+            log.error("Could not write reconciliation report {}", path, e);
+        }
+    }
+
+
+    /**
+     * Totals cover the whole run and are only known once it is done; the processed counts and throughput
+     * cover this invocation, which for a resumed run excludes ranges finished earlier.
+     */
+    public record ReconciliationReport(long runId, String status, Long totalWallets, Long totalEntries,
+                                       long processedWallets, long processedEntries, double elapsedSeconds,
+                                       long walletsPerSecond, long entriesPerSecond,
+                                       List<WalletDiscrepancy> discrepancies) {
+    }
+}
@@ -0,0 +1,10 @@
+package com.walletService.Service;
+
+/**
+ * How a write against a sharded wallet picks its slot: HASH of the counterparty (the same user always
+ * lands on the same slot) or RANDOM (even spread regardless of who is writing).
+ */
+public enum SlotSelection {
+    HASH,
+    RANDOM
+}
@@ -1,19 +1,21 @@
 package com.walletService.Service;
 
+import com.walletService.Dto.LedgerEntryView;
 import com.walletService.Dto.TransactionHistoryResponseDto;
 import com.walletService.Entity.AssetType;
-import com.walletService.Entity.LedgerEntry;
 import com.walletService.Entity.Wallet;
 import com.walletService.Exceptions.WalletNotFoundException;
 import com.walletService.Repository.LedgerEntryRepository;
 import com.walletService.Repository.WalletRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -24,40 +26,24 @@ public class TransactionHistoryService {
 
     private final WalletRepository walletRepository;
     private final LedgerEntryRepository ledgerEntryRepository;
+    private final LedgerArchiveService ledgerArchiveService;
 
+    /**
+     * Largest page served; larger limits are reduced to it and the rest is reached through {@code nextCursor}.
+     */
+    public static final int MAX_PAGE_SIZE = 1000;
+    private static final LocalDateTime EARLIEST = LocalDateTime.of(1970, 1, 1, 0, 0);
 
+
+    /**
+     * First page of a time range. This is not the whole range: at most {@link #MAX_PAGE_SIZE} newest entries
+     * are returned and {@code nextCursor} is set when older ones remain, to be fetched with
+     * {@link #getTransactionPage}. Use the ledger export for a complete history.
+     */
     @Transactional(readOnly = true)
     public TransactionHistoryResponseDto getTransactionHistory(Long userId, AssetType assetType,
                                                                LocalDateTime fromTime, LocalDateTime toTime) {
-        log.info("Fetching transaction history for user {} and asset type {}", userId, assetType);
-
-        // Get wallet
-        Wallet wallet = walletRepository.findByUserIdAndAssetType(userId, assetType)
-                .orElseThrow(() -> new WalletNotFoundException(
-                        String.format("Wallet not found for user %d and asset type %s", userId, assetType)
-                ));
-
-        // Get ledger entries based on time filter
-        List<LedgerEntry> ledgerEntries;
-
-        if (fromTime != null && toTime != null) {
-            ledgerEntries = ledgerEntryRepository.findByWalletIdAndCreatedAtBetween(
-                    wallet.getId(), fromTime, toTime
-            );
-        } else {
-            ledgerEntries = ledgerEntryRepository.findByWalletIdOrderByCreatedAtDesc(wallet.getId());
-        }
-
-        // Convert to DTOs
-        List<TransactionHistoryResponseDto.TransactionDto> transactions = ledgerEntries.stream()
-                .map(this::convertToTransactionDto)
-                .collect(Collectors.toList());
-
-        return TransactionHistoryResponseDto.builder()
-                .assetType(assetType)
-                .currentBalance(wallet.getBalance())
-                .transactions(transactions)
-                .build();
+        return getTransactionPage(userId, assetType, fromTime, toTime, null, MAX_PAGE_SIZE);
     }
 
     /**
@@ -65,38 +51,80 @@ public class TransactionHistoryService {
      */
     @Transactional(readOnly = true)
     public TransactionHistoryResponseDto getRecentTransactions(Long userId, AssetType assetType, int limit) {
-        log.info("Fetching last {} transactions for user {} and asset type {}", limit, userId, assetType);
+        return getTransactionPage(userId, assetType, null, null, null, limit);
+    }
+
+    /**
+     * Get one page of history, newest first, optionally restricted to a time range. The limit is applied
+     * in SQL, capped at {@link #MAX_PAGE_SIZE}, and {@code nextCursor} is set when more entries follow. A page
+     * the hot table cannot fill is continued from the archived months when the range reaches back before the
+     * oldest attached month.
+     */
+    @Transactional(readOnly = true)
+    public TransactionHistoryResponseDto getTransactionPage(Long userId, AssetType assetType,
+                                                            LocalDateTime fromTime, LocalDateTime toTime,
+                                                            String cursor, int limit) {
+        log.info("Fetching transaction page for user {} and asset type {} (limit {})", userId, assetType, limit);
+
+        HistoryCursor position = HistoryCursor.decode(cursor);
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
 
         Wallet wallet = walletRepository.findByUserIdAndAssetType(userId, assetType)
                 .orElseThrow(() -> new WalletNotFoundException(
                         String.format("Wallet not found for user %d and asset type %s", userId, assetType)
                 ));
 
-        List<LedgerEntry> ledgerEntries = ledgerEntryRepository.findByWalletIdOrderByCreatedAtDesc(wallet.getId());
+        LocalDateTime from = fromTime != null ? fromTime : EARLIEST;
+        LocalDateTime to = toTime != null ? toTime : HistoryCursor.START.createdAt();
+
+        // Fetch one extra row to learn whether another page exists
+        List<LedgerEntryView> ledgerEntries = ledgerEntryRepository.findPage(
+                wallet.getId(),
+                from,
+                to,
+                position.createdAt(),
+                position.id(),
+                Limit.of(pageSize + 1)
+        );
+
+        if (ledgerEntries.size() <= pageSize) {
+            List<LedgerEntryView> archived = ledgerArchiveService.findPage(wallet.getId(), from, to,
+                    position.createdAt(), position.id(), pageSize + 1 - ledgerEntries.size());
+            if (!archived.isEmpty()) {
+                ledgerEntries = new ArrayList<>(ledgerEntries);
+                ledgerEntries.addAll(archived);
+            }
+        }
+
+        String nextCursor = null;
+        if (ledgerEntries.size() > pageSize) {
+            ledgerEntries = ledgerEntries.subList(0, pageSize);
+            LedgerEntryView last = ledgerEntries.get(pageSize - 1);
+            nextCursor = new HistoryCursor(last.createdAt(), last.id()).encode();
+        }
 
-        // Limit results
         List<TransactionHistoryResponseDto.TransactionDto> transactions = ledgerEntries.stream()
-                .limit(limit)
-                .map(this::convertToTransactionDto)
+                .map(TransactionHistoryService::convertToTransactionDto)
                 .collect(Collectors.toList());
 
         return TransactionHistoryResponseDto.builder()
                 .assetType(assetType)
                 .currentBalance(wallet.getBalance())
                 .transactions(transactions)
+                .nextCursor(nextCursor)
                 .build();
     }
 
 
-    private TransactionHistoryResponseDto.TransactionDto convertToTransactionDto(LedgerEntry entry) {
+    static TransactionHistoryResponseDto.TransactionDto convertToTransactionDto(LedgerEntryView entry) {
         return TransactionHistoryResponseDto.TransactionDto.builder()
-                .id(entry.getId())
-                .type(entry.getTransactionType())
-                .amount(entry.getAmount())
-                .balanceAfter(entry.getBalanceAfter())
-                .description(entry.getDescription())
-                .referenceId(entry.getReferenceId())
-                .timestamp(entry.getCreatedAt())
+                .id(entry.id())
+                .type(entry.transactionType())
+                .amount(entry.amount())
+                .balanceAfter(entry.balanceAfter())
+                .description(entry.description())
+                .referenceId(entry.referenceId())
+                .timestamp(entry.createdAt())
                 .build();
     }
 }
@@ -0,0 +1,51 @@
+package com.walletService.Service;
+
+import com.walletService.Entity.AssetType;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Sets up the treasury slots at startup and periodically evens them out, so a slot drained by a run of
+ * debits does not keep failing operations the logical balance could cover.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class TreasuryRebalanceJob {
+
+    private final TreasuryService treasuryService;
+
+    @Value("${wallet.treasury.rebalance.enabled:true}")
+    private boolean enabled;
+
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void initialise() {
+        rebalanceAll();
+    }
+
+
+    @Scheduled(fixedDelayString = "${wallet.treasury.rebalance.interval-ms:60000}",
+            initialDelayString = "${wallet.treasury.rebalance.interval-ms:60000}")
+    public void rebalance() {
+        if (enabled) {
+            rebalanceAll();
+        }
+    }
+
+
+    private void rebalanceAll() {
+        for (AssetType assetType : AssetType.values()) {
+            try {
+                treasuryService.rebalance(assetType);
+            } catch (RuntimeException e) {
+                log.warn("Treasury rebalance failed for {}: {}", assetType, e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,264 @@
+package com.walletService.Service;
+
+import com.walletService.Dto.BalanceResponseDto;
+import com.walletService.Dto.WalletBalancesResponseDto;
+import com.walletService.Entity.AssetType;
+import com.walletService.Entity.LedgerEntry;
+import com.walletService.Entity.TransactionType;
+import com.walletService.Entity.Wallet;
+import com.walletService.Exceptions.InsufficientBalanceException;
+import com.walletService.Exceptions.WalletNotFoundException;
+import com.walletService.Repository.UserRepository;
+import com.walletService.Repository.WalletBatchRepository;
+import com.walletService.Repository.WalletRepository;
+import com.walletService.Repository.WalletSlotRepository;
+import com.walletService.Repository.WalletSlotRepository.SlotUpdate;
+import com.walletService.Repository.WalletSlotRepository.WalletTotals;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Sharded treasury wallet. The treasury's balance is split over {@code wallet.treasury.slots} slot rows,
+ * and each treasury-side write changes one slot, so treasury-funded operations are no longer serialized
+ * on a single wallet row. The logical balance is the wallet row's balance plus all slots; the
+ * {@link TreasuryRebalanceJob} sweeps the wallet row into the slots and evens them out. Every treasury write
+ * goes through here: {@link WalletService} routes the treasury's own operations, transfers and bulk items
+ * to a slot, and each resulting ledger entry records the slot it changed.
+ * <p>
+ * Lock order: user wallets, then slots in ascending slot index, then the treasury's wallet row. Callers
+ * lock their own wallets before touching a slot, and the rebalancer never locks user wallets. A transaction
+ * writing several slots applies its writes in slot order and only waits for a slot above every slot it
+ * already holds; a debit its own slot cannot cover falls back to {@link #debitFreeSlot}, which skips slots
+ * held elsewhere instead of waiting. Writers take the wallet row last, as the key-share lock of their ledger
+ * entries' foreign key, and the rebalancer locks it only after all slots.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class TreasuryService {
+
+    private final WalletRepository walletRepository;
+    private final UserRepository userRepository;
+    private final WalletSlotRepository walletSlotRepository;
+    private final WalletBatchRepository walletBatchRepository;
+
+    private final ConcurrentHashMap<AssetType, Long> walletIds = new ConcurrentHashMap<>();
+
+    @Value("${wallet.treasury.user-id:#{null}}")
+    private Long treasuryUserId;
+
+    @Value("${wallet.treasury.slots:16}")
+    private int slotCount;
+
+    @Value("${wallet.treasury.slot-selection:HASH}")
+    private SlotSelection slotSelection;
+
+
+    public boolean isSharded(Long userId) {
+        return treasuryUserId != null && slotCount > 1 && treasuryUserId.equals(userId);
+    }
+
+
+    /**
+     * Takes {@code amount} from one slot. When the chosen slot holds too little the others are tried in
+     * turn; the operation fails only if no single slot can cover it. Waits for each slot it tries, so it is
+     * only for transactions that write no other slot.
+     */
+    public SlotUpdate debit(AssetType assetType, BigDecimal amount, Long counterpartyId, LocalDateTime now) {
+        Long walletId = walletId(assetType);
+        int first = selectSlot(counterpartyId);
+
+        for (int i = 0; i < slotCount; i++) {
+            Optional<SlotUpdate> update = walletSlotRepository.applyDelta(walletId, (first + i) % slotCount, amount.negate(), now);
+            if (update.isPresent()) {
+                return update.get();
+            }
+        }
+
+        throw new InsufficientBalanceException(
+                String.format("Insufficient treasury balance. No slot can cover %s %s", amount, assetType)
+        );
+    }
+
+
+    public SlotUpdate credit(AssetType assetType, BigDecimal amount, Long counterpartyId, LocalDateTime now) {
+        return creditSlot(assetType, amount, selectSlot(counterpartyId), now);
+    }
+
+
+    public SlotUpdate creditSlot(AssetType assetType, BigDecimal amount, int slotIndex, LocalDateTime now) {
+        return walletSlotRepository.applyDelta(walletId(assetType), slotIndex, amount, now)
+                .orElseThrow(() -> new WalletNotFoundException("Treasury slots are not initialised for " + assetType));
+    }
+
+
+    /**
+     * Takes {@code amount} from the given slot; empty when it holds too little.
+     */
+    public Optional<SlotUpdate> debitSlot(AssetType assetType, BigDecimal amount, int slotIndex, LocalDateTime now) {
+        return walletSlotRepository.applyDelta(walletId(assetType), slotIndex, amount.negate(), now);
+    }
+
+
+    /**
+     * Takes {@code amount} from the fullest slot other than {@code excludedSlot} that no other transaction
+     * holds. Never waits for a slot lock, so it is safe after the caller has locked slots in any order.
+     */
+    public SlotUpdate debitFreeSlot(AssetType assetType, BigDecimal amount, int excludedSlot, LocalDateTime now) {
+        return walletSlotRepository.applyDeltaToFreeSlot(walletId(assetType), excludedSlot, amount.negate(), now)
+                .orElseThrow(() -> new InsufficientBalanceException(
+                        String.format("Insufficient treasury balance. No slot can cover %s %s", amount, assetType)
+                ));
+    }
+
+
+    @Transactional(readOnly = true)
+    public BalanceResponseDto getBalance(AssetType assetType) {
+        Wallet wallet = walletRepository.findByUserIdAndAssetType(treasuryUserId, assetType)
+                .orElseThrow(() -> new WalletNotFoundException(
+                        String.format("Wallet not found for user %d and asset type %s", treasuryUserId, assetType)
+                ));
+
+        return BalanceResponseDto.builder()
+                .userId(treasuryUserId)
+                .assetType(assetType)
+                .balance(walletSlotRepository.findTotals(wallet.getId()).balance())
+                .build();
+    }
+
+
+    /**
+     * Logical balance of one treasury wallet for the balances endpoint. Its version combines the wallet
+     * row's and the slots' versions, so an ETag built from it changes with every slot write.
+     */
+    public WalletBalancesResponseDto.AssetBalanceDto getAssetBalance(Wallet wallet) {
+        WalletTotals totals = walletSlotRepository.findTotals(wallet.getId());
+
+        return WalletBalancesResponseDto.AssetBalanceDto.builder()
+                .assetType(wallet.getAssetType())
+                .balance(totals.balance())
+                .version(totals.version())
+                .build();
+    }
+
+
+    /**
+     * Creates the treasury wallet and any missing slots, moves the wallet row's own balance into the slots
+     * and spreads the total evenly, any rounding remainder going to slot 0. Slots beyond the configured
+     * count are drained. Every balance it moves is ledgered: a debit on the wallet row's chain for the
+     * sweep and one entry per changed slot, all under one reference id, so the entries sum to zero and
+     * each chain's last balanceAfter still matches its balance.
+     */
+    @Transactional(isolation = Isolation.READ_COMMITTED, rollbackFor = Exception.class)
+    public void rebalance(AssetType assetType) {
+        if (treasuryUserId == null || slotCount <= 1) {
+            return;
+        }
+
+        Long walletId = walletRepository.findIdByUserIdAndAssetType(treasuryUserId, assetType)
+                .orElseGet(() -> walletRepository.saveAndFlush(Wallet.builder()
+                        .user(userRepository.getReferenceById(treasuryUserId))
+                        .assetType(assetType)
+                        .balance(BigDecimal.ZERO)
+                        .build()).getId());
+        walletIds.put(assetType, walletId);
+
+        walletSlotRepository.insertMissingSlots(walletId, slotCount, LocalDateTime.now(ZoneOffset.UTC));
+        List<SlotUpdate> slots = walletSlotRepository.lockSlots(walletId);
+
+        // The row comes after the slots: a writer holding a slot takes its key-share lock when it inserts
+        // the slot's ledger entry, and locking the row first would wait for that writer while it waits for us
+        Wallet wallet = walletRepository.findByUserIdAndAssetTypeForUpdate(treasuryUserId, assetType)
+                .orElseThrow(() -> new WalletNotFoundException("Treasury wallet not found for " + assetType));
+
+        // Taken under the locks, so the entries sort after every write they have waited for
+        LocalDateTime now = LocalDateTime.now(ZoneOffset.UTC);
+        String referenceId = "treasury-rebalance:" + UUID.randomUUID();
+
+        BigDecimal total = wallet.getBalance();
+        for (SlotUpdate slot : slots) {
+            total = total.add(slot.balance());
+        }
+
+        BigDecimal share = total.divide(BigDecimal.valueOf(slotCount), 4, RoundingMode.DOWN);
+        BigDecimal remainder = total.subtract(share.multiply(BigDecimal.valueOf(slotCount)));
+
+        List<SlotUpdate> changed = new ArrayList<>();
+        List<LedgerEntry> entries = new ArrayList<>();
+
+        if (wallet.getBalance().signum() != 0) {
+            entries.add(rebalanceEntry(wallet, null, wallet.getBalance().negate(), BigDecimal.ZERO,
+                    referenceId, now));
+        }
+
+        for (SlotUpdate slot : slots) {
+            BigDecimal target = slot.slotIndex() >= slotCount ? BigDecimal.ZERO
+                    : slot.slotIndex() == 0 ? share.add(remainder) : share;
+            if (slot.balance().compareTo(target) != 0) {
+                changed.add(new SlotUpdate(slot.walletId(), slot.slotIndex(), target));
+                entries.add(rebalanceEntry(wallet, slot.slotIndex(), target.subtract(slot.balance()), target,
+                        referenceId, now));
+            }
+        }
+        walletSlotRepository.setBalances(changed, now);
+        walletBatchRepository.insertLedgerEntries(entries);
+
+        if (wallet.getBalance().signum() != 0) {
+            wallet.setBalance(BigDecimal.ZERO);
+            walletRepository.save(wallet);
+        }
+
+        log.info("Rebalanced treasury {} over {} slots: total {}, {} slots changed",
+                assetType, slotCount, total, changed.size());
+    }
+
+
+    private LedgerEntry rebalanceEntry(Wallet wallet, Integer slotIndex, BigDecimal delta, BigDecimal balanceAfter,
+                                       String referenceId, LocalDateTime now) {
+        return LedgerEntry.builder()
+                .wallet(wallet)
+                .transactionType(delta.signum() > 0 ? TransactionType.CREDIT : TransactionType.DEBIT)
+                .amount(delta.abs())
+                .balanceAfter(balanceAfter)
+                .description("Treasury rebalance")
+                .referenceId(referenceId)
+                .slotIndex(slotIndex)
+                .idempotencyKey(referenceId + (slotIndex != null ? ":slot-" + slotIndex : ":row"))
+                .createdAt(now)
+                .build();
+    }
+
+
+    private Long walletId(AssetType assetType) {
+        return walletIds.computeIfAbsent(assetType, type -> walletRepository
+                .findByUserIdAndAssetType(treasuryUserId, type)
+                .map(Wallet::getId)
+                .orElseThrow(() -> new WalletNotFoundException("Treasury wallet not found for " + type)));
+    }
+
+
+    public int selectSlot(Long counterpartyId) {
+        if (slotSelection == SlotSelection.RANDOM) {
+            return ThreadLocalRandom.current().nextInt(slotCount);
+        }
+
+        // Spread sequential user ids across slots
+        long mixed = counterpartyId * 0x9E3779B97F4A7C15L;
+        return (int) Math.floorMod(mixed ^ (mixed >>> 32), (long) slotCount);
+    }
+}
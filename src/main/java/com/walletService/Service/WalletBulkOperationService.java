@@ -0,0 +1,175 @@
+package com.walletService.Service;
+
+import com.walletService.Dto.BulkWalletOperationRequestDto;
+import com.walletService.Dto.BulkWalletOperationRequestDto.BulkOperationItemDto;
+import com.walletService.Dto.BulkWalletOperationResponseDto;
+import com.walletService.Dto.BulkWalletOperationResponseDto.BulkOperationResultDto;
+import com.walletService.Dto.WalletOperationResponseDto;
+import com.walletService.Exceptions.InvalidBatchRequestException;
+import com.walletService.Exceptions.UnauthorizedWalletAccessException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Applies many credits and debits in one request. Items are sorted by wallet and applied in chunks, each
+ * chunk in its own transaction with one ordered lock acquisition and one JDBC batch of ledger rows. Every
+ * item keeps its own idempotency key and gets its own result; a rejected item never fails the others.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class WalletBulkOperationService {
+
+    private static final Comparator<IndexedOperation> WALLET_ORDER = Comparator
+            .comparing((IndexedOperation item) -> item.operation().userId())
+            .thenComparing(item -> item.operation().request().getAssetType());
+
+    private final WalletService walletService;
+    private final IdempotencyResponseCache idempotencyResponseCache;
+    private final WalletTransactionRetrier walletTransactionRetrier;
+
+    @Value("${wallet.batch.allowed-callers:}")
+    private Set<Long> allowedCallers;
+
+    @Value("${wallet.batch.max-items:5000}")
+    private int maxItems;
+
+    @Value("${wallet.batch.chunk-size:500}")
+    private int chunkSize;
+
+
+    public BulkWalletOperationResponseDto apply(Long callerId, BulkWalletOperationRequestDto request) {
+        if (!allowedCallers.contains(callerId)) {
+            throw new UnauthorizedWalletAccessException(
+                    "Caller " + callerId + " is not allowed to submit batch operations");
+        }
+
+        List<BulkOperationItemDto> items = request.getOperations();
+        if (items.size() > maxItems) {
+            throw new InvalidBatchRequestException("Batch contains " + items.size()
+                    + " operations, the maximum is " + maxItems);
+        }
+
+        log.info("Batch of {} operations received from caller {}", items.size(), callerId);
+
+        WalletOperationOutcome[] outcomes = new WalletOperationOutcome[items.size()];
+        List<IndexedOperation> pending = new ArrayList<>(items.size());
+
+        for (int i = 0; i < items.size(); i++) {
+            BulkOperationItemDto item = items.get(i);
+            Optional<WalletOperationResponseDto> cached = idempotencyResponseCache.get(
+                    item.getUserId(), item.getOperation().getIdempotencyKey());
+
+            if (cached.isPresent()) {
+                outcomes[i] = WalletOperationOutcome.duplicate(cached.get());
+            } else {
+                pending.add(new IndexedOperation(i,
+                        new WalletOperation(item.getUserId(), item.getType(), item.getOperation())));
+            }
+        }
+
+        // Stable sort: operations on the same wallet keep their request order
+        pending.sort(WALLET_ORDER);
+
+        for (int from = 0; from < pending.size(); from += chunkSize) {
+            applyChunk(pending.subList(from, Math.min(from + chunkSize, pending.size())), outcomes);
+        }
+
+        return buildResponse(items, outcomes);
+    }
+
+
+    private void applyChunk(List<IndexedOperation> chunk, WalletOperationOutcome[] outcomes) {
+        try {
+            store(chunk, walletTransactionRetrier.execute("applyBulkChunk",
+                    () -> walletService.applyBulkChunk(operationsOf(chunk))), outcomes);
+        } catch (RuntimeException e) {
+            log.warn("Batch chunk of {} operations failed, applying per wallet: {}", chunk.size(), e.getMessage());
+
+            Map<WalletKey, List<IndexedOperation>> byWallet = new LinkedHashMap<>();
+            for (IndexedOperation item : chunk) {
+                WalletOperation operation = item.operation();
+                byWallet.computeIfAbsent(new WalletKey(operation.userId(), operation.request().getAssetType()),
+                        key -> new ArrayList<>()).add(item);
+            }
+
+            byWallet.forEach((key, operations) -> applyToWallet(key, operations, outcomes));
+        }
+    }
+
+
+    private void applyToWallet(WalletKey key, List<IndexedOperation> operations, WalletOperationOutcome[] outcomes) {
+        try {
+            store(operations, walletTransactionRetrier.execute("applyCoalesced",
+                    () -> walletService.applyCoalesced(key.userId(), key.assetType(), operationsOf(operations))),
+                    outcomes);
+        } catch (RuntimeException e) {
+            if (operations.size() == 1) {
+                outcomes[operations.get(0).index()] = WalletOperationOutcome.failure(e);
+                return;
+            }
+
+            for (IndexedOperation item : operations) {
+                applyToWallet(key, List.of(item), outcomes);
+            }
+        }
+    }
+
+
+    private void store(List<IndexedOperation> operations, List<WalletOperationOutcome> results,
+                       WalletOperationOutcome[] outcomes) {
+        for (int i = 0; i < operations.size(); i++) {
+            outcomes[operations.get(i).index()] = results.get(i);
+        }
+    }
+
+
+    private List<WalletOperation> operationsOf(List<IndexedOperation> operations) {
+        return operations.stream().map(IndexedOperation::operation).toList();
+    }
+
+
+    private BulkWalletOperationResponseDto buildResponse(List<BulkOperationItemDto> items,
+                                                         WalletOperationOutcome[] outcomes) {
+        List<BulkOperationResultDto> results = new ArrayList<>(items.size());
+        int succeeded = 0;
+
+        for (int i = 0; i < items.size(); i++) {
+            BulkOperationItemDto item = items.get(i);
+            WalletOperationOutcome outcome = outcomes[i];
+
+            if (outcome.isSuccess()) {
+                succeeded++;
+            }
+
+            results.add(BulkOperationResultDto.builder()
+                    .index(i)
+                    .userId(item.getUserId())
+                    .idempotencyKey(item.getOperation().getIdempotencyKey())
+                    .success(outcome.isSuccess())
+                    .response(outcome.response())
+                    .error(outcome.isSuccess() ? null : outcome.error().getMessage())
+                    .build());
+        }
+
+        return BulkWalletOperationResponseDto.builder()
+                .succeeded(succeeded)
+                .failed(items.size() - succeeded)
+                .results(results)
+                .build();
+    }
+
+
+    private record IndexedOperation(int index, WalletOperation operation) {
+    }
+}
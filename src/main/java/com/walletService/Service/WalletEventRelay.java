@@ -0,0 +1,127 @@
+package com.walletService.Service;
+
+import com.walletService.Dto.WalletEvent;
+import com.walletService.Repository.WalletEventRepository;
+import com.walletService.Repository.WalletEventRepository.OutboxBatch;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Drains the wallet_events outbox into the configured {@link WalletEventSink}, one batch per transaction.
+ * A batch's rows are deleted in the transaction that read them, only after the sink accepted the batch, so a
+ * failure anywhere delivers the batch again: at least once, in id order, which keeps the events of each balance
+ * in order: a wallet's, or one slot's of a sharded treasury wallet (see {@link WalletEventRepository}). A row whose ledger entry is no longer in ledger_entries has no body to publish; it is moved to
+ * wallet_events_dead_letter so that it does not hold up the events behind it.
+ * <p>
+ * Metrics: {@code wallet.outbox.published} counts delivered events, {@code wallet.outbox.dead.lettered} the
+ * rows moved aside, {@code wallet.outbox.lag} times each event from its outbox insert to delivery,
+ * {@code wallet.outbox.publish} times sink calls by outcome and {@code wallet.outbox.oldest.age} is the age
+ * of the oldest pending event as of the last batch.
+ */
+@Service
+@Slf4j
+public class WalletEventRelay {
+
+    private final WalletEventRepository walletEventRepository;
+
+    private final WalletEventSink walletEventSink;
+
+    private final MeterRegistry meterRegistry;
+
+    private final Counter publishedCounter;
+
+    private final Counter deadLetteredCounter;
+
+    private final Timer lagTimer;
+
+    private final AtomicLong oldestAgeMillis = new AtomicLong();
+
+    public WalletEventRelay(WalletEventRepository walletEventRepository, WalletEventSink walletEventSink,
+                            MeterRegistry meterRegistry) {
+        this.walletEventRepository = walletEventRepository;
+        this.walletEventSink = walletEventSink;
+        this.meterRegistry = meterRegistry;
+        this.publishedCounter = Counter.builder("wallet.outbox.published")
+                .description("Wallet events delivered to the sink")
+                .register(meterRegistry);
+        this.deadLetteredCounter = Counter.builder("wallet.outbox.dead.lettered")
+                .description("Wallet events moved to the dead letter table because their ledger entry is gone")
+                .register(meterRegistry);
+        this.lagTimer = Timer.builder("wallet.outbox.lag")
+                .description("Time from writing a wallet event to delivering it")
+                .register(meterRegistry);
+        TimeGauge.builder("wallet.outbox.oldest.age", oldestAgeMillis, TimeUnit.MILLISECONDS, AtomicLong::get)
+                .description("Age of the oldest undelivered wallet event")
+                .register(meterRegistry);
+    }
+
+
+    /**
+     * Publishes up to {@code batchSize} of the oldest events and returns how many rows it took off the outbox,
+     * dead-lettered ones included. Returns 0 without reading when another relay holds the lock.
+     */
+    @Transactional
+    public int relayBatch(int batchSize) {
+        if (!walletEventRepository.tryLockRelay()) {
+            return 0;
+        }
+
+        OutboxBatch batch = walletEventRepository.findBatch(batchSize);
+        if (!batch.orphanIds().isEmpty()) {
+            walletEventRepository.deadLetter(batch.orphanIds(), LocalDateTime.now(ZoneOffset.UTC));
+            deadLetteredCounter.increment(batch.orphanIds().size());
+            log.warn("Moved {} wallet events without a ledger entry to wallet_events_dead_letter, first id {}",
+                    batch.orphanIds().size(), batch.orphanIds().get(0));
+        }
+
+        List<WalletEvent> events = batch.events();
+        if (events.isEmpty()) {
+            oldestAgeMillis.set(0);
+            return batch.orphanIds().size();
+        }
+        oldestAgeMillis.set(ageMillis(events.get(0)));
+
+        long start = System.nanoTime();
+        try {
+            walletEventSink.publish(events);
+        } catch (RuntimeException e) {
+            recordPublish(start, e.getClass().getSimpleName());
+            throw e;
+        }
+        recordPublish(start, "success");
+
+        walletEventRepository.delete(events);
+
+        publishedCounter.increment(events.size());
+        for (WalletEvent event : events) {
+            lagTimer.record(Duration.ofMillis(ageMillis(event)));
+        }
+        return events.size() + batch.orphanIds().size();
+    }
+
+
+    private void recordPublish(long startNanos, String outcome) {
+        Timer.builder("wallet.outbox.publish")
+                .description("Delivery of one batch of wallet events to the sink")
+                .tag("outcome", outcome)
+                .register(meterRegistry)
+                .record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+
+    private static long ageMillis(WalletEvent event) {
+        return Math.max(0, Duration.between(event.recordedAt(), LocalDateTime.now(ZoneOffset.UTC)).toMillis());
+    }
+}
@@ -0,0 +1,82 @@
+package com.walletService.Service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Polls the outbox and keeps draining full batches until it is caught up or {@code max-batches} were sent,
+ * so a backlog clears without waiting a poll interval per batch. A failed batch is retried on the next poll.
+ * The relay runs on its own thread: on Spring's shared scheduler a reconciliation or snapshot run would hold
+ * up event delivery for as long as it takes.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class WalletEventRelayJob {
+
+    private final WalletEventRelay walletEventRelay;
+
+    @Value("${wallet.outbox.relay.enabled:true}")
+    private boolean enabled;
+
+    @Value("${wallet.outbox.relay.batch-size:500}")
+    private int batchSize;
+
+    @Value("${wallet.outbox.relay.max-batches:20}")
+    private int maxBatches;
+
+    @Value("${wallet.outbox.relay.poll-interval-ms:200}")
+    private long pollIntervalMs;
+
+    private ScheduledExecutorService executor;
+
+
+    @PostConstruct
+    void start() {
+        if (!enabled) {
+            return;
+        }
+
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "wallet-event-relay");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleWithFixedDelay(this::drain, pollIntervalMs, pollIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+
+    @PreDestroy
+    void stop() {
+        if (executor != null) {
+            // A batch interrupted before its commit is delivered again by the next relay
+            executor.shutdownNow();
+        }
+    }
+
+
+    public void drain() {
+        if (!enabled) {
+            return;
+        }
+
+        // An exception escaping a fixed-delay task would cancel every later run
+        try {
+            for (int i = 0; i < maxBatches; i++) {
+                if (walletEventRelay.relayBatch(batchSize) < batchSize) {
+                    return;
+                }
+            }
+        } catch (RuntimeException e) {
+            log.warn("Wallet event relay failed, retrying on the next poll: {}", e.getMessage());
+        }
+    }
+}
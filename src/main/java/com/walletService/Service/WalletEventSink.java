@@ -0,0 +1,18 @@
+package com.walletService.Service;
+
+import com.walletService.Dto.WalletEvent;
+
+import java.util.List;
+
+/**
+ * Destination of the wallet event relay, chosen with {@code wallet.outbox.sink}.
+ */
+public interface WalletEventSink {
+
+    /**
+     * Delivers a batch in the given order; a wallet's events are in eventId order. Returning means the batch is
+     * durably accepted and its outbox rows are deleted. Throwing leaves the whole batch to be delivered again,
+     * so a partially delivered batch is repeated.
+     */
+    void publish(List<WalletEvent> events);
+}
@@ -0,0 +1,9 @@
+package com.walletService.Service;
+
+import com.walletService.Entity.AssetType;
+
+/**
+ * Identifies a single wallet by its owner and asset type.
+ */
+public record WalletKey(Long userId, AssetType assetType) {
+}
@@ -0,0 +1,130 @@
+package com.walletService.Service;
+
+import com.walletService.Entity.AssetType;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Timers and counters for wallet operations, published through the actuator metrics endpoint.
+ * <ul>
+ *     <li>{@code wallet.operation}: end-to-end time of an operation as the caller sees it, including
+ *     retries and commit, tagged by operation, asset type and outcome.</li>
+ *     <li>{@code wallet.operation.phase}: time spent in one phase inside the transaction (idempotency check,
+ *     user validation, lock acquisition, ledger insert, key persist), with the same tags plus phase.</li>
+ *     <li>{@code wallet.idempotency.hits}: requests answered from a stored response, tagged by operation
+ *     and source (cache or database).</li>
+ * </ul>
+ * The outcome tag is {@code success}, {@code duplicate} or the simple name of the exception thrown, which
+ * keeps its cardinality bounded by the exception types the service raises. An operation is a duplicate when
+ * it was answered from the response cache ({@link #recordDuplicate}) or when a database idempotency hit was
+ * recorded on its thread while it ran.
+ */
+@Component
+@RequiredArgsConstructor
+public class WalletMetrics {
+
+    static final String IDEMPOTENCY_CHECK = "idempotency_check";
+    static final String USER_VALIDATION = "user_validation";
+    static final String LOCK_ACQUISITION = "lock_acquisition";
+    static final String LEDGER_INSERT = "ledger_insert";
+    static final String KEY_PERSIST = "key_persist";
+
+    static final String SUCCESS = "success";
+    static final String DUPLICATE = "duplicate";
+
+    /** Asset type tag of operations that span several asset types, such as bulk chunks. */
+    private static final String MIXED_ASSET_TYPES = "MIXED";
+
+    private final MeterRegistry meterRegistry;
+
+    /** Duplicate flag of the operation timer running on this thread, if any. */
+    private final ThreadLocal<boolean[]> currentOperation = new ThreadLocal<>();
+
+
+    public <T> T operation(String operation, AssetType assetType, Supplier<T> body) {
+        boolean[] enclosing = currentOperation.get();
+        boolean[] duplicate = new boolean[1];
+        currentOperation.set(duplicate);
+        try {
+            return record("wallet.operation", operation, null, assetType, duplicate, body);
+        } finally {
+            currentOperation.set(enclosing);
+        }
+    }
+
+
+    public <T> T phase(String operation, String phase, AssetType assetType, Supplier<T> body) {
+        return record("wallet.operation.phase", operation, phase, assetType, null, body);
+    }
+
+
+    public void phase(String operation, String phase, AssetType assetType, Runnable body) {
+        record("wallet.operation.phase", operation, phase, assetType, null, () -> {
+            body.run();
+            return null;
+        });
+    }
+
+
+    public void recordDuplicate(String operation, AssetType assetType, String source, long startNanos) {
+        timer("wallet.operation", operation, null, assetType, DUPLICATE)
+                .record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+        idempotencyHit(operation, source);
+    }
+
+
+    /**
+     * Counts a request answered from a stored response and marks the operation running on this thread, if
+     * any, as a duplicate.
+     */
+    public void idempotencyHit(String operation, String source) {
+        Counter.builder("wallet.idempotency.hits")
+                .tag("operation", operation)
+                .tag("source", source)
+                .register(meterRegistry)
+                .increment();
+
+        boolean[] duplicate = currentOperation.get();
+        if (duplicate != null) {
+            duplicate[0] = true;
+        }
+    }
+
+
+    private <T> T record(String name, String operation, String phase, AssetType assetType, boolean[] duplicate,
+                         Supplier<T> body) {
+        long start = System.nanoTime();
+        String outcome = SUCCESS;
+        try {
+            T result = body.get();
+            if (duplicate != null && duplicate[0]) {
+                outcome = DUPLICATE;
+            }
+            return result;
+        } catch (RuntimeException e) {
+            outcome = e.getClass().getSimpleName();
+            throw e;
+        } finally {
+            timer(name, operation, phase, assetType, outcome)
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+
+    private Timer timer(String name, String operation, String phase, AssetType assetType, String outcome) {
+        Timer.Builder builder = Timer.builder(name)
+                .tag("operation", operation)
+                .tag("asset_type", assetType != null ? assetType.name() : MIXED_ASSET_TYPES)
+                .tag("outcome", outcome);
+        if (phase != null) {
+            builder.tag("phase", phase);
+        }
+        return builder.register(meterRegistry);
+    }
+}
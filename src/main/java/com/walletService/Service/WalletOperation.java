@@ -0,0 +1,9 @@
+package com.walletService.Service;
+
+import com.walletService.Dto.WalletOperationRequestDto;
+
+/**
+ * A single credit/debit request together with its owner and the operation it should be applied as.
+ */
+public record WalletOperation(Long userId, WalletOperationType type, WalletOperationRequestDto request) {
+}
@@ -0,0 +1,134 @@
+package com.walletService.Service;
+
+import com.walletService.Dto.BalanceResponseDto;
+import com.walletService.Dto.TransferRequestDto;
+import com.walletService.Dto.TransferResponseDto;
+import com.walletService.Dto.WalletOperationRequestDto;
+import com.walletService.Dto.WalletOperationResponseDto;
+import com.walletService.Entity.AssetType;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.util.Optional;
+
+/**
+ * Entry point for wallet operations. Runs outside any transaction, answers what it can from the in-memory
+ * caches and routes writes to the configured execution path ({@code wallet.write.mode}).
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class WalletOperationDispatcher {
+
+    private final WalletService walletService;
+    private final WalletWriteCoalescer walletWriteCoalescer;
+    private final IdempotencyResponseCache idempotencyResponseCache;
+    private final BalanceCache balanceCache;
+    private final TreasuryService treasuryService;
+    private final WalletTransactionRetrier walletTransactionRetrier;
+    private final WalletMetrics walletMetrics;
+
+    @Value("${wallet.write.mode:DIRECT}")
+    private WalletWriteMode writeMode;
+
+
+    public WalletOperationResponseDto topUp(Long userId, WalletOperationRequestDto request) {
+        return execute(userId, WalletOperationType.TOP_UP, request);
+    }
+
+
+    public WalletOperationResponseDto grantIncentive(Long userId, WalletOperationRequestDto request) {
+        return execute(userId, WalletOperationType.INCENTIVE, request);
+    }
+
+
+    public WalletOperationResponseDto spend(Long userId, WalletOperationRequestDto request) {
+        return execute(userId, WalletOperationType.SPEND, request);
+    }
+
+
+    public TransferResponseDto transfer(Long fromUserId, TransferRequestDto request) {
+        return walletMetrics.operation("transfer", request.getAssetType(), () ->
+                walletTransactionRetrier.execute("transfer", () -> walletService.transfer(fromUserId, request)));
+    }
+
+
+    public BalanceResponseDto getBalance(Long userId, AssetType assetType) {
+        if (treasuryService.isSharded(userId)) {
+            return treasuryService.getBalance(assetType);
+        }
+
+        Optional<BigDecimal> cachedBalance = balanceCache.get(userId, assetType);
+        if (cachedBalance.isPresent()) {
+            // A user suspended after the balance was cached must be refused like on the database path
+            walletService.validateActiveUser(userId);
+            return BalanceResponseDto.builder()
+                    .userId(userId)
+                    .assetType(assetType)
+                    .balance(cachedBalance.get())
+                    .build();
+        }
+
+        return walletService.getBalance(userId, assetType);
+    }
+
+
+    private WalletOperationResponseDto execute(Long userId, WalletOperationType type,
+                                               WalletOperationRequestDto request) {
+        long start = System.nanoTime();
+        String operation = operationName(type);
+
+        Optional<WalletOperationResponseDto> cachedResponse =
+                idempotencyResponseCache.get(userId, request.getIdempotencyKey());
+        if (cachedResponse.isPresent()) {
+            log.info("Returning cached response for duplicate request {} of user {}",
+                    request.getIdempotencyKey(), userId);
+            walletMetrics.recordDuplicate(operation, request.getAssetType(), "cache", start);
+            return cachedResponse.get();
+        }
+
+        return walletMetrics.operation(operation, request.getAssetType(), () -> write(userId, type, request));
+    }
+
+
+    private WalletOperationResponseDto write(Long userId, WalletOperationType type,
+                                             WalletOperationRequestDto request) {
+        // The sharded treasury never takes its row lock, so it gains nothing from coalescing
+        if (treasuryService.isSharded(userId)) {
+            return walletTransactionRetrier.execute(operationName(type),
+                    () -> walletService.applyToTreasury(userId, type, request));
+        }
+
+        if (writeMode == WalletWriteMode.COALESCING) {
+            // Duplicates are found on the writer thread, so the hit is recorded here for this operation
+            WalletOperationOutcome outcome = walletWriteCoalescer.submitAndWait(userId, type, request);
+            if (outcome.duplicate()) {
+                walletMetrics.idempotencyHit(operationName(type), "database");
+            }
+            return outcome.response();
+        }
+
+        if (writeMode == WalletWriteMode.ATOMIC) {
+            return walletTransactionRetrier.execute(operationName(type),
+                    () -> walletService.applyAtomic(userId, type, request));
+        }
+
+        return walletTransactionRetrier.execute(operationName(type), () -> switch (type) {
+            case TOP_UP -> walletService.topUp(userId, request);
+            case INCENTIVE -> walletService.grantIncentive(userId, request);
+            case SPEND -> walletService.spend(userId, request);
+        });
+    }
+
+
+    private String operationName(WalletOperationType type) {
+        return switch (type) {
+            case TOP_UP -> "topUp";
+            case INCENTIVE -> "grantIncentive";
+            case SPEND -> "spend";
+        };
+    }
+}
@@ -0,0 +1,28 @@
+package com.walletService.Service;
+
+import com.walletService.Dto.WalletOperationResponseDto;
+
+/**
+ * Result of one operation inside a multi-operation transaction: either a response or the
+ * business error that rejected it. Rejected operations leave the rest of the batch untouched.
+ * A duplicate is a success whose response was stored by an earlier request with the same key.
+ */
+public record WalletOperationOutcome(WalletOperationResponseDto response, RuntimeException error,
+                                     boolean duplicate) {
+
+    public static WalletOperationOutcome success(WalletOperationResponseDto response) {
+        return new WalletOperationOutcome(response, null, false);
+    }
+
+    public static WalletOperationOutcome duplicate(WalletOperationResponseDto response) {
+        return new WalletOperationOutcome(response, null, true);
+    }
+
+    public static WalletOperationOutcome failure(RuntimeException error) {
+        return new WalletOperationOutcome(null, error, false);
+    }
+
+    public boolean isSuccess() {
+        return error == null;
+    }
+}
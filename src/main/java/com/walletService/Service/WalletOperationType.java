@@ -0,0 +1,19 @@
+package com.walletService.Service;
+
+import com.walletService.Entity.TransactionType;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+@Getter
+@RequiredArgsConstructor
+public enum WalletOperationType {
+    TOP_UP(TransactionType.CREDIT, "Wallet top-up", "Top-up successful"),
+    INCENTIVE(TransactionType.CREDIT, "Bonus/Incentive credit", "Incentive granted successfully"),
+    SPEND(TransactionType.DEBIT, "Currency spend", "Spend successful");
+
+    private final TransactionType transactionType;
+
+    private final String defaultDescription;
+
+    private final String successMessage;
+}
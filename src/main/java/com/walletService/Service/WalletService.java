@@ -1,6 +1,9 @@
 package com.walletService.Service;
 
 import com.walletService.Dto.BalanceResponseDto;
+import com.walletService.Dto.TransferRequestDto;
+import com.walletService.Dto.TransferResponseDto;
+import com.walletService.Dto.WalletBalancesResponseDto;
 import com.walletService.Dto.WalletOperationRequestDto;
 import com.walletService.Dto.WalletOperationResponseDto;
 import com.walletService.Entity.*;
@@ -8,7 +11,11 @@ import com.walletService.Exceptions.*;
 import com.walletService.Repository.IdempotencyKeyRepository;
 import com.walletService.Repository.LedgerEntryRepository;
 import com.walletService.Repository.UserRepository;
+import com.walletService.Repository.WalletBalanceRepository;
+import com.walletService.Repository.WalletBatchRepository;
+import com.walletService.Repository.WalletEventRepository;
 import com.walletService.Repository.WalletRepository;
+import com.walletService.Repository.WalletSlotRepository.SlotUpdate;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
@@ -18,7 +25,22 @@ import tools.jackson.databind.ObjectMapper;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Stream;
+
+import static com.walletService.Service.WalletMetrics.IDEMPOTENCY_CHECK;
+import static com.walletService.Service.WalletMetrics.KEY_PERSIST;
+import static com.walletService.Service.WalletMetrics.LEDGER_INSERT;
+import static com.walletService.Service.WalletMetrics.LOCK_ACQUISITION;
+import static com.walletService.Service.WalletMetrics.USER_VALIDATION;
 
 @Service
 @RequiredArgsConstructor
@@ -29,6 +51,13 @@ public class WalletService {
     private final LedgerEntryRepository ledgerEntryRepository;
     private final IdempotencyKeyRepository idempotencyKeyRepository;
     private final UserRepository userRepository;
+    private final WalletBatchRepository walletBatchRepository;
+    private final WalletEventRepository walletEventRepository;
+    private final WalletBalanceRepository walletBalanceRepository;
+    private final IdempotencyResponseCache idempotencyResponseCache;
+    private final BalanceCache balanceCache;
+    private final TreasuryService treasuryService;
+    private final WalletMetrics walletMetrics;
     private final ObjectMapper objectMapper;
 
     private static final BigDecimal MIN_AMOUNT = new BigDecimal("0.0001");
@@ -37,35 +66,47 @@ public class WalletService {
 
     @Transactional(isolation = Isolation.SERIALIZABLE, rollbackFor = Exception.class)
     public WalletOperationResponseDto topUp(Long userId, WalletOperationRequestDto request) {
+        if (treasuryService.isSharded(userId)) {
+            return applyToTreasury(userId, WalletOperationType.TOP_UP, request);
+        }
+
         log.info("Processing top-up for user {} with idempotency key {}", userId, request.getIdempotencyKey());
 
-        Optional<WalletOperationResponseDto> cachedResponse = checkIdempotency(userId, request.getIdempotencyKey());
+        AssetType assetType = request.getAssetType();
+
+        Optional<WalletOperationResponseDto> cachedResponse = walletMetrics.phase("topUp", IDEMPOTENCY_CHECK,
+                assetType, () -> checkIdempotency(userId, request.getIdempotencyKey()));
         if (cachedResponse.isPresent()) {
+            walletMetrics.idempotencyHit("topUp", "database");
             log.info("Returning cached response for duplicate request");
             return cachedResponse.get();
         }
 
         validateAmount(request.getAmount());
 
-        User user = validateUser(userId);
+        User user = walletMetrics.phase("topUp", USER_VALIDATION, assetType, () -> validateUser(userId));
 
-        Wallet wallet = lockWallet(userId, request.getAssetType());
+        Wallet wallet = walletMetrics.phase("topUp", LOCK_ACQUISITION, assetType,
+                () -> lockWallet(user, assetType));
 
-        LedgerEntry ledgerEntry = createLedgerEntry(
+        LedgerEntry ledgerEntry = walletMetrics.phase("topUp", LEDGER_INSERT, assetType, () -> createLedgerEntry(
                 wallet,
                 TransactionType.CREDIT,
                 request.getAmount(),
                 request.getDescription() != null ? request.getDescription() : "Wallet top-up",
                 request.getReferenceId(),
                 request.getIdempotencyKey()
-        );
+        ));
 
         wallet.setBalance(wallet.getBalance().add(request.getAmount()));
-        walletRepository.save(wallet);
+        // Flushed here so key_persist below times only the key insert
+        walletRepository.saveAndFlush(wallet);
+        balanceCache.refreshAfterCommit(userId, wallet);
 
         WalletOperationResponseDto response = buildResponse(ledgerEntry, "Top-up successful");
 
-        saveIdempotencyKey(userId, request.getIdempotencyKey(), ledgerEntry.getId(), response);
+        walletMetrics.phase("topUp", KEY_PERSIST, assetType,
+                () -> saveIdempotencyKey(user, request.getIdempotencyKey(), ledgerEntry.getId(), response));
 
         log.info("Top-up completed successfully for user {}", userId);
         return response;
@@ -74,36 +115,47 @@ public class WalletService {
 
     @Transactional(isolation = Isolation.SERIALIZABLE, rollbackFor = Exception.class)
     public WalletOperationResponseDto grantIncentive(Long userId, WalletOperationRequestDto request) {
+        if (treasuryService.isSharded(userId)) {
+            return applyToTreasury(userId, WalletOperationType.INCENTIVE, request);
+        }
+
         log.info("Processing incentive grant for user {} with idempotency key {}",
                 userId, request.getIdempotencyKey());
 
-        Optional<WalletOperationResponseDto> cachedResponse = checkIdempotency(userId, request.getIdempotencyKey());
+        AssetType assetType = request.getAssetType();
+
+        Optional<WalletOperationResponseDto> cachedResponse = walletMetrics.phase("grantIncentive", IDEMPOTENCY_CHECK,
+                assetType, () -> checkIdempotency(userId, request.getIdempotencyKey()));
         if (cachedResponse.isPresent()) {
+            walletMetrics.idempotencyHit("grantIncentive", "database");
             log.info("Returning cached response for duplicate incentive request");
             return cachedResponse.get();
         }
 
         validateAmount(request.getAmount());
 
-        User user = validateUser(userId);
+        User user = walletMetrics.phase("grantIncentive", USER_VALIDATION, assetType, () -> validateUser(userId));
 
-        Wallet wallet = lockWallet(userId, request.getAssetType());
+        Wallet wallet = walletMetrics.phase("grantIncentive", LOCK_ACQUISITION, assetType,
+                () -> lockWallet(user, assetType));
 
-        LedgerEntry ledgerEntry = createLedgerEntry(
+        LedgerEntry ledgerEntry = walletMetrics.phase("grantIncentive", LEDGER_INSERT, assetType, () -> createLedgerEntry(
                 wallet,
                 TransactionType.CREDIT,
                 request.getAmount(),
                 request.getDescription() != null ? request.getDescription() : "Bonus/Incentive credit",
                 request.getReferenceId(),
                 request.getIdempotencyKey()
-        );
+        ));
 
         wallet.setBalance(wallet.getBalance().add(request.getAmount()));
-        walletRepository.save(wallet);
+        walletRepository.saveAndFlush(wallet);
+        balanceCache.refreshAfterCommit(userId, wallet);
 
         WalletOperationResponseDto response = buildResponse(ledgerEntry, "Incentive granted successfully");
 
-        saveIdempotencyKey(userId, request.getIdempotencyKey(), ledgerEntry.getId(), response);
+        walletMetrics.phase("grantIncentive", KEY_PERSIST, assetType,
+                () -> saveIdempotencyKey(user, request.getIdempotencyKey(), ledgerEntry.getId(), response));
 
         log.info("Incentive granted successfully for user {}", userId);
         return response;
@@ -112,43 +164,453 @@ public class WalletService {
 
     @Transactional(isolation = Isolation.SERIALIZABLE, rollbackFor = Exception.class)
     public WalletOperationResponseDto spend(Long userId, WalletOperationRequestDto request) {
+        if (treasuryService.isSharded(userId)) {
+            return applyToTreasury(userId, WalletOperationType.SPEND, request);
+        }
+
         log.info("Processing spend for user {} with idempotency key {}", userId, request.getIdempotencyKey());
 
-        Optional<WalletOperationResponseDto> cachedResponse = checkIdempotency(userId, request.getIdempotencyKey());
+        AssetType assetType = request.getAssetType();
+
+        Optional<WalletOperationResponseDto> cachedResponse = walletMetrics.phase("spend", IDEMPOTENCY_CHECK,
+                assetType, () -> checkIdempotency(userId, request.getIdempotencyKey()));
         if (cachedResponse.isPresent()) {
+            walletMetrics.idempotencyHit("spend", "database");
             log.info("Returning cached response for duplicate spend request");
             return cachedResponse.get();
         }
 
         validateAmount(request.getAmount());
 
-        User user = validateUser(userId);
+        User user = walletMetrics.phase("spend", USER_VALIDATION, assetType, () -> validateUser(userId));
 
-        Wallet wallet = lockWallet(userId, request.getAssetType());
+        Wallet wallet = walletMetrics.phase("spend", LOCK_ACQUISITION, assetType,
+                () -> lockWallet(user, assetType));
 
-        validateSufficientBalance(wallet, request.getAmount());
+        validateSufficientBalance(wallet.getBalance(), request.getAmount());
 
-        LedgerEntry ledgerEntry = createLedgerEntry(
+        LedgerEntry ledgerEntry = walletMetrics.phase("spend", LEDGER_INSERT, assetType, () -> createLedgerEntry(
                 wallet,
                 TransactionType.DEBIT,
                 request.getAmount(),
                 request.getDescription() != null ? request.getDescription() : "Currency spend",
                 request.getReferenceId(),
                 request.getIdempotencyKey()
-        );
+        ));
 
         wallet.setBalance(wallet.getBalance().subtract(request.getAmount()));
-        walletRepository.save(wallet);
+        walletRepository.saveAndFlush(wallet);
+        balanceCache.refreshAfterCommit(userId, wallet);
 
         WalletOperationResponseDto response = buildResponse(ledgerEntry, "Spend successful");
 
-        saveIdempotencyKey(userId, request.getIdempotencyKey(), ledgerEntry.getId(), response);
+        walletMetrics.phase("spend", KEY_PERSIST, assetType,
+                () -> saveIdempotencyKey(user, request.getIdempotencyKey(), ledgerEntry.getId(), response));
 
         log.info("Spend completed successfully for user {}", userId);
         return response;
     }
 
 
+    /**
+     * Applies several operations against one wallet with a single row lock and a single balance update.
+     * Operations are evaluated in order against the running balance; an operation rejected for its
+     * amount or for insufficient balance fails on its own without affecting the others. The sharded
+     * treasury is not locked; each operation changes one of its slots instead.
+     */
+    @Transactional(isolation = Isolation.SERIALIZABLE, rollbackFor = Exception.class)
+    public List<WalletOperationOutcome> applyCoalesced(Long userId, AssetType assetType,
+                                                       List<WalletOperation> operations) {
+        log.info("Applying {} coalesced operations for user {} and asset type {}",
+                operations.size(), userId, assetType);
+
+        WalletWriteSet writes = new WalletWriteSet(operations);
+        walletMetrics.phase("applyCoalesced", IDEMPOTENCY_CHECK, assetType, () -> loadExistingResponses(writes));
+
+        User user = walletMetrics.phase("applyCoalesced", USER_VALIDATION, assetType, () -> validateUser(userId));
+
+        if (treasuryService.isSharded(userId)) {
+            writes.stamp(LocalDateTime.now(ZoneOffset.UTC));
+            walletMetrics.phase("applyCoalesced", LOCK_ACQUISITION, assetType,
+                    () -> applyToSlots(writes, user, assetType, writes.allPositions()));
+        } else {
+            Wallet wallet = walletMetrics.phase("applyCoalesced", LOCK_ACQUISITION, assetType,
+                    () -> lockWallet(user, assetType));
+
+            writes.stamp(LocalDateTime.now(ZoneOffset.UTC));
+            applyToWallet(writes, user, wallet, writes.allPositions());
+        }
+
+        List<WalletOperationOutcome> outcomes = completeWrites("applyCoalesced", assetType, writes);
+
+        log.info("Coalesced batch applied for user {}: {} ledger entries written", userId, writes.appliedCount());
+        return outcomes;
+    }
+
+
+    /**
+     * Applies a chunk of operations spanning many wallets in one transaction. Only the wallets the chunk
+     * writes are locked, with one SELECT ... FOR UPDATE per asset type ordered by wallet id, asset types in
+     * declaration order. Transfers lock two wallets of one asset type by id, so every multi-wallet lock
+     * follows (asset type, wallet id) order and concurrent chunks cannot deadlock, while the users' other
+     * wallets stay free for single writes. Runs at READ COMMITTED: every balance is read
+     * under that lock, and SERIALIZABLE would only add aborts for transactions this wide. Users that are
+     * unknown or inactive fail their own operations only. Operations on the sharded treasury change its
+     * slots after all wallet locks are held, like the treasury side of a transfer.
+     */
+    @Transactional(isolation = Isolation.READ_COMMITTED, rollbackFor = Exception.class)
+    public List<WalletOperationOutcome> applyBulkChunk(List<WalletOperation> operations) {
+        log.info("Applying bulk chunk of {} operations", operations.size());
+
+        WalletWriteSet writes = new WalletWriteSet(operations);
+        walletMetrics.phase("applyBulkChunk", IDEMPOTENCY_CHECK, null, () -> loadExistingResponses(writes));
+
+        Map<WalletKey, List<Integer>> positionsByWallet = new HashMap<>();
+        for (int i = 0; i < operations.size(); i++) {
+            WalletOperation operation = operations.get(i);
+            positionsByWallet.computeIfAbsent(
+                    new WalletKey(operation.userId(), operation.request().getAssetType()),
+                    key -> new ArrayList<>()).add(i);
+        }
+
+        List<Long> userIds = positionsByWallet.keySet().stream().map(WalletKey::userId).distinct().sorted().toList();
+
+        Map<AssetType, List<Long>> userIdsByAssetType = new EnumMap<>(AssetType.class);
+        positionsByWallet.keySet().stream()
+                .filter(key -> !treasuryService.isSharded(key.userId()))
+                .sorted(Comparator.comparing(WalletKey::userId))
+                .forEach(key -> userIdsByAssetType.computeIfAbsent(key.assetType(), type -> new ArrayList<>())
+                        .add(key.userId()));
+
+        Map<Long, User> users = new HashMap<>();
+        walletMetrics.phase("applyBulkChunk", USER_VALIDATION, null,
+                () -> userRepository.findAllById(userIds).forEach(user -> users.put(user.getId(), user)));
+
+        Map<WalletKey, Wallet> wallets = new LinkedHashMap<>();
+        walletMetrics.phase("applyBulkChunk", LOCK_ACQUISITION, null,
+                () -> userIdsByAssetType.forEach((assetType, assetUserIds) -> walletRepository
+                        .findByUserIdInAndAssetTypeForUpdate(assetUserIds, assetType)
+                        .forEach(wallet -> wallets.put(
+                                new WalletKey(wallet.getUser().getId(), wallet.getAssetType()), wallet))));
+
+        // Wallets created below are new rows that no other transaction has written
+        writes.stamp(LocalDateTime.now(ZoneOffset.UTC));
+
+        // Existing wallets in lock order, then wallets still to be created in key order
+        List<WalletKey> order = new ArrayList<>(wallets.keySet());
+        positionsByWallet.keySet().stream()
+                .filter(key -> !wallets.containsKey(key))
+                .sorted(Comparator.comparing(WalletKey::userId).thenComparing(WalletKey::assetType))
+                .forEach(order::add);
+
+        for (WalletKey key : order) {
+            List<Integer> positions = positionsByWallet.get(key);
+            User user = users.get(key.userId());
+
+            try {
+                if (user == null) {
+                    throw new WalletNotFoundException("User not found: " + key.userId());
+                }
+                validateUserStatus(user);
+            } catch (RuntimeException e) {
+                writes.fail(positions, e);
+                continue;
+            }
+
+            if (treasuryService.isSharded(key.userId())) {
+                applyToSlots(writes, user, key.assetType(), positions);
+                continue;
+            }
+
+            Wallet wallet = wallets.containsKey(key) ? wallets.get(key) : lockWallet(user, key.assetType());
+            applyToWallet(writes, user, wallet, positions);
+        }
+
+        List<WalletOperationOutcome> outcomes = completeWrites("applyBulkChunk", null, writes);
+
+        log.info("Bulk chunk applied: {} ledger entries across {} wallets", writes.appliedCount(), order.size());
+        return outcomes;
+    }
+
+
+    /**
+     * Atomic write mode: the balance change is a single conditional UPDATE ... RETURNING at READ COMMITTED,
+     * and balanceAfter is taken from the returned row instead of a locked read. Concurrent retries of the
+     * same idempotency key are still rejected by the primary key of ledger_entry_keys.
+     */
+    @Transactional(isolation = Isolation.READ_COMMITTED, rollbackFor = Exception.class)
+    public WalletOperationResponseDto applyAtomic(Long userId, WalletOperationType type,
+                                                  WalletOperationRequestDto request) {
+        if (treasuryService.isSharded(userId)) {
+            return applyToTreasury(userId, type, request);
+        }
+
+        log.info("Processing atomic {} for user {} with idempotency key {}",
+                type, userId, request.getIdempotencyKey());
+
+        AssetType assetType = request.getAssetType();
+
+        Optional<WalletOperationResponseDto> cachedResponse = walletMetrics.phase("applyAtomic", IDEMPOTENCY_CHECK,
+                assetType, () -> checkIdempotency(userId, request.getIdempotencyKey()));
+        if (cachedResponse.isPresent()) {
+            walletMetrics.idempotencyHit("applyAtomic", "database");
+            log.info("Returning cached response for duplicate request");
+            return cachedResponse.get();
+        }
+
+        validateAmount(request.getAmount());
+
+        BigDecimal delta = type.getTransactionType() == TransactionType.CREDIT
+                ? request.getAmount()
+                : request.getAmount().negate();
+        LocalDateTime updatedAt = LocalDateTime.now(ZoneOffset.UTC);
+
+        // The conditional UPDATE takes and holds the row lock, so it is timed as lock acquisition
+        WalletBalanceRepository.BalanceUpdate update = walletMetrics.phase("applyAtomic", LOCK_ACQUISITION,
+                assetType, () -> walletBalanceRepository.applyDelta(userId, assetType, delta, updatedAt)
+                        .orElseGet(() -> applyDeltaSlowPath(userId, type, request, delta, updatedAt)));
+
+        // Stamped under the row lock, so the entry sorts after every write the UPDATE waited for
+        LocalDateTime now = LocalDateTime.now(ZoneOffset.UTC);
+
+        Wallet wallet = Wallet.builder()
+                .id(update.walletId())
+                .assetType(request.getAssetType())
+                .balance(update.balance())
+                .version(update.version())
+                .build();
+        balanceCache.refreshAfterCommit(userId, wallet);
+
+        LedgerEntry ledgerEntry = LedgerEntry.builder()
+                .wallet(wallet)
+                .transactionType(type.getTransactionType())
+                .amount(request.getAmount())
+                .balanceAfter(update.balance())
+                .description(request.getDescription() != null
+                        ? request.getDescription() : type.getDefaultDescription())
+                .referenceId(request.getReferenceId())
+                .idempotencyKey(request.getIdempotencyKey())
+                .createdAt(now)
+                .build();
+        walletMetrics.phase("applyAtomic", LEDGER_INSERT, assetType,
+                () -> walletBatchRepository.insertLedgerEntries(List.of(ledgerEntry)));
+
+        WalletOperationResponseDto response = buildResponse(ledgerEntry, type.getSuccessMessage());
+
+        LocalDateTime expiresAt = now.plusHours(24);
+        IdempotencyKey idempotencyKey = IdempotencyKey.builder()
+                .key(request.getIdempotencyKey())
+                .user(userRepository.getReferenceById(userId))
+                .ledgerEntryId(ledgerEntry.getId())
+                .responseData(serializeResponse(response))
+                .createdAt(now)
+                .expiresAt(expiresAt)
+                .build();
+        walletMetrics.phase("applyAtomic", KEY_PERSIST, assetType,
+                () -> walletBatchRepository.insertIdempotencyKeys(List.of(idempotencyKey)));
+        idempotencyResponseCache.putAfterCommit(userId, request.getIdempotencyKey(), response, expiresAt);
+
+        log.info("Atomic {} completed successfully for user {}", type, userId);
+        return response;
+    }
+
+
+    /**
+     * One operation on the sharded treasury's own balance: it changes a single slot through
+     * {@link TreasuryService} instead of the wallet row, so concurrent treasury writes only queue when they
+     * pick the same slot. A debit fails only when no single slot can cover it. The row-based write paths
+     * route the treasury here; called directly it runs at READ COMMITTED like {@link #applyAtomic}.
+     */
+    @Transactional(isolation = Isolation.READ_COMMITTED, rollbackFor = Exception.class)
+    public WalletOperationResponseDto applyToTreasury(Long userId, WalletOperationType type,
+                                                      WalletOperationRequestDto request) {
+        log.info("Processing treasury {} for user {} with idempotency key {}",
+                type, userId, request.getIdempotencyKey());
+
+        AssetType assetType = request.getAssetType();
+
+        Optional<WalletOperationResponseDto> cachedResponse = walletMetrics.phase("applyToTreasury",
+                IDEMPOTENCY_CHECK, assetType, () -> checkIdempotency(userId, request.getIdempotencyKey()));
+        if (cachedResponse.isPresent()) {
+            walletMetrics.idempotencyHit("applyToTreasury", "database");
+            log.info("Returning cached response for duplicate treasury request");
+            return cachedResponse.get();
+        }
+
+        User user = walletMetrics.phase("applyToTreasury", USER_VALIDATION, assetType, () -> validateUser(userId));
+
+        // Slot entries are stamped one by one under their slot lock; this time only dates the key
+        WalletWriteSet writes = new WalletWriteSet(List.of(new WalletOperation(userId, type, request)));
+        writes.stamp(LocalDateTime.now(ZoneOffset.UTC));
+        walletMetrics.phase("applyToTreasury", LOCK_ACQUISITION, assetType,
+                () -> applyToSlots(writes, user, assetType, writes.allPositions()));
+
+        WalletOperationOutcome outcome = completeWrites("applyToTreasury", assetType, writes).get(0);
+        if (!outcome.isSuccess()) {
+            throw outcome.error();
+        }
+
+        log.info("Treasury {} completed successfully for user {}", type, userId);
+        return outcome.response();
+    }
+
+
+    /**
+     * Moves an amount between two users' wallets of the same asset type in one transaction. Both rows are
+     * locked by one SELECT ... FOR UPDATE ordered by wallet id, so opposite-direction transfers between the
+     * same pair queue behind each other instead of deadlocking. The debit and credit entries share a
+     * reference id and are inserted in one batch; the credit entry's key is the request key plus ":credit".
+     * A sharded treasury side goes through {@link TreasuryService}, and its entry records the slot it
+     * touched and that slot's balance as balanceAfter.
+     */
+    @Transactional(isolation = Isolation.READ_COMMITTED, rollbackFor = Exception.class)
+    public TransferResponseDto transfer(Long fromUserId, TransferRequestDto request) {
+        log.info("Processing transfer from user {} to user {} with idempotency key {}",
+                fromUserId, request.getToUserId(), request.getIdempotencyKey());
+
+        AssetType assetType = request.getAssetType();
+
+        Optional<TransferResponseDto> cachedResponse = walletMetrics.phase("transfer", IDEMPOTENCY_CHECK, assetType,
+                () -> checkTransferIdempotency(fromUserId, request.getIdempotencyKey()));
+        if (cachedResponse.isPresent()) {
+            walletMetrics.idempotencyHit("transfer", "database");
+            log.info("Returning cached response for duplicate transfer request");
+            return cachedResponse.get();
+        }
+
+        Long toUserId = request.getToUserId();
+        if (fromUserId.equals(toUserId)) {
+            throw new InvalidTransferException("Cannot transfer to the same user");
+        }
+
+        validateAmount(request.getAmount());
+
+        User sender = walletMetrics.phase("transfer", USER_VALIDATION, assetType, () -> validateUser(fromUserId));
+        User recipient = walletMetrics.phase("transfer", USER_VALIDATION, assetType, () -> validateUser(toUserId));
+
+        // A sharded treasury is never locked as a row: it is written to one slot after the user wallet lock
+        boolean shardedSource = treasuryService.isSharded(fromUserId);
+        boolean shardedTarget = treasuryService.isSharded(toUserId);
+        List<Long> lockedUserIds = Stream.of(fromUserId, toUserId)
+                .filter(userId -> !treasuryService.isSharded(userId))
+                .toList();
+
+        Map<Long, Wallet> wallets = new HashMap<>();
+        for (Wallet wallet : walletMetrics.phase("transfer", LOCK_ACQUISITION, assetType,
+                () -> walletRepository.findByUserIdInAndAssetTypeForUpdate(lockedUserIds, assetType))) {
+            wallets.put(wallet.getUser().getId(), wallet);
+        }
+
+        Wallet source = wallets.get(fromUserId);
+        if (!shardedSource) {
+            validateSufficientBalance(source != null ? source.getBalance() : BigDecimal.ZERO, request.getAmount());
+        }
+
+        Wallet target = shardedTarget || wallets.containsKey(toUserId)
+                ? wallets.get(toUserId)
+                : walletMetrics.phase("transfer", LOCK_ACQUISITION, assetType,
+                        () -> lockWallet(recipient, assetType));
+
+        LocalDateTime updatedAt = LocalDateTime.now(ZoneOffset.UTC);
+        String referenceId = request.getReferenceId() != null
+                ? request.getReferenceId() : request.getIdempotencyKey();
+
+        BigDecimal sourceBalance;
+        Integer sourceSlot = null;
+        if (shardedSource) {
+            SlotUpdate slot = treasuryService.debit(request.getAssetType(), request.getAmount(), toUserId,
+                    updatedAt);
+            source = walletRepository.getReferenceById(slot.walletId());
+            sourceBalance = slot.balance();
+            sourceSlot = slot.slotIndex();
+        } else {
+            sourceBalance = source.getBalance().subtract(request.getAmount());
+        }
+
+        BigDecimal targetBalance;
+        Integer targetSlot = null;
+        if (shardedTarget) {
+            SlotUpdate slot = treasuryService.credit(request.getAssetType(), request.getAmount(), fromUserId,
+                    updatedAt);
+            target = walletRepository.getReferenceById(slot.walletId());
+            targetBalance = slot.balance();
+            targetSlot = slot.slotIndex();
+        } else {
+            targetBalance = target.getBalance().add(request.getAmount());
+        }
+
+        // Stamped once every lock, slot locks included, is held, so each balance_after chain sorts in lock order
+        LocalDateTime now = LocalDateTime.now(ZoneOffset.UTC);
+
+        LedgerEntry debit = LedgerEntry.builder()
+                .wallet(source)
+                .transactionType(TransactionType.DEBIT)
+                .amount(request.getAmount())
+                .balanceAfter(sourceBalance)
+                .description(request.getDescription() != null
+                        ? request.getDescription() : "Transfer to user " + toUserId)
+                .referenceId(referenceId)
+                .slotIndex(sourceSlot)
+                .idempotencyKey(request.getIdempotencyKey())
+                .createdAt(now)
+                .build();
+        LedgerEntry credit = LedgerEntry.builder()
+                .wallet(target)
+                .transactionType(TransactionType.CREDIT)
+                .amount(request.getAmount())
+                .balanceAfter(targetBalance)
+                .description(request.getDescription() != null
+                        ? request.getDescription() : "Transfer from user " + fromUserId)
+                .referenceId(referenceId)
+                .slotIndex(targetSlot)
+                .idempotencyKey(request.getIdempotencyKey() + ":credit")
+                .createdAt(now)
+                .build();
+        walletMetrics.phase("transfer", LEDGER_INSERT, assetType,
+                () -> walletBatchRepository.insertLedgerEntries(List.of(debit, credit)));
+
+        if (!shardedSource) {
+            source.setBalance(sourceBalance);
+            walletRepository.save(source);
+            balanceCache.refreshAfterCommit(fromUserId, source);
+        }
+        if (!shardedTarget) {
+            target.setBalance(targetBalance);
+            walletRepository.save(target);
+            balanceCache.refreshAfterCommit(toUserId, target);
+        }
+
+        TransferResponseDto response = TransferResponseDto.builder()
+                .debitTransactionId(debit.getId())
+                .creditTransactionId(credit.getId())
+                .fromUserId(fromUserId)
+                .toUserId(toUserId)
+                .assetType(request.getAssetType())
+                .amount(request.getAmount())
+                .balanceAfter(debit.getBalanceAfter())
+                .description(debit.getDescription())
+                .referenceId(referenceId)
+                .timestamp(now)
+                .message("Transfer successful")
+                .build();
+
+        IdempotencyKey idempotencyKey = IdempotencyKey.builder()
+                .key(request.getIdempotencyKey())
+                .user(sender)
+                .ledgerEntryId(debit.getId())
+                .responseData(objectMapper.writeValueAsString(response))
+                .createdAt(now)
+                .expiresAt(now.plusHours(24))
+                .build();
+        walletMetrics.phase("transfer", KEY_PERSIST, assetType,
+                () -> walletBatchRepository.insertIdempotencyKeys(List.of(idempotencyKey)));
+
+        log.info("Transfer of {} {} from user {} to user {} completed",
+                request.getAmount(), request.getAssetType(), fromUserId, toUserId);
+        return response;
+    }
+
+
     @Transactional(readOnly = true)
     public BalanceResponseDto getBalance(Long userId, AssetType assetType) {
         log.info("Fetching balance for user {} and asset type {}", userId, assetType);
@@ -160,6 +622,8 @@ public class WalletService {
                         String.format("Wallet not found for user %d and asset type %s", userId, assetType)
                 ));
 
+        balanceCache.putFromRead(userId, assetType, wallet.getBalance(), wallet.getVersion());
+
         return BalanceResponseDto.builder()
                 .userId(userId)
                 .assetType(assetType)
@@ -168,7 +632,47 @@ public class WalletService {
     }
 
 
-    private void validateAmount(BigDecimal amount) {
+    /**
+     * Every asset balance of the user from a single query; the owner's status is checked on the
+     * fetched user rather than with a separate lookup. The sharded treasury's balances include its slots.
+     */
+    @Transactional(readOnly = true)
+    public WalletBalancesResponseDto getBalances(Long userId) {
+        log.info("Fetching all balances for user {}", userId);
+
+        List<Wallet> wallets = walletRepository.findByUserId(userId);
+
+        if (wallets.isEmpty()) {
+            validateUser(userId);
+        } else {
+            validateUserStatus(wallets.get(0).getUser());
+        }
+
+        boolean sharded = treasuryService.isSharded(userId);
+
+        List<WalletBalancesResponseDto.AssetBalanceDto> balances = new ArrayList<>(wallets.size());
+        for (Wallet wallet : wallets) {
+            if (sharded) {
+                balances.add(treasuryService.getAssetBalance(wallet));
+                continue;
+            }
+
+            balanceCache.putFromRead(userId, wallet.getAssetType(), wallet.getBalance(), wallet.getVersion());
+            balances.add(WalletBalancesResponseDto.AssetBalanceDto.builder()
+                    .assetType(wallet.getAssetType())
+                    .balance(wallet.getBalance())
+                    .version(wallet.getVersion())
+                    .build());
+        }
+
+        return WalletBalancesResponseDto.builder()
+                .userId(userId)
+                .balances(balances)
+                .build();
+    }
+
+
+    static void validateAmount(BigDecimal amount) {
         if (amount == null) {
             throw new InvalidTransactionAmountException("Amount cannot be null");
         }
@@ -195,32 +699,266 @@ public class WalletService {
                 return Optional.empty();
             }
 
+            WalletOperationResponseDto response = deserializeResponse(key);
+            idempotencyResponseCache.put(userId, idempotencyKey, response, key.getExpiresAt());
+            return Optional.of(response);
+        }
+
+        return Optional.empty();
+    }
+
+
+    private void loadExistingResponses(WalletWriteSet writes) {
+        LocalDateTime now = LocalDateTime.now();
+
+        for (IdempotencyKey key : idempotencyKeyRepository.findByUserIdInAndKeyIn(writes.userIds(), writes.idempotencyKeys())) {
+            Long userId = key.getUser().getId();
+            if (!key.getExpiresAt().isBefore(now) && writes.references(userId, key.getKey())) {
+                WalletOperationResponseDto response = deserializeResponse(key);
+                idempotencyResponseCache.put(userId, key.getKey(), response, key.getExpiresAt());
+                writes.addResponse(userId, key.getKey(), response);
+            }
+        }
+    }
+
+
+    /**
+     * Evaluates the operations at {@code positions} in order against the wallet's running balance. Accepted
+     * operations get a ledger entry in {@code writes}; the wallet's new balance is flushed on commit.
+     */
+    private void applyToWallet(WalletWriteSet writes, User user, Wallet wallet, List<Integer> positions) {
+        BigDecimal balance = wallet.getBalance();
+        boolean changed = false;
+
+        for (int position : positions) {
+            WalletOperation operation = writes.operation(position);
+            WalletOperationRequestDto request = operation.request();
+
+            if (writes.isResolved(user.getId(), request.getIdempotencyKey())) {
+                continue;
+            }
+
             try {
-                WalletOperationResponseDto response = objectMapper.readValue(
-                        key.getResponseData(),
-                        WalletOperationResponseDto.class
-                );
-                return Optional.of(response);
-            } catch (Exception e) {
-                log.error("Error deserializing cached response", e);
-                throw new TransactionProcessingException("Error retrieving cached response", e);
+                validateAmount(request.getAmount());
+                if (operation.type().getTransactionType() == TransactionType.DEBIT) {
+                    validateSufficientBalance(balance, request.getAmount());
+                }
+            } catch (InvalidTransactionAmountException | InsufficientBalanceException e) {
+                writes.fail(List.of(position), e);
+                continue;
             }
+
+            balance = operation.type().getTransactionType() == TransactionType.CREDIT
+                    ? balance.add(request.getAmount())
+                    : balance.subtract(request.getAmount());
+
+            writes.apply(position, user, LedgerEntry.builder()
+                    .wallet(wallet)
+                    .transactionType(operation.type().getTransactionType())
+                    .amount(request.getAmount())
+                    .balanceAfter(balance)
+                    .description(request.getDescription() != null
+                            ? request.getDescription() : operation.type().getDefaultDescription())
+                    .referenceId(request.getReferenceId())
+                    .idempotencyKey(request.getIdempotencyKey())
+                    .createdAt(writes.now())
+                    .build());
+            changed = true;
         }
 
-        return Optional.empty();
+        if (changed) {
+            wallet.setBalance(balance);
+            walletRepository.save(wallet);
+            balanceCache.refreshAfterCommit(user.getId(), wallet);
+        }
     }
 
 
-    private Wallet lockWallet(Long userId, AssetType assetType) {
-        Optional<Wallet> walletOpt = walletRepository.findByUserIdAndAssetTypeForUpdate(userId, assetType);
+    /**
+     * Counterpart of {@link #applyToWallet} for the sharded treasury: each accepted operation changes one
+     * slot, and its entry records that slot and the slot's balance after the change. Entries are stamped
+     * after the slot UPDATE, which holds the slot's row lock until commit, so a slot's entries sort in the
+     * order its balance changed.
+     * <p>
+     * Every operation's slot is chosen up front and the writes are applied in ascending slot order, the
+     * order the rebalancer locks slots in, so two batches touching the same slots never wait on each other
+     * in a cycle. Debits their own slot cannot cover are retried last on a slot no one else holds.
+     */
+    private void applyToSlots(WalletWriteSet writes, User user, AssetType assetType, List<Integer> positions) {
+        List<SlotWrite> slotWrites = new ArrayList<>(positions.size());
+        for (int position : positions) {
+            WalletOperationRequestDto request = writes.operation(position).request();
+
+            if (writes.isResolved(user.getId(), request.getIdempotencyKey())) {
+                continue;
+            }
 
-        if (walletOpt.isPresent()) {
-            return walletOpt.get();
+            try {
+                validateAmount(request.getAmount());
+            } catch (InvalidTransactionAmountException e) {
+                writes.fail(List.of(position), e);
+                continue;
+            }
+
+            // No counterparty to spread by, so the idempotency key picks the slot
+            slotWrites.add(new SlotWrite(position,
+                    treasuryService.selectSlot((long) request.getIdempotencyKey().hashCode())));
         }
+        // Stable, so repeats of a key, which share a slot, keep their operation order
+        slotWrites.sort(Comparator.comparingInt(SlotWrite::slotIndex));
 
+        List<SlotWrite> uncovered = new ArrayList<>();
+        for (SlotWrite slotWrite : slotWrites) {
+            WalletOperation operation = writes.operation(slotWrite.position());
+            WalletOperationRequestDto request = operation.request();
 
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new WalletNotFoundException("User not found: " + userId));
+            if (writes.isResolved(user.getId(), request.getIdempotencyKey())) {
+                continue;
+            }
+
+            if (operation.type().getTransactionType() == TransactionType.CREDIT) {
+                applySlotWrite(writes, user, slotWrite.position(), treasuryService.creditSlot(assetType,
+                        request.getAmount(), slotWrite.slotIndex(), writes.now()));
+                continue;
+            }
+
+            Optional<SlotUpdate> slot = treasuryService.debitSlot(assetType, request.getAmount(),
+                    slotWrite.slotIndex(), writes.now());
+            if (slot.isPresent()) {
+                applySlotWrite(writes, user, slotWrite.position(), slot.get());
+            } else {
+                uncovered.add(slotWrite);
+            }
+        }
+
+        for (SlotWrite slotWrite : uncovered) {
+            WalletOperationRequestDto request = writes.operation(slotWrite.position()).request();
+
+            if (writes.isResolved(user.getId(), request.getIdempotencyKey())) {
+                continue;
+            }
+
+            try {
+                applySlotWrite(writes, user, slotWrite.position(), treasuryService.debitFreeSlot(assetType,
+                        request.getAmount(), slotWrite.slotIndex(), writes.now()));
+            } catch (InsufficientBalanceException e) {
+                writes.fail(List.of(slotWrite.position()), e);
+            }
+        }
+    }
+
+
+    private void applySlotWrite(WalletWriteSet writes, User user, int position, SlotUpdate slot) {
+        WalletOperation operation = writes.operation(position);
+        WalletOperationRequestDto request = operation.request();
+
+        writes.apply(position, user, LedgerEntry.builder()
+                .wallet(walletRepository.getReferenceById(slot.walletId()))
+                .transactionType(operation.type().getTransactionType())
+                .amount(request.getAmount())
+                .balanceAfter(slot.balance())
+                .description(request.getDescription() != null
+                        ? request.getDescription() : operation.type().getDefaultDescription())
+                .referenceId(request.getReferenceId())
+                .slotIndex(slot.slotIndex())
+                .idempotencyKey(request.getIdempotencyKey())
+                .createdAt(LocalDateTime.now(ZoneOffset.UTC))
+                .build());
+    }
+
+
+    /**
+     * Writes all ledger entries and idempotency keys of the set in one JDBC batch each and returns the
+     * outcomes in operation order. Repeats of a key within the set share the first operation's response;
+     * they and keys already answered in the database come back as duplicates.
+     */
+    private List<WalletOperationOutcome> completeWrites(String operationName, AssetType assetType,
+                                                        WalletWriteSet writes) {
+        walletMetrics.phase(operationName, LEDGER_INSERT, assetType,
+                () -> walletBatchRepository.insertLedgerEntries(writes.ledgerEntries()));
+
+        LocalDateTime expiresAt = writes.now().plusHours(24);
+        List<WalletOperationOutcome> outcomes = new ArrayList<>(writes.size());
+        List<IdempotencyKey> idempotencyKeys = new ArrayList<>(writes.appliedCount());
+
+        for (int i = 0; i < writes.size(); i++) {
+            if (writes.error(i) != null) {
+                outcomes.add(WalletOperationOutcome.failure(writes.error(i)));
+                continue;
+            }
+
+            WalletOperation operation = writes.operation(i);
+            String key = operation.request().getIdempotencyKey();
+            WalletOperationResponseDto response = writes.response(operation.userId(), key);
+
+            if (response != null) {
+                outcomes.add(WalletOperationOutcome.duplicate(response));
+                continue;
+            }
+
+            int appliedPosition = writes.appliedPosition(operation.userId(), key);
+            LedgerEntry entry = writes.ledgerEntry(appliedPosition);
+            response = buildResponse(entry, writes.operation(appliedPosition).type().getSuccessMessage());
+            writes.addResponse(operation.userId(), key, response);
+
+            idempotencyKeys.add(IdempotencyKey.builder()
+                    .key(key)
+                    .user(writes.user(appliedPosition))
+                    .ledgerEntryId(entry.getId())
+                    .responseData(serializeResponse(response))
+                    .createdAt(writes.now())
+                    .expiresAt(expiresAt)
+                    .build());
+            idempotencyResponseCache.putAfterCommit(operation.userId(), key, response, expiresAt);
+
+            outcomes.add(WalletOperationOutcome.success(response));
+        }
+
+        walletMetrics.phase(operationName, KEY_PERSIST, assetType,
+                () -> walletBatchRepository.insertIdempotencyKeys(idempotencyKeys));
+        return outcomes;
+    }
+
+
+    /**
+     * Transfer responses are stored in the same idempotency table but have their own shape, so they bypass
+     * the typed response cache and are read straight from the database.
+     */
+    private Optional<TransferResponseDto> checkTransferIdempotency(Long userId, String idempotencyKey) {
+        return idempotencyKeyRepository.findByKeyAndUserId(idempotencyKey, userId)
+                .filter(key -> !key.getExpiresAt().isBefore(LocalDateTime.now()))
+                .map(key -> {
+                    try {
+                        return objectMapper.readValue(key.getResponseData(), TransferResponseDto.class);
+                    } catch (Exception e) {
+                        log.error("Error deserializing cached transfer response", e);
+                        throw new TransactionProcessingException("Error retrieving cached response", e);
+                    }
+                });
+    }
+
+
+    private WalletOperationResponseDto deserializeResponse(IdempotencyKey key) {
+        try {
+            return objectMapper.readValue(key.getResponseData(), WalletOperationResponseDto.class);
+        } catch (Exception e) {
+            log.error("Error deserializing cached response", e);
+            throw new TransactionProcessingException("Error retrieving cached response", e);
+        }
+    }
+
+
+    /**
+     * Locks the user's wallet, creating it when missing. A freshly inserted row is already locked by
+     * this transaction until commit, so it is returned as is rather than re-selected. The insert is
+     * flushed right away because the JDBC writers reference the new wallet id in the same transaction.
+     */
+    private Wallet lockWallet(User user, AssetType assetType) {
+        Optional<Wallet> walletOpt = walletRepository.findByUserIdAndAssetTypeForUpdate(user.getId(), assetType);
+
+        if (walletOpt.isPresent()) {
+            return walletOpt.get();
+        }
 
         Wallet newWallet = Wallet.builder()
                 .user(user)
@@ -228,10 +966,41 @@ public class WalletService {
                 .balance(BigDecimal.ZERO)
                 .build();
 
-        Wallet savedWallet = walletRepository.save(newWallet);
+        return walletRepository.saveAndFlush(newWallet);
+    }
+
 
-        return walletRepository.findByUserIdAndAssetTypeForUpdate(userId, assetType)
-                .orElseThrow(() -> new WalletNotFoundException("Failed to create and lock wallet"));
+    /**
+     * Works out why the conditional UPDATE matched no row. Inactive or unknown users and insufficient
+     * balance are reported exactly as on the locking path; a missing wallet is created for credits.
+     */
+    private WalletBalanceRepository.BalanceUpdate applyDeltaSlowPath(Long userId, WalletOperationType type,
+                                                                     WalletOperationRequestDto request,
+                                                                     BigDecimal delta, LocalDateTime now) {
+        User user = validateUser(userId);
+
+        Optional<Wallet> wallet = walletRepository.findByUserIdAndAssetType(userId, request.getAssetType());
+
+        if (type.getTransactionType() == TransactionType.DEBIT) {
+            validateSufficientBalance(wallet.map(Wallet::getBalance).orElse(BigDecimal.ZERO), request.getAmount());
+        } else if (wallet.isEmpty()) {
+            lockWallet(user, request.getAssetType());
+        }
+
+        return walletBalanceRepository.applyDelta(userId, request.getAssetType(), delta, now)
+                .orElseThrow(() -> new ConcurrentModificationException(
+                        String.format("Wallet for user %d and asset type %s changed concurrently",
+                                userId, request.getAssetType())
+                ));
+    }
+
+
+    /**
+     * Fails unless the user exists and is active, the check every balance read and write makes. For reads
+     * answered from {@link BalanceCache}, which caches balances but not the user's status.
+     */
+    public void validateActiveUser(Long userId) {
+        validateUser(userId);
     }
 
 
@@ -239,21 +1008,26 @@ public class WalletService {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new WalletNotFoundException("User not found: " + userId));
 
+        validateUserStatus(user);
+
+        return user;
+    }
+
+
+    private void validateUserStatus(User user) {
         if (user.getStatus() != UserStatus.ACTIVE) {
             throw new UnauthorizedWalletAccessException(
                     String.format("User account is %s. Wallet operations are not allowed.", user.getStatus())
             );
         }
-
-        return user;
     }
 
 
-    private void validateSufficientBalance(Wallet wallet, BigDecimal amount) {
-        if (wallet.getBalance().compareTo(amount) < 0) {
+    private void validateSufficientBalance(BigDecimal available, BigDecimal amount) {
+        if (available.compareTo(amount) < 0) {
             throw new InsufficientBalanceException(
                     String.format("Insufficient balance. Available: %s, Required: %s",
-                            wallet.getBalance(), amount)
+                            available, amount)
             );
         }
     }
@@ -275,11 +1049,14 @@ public class WalletService {
                 .idempotencyKey(idempotencyKey)
                 .build();
 
-        return ledgerEntryRepository.save(entry);
+        // Flushed so the ledger_insert phase times the INSERT rather than queueing it for commit
+        LedgerEntry saved = ledgerEntryRepository.saveAndFlush(entry);
+        walletEventRepository.append(List.of(saved));
+        return saved;
     }
 
 
-    private WalletOperationResponseDto buildResponse(LedgerEntry entry, String message) {
+    static WalletOperationResponseDto buildResponse(LedgerEntry entry, String message) {
         return WalletOperationResponseDto.builder()
                 .transactionId(entry.getId())
                 .transactionType(entry.getTransactionType())
@@ -294,28 +1071,37 @@ public class WalletService {
     }
 
 
-    private void saveIdempotencyKey(Long userId, String key, Long ledgerEntryId,
+    private void saveIdempotencyKey(User user, String key, Long ledgerEntryId,
                                     WalletOperationResponseDto response) {
+        String responseData;
         try {
-            String responseData = objectMapper.writeValueAsString(response);
-
-            User user = userRepository.findById(userId)
-                    .orElseThrow(() -> new WalletNotFoundException("User not found: " + userId));
-
-            IdempotencyKey idempotencyKey = IdempotencyKey.builder()
-                    .key(key)
-                    .user(user)
-                    .ledgerEntryId(ledgerEntryId)
-                    .responseData(responseData)
-                    .build();
-
-            idempotencyKeyRepository.save(idempotencyKey);
+            responseData = serializeResponse(response);
         } catch (Exception e) {
             log.error("Error serializing response for idempotency key", e);
             throw new TransactionProcessingException(
                     "Failed to serialize idempotency response", e
             );
         }
+
+        IdempotencyKey idempotencyKey = IdempotencyKey.builder()
+                .key(key)
+                .user(user)
+                .ledgerEntryId(ledgerEntryId)
+                .responseData(responseData)
+                .build();
+
+        // Flushed outside the try, so a database error such as a 40001 reaches the retrier unwrapped
+        idempotencyKeyRepository.saveAndFlush(idempotencyKey);
+
+        idempotencyResponseCache.putAfterCommit(user.getId(), key, response, idempotencyKey.getExpiresAt());
+    }
+
+
+    private String serializeResponse(WalletOperationResponseDto response) {
+        return objectMapper.writeValueAsString(response);
     }
-}
 
+
+    private record SlotWrite(int position, int slotIndex) {
+    }
+}
@@ -0,0 +1,112 @@
+package com.walletService.Service;
+
+import com.walletService.Exceptions.ConcurrentModificationException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+
+import java.sql.SQLException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * Re-runs a wallet transaction that lost a race: Postgres serialization failures (40001), deadlocks
+ * (40P01), lock timeouts (55P03), optimistic version conflicts and {@link ConcurrentModificationException}.
+ * Waits between attempts are exponential with full jitter so colliding transactions spread out. Must be
+ * called outside any transaction; every attempt starts a fresh one and repeats the idempotency check.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class WalletTransactionRetrier {
+
+    private final MeterRegistry meterRegistry;
+
+    @Value("${wallet.retry.max-attempts:4}")
+    private int maxAttempts;
+
+    @Value("${wallet.retry.initial-backoff-ms:10}")
+    private long initialBackoffMs;
+
+    @Value("${wallet.retry.max-backoff-ms:200}")
+    private long maxBackoffMs;
+
+
+    public <T> T execute(String operation, Supplier<T> transaction) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transaction.get();
+            } catch (RuntimeException e) {
+                String reason = retryReason(e);
+                if (reason == null) {
+                    throw e;
+                }
+
+                if (attempt >= maxAttempts) {
+                    counter("wallet.retry.exhausted", operation, reason).increment();
+                    log.warn("{} gave up after {} attempts ({})", operation, attempt, reason);
+                    throw e;
+                }
+
+                counter("wallet.retry.attempts", operation, reason).increment();
+                log.debug("{} attempt {} failed ({}), retrying", operation, attempt, reason);
+
+                try {
+                    Thread.sleep(backoffMs(attempt));
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    throw e;
+                }
+            }
+        }
+    }
+
+
+    private long backoffMs(int attempt) {
+        long ceiling = Math.min(maxBackoffMs, initialBackoffMs << Math.min(attempt - 1, 20));
+        return ThreadLocalRandom.current().nextLong(ceiling + 1);
+    }
+
+
+    /**
+     * Returns the metric tag for a retryable failure, or null when the failure should surface as is.
+     */
+    private String retryReason(Throwable failure) {
+        for (Throwable cause = failure; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConcurrentModificationException) {
+                return "concurrent_modification";
+            }
+            if (cause instanceof OptimisticLockingFailureException) {
+                return "optimistic_lock";
+            }
+            if (cause instanceof SQLException sqlException && sqlException.getSQLState() != null) {
+                switch (sqlException.getSQLState()) {
+                    case "40001":
+                        return "serialization_failure";
+                    case "40P01":
+                        return "deadlock";
+                    case "55P03":
+                        return "lock_timeout";
+                    default:
+                        break;
+                }
+            }
+            if (cause.getCause() == cause) {
+                break;
+            }
+        }
+        return null;
+    }
+
+
+    private Counter counter(String name, String operation, String reason) {
+        return Counter.builder(name)
+                .tag("operation", operation)
+                .tag("reason", reason)
+                .register(meterRegistry);
+    }
+}
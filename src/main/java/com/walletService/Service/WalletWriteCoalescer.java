@@ -0,0 +1,206 @@
+package com.walletService.Service;
+
+import com.walletService.Dto.WalletOperationRequestDto;
+import com.walletService.Dto.WalletOperationResponseDto;
+import com.walletService.Exceptions.TransactionProcessingException;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Single-writer-per-wallet pipeline. Operations are queued per (userId, assetType) and whatever has
+ * accumulated while the previous burst was being written is applied in one transaction through
+ * {@link WalletService#applyCoalesced}, so a hot wallet takes one row lock per burst instead of one per request.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class WalletWriteCoalescer {
+
+    private final WalletService walletService;
+    private final WalletTransactionRetrier walletTransactionRetrier;
+
+    @Value("${wallet.write.coalescing.max-batch-size:100}")
+    private int maxBatchSize;
+
+    @Value("${wallet.write.coalescing.workers:8}")
+    private int workers;
+
+    @Value("${wallet.write.coalescing.timeout-ms:5000}")
+    private long timeoutMs;
+
+    private final ConcurrentHashMap<WalletKey, Lane> lanes = new ConcurrentHashMap<>();
+
+    private ExecutorService executor;
+
+
+    @PostConstruct
+    void start() {
+        AtomicInteger threadCounter = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(workers, runnable -> {
+            Thread thread = new Thread(runnable, "wallet-writer-" + threadCounter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        executor.shutdown();
+        if (!executor.awaitTermination(timeoutMs, TimeUnit.MILLISECONDS)) {
+            log.warn("Wallet writer pool did not drain within {} ms", timeoutMs);
+        }
+    }
+
+
+    public CompletableFuture<WalletOperationResponseDto> submit(Long userId, WalletOperationType type,
+                                                                WalletOperationRequestDto request) {
+        return enqueue(userId, type, request).thenApply(WalletOperationOutcome::response);
+    }
+
+
+    /**
+     * Waits for the operation's outcome. A rejected operation rethrows its error, so the outcome returned
+     * is a success or a duplicate.
+     */
+    public WalletOperationOutcome submitAndWait(Long userId, WalletOperationType type,
+                                                WalletOperationRequestDto request) {
+        CompletableFuture<WalletOperationOutcome> future = enqueue(userId, type, request);
+
+        try {
+            return future.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new TransactionProcessingException("Wallet operation failed", e.getCause());
+        } catch (TimeoutException e) {
+            throw new TransactionProcessingException("Timed out waiting for wallet operation", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new TransactionProcessingException("Interrupted while waiting for wallet operation", e);
+        }
+    }
+
+
+    private CompletableFuture<WalletOperationOutcome> enqueue(Long userId, WalletOperationType type,
+                                                              WalletOperationRequestDto request) {
+        WalletKey key = new WalletKey(userId, request.getAssetType());
+        PendingOperation pending =
+                new PendingOperation(new WalletOperation(userId, type, request), new CompletableFuture<>());
+
+        // Enqueue inside compute so the add cannot interleave with drain retiring the lane
+        Lane lane = lanes.compute(key, (k, current) -> {
+            Lane target = current != null ? current : new Lane();
+            target.queue.add(pending);
+            return target;
+        });
+        schedule(key, lane);
+
+        return pending.future();
+    }
+
+
+    private void schedule(WalletKey key, Lane lane) {
+        if (lane.scheduled.compareAndSet(false, true)) {
+            executor.execute(() -> drain(key, lane));
+        }
+    }
+
+
+    private void drain(WalletKey key, Lane lane) {
+        try {
+            List<PendingOperation> batch = new ArrayList<>();
+            PendingOperation next;
+            while (batch.size() < maxBatchSize && (next = lane.queue.poll()) != null) {
+                batch.add(next);
+            }
+
+            if (!batch.isEmpty()) {
+                apply(key, batch);
+            }
+        } finally {
+            // An idle lane is retired under the map's bin lock, which submit also holds while enqueueing, so
+            // an operation is never left in a retired lane and a wallet never has two lanes draining at once.
+            // The retired lane keeps its scheduled flag; nothing can reach it any more.
+            Lane retained = lanes.compute(key, (k, current) ->
+                    current == lane && lane.queue.isEmpty() ? null : current);
+
+            // Re-queue rather than loop so one hot wallet cannot monopolise a worker
+            if (retained == lane) {
+                lane.scheduled.set(false);
+                if (!lane.queue.isEmpty()) {
+                    schedule(key, lane);
+                }
+            }
+        }
+    }
+
+
+    private void apply(WalletKey key, List<PendingOperation> batch) {
+        try {
+            complete(batch, walletTransactionRetrier.execute("applyCoalesced",
+                    () -> walletService.applyCoalesced(key.userId(), key.assetType(), operationsOf(batch))));
+        } catch (RuntimeException e) {
+            if (batch.size() == 1) {
+                batch.get(0).future().completeExceptionally(e);
+                return;
+            }
+
+            log.warn("Coalesced batch of {} operations failed for user {} and asset type {}, applying individually: {}",
+                    batch.size(), key.userId(), key.assetType(), e.getMessage());
+
+            for (PendingOperation pending : batch) {
+                apply(key, List.of(pending));
+            }
+        }
+    }
+
+
+    private void complete(List<PendingOperation> batch, List<WalletOperationOutcome> outcomes) {
+        for (int i = 0; i < batch.size(); i++) {
+            WalletOperationOutcome outcome = outcomes.get(i);
+            if (outcome.isSuccess()) {
+                batch.get(i).future().complete(outcome);
+            } else {
+                batch.get(i).future().completeExceptionally(outcome.error());
+            }
+        }
+    }
+
+
+    private List<WalletOperation> operationsOf(List<PendingOperation> batch) {
+        return batch.stream().map(PendingOperation::operation).toList();
+    }
+
+
+    private record PendingOperation(WalletOperation operation,
+                                    CompletableFuture<WalletOperationOutcome> future) {
+    }
+
+
+    private static final class Lane {
+
+        private final Queue<PendingOperation> queue = new ConcurrentLinkedQueue<>();
+
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+    }
+}
@@ -0,0 +1,5 @@
+package com.walletService.Service;
+
+public enum WalletWriteMode {
+    DIRECT, COALESCING, ATOMIC
+}
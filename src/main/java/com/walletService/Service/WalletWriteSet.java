@@ -0,0 +1,159 @@
+package com.walletService.Service;
+
+import com.walletService.Dto.WalletOperationResponseDto;
+import com.walletService.Entity.LedgerEntry;
+import com.walletService.Entity.User;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+/**
+ * Per-transaction working state of a multi-operation write: which operations failed, which produced a
+ * ledger entry, and the response each idempotency key resolves to. Positions index into the operation list.
+ */
+class WalletWriteSet {
+
+    private final List<WalletOperation> operations;
+    private LocalDateTime now;
+    private final RuntimeException[] errors;
+    private final User[] users;
+    private final List<LedgerEntry> ledgerEntries = new ArrayList<>();
+    private final int[] ledgerIndexes;
+    private final Set<IdempotencyRef> references = new HashSet<>();
+    private final Map<IdempotencyRef, Integer> appliedPositions = new HashMap<>();
+    private final Map<IdempotencyRef, WalletOperationResponseDto> responses = new HashMap<>();
+
+
+    WalletWriteSet(List<WalletOperation> operations) {
+        this.operations = operations;
+        this.errors = new RuntimeException[operations.size()];
+        this.users = new User[operations.size()];
+        this.ledgerIndexes = new int[operations.size()];
+        Arrays.fill(ledgerIndexes, -1);
+        operations.forEach(operation ->
+                references.add(new IdempotencyRef(operation.userId(), operation.request().getIdempotencyKey())));
+    }
+
+
+    int size() {
+        return operations.size();
+    }
+
+
+    /**
+     * Sets the time of the set's ledger entries and keys. Callers stamp the set once its wallets are locked,
+     * so a wallet's entries sort after those of every transaction that held its lock before.
+     */
+    void stamp(LocalDateTime now) {
+        this.now = now;
+    }
+
+
+    LocalDateTime now() {
+        return now;
+    }
+
+
+    WalletOperation operation(int position) {
+        return operations.get(position);
+    }
+
+
+    List<Integer> allPositions() {
+        return IntStream.range(0, operations.size()).boxed().toList();
+    }
+
+
+    Set<Long> userIds() {
+        Set<Long> userIds = new LinkedHashSet<>();
+        operations.forEach(operation -> userIds.add(operation.userId()));
+        return userIds;
+    }
+
+
+    Set<String> idempotencyKeys() {
+        Set<String> keys = new LinkedHashSet<>();
+        operations.forEach(operation -> keys.add(operation.request().getIdempotencyKey()));
+        return keys;
+    }
+
+
+    boolean references(Long userId, String key) {
+        return references.contains(new IdempotencyRef(userId, key));
+    }
+
+
+    /**
+     * True when the key already has a response or an earlier operation in this set has claimed it.
+     */
+    boolean isResolved(Long userId, String key) {
+        IdempotencyRef ref = new IdempotencyRef(userId, key);
+        return responses.containsKey(ref) || appliedPositions.containsKey(ref);
+    }
+
+
+    void fail(List<Integer> positions, RuntimeException error) {
+        positions.forEach(position -> errors[position] = error);
+    }
+
+
+    RuntimeException error(int position) {
+        return errors[position];
+    }
+
+
+    void apply(int position, User user, LedgerEntry entry) {
+        WalletOperation operation = operations.get(position);
+        appliedPositions.put(new IdempotencyRef(operation.userId(), operation.request().getIdempotencyKey()), position);
+        users[position] = user;
+        ledgerIndexes[position] = ledgerEntries.size();
+        ledgerEntries.add(entry);
+    }
+
+
+    int appliedCount() {
+        return ledgerEntries.size();
+    }
+
+
+    List<LedgerEntry> ledgerEntries() {
+        return ledgerEntries;
+    }
+
+
+    LedgerEntry ledgerEntry(int position) {
+        return ledgerEntries.get(ledgerIndexes[position]);
+    }
+
+
+    User user(int position) {
+        return users[position];
+    }
+
+
+    int appliedPosition(Long userId, String key) {
+        return appliedPositions.get(new IdempotencyRef(userId, key));
+    }
+
+
+    void addResponse(Long userId, String key, WalletOperationResponseDto response) {
+        responses.put(new IdempotencyRef(userId, key), response);
+    }
+
+
+    WalletOperationResponseDto response(Long userId, String key) {
+        return responses.get(new IdempotencyRef(userId, key));
+    }
+
+
+    private record IdempotencyRef(Long userId, String key) {
+    }
+}
@@ -0,0 +1,7 @@
+-- The purge picks expired keys by expiry rather than by id, since pooled sequence blocks hand out ids out of
+-- creation order. Including id lets its chunk query find the keys to delete from the index alone. Replaces
+-- the plain expires_at index, which nothing else reads.
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_idempotency_keys_expires_at_id ON idempotency_keys (expires_at, id);
+
+DROP INDEX CONCURRENTLY IF EXISTS idx_idempotency_keys_expires_at;
@@ -0,0 +1,55 @@
+-- Baseline schema as mapped by the JPA entities. Existing databases are baselined at this version
+-- (spring.flyway.baseline-on-migrate) and only receive later migrations.
+
+CREATE TABLE users (
+    id            BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    status        VARCHAR(20)  NOT NULL,
+    user_name     VARCHAR(100) NOT NULL,
+    email_address VARCHAR(100) NOT NULL,
+    external_id   VARCHAR(100),
+    created_at    TIMESTAMP(6) NOT NULL,
+    updated_at    TIMESTAMP(6) NOT NULL,
+    CONSTRAINT uk_users_email_address UNIQUE (email_address),
+    CONSTRAINT uk_users_external_id UNIQUE (external_id)
+);
+
+CREATE TABLE wallets (
+    id         BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    user_id    BIGINT         NOT NULL REFERENCES users (id),
+    balance    NUMERIC(19, 4) NOT NULL,
+    asset_type VARCHAR(50)    NOT NULL,
+    version    BIGINT         NOT NULL,
+    created_at TIMESTAMP(6)   NOT NULL,
+    updated_at TIMESTAMP(6)   NOT NULL,
+    CONSTRAINT uk_wallets_user_asset UNIQUE (user_id, asset_type),
+    CONSTRAINT ck_wallets_balance_non_negative CHECK (balance >= 0)
+);
+
+CREATE TABLE ledger_entries (
+    id               BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    wallet_id        BIGINT         NOT NULL REFERENCES wallets (id),
+    transaction_type VARCHAR(10)    NOT NULL,
+    amount           NUMERIC(19, 4) NOT NULL,
+    balance_after    NUMERIC(19, 4) NOT NULL,
+    description      VARCHAR(500),
+    reference_id     VARCHAR(100),
+    idempotency_key  VARCHAR(100)   NOT NULL,
+    created_at       TIMESTAMP(6)   NOT NULL,
+    CONSTRAINT uk_ledger_entries_idempotency_key UNIQUE (idempotency_key)
+);
+
+CREATE INDEX idx_wallet_created ON ledger_entries (wallet_id, created_at);
+
+CREATE TABLE idempotency_keys (
+    id              BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    key             VARCHAR(100) NOT NULL,
+    user_id         BIGINT       NOT NULL REFERENCES users (id),
+    ledger_entry_id BIGINT       NOT NULL,
+    response_data   TEXT,
+    created_at      TIMESTAMP(6) NOT NULL,
+    expires_at      TIMESTAMP(6) NOT NULL,
+    CONSTRAINT uk_idempotency_keys_key UNIQUE (key)
+);
+
+CREATE UNIQUE INDEX idx_key_user ON idempotency_keys (key, user_id);
+CREATE INDEX idx_idempotency_keys_expires_at ON idempotency_keys (expires_at);
@@ -0,0 +1,31 @@
+-- Replaces IDENTITY columns with pooled sequences so Hibernate and the JDBC batch writers can assign ids
+-- without a round trip per row. Each nextval reserves a block of ${id_allocation_size} ids (the returned
+-- value is the top of the block). To retune, ALTER SEQUENCE ... INCREMENT BY in a later migration; the
+-- application reads the increment from the database at startup.
+--
+-- The column defaults keep ad-hoc SQL inserts working; each such insert consumes a whole block.
+
+CREATE SEQUENCE users_seq INCREMENT BY ${id_allocation_size} MINVALUE 1;
+CREATE SEQUENCE wallets_seq INCREMENT BY ${id_allocation_size} MINVALUE 1;
+CREATE SEQUENCE ledger_entries_seq INCREMENT BY ${id_allocation_size} MINVALUE 1;
+CREATE SEQUENCE idempotency_keys_seq INCREMENT BY ${id_allocation_size} MINVALUE 1;
+
+SELECT setval('users_seq', COALESCE(MAX(id), 0) + ${id_allocation_size}) FROM users;
+SELECT setval('wallets_seq', COALESCE(MAX(id), 0) + ${id_allocation_size}) FROM wallets;
+SELECT setval('ledger_entries_seq', COALESCE(MAX(id), 0) + ${id_allocation_size}) FROM ledger_entries;
+SELECT setval('idempotency_keys_seq', COALESCE(MAX(id), 0) + ${id_allocation_size}) FROM idempotency_keys;
+
+ALTER TABLE users ALTER COLUMN id DROP IDENTITY IF EXISTS;
+ALTER TABLE wallets ALTER COLUMN id DROP IDENTITY IF EXISTS;
+ALTER TABLE ledger_entries ALTER COLUMN id DROP IDENTITY IF EXISTS;
+ALTER TABLE idempotency_keys ALTER COLUMN id DROP IDENTITY IF EXISTS;
+
+ALTER TABLE users ALTER COLUMN id SET DEFAULT nextval('users_seq');
+ALTER TABLE wallets ALTER COLUMN id SET DEFAULT nextval('wallets_seq');
+ALTER TABLE ledger_entries ALTER COLUMN id SET DEFAULT nextval('ledger_entries_seq');
+ALTER TABLE idempotency_keys ALTER COLUMN id SET DEFAULT nextval('idempotency_keys_seq');
+
+ALTER SEQUENCE users_seq OWNED BY users.id;
+ALTER SEQUENCE wallets_seq OWNED BY wallets.id;
+ALTER SEQUENCE ledger_entries_seq OWNED BY ledger_entries.id;
+ALTER SEQUENCE idempotency_keys_seq OWNED BY idempotency_keys.id;
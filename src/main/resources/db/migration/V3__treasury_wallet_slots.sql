@@ -0,0 +1,12 @@
+-- Sub-balance slots of a sharded wallet (the treasury). The logical balance is the wallet row's own balance
+-- plus the sum of its slots; each write touches a single slot so writers do not queue on one row lock.
+
+CREATE TABLE wallet_slots (
+    wallet_id  BIGINT         NOT NULL REFERENCES wallets (id),
+    slot_index INTEGER        NOT NULL,
+    balance    NUMERIC(19, 4) NOT NULL,
+    version    BIGINT         NOT NULL,
+    updated_at TIMESTAMP(6)   NOT NULL,
+    PRIMARY KEY (wallet_id, slot_index),
+    CONSTRAINT ck_wallet_slots_balance_non_negative CHECK (balance >= 0)
+);
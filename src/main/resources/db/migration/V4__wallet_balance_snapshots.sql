@@ -0,0 +1,14 @@
+-- Periodic per-wallet balance checkpoints. A snapshot holds the wallet's ledger balance as of as_of: the signed
+-- sum of every ledger entry with created_at <= as_of. A point-in-time balance or a reconciliation check starts
+-- from the latest snapshot at or before the time asked for and only replays entries created after its as_of.
+-- Sums are order-independent, so the chain stays exact even though pooled ledger ids are not commit-ordered.
+
+CREATE TABLE wallet_balance_snapshots (
+    wallet_id      BIGINT         NOT NULL REFERENCES wallets (id),
+    as_of          TIMESTAMP(6)   NOT NULL,
+    balance        NUMERIC(19, 4) NOT NULL,
+    entry_count    BIGINT         NOT NULL,
+    last_ledger_id BIGINT,
+    created_at     TIMESTAMP(6)   NOT NULL,
+    PRIMARY KEY (wallet_id, as_of)
+);
@@ -0,0 +1,34 @@
+-- Whole-ledger reconciliation runs. A run is split into wallet id ranges when it starts; each range is marked
+-- DONE together with its discrepancies in one transaction, so an interrupted run resumes with the ranges
+-- still PENDING instead of starting over.
+
+CREATE TABLE reconciliation_runs (
+    id            BIGSERIAL PRIMARY KEY,
+    status        VARCHAR(20)  NOT NULL,
+    started_at    TIMESTAMP(6) NOT NULL,
+    finished_at   TIMESTAMP(6),
+    wallets       BIGINT       NOT NULL DEFAULT 0,
+    entries       BIGINT       NOT NULL DEFAULT 0,
+    discrepancies BIGINT       NOT NULL DEFAULT 0
+);
+
+CREATE TABLE reconciliation_ranges (
+    run_id        BIGINT       NOT NULL REFERENCES reconciliation_runs (id),
+    range_start   BIGINT       NOT NULL,
+    range_end     BIGINT       NOT NULL,
+    status        VARCHAR(20)  NOT NULL,
+    wallets       BIGINT,
+    entries       BIGINT,
+    completed_at  TIMESTAMP(6),
+    PRIMARY KEY (run_id, range_start)
+);
+
+CREATE TABLE reconciliation_discrepancies (
+    run_id             BIGINT         NOT NULL REFERENCES reconciliation_runs (id),
+    wallet_id          BIGINT         NOT NULL,
+    stored_balance     NUMERIC(23, 4) NOT NULL,
+    last_balance_after NUMERIC(23, 4),
+    ledger_sum         NUMERIC(23, 4) NOT NULL,
+    entry_count        BIGINT         NOT NULL,
+    PRIMARY KEY (run_id, wallet_id)
+);
@@ -0,0 +1,93 @@
+-- Range-partitions ledger_entries by month of created_at (UTC). Each month is its own table with its own
+-- (id, created_at) primary key and (wallet_id, created_at) index, so inserts only touch the current month's
+-- indexes and a query bounded on created_at scans just the months it covers.
+--
+-- Postgres requires every unique constraint of a partitioned table to include the partition key, which would
+-- make idempotency keys unique per instant rather than globally. Global uniqueness moves to ledger_entry_keys,
+-- a narrow table filled by a trigger in the inserting statement. It also records each entry's created_at, so a
+-- lookup by idempotency key reads a single partition.
+--
+-- Partitions are named ledger_entries_pYYYYMM. There is no default partition: LedgerPartitionJob creates the
+-- upcoming months ahead of time, and a row outside every partition fails instead of landing in a catch-all
+-- that would block later partitions and DETACH ... CONCURRENTLY. Detached months move to ledger_archive.
+
+CREATE SCHEMA IF NOT EXISTS ledger_archive;
+
+CREATE TABLE ledger_entry_keys (
+    idempotency_key VARCHAR(100) PRIMARY KEY,
+    ledger_entry_id BIGINT       NOT NULL,
+    created_at      TIMESTAMP(6) NOT NULL
+);
+
+ALTER TABLE ledger_entries RENAME TO ledger_entries_unpartitioned;
+ALTER SEQUENCE ledger_entries_seq OWNED BY NONE;
+
+CREATE TABLE ledger_entries (
+    id               BIGINT         NOT NULL DEFAULT nextval('ledger_entries_seq'),
+    wallet_id        BIGINT         NOT NULL REFERENCES wallets (id),
+    transaction_type VARCHAR(10)    NOT NULL,
+    amount           NUMERIC(19, 4) NOT NULL,
+    balance_after    NUMERIC(19, 4) NOT NULL,
+    description      VARCHAR(500),
+    reference_id     VARCHAR(100),
+    idempotency_key  VARCHAR(100)   NOT NULL,
+    created_at       TIMESTAMP(6)   NOT NULL
+) PARTITION BY RANGE (created_at);
+
+-- Creates the monthly partitions from the month of from_month through the month of to_month that do not
+-- exist yet and returns how many it created.
+CREATE FUNCTION create_ledger_entries_partitions(from_month TIMESTAMP, to_month TIMESTAMP) RETURNS INTEGER
+    LANGUAGE plpgsql AS
+$$
+DECLARE
+    partition_start TIMESTAMP := date_trunc('month', from_month);
+    partition_name  TEXT;
+    created         INTEGER   := 0;
+BEGIN
+    WHILE partition_start <= to_month LOOP
+        partition_name := 'ledger_entries_p' || to_char(partition_start, 'YYYYMM');
+        IF to_regclass('public.' || partition_name) IS NULL THEN
+            EXECUTE format('CREATE TABLE public.%I PARTITION OF ledger_entries FOR VALUES FROM (%L) TO (%L)',
+                           partition_name, partition_start, partition_start + INTERVAL '1 month');
+            created := created + 1;
+        END IF;
+        partition_start := partition_start + INTERVAL '1 month';
+    END LOOP;
+    RETURN created;
+END
+$$;
+
+SELECT create_ledger_entries_partitions(
+               LEAST(COALESCE((SELECT MIN(created_at) FROM ledger_entries_unpartitioned), 'infinity'),
+                     (now() AT TIME ZONE 'UTC') - INTERVAL '1 month'),
+               GREATEST(COALESCE((SELECT MAX(created_at) FROM ledger_entries_unpartitioned), '-infinity'),
+                        (now() AT TIME ZONE 'UTC') + INTERVAL '3 months'));
+
+INSERT INTO ledger_entries (id, wallet_id, transaction_type, amount, balance_after, description, reference_id,
+                            idempotency_key, created_at)
+SELECT id, wallet_id, transaction_type, amount, balance_after, description, reference_id, idempotency_key,
+       created_at
+FROM ledger_entries_unpartitioned;
+
+INSERT INTO ledger_entry_keys (idempotency_key, ledger_entry_id, created_at)
+SELECT idempotency_key, id, created_at FROM ledger_entries_unpartitioned;
+
+DROP TABLE ledger_entries_unpartitioned;
+
+ALTER TABLE ledger_entries ADD CONSTRAINT ledger_entries_pkey PRIMARY KEY (id, created_at);
+CREATE INDEX idx_wallet_created ON ledger_entries (wallet_id, created_at);
+ALTER SEQUENCE ledger_entries_seq OWNED BY ledger_entries.id;
+
+CREATE FUNCTION record_ledger_entry_key() RETURNS TRIGGER
+    LANGUAGE plpgsql AS
+$$
+BEGIN
+    INSERT INTO ledger_entry_keys (idempotency_key, ledger_entry_id, created_at)
+    VALUES (NEW.idempotency_key, NEW.id, NEW.created_at);
+    RETURN NEW;
+END
+$$;
+
+CREATE TRIGGER trg_ledger_entry_keys
+    AFTER INSERT ON ledger_entries
+    FOR EACH ROW EXECUTE FUNCTION record_ledger_entry_key();
@@ -0,0 +1,20 @@
+-- Transactional outbox of wallet events. Every ledger entry gets a row here in the transaction that inserts
+-- it, and the in-process relay publishes committed rows in id order and deletes them once the sink has
+-- accepted them. The row only points at the ledger entry; the relay reads the event body from the ledger.
+--
+-- Ids come from an unpooled sequence taken at insert time. A wallet's entries are inserted while its row
+-- lock is held, so a wallet's later event always gets a higher id and publishing in id order keeps every
+-- wallet's events in order. Ids are not commit-ordered across wallets, which is why the relay deletes the
+-- rows it published by id instead of advancing a high-water mark.
+
+CREATE SEQUENCE wallet_events_seq;
+
+CREATE TABLE wallet_events (
+    id                BIGINT       NOT NULL DEFAULT nextval('wallet_events_seq') PRIMARY KEY,
+    wallet_id         BIGINT       NOT NULL,
+    ledger_entry_id   BIGINT       NOT NULL,
+    ledger_created_at TIMESTAMP(6) NOT NULL,
+    created_at        TIMESTAMP(6) NOT NULL
+);
+
+ALTER SEQUENCE wallet_events_seq OWNED BY wallet_events.id;
@@ -0,0 +1,5 @@
+-- Slot of a sharded wallet (the treasury) that a ledger entry changed. The balance_after of such an entry
+-- is the balance of that slot, so every (wallet_id, slot_index) pair is a balance_after chain of its own;
+-- entries with a NULL slot_index form the chain of the wallet row's own balance.
+
+ALTER TABLE ledger_entries ADD COLUMN slot_index INTEGER;
@@ -0,0 +1,12 @@
+-- Outbox rows the relay could not publish because their ledger entry is no longer in ledger_entries. The
+-- relay moves such a row here instead of retrying it, so it cannot hold up the events behind it; the row is
+-- kept as it was in wallet_events for inspection.
+
+CREATE TABLE wallet_events_dead_letter (
+    id                BIGINT       NOT NULL PRIMARY KEY,
+    wallet_id         BIGINT       NOT NULL,
+    ledger_entry_id   BIGINT       NOT NULL,
+    ledger_created_at TIMESTAMP(6) NOT NULL,
+    created_at        TIMESTAMP(6) NOT NULL,
+    dead_lettered_at  TIMESTAMP(6) NOT NULL
+);
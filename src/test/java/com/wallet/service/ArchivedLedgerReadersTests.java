@@ -0,0 +1,129 @@
+package com.wallet.service;
+
+import com.walletService.Entity.AssetType;
+import com.walletService.Repository.LedgerPartitionRepository;
+import com.walletService.Repository.ReconciliationRepository.ReconciliationRange;
+import com.walletService.Service.BalanceSnapshotService;
+import com.walletService.Service.LedgerExportFormat;
+import com.walletService.Service.LedgerExportService;
+import com.walletService.Service.LedgerPartitionJob;
+import com.walletService.Service.LedgerRangeReconciler;
+import com.walletService.Service.WalletService;
+import com.walletService.WalletServiceApplication;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+
+import static com.wallet.service.WalletTestFixture.request;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Once months have been moved to the file archive, the readers of the whole ledger still see them: the
+ * reconciler starts from the month-end snapshot, point-in-time balances and exports read the segments.
+ */
+@Import({TestcontainersConfiguration.class, WalletTestFixture.class})
+@SpringBootTest(classes = WalletServiceApplication.class, properties = "wallet.snapshot.enabled=false")
+class ArchivedLedgerReadersTests {
+
+    private static final Path ARCHIVE_DIR = createArchiveDir();
+
+    private static final YearMonth MARCH = YearMonth.of(2010, 3);
+    private static final YearMonth APRIL = YearMonth.of(2010, 4);
+
+    @Autowired
+    private LedgerPartitionRepository ledgerPartitionRepository;
+
+    @Autowired
+    private LedgerPartitionJob ledgerPartitionJob;
+
+    @Autowired
+    private LedgerRangeReconciler ledgerRangeReconciler;
+
+    @Autowired
+    private BalanceSnapshotService balanceSnapshotService;
+
+    @Autowired
+    private LedgerExportService ledgerExportService;
+
+    @Autowired
+    private WalletService walletService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private WalletTestFixture fixture;
+
+    @DynamicPropertySource
+    static void archiveDir(DynamicPropertyRegistry registry) {
+        registry.add("wallet.ledger.archive.dir", ARCHIVE_DIR::toString);
+    }
+
+    @Test
+    void archivedMonthsStillCountForReconciliationBalancesAndExports() throws IOException {
+        ledgerPartitionRepository.createPartitions(MARCH, APRIL);
+
+        Long userId = fixture.insertUser();
+        Long walletId = jdbcTemplate.queryForObject(
+                "INSERT INTO wallets (user_id, balance, asset_type, version, created_at, updated_at) " +
+                        "VALUES (?, 7, 'GOLD_COINS', 0, now(), now()) RETURNING id", Long.class, userId);
+        insertCredit(walletId, "1", "1", MARCH.atDay(5).atTime(10, 0));
+        insertCredit(walletId, "2", "3", MARCH.atDay(20).atTime(10, 0));
+        insertCredit(walletId, "4", "7", APRIL.atDay(10).atTime(10, 0));
+
+        assertThat(ledgerPartitionJob.archiveBefore(APRIL.plusMonths(1))).hasSize(2);
+        assertThat(ledgerPartitionJob.moveDetachedToFiles()).isEqualTo(2);
+        walletService.topUp(userId, request(AssetType.GOLD_COINS, "5"));
+
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM ledger_entries WHERE wallet_id = ?",
+                Long.class, walletId)).isEqualTo(1);
+        assertThat(ledgerRangeReconciler.reconcile(new ReconciliationRange(0, walletId, walletId)).discrepancies())
+                .isEmpty();
+
+        assertThat(balanceAt(userId, MARCH.atDay(25).atStartOfDay())).isEqualTo("3");
+        assertThat(balanceAt(userId, APRIL.atDay(15).atStartOfDay())).isEqualTo("7");
+        assertThat(balanceAt(userId, LocalDateTime.now(ZoneOffset.UTC))).isEqualTo("12");
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        assertThat(ledgerExportService.export(walletId, LedgerExportFormat.CSV, output)).isEqualTo(4);
+        assertThat(output.toString(StandardCharsets.UTF_8).lines().skip(1)
+                .map(line -> line.split(",")[3]).toList())
+                .containsExactly("1.0000", "3.0000", "7.0000", "12.0000");
+    }
+
+    private void insertCredit(Long walletId, String amount, String balanceAfter, LocalDateTime createdAt) {
+        jdbcTemplate.update("INSERT INTO ledger_entries (wallet_id, transaction_type, amount, balance_after, " +
+                        "description, idempotency_key, created_at) " +
+                        "VALUES (?, 'CREDIT', CAST(? AS NUMERIC), CAST(? AS NUMERIC), 'Archived credit', " +
+                        "gen_random_uuid()::text, ?)",
+                walletId, amount, balanceAfter, Timestamp.valueOf(createdAt));
+    }
+
+    private String balanceAt(Long userId, LocalDateTime at) {
+        return balanceSnapshotService.getBalanceAt(userId, AssetType.GOLD_COINS, at).getBalance()
+                .stripTrailingZeros().toPlainString();
+    }
+
+    private static Path createArchiveDir() {
+        try {
+            return Files.createTempDirectory("ledger-archive");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
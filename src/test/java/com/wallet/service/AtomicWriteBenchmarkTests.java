@@ -0,0 +1,132 @@
+package com.wallet.service;
+
+import com.walletService.Entity.AssetType;
+import com.walletService.Service.WalletOperationDispatcher;
+import com.walletService.Service.WalletWriteMode;
+import com.walletService.WalletServiceApplication;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import static com.wallet.service.WalletTestFixture.request;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * DIRECT against ATOMIC write mode: database round trips per write on an existing wallet, and latency of
+ * top-ups on one hot wallet from {@value #THREADS} threads. Run with {@code -Dbenchmarks=true}.
+ */
+@Import({TestcontainersConfiguration.class, WalletTestFixture.class, JdbcRoundTripCounter.class})
+@SpringBootTest(classes = WalletServiceApplication.class)
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@EnabledIfSystemProperty(named = "benchmarks", matches = "true")
+class AtomicWriteBenchmarkTests {
+
+    private static final int THREADS = 16;
+    private static final int WRITES_PER_THREAD = 250;
+    private static final int ROUND_TRIP_SAMPLES = 50;
+
+    @Autowired
+    private WalletOperationDispatcher walletOperationDispatcher;
+
+    @Autowired
+    private WalletTestFixture fixture;
+
+    @Test
+    void roundTripsPerWrite() {
+        double direct = roundTrips(WalletWriteMode.DIRECT);
+        double atomic = roundTrips(WalletWriteMode.ATOMIC);
+
+        System.out.printf("round trips per top-up on an existing wallet: DIRECT %.1f, ATOMIC %.1f%n", direct, atomic);
+
+        assertThat(atomic).isLessThan(direct);
+    }
+
+    @Test
+    void hotWalletLatency() throws InterruptedException {
+        Summary direct = hotWallet(WalletWriteMode.DIRECT);
+        Summary atomic = hotWallet(WalletWriteMode.ATOMIC);
+
+        System.out.printf("hot wallet, %d threads x %d top-ups%n", THREADS, WRITES_PER_THREAD);
+        System.out.println("  DIRECT " + direct);
+        System.out.println("  ATOMIC " + atomic);
+
+        assertThat(atomic.failures()).isZero();
+    }
+
+    private double roundTrips(WalletWriteMode mode) {
+        ReflectionTestUtils.setField(walletOperationDispatcher, "writeMode", mode);
+        Long userId = fixture.insertUser();
+        walletOperationDispatcher.topUp(userId, request(AssetType.GOLD_COINS, "1"));
+
+        JdbcRoundTripCounter.reset();
+        for (int i = 0; i < ROUND_TRIP_SAMPLES; i++) {
+            walletOperationDispatcher.topUp(userId, request(AssetType.GOLD_COINS, "1"));
+        }
+        return JdbcRoundTripCounter.count() / (double) ROUND_TRIP_SAMPLES;
+    }
+
+    private Summary hotWallet(WalletWriteMode mode) throws InterruptedException {
+        ReflectionTestUtils.setField(walletOperationDispatcher, "writeMode", mode);
+        Long userId = fixture.insertUser();
+        walletOperationDispatcher.topUp(userId, request(AssetType.GOLD_COINS, "1"));
+
+        Histogram latencyMicros = new ConcurrentHistogram(3);
+        LongAdder failures = new LongAdder();
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+
+        for (int t = 0; t < THREADS; t++) {
+            executor.execute(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                for (int i = 0; i < WRITES_PER_THREAD; i++) {
+                    long begin = System.nanoTime();
+                    try {
+                        walletOperationDispatcher.topUp(userId, request(AssetType.GOLD_COINS, "1"));
+                    } catch (RuntimeException e) {
+                        failures.increment();
+                    }
+                    latencyMicros.recordValue((System.nanoTime() - begin) / 1_000);
+                }
+            });
+        }
+
+        long begin = System.nanoTime();
+        start.countDown();
+        executor.shutdown();
+        assertThat(executor.awaitTermination(5, TimeUnit.MINUTES)).isTrue();
+        double seconds = (System.nanoTime() - begin) / 1_000_000_000.0;
+
+        return new Summary(latencyMicros.getTotalCount() / seconds,
+                latencyMicros.getValueAtPercentile(50) / 1000.0,
+                latencyMicros.getValueAtPercentile(99) / 1000.0,
+                latencyMicros.getMaxValue() / 1000.0,
+                failures.sum());
+    }
+
+    private record Summary(double writesPerSecond, double p50Millis, double p99Millis, double maxMillis,
+                           long failures) {
+
+        @Override
+        public String toString() {
+            return String.format("%,.0f writes/s, p50 %.2f ms, p99 %.2f ms, max %.2f ms, %d failed after retries",
+                    writesPerSecond, p50Millis, p99Millis, maxMillis, failures);
+        }
+    }
+}
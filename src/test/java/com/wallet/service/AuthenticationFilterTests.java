@@ -0,0 +1,94 @@
+package com.wallet.service;
+
+import com.walletService.Middleware.AuthenticationFilter;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Date;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AuthenticationFilterTests {
+
+    private static final String SECRET = "test-secret-key-that-is-at-least-256-bits-long-for-hmac";
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private AuthenticationFilter filter;
+
+    @BeforeEach
+    void createFilter() {
+        meterRegistry = new SimpleMeterRegistry();
+        filter = new AuthenticationFilter(SECRET, true, true, 1_000, meterRegistry);
+    }
+
+    @AfterEach
+    void clearContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void repeatedTokenIsVerifiedOnce() throws Exception {
+        String token = token(42L, Instant.now().plus(1, ChronoUnit.HOURS));
+
+        for (int i = 0; i < 3; i++) {
+            MockHttpServletResponse response = filter(token);
+
+            assertThat(response.getStatus()).isEqualTo(200);
+            assertThat(SecurityContextHolder.getContext().getAuthentication().getPrincipal()).isEqualTo(42L);
+            SecurityContextHolder.clearContext();
+        }
+
+        assertThat(meterRegistry.get("wallet.auth.jwt.validation").tag("outcome", "valid").timer().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void expiredTokenIsRejected() throws Exception {
+        MockHttpServletResponse response = filter(token(42L, Instant.now().minus(1, ChronoUnit.MINUTES)));
+
+        assertThat(response.getStatus()).isEqualTo(401);
+        assertThat(SecurityContextHolder.getContext().getAuthentication()).isNull();
+    }
+
+    @Test
+    void tamperedTokenIsRejected() throws Exception {
+        String token = token(42L, Instant.now().plus(1, ChronoUnit.HOURS));
+        filter(token);
+        SecurityContextHolder.clearContext();
+
+        MockHttpServletResponse response = filter(token.substring(0, token.length() - 2) + "xx");
+
+        assertThat(response.getStatus()).isEqualTo(401);
+    }
+
+    private MockHttpServletResponse filter(String token) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v1/wallets/balance");
+        request.addHeader("Authorization", "Bearer " + token);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(request, response, new MockFilterChain());
+        return response;
+    }
+
+    private String token(Long userId, Instant expiresAt) {
+        return Jwts.builder()
+                .setSubject("player@example.com")
+                .claim("userId", userId)
+                .setIssuedAt(new Date())
+                .setExpiration(Date.from(expiresAt))
+                .signWith(Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8)))
+                .compact();
+    }
+}
@@ -0,0 +1,132 @@
+package com.wallet.service;
+
+import com.walletService.Entity.AssetType;
+import com.walletService.Entity.Wallet;
+import com.walletService.Service.BalanceCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Versioning and commit tracking of the balance cache, with transactions simulated through
+ * {@link SimulatedTransaction}. Writers that race each other run on their own threads because
+ * transaction synchronization is thread-bound.
+ */
+class BalanceCacheTests {
+
+    private static final Long USER_ID = 1L;
+
+    private BalanceCache cache;
+
+    private ExecutorService writerA;
+
+    private ExecutorService writerB;
+
+    @BeforeEach
+    void createCache() {
+        cache = new BalanceCache(true, 100, 60_000, new SimpleMeterRegistry());
+        writerA = Executors.newSingleThreadExecutor();
+        writerB = Executors.newSingleThreadExecutor();
+    }
+
+    @AfterEach
+    void stopWriters() {
+        SimulatedTransaction.abandon();
+        writerA.shutdownNow();
+        writerB.shutdownNow();
+    }
+
+    @Test
+    void balanceReadFromTheDatabaseIsServedFromMemory() {
+        cache.putFromRead(USER_ID, AssetType.GOLD_COINS, new BigDecimal("100"), 1L);
+
+        assertThat(cache.get(USER_ID, AssetType.GOLD_COINS)).contains(new BigDecimal("100"));
+        assertThat(cache.get(USER_ID, AssetType.DIAMONDS)).isEmpty();
+    }
+
+    @Test
+    void readsBypassTheCacheWhileAWriteIsCommitting() {
+        cache.putFromRead(USER_ID, AssetType.GOLD_COINS, new BigDecimal("100"), 1L);
+
+        SimulatedTransaction.begin();
+        cache.refreshAfterCommit(USER_ID, wallet("60", 2L));
+        assertThat(cache.get(USER_ID, AssetType.GOLD_COINS)).contains(new BigDecimal("100"));
+
+        SimulatedTransaction.prepareCommit();
+        assertThat(cache.get(USER_ID, AssetType.GOLD_COINS)).isEmpty();
+
+        // A reader that loaded the old row while the commit was in flight must not publish it
+        cache.putFromRead(USER_ID, AssetType.GOLD_COINS, new BigDecimal("100"), 1L);
+        assertThat(cache.get(USER_ID, AssetType.GOLD_COINS)).isEmpty();
+
+        SimulatedTransaction.completeCommit();
+        assertThat(cache.get(USER_ID, AssetType.GOLD_COINS)).contains(new BigDecimal("60"));
+    }
+
+    @Test
+    void staleReadArrivingAfterTheCommitDoesNotReplaceTheNewerVersion() {
+        SimulatedTransaction.begin();
+        cache.refreshAfterCommit(USER_ID, wallet("60", 2L));
+        SimulatedTransaction.commit();
+
+        cache.putFromRead(USER_ID, AssetType.GOLD_COINS, new BigDecimal("100"), 1L);
+
+        assertThat(cache.get(USER_ID, AssetType.GOLD_COINS)).contains(new BigDecimal("60"));
+    }
+
+    @Test
+    void rollbackDropsTheEntryAndClearsThePendingMark() {
+        cache.putFromRead(USER_ID, AssetType.GOLD_COINS, new BigDecimal("100"), 1L);
+
+        SimulatedTransaction.begin();
+        cache.refreshAfterCommit(USER_ID, wallet("60", 2L));
+        SimulatedTransaction.prepareCommit();
+        SimulatedTransaction.rollback();
+
+        assertThat(cache.get(USER_ID, AssetType.GOLD_COINS)).isEmpty();
+
+        cache.putFromRead(USER_ID, AssetType.GOLD_COINS, new BigDecimal("100"), 1L);
+        assertThat(cache.get(USER_ID, AssetType.GOLD_COINS)).contains(new BigDecimal("100"));
+    }
+
+    @Test
+    void racingCommitsKeepTheWalletPendingUntilTheLastOneCompletesAndTheHighestVersionWins() throws Exception {
+        on(writerA, () -> {
+            SimulatedTransaction.begin();
+            cache.refreshAfterCommit(USER_ID, wallet("90", 2L));
+            SimulatedTransaction.prepareCommit();
+        });
+        on(writerB, () -> {
+            SimulatedTransaction.begin();
+            cache.refreshAfterCommit(USER_ID, wallet("80", 3L));
+            SimulatedTransaction.prepareCommit();
+        });
+
+        // B publishes first; A's older version arrives late
+        on(writerB, SimulatedTransaction::completeCommit);
+        assertThat(cache.get(USER_ID, AssetType.GOLD_COINS)).isEmpty();
+
+        on(writerA, SimulatedTransaction::completeCommit);
+        assertThat(cache.get(USER_ID, AssetType.GOLD_COINS)).contains(new BigDecimal("80"));
+    }
+
+    private static Wallet wallet(String balance, Long version) {
+        return Wallet.builder()
+                .assetType(AssetType.GOLD_COINS)
+                .balance(new BigDecimal(balance))
+                .version(version)
+                .build();
+    }
+
+    private static void on(ExecutorService writer, Runnable step) throws Exception {
+        writer.submit(step).get(5, TimeUnit.SECONDS);
+    }
+}
@@ -0,0 +1,127 @@
+package com.wallet.service;
+
+import com.walletService.Dto.BalanceAtResponseDto;
+import com.walletService.Dto.ReconciliationResponseDto;
+import com.walletService.Entity.AssetType;
+import com.walletService.Repository.BalanceSnapshotRepository;
+import com.walletService.Repository.LedgerPartitionRepository;
+import com.walletService.Service.BalanceSnapshotJob;
+import com.walletService.Service.BalanceSnapshotService;
+import com.walletService.WalletServiceApplication;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Point-in-time balance and reconciliation of a wallet with millions of ledger entries: a full ledger scan
+ * against starting from the nearest checkpoint. Run with {@code -Dbenchmarks=true}; the entry count is
+ * {@code -Dbenchmarks.snapshot.entries} (default 2,000,000).
+ */
+@Import(TestcontainersConfiguration.class)
+@SpringBootTest(classes = WalletServiceApplication.class, properties = "wallet.snapshot.enabled=false")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@EnabledIfSystemProperty(named = "benchmarks", matches = "true")
+class BalanceSnapshotBenchmarkTests {
+
+    private static final int ENTRIES = Integer.getInteger("benchmarks.snapshot.entries", 2_000_000);
+    private static final int ENTRIES_AFTER_SNAPSHOT = 5_000;
+    private static final int ITERATIONS = 20;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private BalanceSnapshotRepository balanceSnapshotRepository;
+
+    @Autowired
+    private BalanceSnapshotService balanceSnapshotService;
+
+    @Autowired
+    private BalanceSnapshotJob balanceSnapshotJob;
+
+    @Autowired
+    private LedgerPartitionRepository ledgerPartitionRepository;
+
+    private Long userId;
+
+    private Long walletId;
+
+    private LocalDateTime start;
+
+    @BeforeAll
+    void seedLedger() {
+        userId = jdbcTemplate.queryForObject(
+                "INSERT INTO users (status, user_name, email_address, created_at, updated_at) " +
+                        "VALUES ('ACTIVE', 'bench', 'bench-snapshot@example.com', now(), now()) RETURNING id", Long.class);
+        walletId = jdbcTemplate.queryForObject(
+                "INSERT INTO wallets (user_id, balance, asset_type, version, created_at, updated_at) " +
+                        "VALUES (?, ?, 'GOLD_COINS', 0, now(), now()) RETURNING id", Long.class, userId, ENTRIES);
+
+        // One credit of 1 per second, so the balance after entry i is i
+        start = LocalDateTime.of(2020, 1, 1, 0, 0);
+        ledgerPartitionRepository.createPartitions(YearMonth.from(start), YearMonth.from(start.plusSeconds(ENTRIES)));
+        jdbcTemplate.update("INSERT INTO ledger_entries (wallet_id, transaction_type, amount, balance_after, " +
+                        "description, idempotency_key, created_at) " +
+                        "SELECT ?, 'CREDIT', 1, g, 'Benchmark credit', 'bench-snapshot-' || g, " +
+                        "? + g * interval '1 second' FROM generate_series(1, ?) g",
+                walletId, Timestamp.valueOf(start), ENTRIES);
+        jdbcTemplate.execute("ANALYZE ledger_entries");
+
+        balanceSnapshotJob.checkpointAll(start.plusSeconds(ENTRIES - ENTRIES_AFTER_SNAPSHOT));
+    }
+
+    @Test
+    void pointInTimeBalanceFromCheckpointVersusFullScan() {
+        LocalDateTime at = start.plusSeconds(ENTRIES - 1_000);
+
+        Supplier<BigDecimal> fullScan = () -> balanceSnapshotRepository.sumEntries(walletId, null, at).amount();
+        Supplier<BigDecimal> fromCheckpoint = () -> {
+            BalanceAtResponseDto response = balanceSnapshotService.getBalanceAt(userId, AssetType.GOLD_COINS, at);
+            return response.getBalance();
+        };
+
+        double fullScanMillis = measure(fullScan);
+        double checkpointMillis = measure(fromCheckpoint);
+
+        System.out.printf("balance at T over %,d entries: full scan %.3f ms, from checkpoint %.3f ms%n",
+                ENTRIES, fullScanMillis, checkpointMillis);
+
+        assertThat(fromCheckpoint.get()).isEqualByComparingTo(fullScan.get());
+        assertThat(fromCheckpoint.get()).isEqualByComparingTo(BigDecimal.valueOf(ENTRIES - 1_000));
+    }
+
+    @Test
+    void reconciliationFromCheckpoint() {
+        double millis = measure(() -> balanceSnapshotService.reconcile(userId, AssetType.GOLD_COINS));
+        ReconciliationResponseDto result = balanceSnapshotService.reconcile(userId, AssetType.GOLD_COINS);
+
+        System.out.printf("reconciliation over %,d entries from checkpoint: %.3f ms, %,d entries replayed%n",
+                ENTRIES, millis, result.getReplayedEntries());
+
+        assertThat(result.isConsistent()).isTrue();
+        assertThat(result.getReplayedEntries()).isEqualTo(ENTRIES_AFTER_SNAPSHOT);
+    }
+
+    private double measure(Supplier<?> operation) {
+        operation.get();
+
+        long begin = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            operation.get();
+        }
+        return (System.nanoTime() - begin) / 1_000_000.0 / ITERATIONS;
+    }
+}
@@ -0,0 +1,185 @@
+package com.wallet.service;
+
+import com.walletService.Controller.WalletController;
+import com.walletService.Dto.BalanceAtResponseDto;
+import com.walletService.Dto.ReconciliationResponseDto;
+import com.walletService.Entity.AssetType;
+import com.walletService.Repository.LedgerPartitionRepository;
+import com.walletService.Service.BalanceSnapshotService;
+import com.walletService.Service.WalletService;
+import com.walletService.WalletServiceApplication;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+
+import static com.wallet.service.WalletTestFixture.request;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checkpoints chain from one run to the next, and point-in-time balances and reconciliation start from them,
+ * through the service and through the controller.
+ */
+@Import({TestcontainersConfiguration.class, WalletTestFixture.class})
+@SpringBootTest(classes = WalletServiceApplication.class, properties = "wallet.snapshot.enabled=false")
+class BalanceSnapshotTests {
+
+    private static final YearMonth JULY = YearMonth.of(2012, 7);
+
+    @Autowired
+    private BalanceSnapshotService balanceSnapshotService;
+
+    @Autowired
+    private WalletService walletService;
+
+    @Autowired
+    private WalletController walletController;
+
+    @Autowired
+    private LedgerPartitionRepository ledgerPartitionRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private WalletTestFixture fixture;
+
+    private Long userId;
+
+    private Long walletId;
+
+    @BeforeEach
+    void createWallet() {
+        ledgerPartitionRepository.createPartitions(JULY, JULY);
+
+        // +10, +5, -3, +7 over the month, with the wallet row at the final 19
+        userId = fixture.insertUser();
+        walletId = jdbcTemplate.queryForObject(
+                "INSERT INTO wallets (user_id, balance, asset_type, version, created_at, updated_at) " +
+                        "VALUES (?, 19, 'GOLD_COINS', 0, now(), now()) RETURNING id", Long.class, userId);
+        insertEntry("CREDIT", "10", "10", day(2));
+        insertEntry("CREDIT", "5", "15", day(5));
+        insertEntry("DEBIT", "3", "12", day(12));
+        insertEntry("CREDIT", "7", "19", day(20));
+    }
+
+    @Test
+    void snapshotsChainFromThePreviousRunAndARerunWritesNothing() {
+        assertThat(checkpoint(day(3))).isEqualTo(1);
+        assertThat(checkpoint(day(10))).isEqualTo(1);
+        assertThat(checkpoint(day(10))).isZero();
+        assertThat(checkpoint(day(11))).isZero();
+        assertThat(checkpoint(day(15))).isEqualTo(1);
+
+        List<Map<String, Object>> snapshots = jdbcTemplate.queryForList(
+                "SELECT balance, entry_count FROM wallet_balance_snapshots WHERE wallet_id = ? ORDER BY as_of",
+                walletId);
+        assertThat(snapshots).extracting(row -> (BigDecimal) row.get("balance"))
+                .usingElementComparator(BigDecimal::compareTo)
+                .containsExactly(new BigDecimal("10"), new BigDecimal("15"), new BigDecimal("12"));
+        assertThat(snapshots).extracting(row -> ((Number) row.get("entry_count")).longValue())
+                .containsExactly(1L, 2L, 3L);
+
+        BalanceAtResponseDto latest = balanceSnapshotService.getBalanceAt(userId, AssetType.GOLD_COINS, day(25));
+        assertThat(latest.getBalance()).isEqualByComparingTo("19");
+        assertThat(latest.getSnapshotAsOf()).isEqualTo(day(15));
+        assertThat(latest.getReplayedEntries()).isEqualTo(1);
+
+        BalanceAtResponseDto atDebit = balanceSnapshotService.getBalanceAt(userId, AssetType.GOLD_COINS, day(12));
+        assertThat(atDebit.getBalance()).isEqualByComparingTo("12");
+        assertThat(atDebit.getSnapshotAsOf()).isEqualTo(day(10));
+        assertThat(atDebit.getReplayedEntries()).isEqualTo(1);
+    }
+
+    @Test
+    void balanceBeforeTheFirstSnapshotIsReplayedFromTheStartOfTheLedger() {
+        checkpoint(day(15));
+
+        BalanceAtResponseDto early = balanceSnapshotService.getBalanceAt(userId, AssetType.GOLD_COINS, day(4));
+        assertThat(early.getBalance()).isEqualByComparingTo("10");
+        assertThat(early.getSnapshotAsOf()).isNull();
+        assertThat(early.getReplayedEntries()).isEqualTo(1);
+
+        BalanceAtResponseDto beforeAnyEntry =
+                balanceSnapshotService.getBalanceAt(userId, AssetType.GOLD_COINS, day(1));
+        assertThat(beforeAnyEntry.getBalance()).isEqualByComparingTo("0");
+        assertThat(beforeAnyEntry.getReplayedEntries()).isZero();
+    }
+
+    @Test
+    void reconcileReportsAStoredBalanceTheLedgerDoesNotAddUpTo() {
+        Long otherUserId = fixture.insertUser();
+        walletService.topUp(otherUserId, request(AssetType.GOLD_COINS, "100"));
+        walletService.spend(otherUserId, request(AssetType.GOLD_COINS, "30"));
+        jdbcTemplate.update("UPDATE wallets SET balance = balance + 5 WHERE id = ?",
+                fixture.walletId(otherUserId, AssetType.GOLD_COINS));
+
+        ReconciliationResponseDto replayed = balanceSnapshotService.reconcile(otherUserId, AssetType.GOLD_COINS);
+        assertThat(replayed.isConsistent()).isFalse();
+        assertThat(replayed.getWalletBalance()).isEqualByComparingTo("75");
+        assertThat(replayed.getLedgerBalance()).isEqualByComparingTo("70");
+        assertThat(replayed.getDiscrepancy()).isEqualByComparingTo("5");
+        assertThat(replayed.getReplayedEntries()).isEqualTo(2);
+
+        Long otherWalletId = fixture.walletId(otherUserId, AssetType.GOLD_COINS);
+        balanceSnapshotService.checkpointRange(otherWalletId - 1, otherWalletId, LocalDateTime.now(ZoneOffset.UTC));
+
+        ReconciliationResponseDto fromSnapshot = balanceSnapshotService.reconcile(otherUserId, AssetType.GOLD_COINS);
+        assertThat(fromSnapshot.getDiscrepancy()).isEqualByComparingTo("5");
+        assertThat(fromSnapshot.getSnapshotAsOf()).isNotNull();
+        assertThat(fromSnapshot.getReplayedEntries()).isZero();
+    }
+
+    @Test
+    void controllerServesBalanceAtAndReconciliationForTheAuthenticatedUser() {
+        checkpoint(day(10));
+        UsernamePasswordAuthenticationToken authentication =
+                new UsernamePasswordAuthenticationToken(userId, null, List.of());
+
+        ResponseEntity<BalanceAtResponseDto> balanceAt =
+                walletController.getBalanceAt(AssetType.GOLD_COINS, day(13), authentication);
+        assertThat(balanceAt.getStatusCode().value()).isEqualTo(200);
+        assertThat(balanceAt.getBody().getUserId()).isEqualTo(userId);
+        assertThat(balanceAt.getBody().getBalance()).isEqualByComparingTo("12");
+        assertThat(balanceAt.getBody().getSnapshotAsOf()).isEqualTo(day(10));
+
+        ResponseEntity<ReconciliationResponseDto> reconciliation =
+                walletController.reconcile(AssetType.GOLD_COINS, authentication);
+        assertThat(reconciliation.getStatusCode().value()).isEqualTo(200);
+        assertThat(reconciliation.getBody().getWalletId()).isEqualTo(walletId);
+        assertThat(reconciliation.getBody().isConsistent()).isTrue();
+        assertThat(reconciliation.getBody().getLedgerBalance()).isEqualByComparingTo("19");
+        assertThat(reconciliation.getBody().getReplayedEntries()).isEqualTo(2);
+    }
+
+    /**
+     * Checkpoints only this test's wallet.
+     */
+    private int checkpoint(LocalDateTime asOf) {
+        return balanceSnapshotService.checkpointRange(walletId - 1, walletId, asOf);
+    }
+
+    private void insertEntry(String type, String amount, String balanceAfter, LocalDateTime createdAt) {
+        jdbcTemplate.update("INSERT INTO ledger_entries (wallet_id, transaction_type, amount, balance_after, " +
+                        "description, idempotency_key, created_at) " +
+                        "VALUES (?, ?, CAST(? AS NUMERIC), CAST(? AS NUMERIC), 'Snapshot test entry', " +
+                        "gen_random_uuid()::text, ?)",
+                walletId, type, amount, balanceAfter, Timestamp.valueOf(createdAt));
+    }
+
+    private static LocalDateTime day(int dayOfMonth) {
+        return JULY.atDay(dayOfMonth).atTime(10, 0);
+    }
+}
@@ -0,0 +1,158 @@
+package com.wallet.service;
+
+import com.walletService.Entity.AssetType;
+import com.walletService.Exceptions.InsufficientBalanceException;
+import com.walletService.Repository.ReconciliationRepository.ReconciliationRange;
+import com.walletService.Service.LedgerRangeReconciler;
+import com.walletService.Service.WalletOperation;
+import com.walletService.Service.WalletOperationOutcome;
+import com.walletService.Service.WalletOperationType;
+import com.walletService.Service.WalletService;
+import com.walletService.WalletServiceApplication;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static com.wallet.service.WalletTestFixture.request;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Bulk chunks lock exactly the wallets they write: another wallet of the same user can be held by a
+ * concurrent transaction without blocking the chunk. Entries are stamped once the locks are held, so a
+ * chunk that waited for a wallet sorts after the write it waited for.
+ */
+@Import({TestcontainersConfiguration.class, WalletTestFixture.class})
+@SpringBootTest(classes = WalletServiceApplication.class)
+class BulkChunkLockingTests {
+
+    @Autowired
+    private WalletService walletService;
+
+    @Autowired
+    private LedgerRangeReconciler ledgerRangeReconciler;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private WalletTestFixture fixture;
+
+    private Long firstUserId;
+
+    private Long secondUserId;
+
+    @BeforeEach
+    void createWallets() {
+        firstUserId = fixture.insertUser();
+        secondUserId = fixture.insertUser();
+        for (Long userId : List.of(firstUserId, secondUserId)) {
+            walletService.topUp(userId, request(AssetType.GOLD_COINS, "100"));
+            walletService.topUp(userId, request(AssetType.DIAMONDS, "100"));
+        }
+    }
+
+    @Test
+    void chunkAppliesEveryOperationAndFailsOnlyTheRejectedOne() {
+        List<WalletOperationOutcome> outcomes = walletService.applyBulkChunk(List.of(
+                new WalletOperation(firstUserId, WalletOperationType.TOP_UP, request(AssetType.GOLD_COINS, "5")),
+                new WalletOperation(secondUserId, WalletOperationType.SPEND, request(AssetType.DIAMONDS, "30")),
+                new WalletOperation(secondUserId, WalletOperationType.SPEND, request(AssetType.DIAMONDS, "80")),
+                new WalletOperation(firstUserId, WalletOperationType.INCENTIVE, request(AssetType.LOYALTY_POINTS, "7"))));
+
+        assertThat(outcomes).extracting(WalletOperationOutcome::isSuccess).containsExactly(true, true, false, true);
+        assertThat(outcomes.get(2).error()).isInstanceOf(InsufficientBalanceException.class);
+
+        assertThat(balance(firstUserId, AssetType.GOLD_COINS)).isEqualByComparingTo("105");
+        assertThat(balance(secondUserId, AssetType.DIAMONDS)).isEqualByComparingTo("70");
+        assertThat(balance(firstUserId, AssetType.LOYALTY_POINTS)).isEqualByComparingTo("7");
+        assertThat(balance(firstUserId, AssetType.DIAMONDS)).isEqualByComparingTo("100");
+    }
+
+    @Test
+    void walletsOutsideTheChunkAreNotLocked() throws Exception {
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        // Holds the first user's DIAMONDS row, which the chunk below does not write
+        CompletableFuture<Void> holder = CompletableFuture.runAsync(() ->
+                new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                    jdbcTemplate.queryForObject("SELECT id FROM wallets WHERE user_id = ? AND asset_type = 'DIAMONDS' " +
+                            "FOR UPDATE", Long.class, firstUserId);
+                    locked.countDown();
+                    try {
+                        release.await(30, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }));
+
+        try {
+            assertThat(locked.await(10, TimeUnit.SECONDS)).isTrue();
+
+            CompletableFuture<List<WalletOperationOutcome>> chunk = CompletableFuture.supplyAsync(() ->
+                    walletService.applyBulkChunk(List.of(
+                            new WalletOperation(firstUserId, WalletOperationType.TOP_UP,
+                                    request(AssetType.GOLD_COINS, "1")),
+                            new WalletOperation(secondUserId, WalletOperationType.TOP_UP,
+                                    request(AssetType.DIAMONDS, "1")))));
+
+            assertThat(chunk.get(10, TimeUnit.SECONDS)).allMatch(WalletOperationOutcome::isSuccess);
+        } finally {
+            release.countDown();
+            holder.get(30, TimeUnit.SECONDS);
+        }
+
+        assertThat(balance(firstUserId, AssetType.GOLD_COINS)).isEqualByComparingTo("101");
+        assertThat(balance(secondUserId, AssetType.DIAMONDS)).isEqualByComparingTo("101");
+    }
+
+    @Test
+    void chunkThatWaitedForAWalletStampsItsEntriesAfterTheHolder() throws Exception {
+        CountDownLatch locked = new CountDownLatch(1);
+        Long walletId = fixture.walletId(firstUserId, AssetType.GOLD_COINS);
+
+        // Locks the wallet first and writes only once the chunk below has started and is waiting for it
+        CompletableFuture<Void> holder = CompletableFuture.runAsync(() ->
+                new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                    jdbcTemplate.queryForObject("SELECT id FROM wallets WHERE id = ? FOR UPDATE", Long.class, walletId);
+                    locked.countDown();
+                    try {
+                        Thread.sleep(500);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    walletService.topUp(firstUserId, request(AssetType.GOLD_COINS, "1"));
+                }));
+
+        assertThat(locked.await(10, TimeUnit.SECONDS)).isTrue();
+        List<WalletOperationOutcome> outcomes = walletService.applyBulkChunk(List.of(
+                new WalletOperation(firstUserId, WalletOperationType.TOP_UP, request(AssetType.GOLD_COINS, "2"))));
+        holder.get(30, TimeUnit.SECONDS);
+
+        assertThat(outcomes).allMatch(WalletOperationOutcome::isSuccess);
+        assertThat(balance(firstUserId, AssetType.GOLD_COINS)).isEqualByComparingTo("103");
+        assertThat(jdbcTemplate.queryForObject("SELECT balance_after FROM ledger_entries WHERE wallet_id = ? " +
+                "ORDER BY created_at DESC, id DESC LIMIT 1", BigDecimal.class, walletId)).isEqualByComparingTo("103");
+        assertThat(ledgerRangeReconciler.reconcile(new ReconciliationRange(0, walletId, walletId)).discrepancies())
+                .isEmpty();
+    }
+
+    private BigDecimal balance(Long userId, AssetType assetType) {
+        return jdbcTemplate.queryForObject("SELECT balance FROM wallets WHERE user_id = ? AND asset_type = ?",
+                BigDecimal.class, userId, assetType.name());
+    }
+}
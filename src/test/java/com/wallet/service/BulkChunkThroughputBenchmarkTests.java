@@ -0,0 +1,105 @@
+package com.wallet.service;
+
+import com.walletService.Entity.AssetType;
+import com.walletService.Service.WalletOperation;
+import com.walletService.Service.WalletOperationType;
+import com.walletService.Service.WalletService;
+import com.walletService.WalletServiceApplication;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static com.wallet.service.WalletTestFixture.request;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Bulk chunks for the same users but different asset types, one writer per asset type, against the same
+ * chunks applied by a single writer. Chunks lock only the wallets they write, so the per-asset writers do
+ * not queue behind each other. Run with {@code -Dbenchmarks=true}.
+ */
+@Import({TestcontainersConfiguration.class, WalletTestFixture.class})
+@SpringBootTest(classes = WalletServiceApplication.class)
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@EnabledIfSystemProperty(named = "benchmarks", matches = "true")
+class BulkChunkThroughputBenchmarkTests {
+
+    private static final int USERS = 200;
+    private static final int CHUNKS_PER_ASSET = 50;
+
+    @Autowired
+    private WalletService walletService;
+
+    @Autowired
+    private WalletTestFixture fixture;
+
+    private final List<Long> userIds = new ArrayList<>();
+
+    @BeforeAll
+    void createWallets() {
+        for (int i = 0; i < USERS; i++) {
+            Long userId = fixture.insertUser();
+            for (AssetType assetType : AssetType.values()) {
+                walletService.topUp(userId, request(assetType, "1"));
+            }
+            userIds.add(userId);
+        }
+    }
+
+    @Test
+    void disjointAssetChunksRunInParallel() throws Exception {
+        double sequential = chunksPerSecond(1);
+        double parallel = chunksPerSecond(AssetType.values().length);
+
+        System.out.printf("bulk chunks of %d wallets: 1 writer %,.1f chunks/s, %d writers (one per asset) " +
+                "%,.1f chunks/s (x%.2f)%n", USERS, sequential, AssetType.values().length, parallel, parallel / sequential);
+
+        assertThat(parallel).isGreaterThan(sequential);
+    }
+
+    private double chunksPerSecond(int writers) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(writers);
+        List<Future<?>> futures = new ArrayList<>();
+
+        long begin = System.nanoTime();
+        if (writers == 1) {
+            futures.add(executor.submit(() -> {
+                for (AssetType assetType : AssetType.values()) {
+                    applyChunks(assetType);
+                }
+            }));
+        } else {
+            for (AssetType assetType : AssetType.values()) {
+                futures.add(executor.submit(() -> applyChunks(assetType)));
+            }
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        double seconds = (System.nanoTime() - begin) / 1_000_000_000.0;
+
+        executor.shutdown();
+        assertThat(executor.awaitTermination(1, TimeUnit.MINUTES)).isTrue();
+        return CHUNKS_PER_ASSET * AssetType.values().length / seconds;
+    }
+
+    private void applyChunks(AssetType assetType) {
+        for (int i = 0; i < CHUNKS_PER_ASSET; i++) {
+            List<WalletOperation> chunk = new ArrayList<>(USERS);
+            for (Long userId : userIds) {
+                chunk.add(new WalletOperation(userId, WalletOperationType.TOP_UP, request(assetType, "1")));
+            }
+            walletService.applyBulkChunk(chunk);
+        }
+    }
+}
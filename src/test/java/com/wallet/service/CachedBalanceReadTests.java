@@ -0,0 +1,45 @@
+package com.wallet.service;
+
+import com.walletService.Entity.AssetType;
+import com.walletService.Exceptions.UnauthorizedWalletAccessException;
+import com.walletService.Service.WalletOperationDispatcher;
+import com.walletService.WalletServiceApplication;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import static com.wallet.service.WalletTestFixture.request;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * A balance served from the cache is subject to the same user check as one read from the database.
+ */
+@Import({TestcontainersConfiguration.class, WalletTestFixture.class})
+@SpringBootTest(classes = WalletServiceApplication.class)
+class CachedBalanceReadTests {
+
+    @Autowired
+    private WalletOperationDispatcher dispatcher;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private WalletTestFixture fixture;
+
+    @Test
+    void suspendedUserCannotReadABalanceCachedWhileActive() {
+        Long userId = fixture.insertUser();
+        dispatcher.topUp(userId, request(AssetType.GOLD_COINS, "100"));
+
+        assertThat(dispatcher.getBalance(userId, AssetType.GOLD_COINS).getBalance()).isEqualByComparingTo("100");
+
+        jdbcTemplate.update("UPDATE users SET status = 'SUSPENDED' WHERE id = ?", userId);
+
+        assertThatThrownBy(() -> dispatcher.getBalance(userId, AssetType.GOLD_COINS))
+                .isInstanceOf(UnauthorizedWalletAccessException.class);
+    }
+}
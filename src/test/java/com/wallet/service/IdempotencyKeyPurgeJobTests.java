@@ -0,0 +1,89 @@
+package com.wallet.service;
+
+import com.walletService.Service.IdempotencyKeyPurgeJob;
+import com.walletService.WalletServiceApplication;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The chunked purge of expired idempotency keys. Keys are inserted with negative ids so they never collide
+ * with sequence-assigned ones, and expired and live keys alternate in id order, as pooled id blocks leave them.
+ */
+@Import({TestcontainersConfiguration.class, WalletTestFixture.class})
+@SpringBootTest(classes = WalletServiceApplication.class, properties = {
+        "wallet.idempotency.purge.interval-ms=3600000",
+        "wallet.idempotency.purge.batch-size=3",
+        "wallet.idempotency.purge.pause-ms=1"
+})
+class IdempotencyKeyPurgeJobTests {
+
+    @Autowired
+    private IdempotencyKeyPurgeJob idempotencyKeyPurgeJob;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private WalletTestFixture fixture;
+
+    private Long userId;
+
+    @BeforeEach
+    void createUser() {
+        userId = fixture.insertUser();
+    }
+
+    @Test
+    void deletesExpiredKeysInChunksAndKeepsLiveOnes() {
+        LocalDateTime now = LocalDateTime.now(ZoneOffset.UTC);
+        for (long id = -1_000; id < -985; id++) {
+            insertKey(id, id % 3 == 0 ? now.minusHours(1) : now.minusHours(25));
+        }
+
+        double purgedBefore = meterRegistry.get("wallet.idempotency.purge.rows").counter().count();
+        long chunksBefore = meterRegistry.get("wallet.idempotency.purge.chunk").timer().count();
+
+        idempotencyKeyPurgeJob.purgeExpiredKeys();
+
+        assertThat(keysOfUser()).isEqualTo(5);
+        assertThat(meterRegistry.get("wallet.idempotency.purge.rows").counter().count() - purgedBefore)
+                .isGreaterThanOrEqualTo(10);
+        // Ten expired keys in chunks of three
+        assertThat(meterRegistry.get("wallet.idempotency.purge.chunk").timer().count() - chunksBefore)
+                .isGreaterThanOrEqualTo(4);
+        assertThat(meterRegistry.get("wallet.idempotency.purge.backlog").gauge().value()).isZero();
+    }
+
+    @Test
+    void runsOnItsOwnThreadRatherThanTheSharedScheduler() {
+        assertThat(Thread.getAllStackTraces().keySet())
+                .anyMatch(thread -> thread.getName().equals("idempotency-purge"));
+    }
+
+    private void insertKey(long id, LocalDateTime createdAt) {
+        jdbcTemplate.update("INSERT INTO idempotency_keys (id, key, user_id, ledger_entry_id, response_data, " +
+                        "created_at, expires_at) VALUES (?, ?, ?, 0, NULL, ?, ?)",
+                id, UUID.randomUUID().toString(), userId, Timestamp.valueOf(createdAt),
+                Timestamp.valueOf(createdAt.plusHours(24)));
+    }
+
+    private Integer keysOfUser() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM idempotency_keys WHERE user_id = ?",
+                Integer.class, userId);
+    }
+}
@@ -0,0 +1,92 @@
+package com.wallet.service;
+
+import com.walletService.Dto.WalletOperationResponseDto;
+import com.walletService.Service.IdempotencyResponseCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * After-commit population of the idempotency response cache, with transactions simulated through
+ * {@link SimulatedTransaction}.
+ */
+class IdempotencyResponseCacheTests {
+
+    private static final Long USER_ID = 1L;
+
+    private IdempotencyResponseCache cache;
+
+    private WalletOperationResponseDto response;
+
+    private LocalDateTime expiresAt;
+
+    @BeforeEach
+    void createCache() {
+        cache = new IdempotencyResponseCache(true, 100, new SimpleMeterRegistry());
+        response = WalletOperationResponseDto.builder().transactionId(42L).amount(BigDecimal.TEN).build();
+        expiresAt = LocalDateTime.now(ZoneOffset.UTC).plusHours(24);
+    }
+
+    @AfterEach
+    void clearSynchronization() {
+        SimulatedTransaction.abandon();
+    }
+
+    @Test
+    void responseIsInvisibleUntilTheTransactionCommits() {
+        SimulatedTransaction.begin();
+
+        cache.putAfterCommit(USER_ID, "key-1", response, expiresAt);
+        assertThat(cache.get(USER_ID, "key-1")).isEmpty();
+
+        SimulatedTransaction.commit();
+        assertThat(cache.get(USER_ID, "key-1")).contains(response);
+    }
+
+    @Test
+    void rolledBackResponseIsNeverCached() {
+        SimulatedTransaction.begin();
+
+        cache.putAfterCommit(USER_ID, "key-1", response, expiresAt);
+        SimulatedTransaction.rollback();
+
+        assertThat(cache.get(USER_ID, "key-1")).isEmpty();
+    }
+
+    @Test
+    void outsideATransactionTheResponseIsCachedImmediately() {
+        cache.putAfterCommit(USER_ID, "key-1", response, expiresAt);
+
+        assertThat(cache.get(USER_ID, "key-1")).contains(response);
+    }
+
+    @Test
+    void keysAreScopedToTheirUser() {
+        cache.put(USER_ID, "key-1", response, expiresAt);
+
+        assertThat(cache.get(2L, "key-1")).isEmpty();
+    }
+
+    @Test
+    void alreadyExpiredResponsesAreNotCached() {
+        cache.put(USER_ID, "key-1", response, LocalDateTime.now(ZoneOffset.UTC).minusSeconds(1));
+
+        assertThat(cache.get(USER_ID, "key-1")).isEmpty();
+    }
+
+    @Test
+    void disabledCacheNeitherStoresNorServes() {
+        IdempotencyResponseCache disabled = new IdempotencyResponseCache(false, 100, new SimpleMeterRegistry());
+
+        disabled.putAfterCommit(USER_ID, "key-1", response, expiresAt);
+
+        assertThat(disabled.get(USER_ID, "key-1")).isEmpty();
+    }
+}
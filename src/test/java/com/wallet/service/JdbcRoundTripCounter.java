@@ -0,0 +1,105 @@
+package com.wallet.service;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.TestComponent;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Wraps the application DataSource and counts the calls that reach the database: statement executions,
+ * batch executions, commits and rollbacks. Unlike a Hibernate statement inspector it also sees JdbcTemplate
+ * statements. Executions of {@code nextval} are counted as well and also reported by {@link #sequenceCalls()},
+ * since how often an id block runs out depends on the ids taken before. Import it next to
+ * {@link TestcontainersConfiguration}.
+ */
+@TestComponent
+class JdbcRoundTripCounter implements BeanPostProcessor {
+
+    private static final AtomicInteger COUNT = new AtomicInteger();
+    private static final AtomicInteger SEQUENCE_CALLS = new AtomicInteger();
+
+    static void reset() {
+        COUNT.set(0);
+        SEQUENCE_CALLS.set(0);
+    }
+
+    static int count() {
+        return COUNT.get();
+    }
+
+    static int sequenceCalls() {
+        return SEQUENCE_CALLS.get();
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (bean instanceof DataSource dataSource) {
+            return proxy(DataSource.class, dataSource, (target, method, args) -> {
+                Object result = method.invoke(target, args);
+                return result instanceof Connection connection ? wrapConnection(connection) : result;
+            });
+        }
+        return bean;
+    }
+
+    private static Connection wrapConnection(Connection connection) {
+        return proxy(Connection.class, connection, (target, method, args) -> {
+            String name = method.getName();
+            if (name.equals("commit") || name.equals("rollback")) {
+                COUNT.incrementAndGet();
+            }
+
+            Object result = method.invoke(target, args);
+            boolean sequence = name.startsWith("prepare") && args[0] instanceof String sql
+                    && sql.toLowerCase().contains("nextval");
+            if (result instanceof CallableStatement statement) {
+                return proxy(CallableStatement.class, statement, countingExecutions(false));
+            }
+            if (result instanceof PreparedStatement statement) {
+                return proxy(PreparedStatement.class, statement, countingExecutions(sequence));
+            }
+            if (result instanceof Statement statement) {
+                return proxy(Statement.class, statement, countingExecutions(false));
+            }
+            return result;
+        });
+    }
+
+    private static Handler countingExecutions(boolean sequence) {
+        return (target, method, args) -> {
+            if (method.getName().startsWith("execute")) {
+                COUNT.incrementAndGet();
+                if (sequence) {
+                    SEQUENCE_CALLS.incrementAndGet();
+                }
+            }
+            return method.invoke(target, args);
+        };
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, T target, Handler handler) {
+        InvocationHandler invocationHandler = (proxy, method, args) -> {
+            try {
+                return handler.invoke(target, method, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        };
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, invocationHandler);
+    }
+
+    @FunctionalInterface
+    private interface Handler {
+        Object invoke(Object target, Method method, Object[] args) throws Throwable;
+    }
+}
@@ -0,0 +1,182 @@
+package com.wallet.service;
+
+import com.walletService.Dto.LedgerEntryView;
+import com.walletService.Entity.TransactionType;
+import com.walletService.Exceptions.TransactionProcessingException;
+import com.walletService.Repository.LedgerArchiveStore;
+import com.walletService.Repository.LedgerArchiveStore.ArchivedLedgerEntry;
+import com.walletService.Repository.LedgerArchiveStore.SegmentWriter;
+import com.walletService.Repository.LedgerPartitionRepository;
+import com.walletService.Repository.LedgerPartitionRepository.LedgerPartition;
+import com.walletService.Service.HistoryCursor;
+import com.walletService.Service.LedgerArchiveService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class LedgerArchiveTests {
+
+    private static final LocalDateTime EARLIEST = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void segmentRoundTripsEveryColumn() {
+        LedgerArchiveStore store = new LedgerArchiveStore(directory.toString(), 4);
+        List<ArchivedLedgerEntry> wallet7 = entries(7, YearMonth.of(2024, 1), 10_000);
+        List<ArchivedLedgerEntry> wallet9 = entries(9, YearMonth.of(2024, 1), 3);
+
+        write(store, YearMonth.of(2024, 1), wallet7, wallet9);
+
+        assertThat(store.read(YearMonth.of(2024, 1), 7, EARLIEST, HistoryCursor.START.createdAt()))
+                .isEqualTo(wallet7);
+        assertThat(store.read(YearMonth.of(2024, 1), 9, EARLIEST, HistoryCursor.START.createdAt()))
+                .isEqualTo(wallet9);
+        assertThat(store.read(YearMonth.of(2024, 1), 8, EARLIEST, HistoryCursor.START.createdAt())).isEmpty();
+    }
+
+    @Test
+    void readFiltersByTimeAndSurvivesRestart() {
+        write(new LedgerArchiveStore(directory.toString(), 4), YearMonth.of(2024, 1),
+                entries(7, YearMonth.of(2024, 1), 100));
+
+        LedgerArchiveStore reopened = new LedgerArchiveStore(directory.toString(), 4);
+        LocalDateTime from = YearMonth.of(2024, 1).atDay(1).atStartOfDay().plusMinutes(10);
+        List<ArchivedLedgerEntry> read = reopened.read(YearMonth.of(2024, 1), 7, from, from.plusMinutes(4));
+
+        assertThat(reopened.archivedMonths()).containsExactly(YearMonth.of(2024, 1));
+        assertThat(read).extracting(ArchivedLedgerEntry::createdAt)
+                .containsExactly(from, from.plusMinutes(1), from.plusMinutes(2), from.plusMinutes(3),
+                        from.plusMinutes(4));
+    }
+
+    @Test
+    void segmentsWrittenByAnotherInstanceAreSeenWithoutRestart() {
+        LedgerArchiveStore reader = new LedgerArchiveStore(directory.toString(), 4);
+        LedgerArchiveStore writer = new LedgerArchiveStore(directory.toString(), 4);
+
+        assertThat(reader.archivedMonths()).isEmpty();
+
+        write(writer, YearMonth.of(2024, 1), entries(7, YearMonth.of(2024, 1), 3));
+
+        assertThat(reader.archivedMonths()).containsExactly(YearMonth.of(2024, 1));
+        assertThat(reader.read(YearMonth.of(2024, 1), 7, EARLIEST, HistoryCursor.START.createdAt())).hasSize(3);
+    }
+
+    @Test
+    void uncommittedSegmentLeavesNothingBehind() throws Exception {
+        LedgerArchiveStore store = new LedgerArchiveStore(directory.toString(), 4);
+
+        try (SegmentWriter writer = store.openSegment(YearMonth.of(2024, 1))) {
+            entries(7, YearMonth.of(2024, 1), 10).forEach(writer::append);
+        }
+
+        assertThat(store.archivedMonths()).isEmpty();
+        try (var files = Files.list(directory)) {
+            assertThat(files).isEmpty();
+        }
+    }
+
+    @Test
+    void historyPagesContinueAcrossArchivedMonthsNewestFirst() {
+        LedgerArchiveStore store = new LedgerArchiveStore(directory.toString(), 4);
+        write(store, YearMonth.of(2024, 1), entries(7, YearMonth.of(2024, 1), 3));
+        write(store, YearMonth.of(2024, 2), entries(7, YearMonth.of(2024, 2), 3));
+        LedgerArchiveService service = new LedgerArchiveService(store, partitions(List.of(), List.of()));
+
+        List<LedgerEntryView> first = service.findPage(7L, EARLIEST, HistoryCursor.START.createdAt(),
+                HistoryCursor.START.createdAt(), HistoryCursor.START.id(), 4);
+        LedgerEntryView last = first.get(first.size() - 1);
+        List<LedgerEntryView> second = service.findPage(7L, EARLIEST, HistoryCursor.START.createdAt(),
+                last.createdAt(), last.id(), 4);
+
+        assertThat(first).extracting(LedgerEntryView::createdAt).containsExactly(
+                minute(YearMonth.of(2024, 2), 2), minute(YearMonth.of(2024, 2), 1),
+                minute(YearMonth.of(2024, 2), 0), minute(YearMonth.of(2024, 1), 2));
+        assertThat(second).extracting(LedgerEntryView::createdAt).containsExactly(
+                minute(YearMonth.of(2024, 1), 1), minute(YearMonth.of(2024, 1), 0));
+    }
+
+    @Test
+    void historyPagesSkipTheArchiveAfterTheOldestAttachedMonthAndFailOnMonthsBeingArchived() {
+        LedgerArchiveStore store = new LedgerArchiveStore(directory.toString(), 4);
+        write(store, YearMonth.of(2024, 1), entries(7, YearMonth.of(2024, 1), 3));
+        LedgerArchiveService service = new LedgerArchiveService(store, partitions(
+                List.of(partition(YearMonth.of(2024, 3))), List.of(partition(YearMonth.of(2024, 2)))));
+
+        assertThat(service.findPage(7L, YearMonth.of(2024, 3).atDay(1).atStartOfDay(),
+                HistoryCursor.START.createdAt(), HistoryCursor.START.createdAt(), HistoryCursor.START.id(), 4))
+                .isEmpty();
+        assertThat(service.findPage(7L, EARLIEST, YearMonth.of(2024, 1).atEndOfMonth().atStartOfDay(),
+                HistoryCursor.START.createdAt(), HistoryCursor.START.id(), 4)).hasSize(3);
+        assertThatThrownBy(() -> service.findPage(7L, EARLIEST, HistoryCursor.START.createdAt(),
+                HistoryCursor.START.createdAt(), HistoryCursor.START.id(), 4))
+                .isInstanceOf(TransactionProcessingException.class);
+    }
+
+    /**
+     * A partition catalog with fixed attached and detached months, without a database.
+     */
+    private static LedgerPartitionRepository partitions(List<LedgerPartition> attached,
+                                                        List<LedgerPartition> detached) {
+        return new LedgerPartitionRepository(null) {
+            @Override
+            public List<LedgerPartition> findAttachedPartitions() {
+                return attached;
+            }
+
+            @Override
+            public List<LedgerPartition> findDetachedPartitions() {
+                return detached;
+            }
+        };
+    }
+
+    private static LedgerPartition partition(YearMonth month) {
+        return new LedgerPartition("ledger_entries_p" + month.toString().replace("-", ""), month);
+    }
+
+    @SafeVarargs
+    private static void write(LedgerArchiveStore store, YearMonth month, List<ArchivedLedgerEntry>... wallets) {
+        try (SegmentWriter writer = store.openSegment(month)) {
+            for (List<ArchivedLedgerEntry> wallet : wallets) {
+                wallet.forEach(writer::append);
+            }
+            writer.commit();
+        }
+    }
+
+    /**
+     * One entry per minute from the start of the month, alternating credits and debits, with repeated
+     * descriptions, an occasional NULL and ids that are not in time order.
+     */
+    private static List<ArchivedLedgerEntry> entries(long walletId, YearMonth month, int count) {
+        List<ArchivedLedgerEntry> entries = new ArrayList<>();
+        BigDecimal balance = new BigDecimal("1000.0000");
+        for (int i = 0; i < count; i++) {
+            boolean credit = i % 2 == 0;
+            BigDecimal amount = new BigDecimal(i % 7 + ".2500");
+            balance = credit ? balance.add(amount) : balance.subtract(amount);
+            entries.add(new ArchivedLedgerEntry(walletId * 1_000_000 + (i ^ 1), walletId,
+                    credit ? TransactionType.CREDIT : TransactionType.DEBIT, amount, balance,
+                    i % 10 == 9 ? null : "Purchase " + i % 4, i % 5 == 0 ? null : "ref-" + i,
+                    "archive-" + walletId + "-" + i, minute(month, i)));
+        }
+        return entries;
+    }
+
+    private static LocalDateTime minute(YearMonth month, int minute) {
+        return month.atDay(1).atStartOfDay().plusMinutes(minute);
+    }
+}
@@ -0,0 +1,104 @@
+package com.wallet.service;
+
+import com.walletService.Dto.WalletOperationRequestDto;
+import com.walletService.Entity.AssetType;
+import com.walletService.Service.LedgerExportFormat;
+import com.walletService.Service.LedgerExportService;
+import com.walletService.Service.WalletService;
+import com.walletService.WalletServiceApplication;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.ObjectMapper;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static com.wallet.service.WalletTestFixture.request;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Both export formats: every entry, oldest first, with CSV quoting for descriptions that need it.
+ */
+@Import({TestcontainersConfiguration.class, WalletTestFixture.class})
+@SpringBootTest(classes = WalletServiceApplication.class, properties = "wallet.export.fetch-size=2")
+class LedgerExportTests {
+
+    @Autowired
+    private LedgerExportService ledgerExportService;
+
+    @Autowired
+    private WalletService walletService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private WalletTestFixture fixture;
+
+    private Long walletId;
+
+    @BeforeEach
+    void createLedger() {
+        Long userId = fixture.insertUser();
+        walletService.topUp(userId, request(AssetType.GOLD_COINS, "100"));
+
+        WalletOperationRequestDto quoted = request(AssetType.GOLD_COINS, "12.5");
+        quoted.setDescription("Sword, \"legendary\"");
+        quoted.setReferenceId("order-7");
+        walletService.spend(userId, quoted);
+
+        walletService.grantIncentive(userId, request(AssetType.GOLD_COINS, "0.0001"));
+        walletId = fixture.walletId(userId, AssetType.GOLD_COINS);
+    }
+
+    @Test
+    void ndjsonHasOneObjectPerEntryOldestFirst() throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        long rows = ledgerExportService.export(walletId, LedgerExportFormat.NDJSON, output);
+
+        List<String> lines = output.toString(StandardCharsets.UTF_8).lines().toList();
+        assertThat(rows).isEqualTo(3);
+        assertThat(lines).hasSize(3);
+
+        List<JsonNode> entries = lines.stream().map(objectMapper::readTree).toList();
+        assertThat(entries).extracting(entry -> entry.get("type").asString())
+                .containsExactly("CREDIT", "DEBIT", "CREDIT");
+        assertThat(entries).extracting(entry -> entry.get("balanceAfter").decimalValue())
+                .usingElementComparator(BigDecimal::compareTo)
+                .containsExactly(new BigDecimal("100"), new BigDecimal("87.5"), new BigDecimal("87.5001"));
+        assertThat(entries.get(1).get("description").asString()).isEqualTo("Sword, \"legendary\"");
+        assertThat(entries.get(1).get("referenceId").asString()).isEqualTo("order-7");
+    }
+
+    @Test
+    void csvHasAHeaderAndQuotesDescriptionsThatNeedIt() throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        long rows = ledgerExportService.export(walletId, LedgerExportFormat.CSV, output);
+
+        List<String> lines = output.toString(StandardCharsets.UTF_8).lines().toList();
+        assertThat(rows).isEqualTo(3);
+        assertThat(lines).hasSize(4);
+        assertThat(lines.get(0)).isEqualTo("id,type,amount,balanceAfter,description,referenceId,timestamp");
+        assertThat(lines.get(1)).matches("\\d+,CREDIT,100\\.0+,100\\.0+,Wallet top-up,,\\S+");
+        assertThat(lines.get(2)).matches("\\d+,DEBIT,12\\.50+,87\\.50+,\"Sword, \"\"legendary\"\"\",order-7,\\S+");
+        assertThat(lines.get(3)).contains(",CREDIT,0.0001,87.5001,");
+    }
+
+    @Test
+    void walletWithoutEntriesExportsOnlyTheCsvHeader() throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        assertThat(ledgerExportService.export(-1L, LedgerExportFormat.CSV, output)).isZero();
+        assertThat(output.toString(StandardCharsets.UTF_8))
+                .isEqualTo("id,type,amount,balanceAfter,description,referenceId,timestamp\n");
+    }
+}
@@ -0,0 +1,121 @@
+package com.wallet.service;
+
+import com.walletService.Dto.LedgerEntryView;
+import com.walletService.Entity.LedgerEntry;
+import com.walletService.Repository.LedgerEntryRepository;
+import com.walletService.WalletServiceApplication;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.management.ManagementFactory;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Compares entity loading against the {@link LedgerEntryView} projection for a 1,000-row history page:
+ * wall time and bytes allocated by the calling thread per page. Run with {@code -Dbenchmarks=true}.
+ */
+@Import(TestcontainersConfiguration.class)
+@SpringBootTest(classes = WalletServiceApplication.class)
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@EnabledIfSystemProperty(named = "benchmarks", matches = "true")
+class LedgerHistoryProjectionBenchmarkTests {
+
+    private static final int PAGE_SIZE = 1_000;
+    private static final int WARMUP_ITERATIONS = 50;
+    private static final int MEASURED_ITERATIONS = 200;
+
+    @Autowired
+    private LedgerEntryRepository ledgerEntryRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private Long walletId;
+
+    @BeforeAll
+    void seedLedger() {
+        Long userId = jdbcTemplate.queryForObject(
+                "INSERT INTO users (status, user_name, email_address, created_at, updated_at) " +
+                        "VALUES ('ACTIVE', 'bench', 'bench-projection@example.com', now(), now()) RETURNING id", Long.class);
+        walletId = jdbcTemplate.queryForObject(
+                "INSERT INTO wallets (user_id, balance, asset_type, version, created_at, updated_at) " +
+                        "VALUES (?, 0, 'GOLD_COINS', 0, now(), now()) RETURNING id", Long.class, userId);
+
+        LocalDateTime start = LocalDateTime.now().minusDays(1);
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 0; i < 5 * PAGE_SIZE; i++) {
+            rows.add(new Object[]{walletId, "CREDIT", 1, i + 1, "Benchmark credit " + i, "ref-" + i,
+                    "bench-projection-" + i, start.plusSeconds(i)});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO ledger_entries (wallet_id, transaction_type, amount, balance_after, " +
+                "description, reference_id, idempotency_key, created_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?)", rows);
+    }
+
+    @Test
+    void entityLoadingVersusProjectionPer1000Rows() {
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+
+        Supplier<Integer> entityPage = () -> readOnly.execute(status -> {
+            List<LedgerEntry> page = ledgerEntryRepository.findByWalletIdOrderByCreatedAtDescIdDesc(
+                    walletId, Limit.of(PAGE_SIZE));
+            return page.size();
+        });
+        Supplier<Integer> projectionPage = () -> readOnly.execute(status -> {
+            List<LedgerEntryView> page = ledgerEntryRepository.findPage(walletId,
+                    LocalDateTime.of(1970, 1, 1, 0, 0), LocalDateTime.of(9999, 12, 31, 23, 59, 59),
+                    LocalDateTime.of(9999, 12, 31, 23, 59, 59), Long.MAX_VALUE, Limit.of(PAGE_SIZE));
+            return page.size();
+        });
+
+        Measurement entity = measure(entityPage);
+        Measurement projection = measure(projectionPage);
+
+        System.out.printf("history page of %d rows: entity %.3f ms / %,d bytes, projection %.3f ms / %,d bytes%n",
+                PAGE_SIZE, entity.millisPerPage(), entity.bytesPerPage(),
+                projection.millisPerPage(), projection.bytesPerPage());
+
+        assertThat(entity.rows()).isEqualTo(PAGE_SIZE);
+        assertThat(projection.rows()).isEqualTo(PAGE_SIZE);
+    }
+
+    private Measurement measure(Supplier<Integer> page) {
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            page.get();
+        }
+
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().threadId();
+        long bytesBefore = threads.getThreadAllocatedBytes(threadId);
+        long start = System.nanoTime();
+
+        int rows = 0;
+        for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+            rows = page.get();
+        }
+
+        long elapsed = System.nanoTime() - start;
+        long allocated = threads.getThreadAllocatedBytes(threadId) - bytesBefore;
+        return new Measurement(rows, elapsed / 1_000_000.0 / MEASURED_ITERATIONS, allocated / MEASURED_ITERATIONS);
+    }
+
+    private record Measurement(int rows, double millisPerPage, long bytesPerPage) {
+    }
+}
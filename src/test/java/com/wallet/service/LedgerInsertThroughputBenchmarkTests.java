@@ -0,0 +1,146 @@
+package com.wallet.service;
+
+import com.walletService.Entity.LedgerEntry;
+import com.walletService.Entity.TransactionType;
+import com.walletService.Entity.Wallet;
+import com.walletService.Repository.LedgerEntryRepository;
+import com.walletService.Repository.WalletBatchRepository;
+import com.walletService.Repository.WalletRepository;
+import com.walletService.WalletServiceApplication;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntConsumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Ledger inserts per second with one round trip per row returning its id (what IDENTITY forces on
+ * Hibernate) against pooled sequence ids, both through Hibernate's insert batching and through the JDBC
+ * batch writer. Each transaction inserts {@value #ROWS_PER_TRANSACTION} rows. Run with {@code -Dbenchmarks=true}.
+ */
+@Import(TestcontainersConfiguration.class)
+@SpringBootTest(classes = WalletServiceApplication.class)
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@EnabledIfSystemProperty(named = "benchmarks", matches = "true")
+class LedgerInsertThroughputBenchmarkTests {
+
+    private static final int ROWS_PER_TRANSACTION = 1_000;
+    private static final int WARMUP_TRANSACTIONS = 5;
+    private static final int MEASURED_TRANSACTIONS = 20;
+
+    @Autowired
+    private LedgerEntryRepository ledgerEntryRepository;
+
+    @Autowired
+    private WalletBatchRepository walletBatchRepository;
+
+    @Autowired
+    private WalletRepository walletRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final AtomicLong keySequence = new AtomicLong();
+
+    private Long walletId;
+
+    @BeforeAll
+    void createWallet() {
+        Long userId = jdbcTemplate.queryForObject(
+                "INSERT INTO users (status, user_name, email_address, created_at, updated_at) " +
+                        "VALUES ('ACTIVE', 'bench', 'bench-inserts@example.com', now(), now()) RETURNING id", Long.class);
+        walletId = jdbcTemplate.queryForObject(
+                "INSERT INTO wallets (user_id, balance, asset_type, version, created_at, updated_at) " +
+                        "VALUES (?, 0, 'GOLD_COINS', 0, now(), now()) RETURNING id", Long.class, userId);
+    }
+
+    @Test
+    void rowAtATimeIdentityVersusPooledSequenceInserts() {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+
+        double rowAtATime = measure(rows -> transaction.executeWithoutResult(status -> insertReturningIds(rows)));
+        double hibernateBatched = measure(rows -> transaction.executeWithoutResult(status -> {
+            Wallet wallet = walletRepository.getReferenceById(walletId);
+            ledgerEntryRepository.saveAll(entries(wallet, rows));
+            ledgerEntryRepository.flush();
+        }));
+        double jdbcBatched = measure(rows -> transaction.executeWithoutResult(status ->
+                walletBatchRepository.insertLedgerEntries(entries(walletRepository.getReferenceById(walletId), rows))));
+
+        System.out.printf("ledger inserts/s: row-at-a-time RETURNING id %,.0f, pooled + Hibernate batch %,.0f, " +
+                "pooled + JDBC batch %,.0f%n", rowAtATime, hibernateBatched, jdbcBatched);
+
+        assertThat(ledgerEntryRepository.count())
+                .isEqualTo(3L * (WARMUP_TRANSACTIONS + MEASURED_TRANSACTIONS) * ROWS_PER_TRANSACTION);
+    }
+
+    private double measure(IntConsumer transaction) {
+        for (int i = 0; i < WARMUP_TRANSACTIONS; i++) {
+            transaction.accept(ROWS_PER_TRANSACTION);
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_TRANSACTIONS; i++) {
+            transaction.accept(ROWS_PER_TRANSACTION);
+        }
+        long elapsed = System.nanoTime() - start;
+
+        return (double) MEASURED_TRANSACTIONS * ROWS_PER_TRANSACTION / (elapsed / 1_000_000_000.0);
+    }
+
+    private void insertReturningIds(int rows) {
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(
+                    "INSERT INTO ledger_entries (wallet_id, transaction_type, amount, balance_after, " +
+                            "description, reference_id, idempotency_key, created_at) " +
+                            "VALUES (?, 'CREDIT', 1, 1, 'Benchmark credit', NULL, ?, ?) RETURNING id")) {
+                for (int i = 0; i < rows; i++) {
+                    statement.setLong(1, walletId);
+                    statement.setString(2, "bench-insert-" + keySequence.incrementAndGet());
+                    statement.setTimestamp(3, Timestamp.valueOf(LocalDateTime.now()));
+                    try (ResultSet id = statement.executeQuery()) {
+                        id.next();
+                    }
+                }
+            }
+            return null;
+        });
+    }
+
+    private List<LedgerEntry> entries(Wallet wallet, int rows) {
+        List<LedgerEntry> entries = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            entries.add(LedgerEntry.builder()
+                    .wallet(wallet)
+                    .transactionType(TransactionType.CREDIT)
+                    .amount(BigDecimal.ONE)
+                    .balanceAfter(BigDecimal.ONE)
+                    .description("Benchmark credit")
+                    .idempotencyKey("bench-insert-" + keySequence.incrementAndGet())
+                    .createdAt(LocalDateTime.now())
+                    .build());
+        }
+        return entries;
+    }
+}
@@ -0,0 +1,244 @@
+package com.wallet.service;
+
+import com.walletService.Repository.LedgerPartitionRepository;
+import com.walletService.WalletServiceApplication;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Insert and history-page latency of the month-partitioned ledger_entries against an unpartitioned copy with
+ * the pre-V6 indexes (id primary key, unique idempotency_key, (wallet_id, created_at)), both loaded with the
+ * same rows. Run with {@code -Dbenchmarks=true}; the data set is {@code -Dbenchmarks.partition.rows}
+ * (default 100,000,000) rows over {@code -Dbenchmarks.partition.months} months (default 24) and
+ * {@code -Dbenchmarks.partition.wallets} wallets (default 100,000).
+ */
+@Import(TestcontainersConfiguration.class)
+@SpringBootTest(classes = WalletServiceApplication.class, properties = {
+        "wallet.snapshot.enabled=false",
+        "wallet.reconciliation.enabled=false"
+})
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@EnabledIfSystemProperty(named = "benchmarks", matches = "true")
+class LedgerPartitionBenchmarkTests {
+
+    private static final long ROWS = Long.getLong("benchmarks.partition.rows", 100_000_000L);
+    private static final int MONTHS = Integer.getInteger("benchmarks.partition.months", 24);
+    private static final int WALLETS = Integer.getInteger("benchmarks.partition.wallets", 100_000);
+    private static final long LOAD_CHUNK = 1_000_000;
+
+    private static final int INSERT_BATCH_SIZE = 500;
+    private static final int INSERT_BATCHES = 200;
+    private static final int HISTORY_QUERIES = 1_000;
+    private static final int PAGE_SIZE = 100;
+    private static final int WARMUP_ITERATIONS = 20;
+
+    private static final String PARTITIONED = "ledger_entries";
+    private static final String UNPARTITIONED = "ledger_entries_unpartitioned_bench";
+
+    private static final String LOAD_SQL =
+            "INSERT INTO %s (wallet_id, transaction_type, amount, balance_after, description, idempotency_key, " +
+                    "created_at) SELECT b.wallet_id, 'CREDIT', 1, 1, 'Benchmark credit', ? || g, " +
+                    "? + CAST(g * ? AS double precision) * interval '1 microsecond' FROM generate_series(?, ?) g " +
+                    "JOIN ledger_partition_bench_wallets b ON b.n = g % ? + 1";
+
+    private static final String INSERT_SQL =
+            "INSERT INTO %s (wallet_id, transaction_type, amount, balance_after, description, idempotency_key, " +
+                    "created_at) VALUES (?, 'CREDIT', 1, 1, 'Benchmark credit', ?, ?)";
+
+    /**
+     * The SQL of LedgerEntryRepository.findPage for a first page.
+     */
+    private static final String HISTORY_SQL =
+            "SELECT id, transaction_type, amount, balance_after, description, reference_id, created_at FROM %s " +
+                    "WHERE wallet_id = ? AND created_at BETWEEN ? AND ? AND created_at <= ? " +
+                    "AND (created_at < ? OR (created_at = ? AND id < ?)) " +
+                    "ORDER BY created_at DESC, id DESC LIMIT " + PAGE_SIZE;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private LedgerPartitionRepository ledgerPartitionRepository;
+
+    private List<Long> walletIds;
+
+    private LocalDateTime loadedUntil;
+
+    @BeforeAll
+    void loadLedgers() {
+        jdbcTemplate.update(
+                "INSERT INTO users (status, user_name, email_address, created_at, updated_at) " +
+                        "SELECT 'ACTIVE', 'bench', 'bench-partition-' || g || '@example.com', now(), now() " +
+                        "FROM generate_series(1, ?) g", WALLETS);
+        jdbcTemplate.update(
+                "INSERT INTO wallets (user_id, balance, asset_type, version, created_at, updated_at) " +
+                        "SELECT id, 0, 'GOLD_COINS', 0, now(), now() FROM users " +
+                        "WHERE email_address LIKE 'bench-partition-%'");
+        jdbcTemplate.execute(
+                "CREATE TABLE ledger_partition_bench_wallets AS SELECT row_number() OVER (ORDER BY w.id) AS n, " +
+                        "w.id AS wallet_id FROM wallets w JOIN users u ON u.id = w.user_id " +
+                        "WHERE u.email_address LIKE 'bench-partition-%'");
+        jdbcTemplate.execute("CREATE UNIQUE INDEX ON ledger_partition_bench_wallets (n)");
+        walletIds = jdbcTemplate.queryForList("SELECT wallet_id FROM ledger_partition_bench_wallets", Long.class);
+
+        jdbcTemplate.execute("CREATE TABLE " + UNPARTITIONED + " (" +
+                "id BIGINT NOT NULL DEFAULT nextval('ledger_entries_seq') PRIMARY KEY, " +
+                "wallet_id BIGINT NOT NULL REFERENCES wallets (id), " +
+                "transaction_type VARCHAR(10) NOT NULL, " +
+                "amount NUMERIC(19, 4) NOT NULL, " +
+                "balance_after NUMERIC(19, 4) NOT NULL, " +
+                "description VARCHAR(500), " +
+                "reference_id VARCHAR(100), " +
+                "idempotency_key VARCHAR(100) NOT NULL UNIQUE, " +
+                "created_at TIMESTAMP(6) NOT NULL)");
+        jdbcTemplate.execute("CREATE INDEX ON " + UNPARTITIONED + " (wallet_id, created_at)");
+
+        // Rows evenly spaced from the start of the first month up to now; the inserts measured later come after
+        YearMonth current = YearMonth.now(ZoneOffset.UTC);
+        LocalDateTime start = current.minusMonths(MONTHS - 1).atDay(1).atStartOfDay();
+        loadedUntil = LocalDateTime.now(ZoneOffset.UTC);
+        long spacingMicros = Duration.between(start, loadedUntil).toNanos() / 1_000 / ROWS;
+        ledgerPartitionRepository.createPartitions(current.minusMonths(MONTHS - 1), current.plusMonths(1));
+
+        load(PARTITIONED, "bench-partition-p-", start, spacingMicros);
+        load(UNPARTITIONED, "bench-partition-u-", start, spacingMicros);
+        jdbcTemplate.execute("ANALYZE ledger_entries");
+        jdbcTemplate.execute("ANALYZE " + UNPARTITIONED);
+    }
+
+    @AfterAll
+    void dropCopies() {
+        jdbcTemplate.execute("DROP TABLE IF EXISTS " + UNPARTITIONED);
+        jdbcTemplate.execute("DROP TABLE IF EXISTS ledger_partition_bench_wallets");
+    }
+
+    @Test
+    void insertBatchLatency() {
+        Latency unpartitioned = measureInserts(UNPARTITIONED);
+        Latency partitioned = measureInserts(PARTITIONED);
+
+        System.out.printf("%d-row insert batch over %,d rows: unpartitioned %s, partitioned %s%n",
+                INSERT_BATCH_SIZE, ROWS, unpartitioned, partitioned);
+    }
+
+    @Test
+    void historyPageLatencyAndPruning() {
+        LocalDateTime to = loadedUntil;
+        LocalDateTime from = to.minusDays(30);
+
+        Latency unpartitioned = measureHistory(UNPARTITIONED, from, to);
+        Latency partitioned = measureHistory(PARTITIONED, from, to);
+
+        System.out.printf("%d-row history page (last 30 days) over %,d rows: unpartitioned %s, partitioned %s%n",
+                PAGE_SIZE, ROWS, unpartitioned, partitioned);
+
+        Long walletId = walletIds.get(0);
+        assertThat(history(PARTITIONED, walletId, from, to)).isEqualTo(history(UNPARTITIONED, walletId, from, to));
+        assertThat(scannedPartitions(walletId, from, to)).isBetween(1L, 2L);
+    }
+
+    private void load(String table, String keyPrefix, LocalDateTime start, long spacingMicros) {
+        for (long first = 1; first <= ROWS; first += LOAD_CHUNK) {
+            jdbcTemplate.update(String.format(LOAD_SQL, table), keyPrefix, Timestamp.valueOf(start), spacingMicros,
+                    first, Math.min(first + LOAD_CHUNK - 1, ROWS), walletIds.size());
+        }
+    }
+
+    private Latency measureInserts(String table) {
+        Random random = new Random(42);
+        long[] nanos = new long[INSERT_BATCHES];
+
+        for (int i = -WARMUP_ITERATIONS; i < INSERT_BATCHES; i++) {
+            List<Object[]> rows = new ArrayList<>(INSERT_BATCH_SIZE);
+            Timestamp now = Timestamp.valueOf(LocalDateTime.now(ZoneOffset.UTC));
+            for (int row = 0; row < INSERT_BATCH_SIZE; row++) {
+                rows.add(new Object[]{walletIds.get(random.nextInt(walletIds.size())),
+                        "bench-partition-insert-" + UUID.randomUUID(), now});
+            }
+
+            long begin = System.nanoTime();
+            jdbcTemplate.batchUpdate(String.format(INSERT_SQL, table), rows);
+            if (i >= 0) {
+                nanos[i] = System.nanoTime() - begin;
+            }
+        }
+        return Latency.of(nanos);
+    }
+
+    private Latency measureHistory(String table, LocalDateTime from, LocalDateTime to) {
+        Random random = new Random(42);
+        long[] nanos = new long[HISTORY_QUERIES];
+
+        for (int i = -WARMUP_ITERATIONS; i < HISTORY_QUERIES; i++) {
+            Long walletId = walletIds.get(random.nextInt(walletIds.size()));
+            long begin = System.nanoTime();
+            history(table, walletId, from, to);
+            if (i >= 0) {
+                nanos[i] = System.nanoTime() - begin;
+            }
+        }
+        return Latency.of(nanos);
+    }
+
+    private List<Timestamp> history(String table, Long walletId, LocalDateTime from, LocalDateTime to) {
+        return jdbcTemplate.query(String.format(HISTORY_SQL, table), (rs, rowNum) -> rs.getTimestamp("created_at"),
+                historyArguments(walletId, from, to));
+    }
+
+    /**
+     * Number of distinct monthly partitions the planner keeps for a 30-day history page.
+     */
+    private long scannedPartitions(Long walletId, LocalDateTime from, LocalDateTime to) {
+        Pattern partition = Pattern.compile("ledger_entries_p\\d{6}");
+        return jdbcTemplate.queryForList("EXPLAIN " + String.format(HISTORY_SQL, PARTITIONED), String.class,
+                        historyArguments(walletId, from, to)).stream()
+                .map(partition::matcher)
+                .filter(Matcher::find)
+                .map(Matcher::group)
+                .distinct()
+                .count();
+    }
+
+    private static Object[] historyArguments(Long walletId, LocalDateTime from, LocalDateTime to) {
+        Timestamp cursor = Timestamp.valueOf(to);
+        return new Object[]{walletId, Timestamp.valueOf(from), cursor, cursor, cursor, cursor, Long.MAX_VALUE};
+    }
+
+    private record Latency(double meanMillis, double p99Millis) {
+
+        static Latency of(long[] nanos) {
+            long[] sorted = nanos.clone();
+            Arrays.sort(sorted);
+            double mean = Arrays.stream(sorted).average().orElse(0) / 1_000_000.0;
+            double p99 = sorted[(int) Math.ceil(sorted.length * 0.99) - 1] / 1_000_000.0;
+            return new Latency(mean, p99);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("mean %.3f ms / p99 %.3f ms", meanMillis, p99Millis);
+        }
+    }
+}
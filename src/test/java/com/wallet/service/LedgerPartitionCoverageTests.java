@@ -0,0 +1,101 @@
+package com.wallet.service;
+
+import com.walletService.Repository.LedgerPartitionRepository;
+import com.walletService.Repository.LedgerPartitionRepository.LedgerPartition;
+import com.walletService.Service.BalanceSnapshotService;
+import com.walletService.Service.LedgerPartitionJob;
+import com.walletService.WalletServiceApplication;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * A month may be archived once each of its wallets has a snapshot at or after its last entry in the month,
+ * which a wallet that went dormant mid-month gets from the checkpoint after that entry. A detach an earlier run
+ * left unfinished is completed before any new month is considered.
+ */
+@Import({TestcontainersConfiguration.class, WalletTestFixture.class})
+@SpringBootTest(classes = WalletServiceApplication.class, properties = "wallet.snapshot.enabled=false")
+class LedgerPartitionCoverageTests {
+
+    private static final YearMonth MONTH = YearMonth.of(2011, 5);
+    private static final LedgerPartition PARTITION = new LedgerPartition("ledger_entries_p201105", MONTH);
+    private static final YearMonth INTERRUPTED_MONTH = YearMonth.of(2009, 6);
+
+    @Autowired
+    private LedgerPartitionRepository ledgerPartitionRepository;
+
+    @Autowired
+    private LedgerPartitionJob ledgerPartitionJob;
+
+    @Autowired
+    private BalanceSnapshotService balanceSnapshotService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private WalletTestFixture fixture;
+
+    @Test
+    void dormantWalletsAreCoveredByTheSnapshotAfterTheirLastEntry() {
+        ledgerPartitionRepository.createPartitions(MONTH, MONTH);
+
+        LocalDateTime dormantSince = MONTH.atDay(10).atTime(12, 0);
+        Long dormant = walletWithEntries(dormantSince);
+        checkpoint(dormant, dormantSince);
+
+        assertThat(ledgerPartitionRepository.isCoveredBySnapshots(PARTITION)).isTrue();
+
+        LocalDateTime lastEntry = MONTH.atDay(20).atTime(8, 30);
+        Long active = walletWithEntries(lastEntry);
+        checkpoint(active, lastEntry.minusDays(1));
+
+        assertThat(ledgerPartitionRepository.isCoveredBySnapshots(PARTITION)).isFalse();
+
+        checkpoint(active, lastEntry);
+
+        assertThat(ledgerPartitionRepository.isCoveredBySnapshots(PARTITION)).isTrue();
+    }
+
+    @Test
+    void detachInterruptedBeforeTheMoveIsFinishedOnTheNextRun() {
+        ledgerPartitionRepository.createPartitions(INTERRUPTED_MONTH, INTERRUPTED_MONTH);
+        // What a crash between DETACH ... CONCURRENTLY and SET SCHEMA leaves behind
+        jdbcTemplate.execute("ALTER TABLE ledger_entries DETACH PARTITION ledger_entries_p200906");
+
+        // A cutoff before every attached month, so only the interrupted detach is handled
+        assertThat(ledgerPartitionJob.archiveBefore(INTERRUPTED_MONTH.minusMonths(5)))
+                .extracting(LedgerPartition::name).containsExactly("ledger_entries_p200906");
+        assertThat(ledgerPartitionRepository.findDetachedPartitions())
+                .extracting(LedgerPartition::name).contains("ledger_entries_p200906");
+        assertThat(ledgerPartitionRepository.findInterruptedDetaches()).isEmpty();
+    }
+
+    /**
+     * A wallet with three credits in the month, the last one at {@code lastEntry}.
+     */
+    private Long walletWithEntries(LocalDateTime lastEntry) {
+        Long walletId = jdbcTemplate.queryForObject(
+                "INSERT INTO wallets (user_id, balance, asset_type, version, created_at, updated_at) " +
+                        "VALUES (?, 3, 'GOLD_COINS', 0, now(), now()) RETURNING id", Long.class, fixture.insertUser());
+        jdbcTemplate.update("INSERT INTO ledger_entries (wallet_id, transaction_type, amount, balance_after, " +
+                        "description, idempotency_key, created_at) " +
+                        "SELECT ?, 'CREDIT', 1, g, 'Archived credit', gen_random_uuid()::text, " +
+                        "? - (3 - g) * interval '1 day' FROM generate_series(1, 3) g",
+                walletId, Timestamp.valueOf(lastEntry));
+        return walletId;
+    }
+
+    private void checkpoint(Long walletId, LocalDateTime asOf) {
+        balanceSnapshotService.checkpointRange(walletId - 1, walletId, asOf);
+    }
+}
@@ -0,0 +1,125 @@
+package com.wallet.service;
+
+import com.walletService.Entity.AssetType;
+import com.walletService.Repository.ReconciliationRepository;
+import com.walletService.Repository.ReconciliationRepository.ReconciliationRange;
+import com.walletService.Repository.ReconciliationRepository.RunStart;
+import com.walletService.Repository.ReconciliationRepository.WalletDiscrepancy;
+import com.walletService.Service.LedgerReconciliationService;
+import com.walletService.Service.LedgerReconciliationService.ReconciliationReport;
+import com.walletService.Service.WalletService;
+import com.walletService.WalletServiceApplication;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+import static com.wallet.service.WalletTestFixture.request;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Import({TestcontainersConfiguration.class, WalletTestFixture.class})
+@SpringBootTest(classes = WalletServiceApplication.class, properties = {
+        "wallet.reconciliation.enabled=false",
+        "wallet.reconciliation.range-size=2",
+        "wallet.reconciliation.report-dir=target/reconciliation-reports"
+})
+class LedgerReconciliationTests {
+
+    @Autowired
+    private LedgerReconciliationService ledgerReconciliationService;
+
+    @Autowired
+    private ReconciliationRepository reconciliationRepository;
+
+    @Autowired
+    private WalletService walletService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private WalletTestFixture fixture;
+
+    @Test
+    void reportsWalletsWhoseBalanceDisagreesWithTheLedger() {
+        Long consistentWallet = walletWithOperations();
+        Long tamperedWallet = walletWithOperations();
+        jdbcTemplate.update("UPDATE wallets SET balance = balance + 1 WHERE id = ?", tamperedWallet);
+        Long walletWithoutLedger = jdbcTemplate.queryForObject(
+                "INSERT INTO wallets (user_id, balance, asset_type, version, created_at, updated_at) " +
+                        "VALUES (?, 5, 'DIAMONDS', 0, now(), now()) RETURNING id", Long.class, fixture.insertUser());
+
+        ReconciliationReport report = ledgerReconciliationService.run().orElseThrow();
+
+        assertThat(report.status()).isEqualTo("DONE");
+        assertThat(report.processedWallets()).isEqualTo(report.totalWallets());
+        List<Long> flagged = report.discrepancies().stream().map(WalletDiscrepancy::walletId).toList();
+        assertThat(flagged).contains(tamperedWallet, walletWithoutLedger).doesNotContain(consistentWallet);
+
+        WalletDiscrepancy tampered = report.discrepancies().stream()
+                .filter(discrepancy -> discrepancy.walletId() == tamperedWallet)
+                .findFirst().orElseThrow();
+        assertThat(tampered.storedBalance()).isEqualByComparingTo(tampered.ledgerSum().add(BigDecimal.ONE));
+        assertThat(tampered.lastBalanceAfter()).isEqualByComparingTo(tampered.ledgerSum());
+        assertThat(tampered.entryCount()).isEqualTo(2);
+    }
+
+    @Test
+    void resumesAnUnfinishedRunWithoutRepeatingFinishedRanges() {
+        walletWithOperations();
+        walletWithOperations();
+        walletWithOperations();
+
+        long runId = reconciliationRepository.createRun(2, LocalDateTime.now());
+        ReconciliationRange finished = reconciliationRepository.findPendingRanges(runId).get(0);
+        reconciliationRepository.completeRange(finished, 0, 0, List.of(), LocalDateTime.now());
+        Long walletsInFinishedRange = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM wallets WHERE id BETWEEN ? AND ?", Long.class,
+                finished.rangeStart(), finished.rangeEnd());
+        Long allWallets = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM wallets", Long.class);
+
+        ReconciliationReport report = ledgerReconciliationService.run().orElseThrow();
+
+        assertThat(report.runId()).isEqualTo(runId);
+        assertThat(report.status()).isEqualTo("DONE");
+        assertThat(report.processedWallets()).isEqualTo(allWallets - walletsInFinishedRange);
+        assertThat(reconciliationRepository.findPendingRanges(runId)).isEmpty();
+    }
+
+    @Test
+    void callerArrivingWhileARunIsBeingStartedSkipsAndALaterOneResumesIt() {
+        walletWithOperations();
+
+        RunStart started = new TransactionTemplate(transactionManager).execute(status -> {
+            RunStart start = reconciliationRepository.startOrResumeRun(2, LocalDateTime.now()).orElseThrow();
+            Optional<ReconciliationReport> concurrent =
+                    CompletableFuture.supplyAsync(ledgerReconciliationService::run).join();
+            assertThat(concurrent).isEmpty();
+            return start;
+        });
+
+        ReconciliationReport report = ledgerReconciliationService.run().orElseThrow();
+
+        assertThat(report.runId()).isEqualTo(started.runId());
+        assertThat(report.status()).isEqualTo("DONE");
+    }
+
+    private Long walletWithOperations() {
+        Long userId = fixture.insertUser();
+        walletService.topUp(userId, request(AssetType.GOLD_COINS, "100.5000"));
+        walletService.spend(userId, request(AssetType.GOLD_COINS, "40.2500"));
+        return fixture.walletId(userId, AssetType.GOLD_COINS);
+    }
+}
@@ -0,0 +1,58 @@
+package com.wallet.service;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import java.util.List;
+
+/**
+ * Drives Spring's transaction synchronization callbacks in the order a transaction manager invokes them,
+ * so components that hook commit and rollback can be tested without a database.
+ */
+final class SimulatedTransaction {
+
+    private SimulatedTransaction() {
+    }
+
+    static void begin() {
+        TransactionSynchronizationManager.initSynchronization();
+    }
+
+    /**
+     * Runs beforeCommit and beforeCompletion only, leaving the transaction at the point where the database
+     * commit is in flight. Finish it with {@link #completeCommit()}.
+     */
+    static void prepareCommit() {
+        TransactionSynchronizationUtils.triggerBeforeCommit(false);
+        TransactionSynchronizationUtils.triggerBeforeCompletion();
+    }
+
+    static void completeCommit() {
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationUtils.invokeAfterCommit(synchronizations);
+        TransactionSynchronizationUtils.invokeAfterCompletion(synchronizations, TransactionSynchronization.STATUS_COMMITTED);
+        TransactionSynchronizationManager.clearSynchronization();
+    }
+
+    static void commit() {
+        prepareCommit();
+        completeCommit();
+    }
+
+    static void rollback() {
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationUtils.triggerBeforeCompletion();
+        TransactionSynchronizationUtils.invokeAfterCompletion(synchronizations, TransactionSynchronization.STATUS_ROLLED_BACK);
+        TransactionSynchronizationManager.clearSynchronization();
+    }
+
+    /**
+     * Drops a transaction a failed test left open on this thread.
+     */
+    static void abandon() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+}
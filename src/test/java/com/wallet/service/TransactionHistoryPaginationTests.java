@@ -0,0 +1,138 @@
+package com.wallet.service;
+
+import com.walletService.Dto.TransactionHistoryResponseDto;
+import com.walletService.Entity.AssetType;
+import com.walletService.Exceptions.InvalidCursorException;
+import com.walletService.Repository.LedgerPartitionRepository;
+import com.walletService.Service.TransactionHistoryService;
+import com.walletService.Service.WalletService;
+import com.walletService.WalletServiceApplication;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.wallet.service.WalletTestFixture.request;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Keyset pagination of transaction history: pages follow (createdAt DESC, id DESC) without gaps or repeats,
+ * including across entries that share a timestamp, and a cursor never lets newer entries into later pages.
+ */
+@Import({TestcontainersConfiguration.class, WalletTestFixture.class})
+@SpringBootTest(classes = WalletServiceApplication.class)
+class TransactionHistoryPaginationTests {
+
+    private static final LocalDateTime BASE = LocalDateTime.of(2024, 3, 10, 12, 0);
+
+    @Autowired
+    private TransactionHistoryService transactionHistoryService;
+
+    @Autowired
+    private WalletService walletService;
+
+    @Autowired
+    private LedgerPartitionRepository ledgerPartitionRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private WalletTestFixture fixture;
+
+    private Long userId;
+
+    private Long walletId;
+
+    @BeforeEach
+    void createWallet() {
+        userId = fixture.insertUser();
+        walletService.topUp(userId, request(AssetType.GOLD_COINS, "1"));
+        walletId = fixture.walletId(userId, AssetType.GOLD_COINS);
+        ledgerPartitionRepository.createPartitions(YearMonth.from(BASE), YearMonth.from(BASE));
+    }
+
+    @Test
+    void pagesCoverTheRangeNewestFirstWithoutGapsOrRepeats() {
+        // Ten distinct instants, then seven entries sharing one instant so the id tie-break is exercised
+        insertEntries(BASE, 10, 60);
+        insertEntries(BASE.plusHours(1), 7, 0);
+
+        List<Long> paged = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            TransactionHistoryResponseDto page = transactionHistoryService.getTransactionPage(
+                    userId, AssetType.GOLD_COINS, BASE, BASE.plusDays(1), cursor, 4);
+            assertThat(page.getTransactions()).hasSizeLessThanOrEqualTo(4);
+            page.getTransactions().forEach(transaction -> paged.add(transaction.getId()));
+            cursor = page.getNextCursor();
+            pages++;
+        } while (cursor != null);
+
+        assertThat(pages).isEqualTo(5);
+        assertThat(paged).containsExactlyElementsOf(jdbcTemplate.queryForList(
+                "SELECT id FROM ledger_entries WHERE wallet_id = ? AND created_at BETWEEN ? AND ? " +
+                        "ORDER BY created_at DESC, id DESC",
+                Long.class, walletId, Timestamp.valueOf(BASE), Timestamp.valueOf(BASE.plusDays(1))));
+    }
+
+    @Test
+    void entriesWrittenAfterTheFirstPageDoNotLeakIntoLaterPages() {
+        insertEntries(BASE, 6, 60);
+
+        TransactionHistoryResponseDto first = transactionHistoryService.getTransactionPage(
+                userId, AssetType.GOLD_COINS, BASE, BASE.plusDays(1), null, 3);
+        insertEntries(BASE.plusHours(2), 2, 1);
+
+        TransactionHistoryResponseDto second = transactionHistoryService.getTransactionPage(
+                userId, AssetType.GOLD_COINS, BASE, BASE.plusDays(1), first.getNextCursor(), 3);
+
+        assertThat(second.getTransactions()).hasSize(3)
+                .allSatisfy(transaction -> assertThat(transaction.getTimestamp()).isBefore(BASE.plusHours(1)));
+        assertThat(second.getNextCursor()).isNull();
+    }
+
+    @Test
+    void historyIsCappedAtTheMaximumPageSizeWithACursorForTheRest() {
+        insertEntries(BASE, TransactionHistoryService.MAX_PAGE_SIZE + 1, 1);
+
+        TransactionHistoryResponseDto history = transactionHistoryService.getTransactionHistory(
+                userId, AssetType.GOLD_COINS, BASE, BASE.plusDays(1));
+
+        assertThat(history.getTransactions()).hasSize(TransactionHistoryService.MAX_PAGE_SIZE);
+        assertThat(history.getNextCursor()).isNotNull();
+
+        TransactionHistoryResponseDto rest = transactionHistoryService.getTransactionPage(
+                userId, AssetType.GOLD_COINS, BASE, BASE.plusDays(1), history.getNextCursor(), 5_000);
+        assertThat(rest.getTransactions()).hasSize(1);
+        assertThat(rest.getTransactions().get(0).getTimestamp()).isEqualTo(BASE);
+    }
+
+    @Test
+    void malformedCursorIsRejected() {
+        assertThatThrownBy(() -> transactionHistoryService.getTransactionPage(
+                userId, AssetType.GOLD_COINS, null, null, "not-a-cursor", 10))
+                .isInstanceOf(InvalidCursorException.class);
+    }
+
+    /**
+     * Inserts {@code count} credits starting at {@code start}, {@code stepSeconds} apart.
+     */
+    private void insertEntries(LocalDateTime start, int count, int stepSeconds) {
+        jdbcTemplate.update("INSERT INTO ledger_entries (wallet_id, transaction_type, amount, balance_after, " +
+                        "description, idempotency_key, created_at) " +
+                        "SELECT ?, 'CREDIT', 1, 1, 'Paged credit', gen_random_uuid()::text, " +
+                        "? + (g - 1) * ? * interval '1 second' FROM generate_series(1, ?) g",
+                walletId, Timestamp.valueOf(start), stepSeconds, count);
+    }
+}
@@ -0,0 +1,112 @@
+package com.wallet.service;
+
+import com.walletService.Controller.WalletController;
+import com.walletService.Dto.TransferRequestDto;
+import com.walletService.Dto.WalletBalancesResponseDto;
+import com.walletService.Entity.AssetType;
+import com.walletService.Service.TreasuryService;
+import com.walletService.Service.WalletService;
+import com.walletService.WalletServiceApplication;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static com.wallet.service.WalletTestFixture.request;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The balances endpoint for the sharded treasury: the balance includes every slot and the ETag changes
+ * when only a slot changed.
+ */
+@Import({TestcontainersConfiguration.class, WalletTestFixture.class})
+@SpringBootTest(classes = WalletServiceApplication.class, properties = {
+        "wallet.treasury.slots=4",
+        "wallet.treasury.rebalance.enabled=false"
+})
+class TreasuryBalancesTests {
+
+    @Autowired
+    private WalletController walletController;
+
+    @Autowired
+    private WalletService walletService;
+
+    @Autowired
+    private TreasuryService treasuryService;
+
+    @Autowired
+    private WalletTestFixture fixture;
+
+    private Long treasuryUserId;
+
+    private Long payerId;
+
+    @BeforeEach
+    void createTreasury() {
+        treasuryUserId = fixture.insertUser();
+        ReflectionTestUtils.setField(treasuryService, "treasuryUserId", treasuryUserId);
+        ReflectionTestUtils.setField(treasuryService, "walletIds", new ConcurrentHashMap<>());
+        treasuryService.rebalance(AssetType.GOLD_COINS);
+
+        payerId = fixture.insertUser();
+        walletService.topUp(payerId, request(AssetType.GOLD_COINS, "100"));
+    }
+
+    @Test
+    void treasuryBalanceIncludesItsSlots() {
+        payTreasury("40");
+
+        WalletBalancesResponseDto balances = walletService.getBalances(treasuryUserId);
+
+        assertThat(balances.getBalances()).singleElement()
+                .satisfies(balance -> assertThat(balance.getBalance()).isEqualByComparingTo("40"));
+    }
+
+    @Test
+    void slotWriteChangesTheETag() {
+        payTreasury("40");
+        ResponseEntity<WalletBalancesResponseDto> first = getBalances(null);
+        String etag = first.getHeaders().getETag();
+
+        assertThat(getBalances(etag).getStatusCode().value()).isEqualTo(304);
+
+        payTreasury("1");
+        ResponseEntity<WalletBalancesResponseDto> afterSlotWrite = getBalances(etag);
+
+        assertThat(afterSlotWrite.getStatusCode().value()).isEqualTo(200);
+        assertThat(afterSlotWrite.getHeaders().getETag()).isNotEqualTo(etag);
+        assertThat(afterSlotWrite.getBody().getBalances().get(0).getBalance()).isEqualByComparingTo("41");
+    }
+
+    private void payTreasury(String amount) {
+        walletService.transfer(payerId, TransferRequestDto.builder()
+                .idempotencyKey(UUID.randomUUID().toString())
+                .toUserId(treasuryUserId)
+                .assetType(AssetType.GOLD_COINS)
+                .amount(new BigDecimal(amount))
+                .build());
+    }
+
+    private ResponseEntity<WalletBalancesResponseDto> getBalances(String ifNoneMatch) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v1/wallets/balances");
+        if (ifNoneMatch != null) {
+            request.addHeader("If-None-Match", ifNoneMatch);
+        }
+        return walletController.getBalances(
+                new UsernamePasswordAuthenticationToken(treasuryUserId, null, List.of()),
+                new ServletWebRequest(request, new MockHttpServletResponse()));
+    }
+}
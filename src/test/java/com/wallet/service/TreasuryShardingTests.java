@@ -0,0 +1,259 @@
+package com.wallet.service;
+
+import com.walletService.Dto.TransferRequestDto;
+import com.walletService.Dto.WalletOperationRequestDto;
+import com.walletService.Entity.AssetType;
+import com.walletService.Exceptions.InsufficientBalanceException;
+import com.walletService.Repository.ReconciliationRepository.ReconciliationRange;
+import com.walletService.Service.LedgerRangeReconciler;
+import com.walletService.Service.TreasuryService;
+import com.walletService.Service.WalletOperation;
+import com.walletService.Service.WalletOperationDispatcher;
+import com.walletService.Service.WalletOperationOutcome;
+import com.walletService.Service.WalletOperationType;
+import com.walletService.Service.WalletService;
+import com.walletService.WalletServiceApplication;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.wallet.service.WalletTestFixture.request;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Every write to the sharded treasury goes to a slot and is ledgered, including the rebalancer's sweep, so
+ * the reconciler finds each slot's balance_after chain and the wallet's signed sum intact.
+ */
+@Import({TestcontainersConfiguration.class, WalletTestFixture.class})
+@SpringBootTest(classes = WalletServiceApplication.class, properties = {
+        "wallet.treasury.slots=4",
+        "wallet.treasury.rebalance.enabled=false"
+})
+class TreasuryShardingTests {
+
+    private static final int THREADS = 8;
+    private static final int OPERATIONS_PER_THREAD = 50;
+    private static final int ROUNDS = 100;
+
+    @Autowired
+    private WalletOperationDispatcher dispatcher;
+
+    @Autowired
+    private WalletService walletService;
+
+    @Autowired
+    private TreasuryService treasuryService;
+
+    @Autowired
+    private LedgerRangeReconciler ledgerRangeReconciler;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private WalletTestFixture fixture;
+
+    private Long treasuryUserId;
+
+    private Long walletId;
+
+    @BeforeEach
+    void createTreasury() {
+        // Funded on its wallet row before it is sharded, as an existing treasury would be
+        treasuryUserId = fixture.insertUser();
+        walletService.topUp(treasuryUserId, request(AssetType.GOLD_COINS, "100"));
+        walletId = fixture.walletId(treasuryUserId, AssetType.GOLD_COINS);
+
+        ReflectionTestUtils.setField(treasuryService, "treasuryUserId", treasuryUserId);
+        ReflectionTestUtils.setField(treasuryService, "walletIds", new ConcurrentHashMap<>());
+        treasuryService.rebalance(AssetType.GOLD_COINS);
+    }
+
+    @Test
+    void rebalanceLedgersTheSweepAndSpendsDrawOnTheSlots() {
+        assertThat(rowBalance()).isEqualByComparingTo("0");
+        assertThat(jdbcTemplate.queryForList("SELECT balance FROM wallet_slots WHERE wallet_id = ? " +
+                "ORDER BY slot_index", BigDecimal.class, walletId))
+                .usingElementComparator(BigDecimal::compareTo)
+                .containsExactly(new BigDecimal("25"), new BigDecimal("25"), new BigDecimal("25"), new BigDecimal("25"));
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM ledger_entries WHERE wallet_id = ? " +
+                "AND description = 'Treasury rebalance'", Long.class, walletId)).isEqualTo(5);
+
+        dispatcher.spend(treasuryUserId, request(AssetType.GOLD_COINS, "20"));
+        walletService.spend(treasuryUserId, request(AssetType.GOLD_COINS, "5"));
+
+        assertThat(totalBalance()).isEqualByComparingTo("75");
+        assertThat(rowBalance()).isEqualByComparingTo("0");
+        assertThat(ledgerSum()).isEqualByComparingTo("75");
+        assertReconciles();
+    }
+
+    @Test
+    void bulkItemsAndTransfersOnTheTreasuryGoToTheSlots() {
+        Long userId = fixture.insertUser();
+
+        List<WalletOperationOutcome> outcomes = walletService.applyBulkChunk(List.of(
+                new WalletOperation(treasuryUserId, WalletOperationType.SPEND, request(AssetType.GOLD_COINS, "10")),
+                new WalletOperation(userId, WalletOperationType.TOP_UP, request(AssetType.GOLD_COINS, "10")),
+                new WalletOperation(treasuryUserId, WalletOperationType.SPEND, request(AssetType.GOLD_COINS, "30"))));
+
+        assertThat(outcomes).extracting(WalletOperationOutcome::isSuccess).containsExactly(true, true, false);
+        assertThat(outcomes.get(2).error()).isInstanceOf(InsufficientBalanceException.class);
+
+        walletService.transfer(treasuryUserId, TransferRequestDto.builder()
+                .idempotencyKey(UUID.randomUUID().toString())
+                .toUserId(userId)
+                .assetType(AssetType.GOLD_COINS)
+                .amount(new BigDecimal("15"))
+                .build());
+
+        assertThat(totalBalance()).isEqualByComparingTo("75");
+        assertThat(rowBalance()).isEqualByComparingTo("0");
+        assertReconciles();
+    }
+
+    @Test
+    void concurrentWritesAndRebalancesKeepEverySlotChainConsistent() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS + 1);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicBoolean writing = new AtomicBoolean(true);
+        AtomicInteger credits = new AtomicInteger();
+        AtomicInteger debits = new AtomicInteger();
+        ConcurrentLinkedQueue<Throwable> failures = new ConcurrentLinkedQueue<>();
+
+        CountDownLatch writers = new CountDownLatch(THREADS);
+        for (int t = 0; t < THREADS; t++) {
+            executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < OPERATIONS_PER_THREAD; i++) {
+                    try {
+                        if (i % 2 == 0) {
+                            dispatcher.topUp(treasuryUserId, request(AssetType.GOLD_COINS, "3"));
+                            credits.incrementAndGet();
+                        } else {
+                            dispatcher.spend(treasuryUserId, request(AssetType.GOLD_COINS, "2"));
+                            debits.incrementAndGet();
+                        }
+                    } catch (RuntimeException e) {
+                        failures.add(e);
+                    }
+                }
+                writers.countDown();
+                return null;
+            });
+        }
+
+        executor.submit(() -> {
+            start.await();
+            while (writing.get()) {
+                try {
+                    treasuryService.rebalance(AssetType.GOLD_COINS);
+                } catch (RuntimeException e) {
+                    failures.add(e);
+                }
+            }
+            return null;
+        });
+
+        start.countDown();
+        assertThat(writers.await(2, TimeUnit.MINUTES)).isTrue();
+        writing.set(false);
+        executor.shutdown();
+        assertThat(executor.awaitTermination(30, TimeUnit.SECONDS)).isTrue();
+
+        assertThat(failures).isEmpty();
+        assertThat(credits.get() + debits.get()).isEqualTo(THREADS * OPERATIONS_PER_THREAD);
+
+        BigDecimal expected = new BigDecimal(100 + 3 * credits.get() - 2 * debits.get());
+        assertThat(totalBalance()).isEqualByComparingTo(expected);
+        assertThat(ledgerSum()).isEqualByComparingTo(expected);
+        assertReconciles();
+    }
+
+    @Test
+    void batchesWritingTheSameSlotsInOppositeOrdersDoNotDeadlock() throws Exception {
+        // Called without the retrier, so a deadlock would surface as a failed chunk
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        CountDownLatch start = new CountDownLatch(1);
+        ConcurrentLinkedQueue<Throwable> failures = new ConcurrentLinkedQueue<>();
+
+        for (int[] slots : new int[][]{{0, 1, 2, 3}, {3, 2, 1, 0}}) {
+            executor.submit(() -> {
+                start.await();
+                for (int round = 0; round < ROUNDS; round++) {
+                    try {
+                        List<WalletOperation> operations = new ArrayList<>();
+                        for (int i = 0; i < slots.length; i++) {
+                            operations.add(new WalletOperation(treasuryUserId,
+                                    i % 2 == 0 ? WalletOperationType.TOP_UP : WalletOperationType.SPEND,
+                                    requestForSlot(slots[i], i % 2 == 0 ? "2" : "1")));
+                        }
+                        walletService.applyBulkChunk(operations).stream()
+                                .filter(outcome -> !outcome.isSuccess())
+                                .forEach(outcome -> failures.add(outcome.error()));
+                    } catch (RuntimeException e) {
+                        failures.add(e);
+                    }
+                }
+                return null;
+            });
+        }
+
+        start.countDown();
+        executor.shutdown();
+        assertThat(executor.awaitTermination(2, TimeUnit.MINUTES)).isTrue();
+
+        assertThat(failures).isEmpty();
+        BigDecimal expected = new BigDecimal(100 + 2 * ROUNDS * 2);
+        assertThat(totalBalance()).isEqualByComparingTo(expected);
+        assertThat(ledgerSum()).isEqualByComparingTo(expected);
+        assertReconciles();
+    }
+
+    /**
+     * A request whose idempotency key makes the treasury pick the given slot.
+     */
+    private WalletOperationRequestDto requestForSlot(int slot, String amount) {
+        while (true) {
+            WalletOperationRequestDto request = request(AssetType.GOLD_COINS, amount);
+            if (treasuryService.selectSlot((long) request.getIdempotencyKey().hashCode()) == slot) {
+                return request;
+            }
+        }
+    }
+
+    private void assertReconciles() {
+        assertThat(ledgerRangeReconciler.reconcile(new ReconciliationRange(0, walletId, walletId)).discrepancies())
+                .isEmpty();
+    }
+
+    private BigDecimal rowBalance() {
+        return jdbcTemplate.queryForObject("SELECT balance FROM wallets WHERE id = ?", BigDecimal.class, walletId);
+    }
+
+    private BigDecimal totalBalance() {
+        return treasuryService.getBalance(AssetType.GOLD_COINS).getBalance();
+    }
+
+    private BigDecimal ledgerSum() {
+        return jdbcTemplate.queryForObject("SELECT COALESCE(SUM(CASE WHEN transaction_type = 'CREDIT' " +
+                "THEN amount ELSE -amount END), 0) FROM ledger_entries WHERE wallet_id = ?", BigDecimal.class, walletId);
+    }
+}
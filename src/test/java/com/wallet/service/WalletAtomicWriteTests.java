@@ -0,0 +1,142 @@
+package com.wallet.service;
+
+import com.walletService.Dto.WalletOperationRequestDto;
+import com.walletService.Dto.WalletOperationResponseDto;
+import com.walletService.Entity.AssetType;
+import com.walletService.Exceptions.InsufficientBalanceException;
+import com.walletService.Service.WalletOperationDispatcher;
+import com.walletService.Service.WalletOperationType;
+import com.walletService.Service.WalletService;
+import com.walletService.WalletServiceApplication;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.wallet.service.WalletTestFixture.request;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * The ATOMIC write mode: one conditional UPDATE ... RETURNING per write, with the slow path only for a
+ * missing wallet or a rejected debit.
+ */
+@Import({TestcontainersConfiguration.class, WalletTestFixture.class})
+@SpringBootTest(classes = WalletServiceApplication.class, properties = "wallet.write.mode=ATOMIC")
+class WalletAtomicWriteTests {
+
+    @Autowired
+    private WalletOperationDispatcher walletOperationDispatcher;
+
+    @Autowired
+    private WalletService walletService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private WalletTestFixture fixture;
+
+    private Long userId;
+
+    @BeforeEach
+    void createUser() {
+        userId = fixture.insertUser();
+    }
+
+    @Test
+    void firstCreditCreatesTheWalletAndLaterCreditsUpdateItInPlace() {
+        WalletOperationResponseDto first = walletOperationDispatcher.topUp(userId, request(AssetType.GOLD_COINS, "100"));
+        WalletOperationResponseDto second = walletOperationDispatcher.topUp(userId, request(AssetType.GOLD_COINS, "25"));
+
+        assertThat(first.getBalanceAfter()).isEqualByComparingTo("100");
+        assertThat(second.getBalanceAfter()).isEqualByComparingTo("125");
+
+        Long walletId = fixture.walletId(userId, AssetType.GOLD_COINS);
+        assertThat(jdbcTemplate.queryForObject("SELECT balance FROM wallets WHERE id = ?", BigDecimal.class, walletId))
+                .isEqualByComparingTo("125");
+        assertThat(jdbcTemplate.queryForObject("SELECT version FROM wallets WHERE id = ?", Long.class, walletId))
+                .isEqualTo(2L);
+        assertThat(ledgerBalancesAfter(walletId)).extracting(BigDecimal::intValue).containsExactly(100, 125);
+    }
+
+    @Test
+    void debitBeyondTheBalanceIsRejectedWithoutWriting() {
+        walletOperationDispatcher.topUp(userId, request(AssetType.DIAMONDS, "10"));
+        Long walletId = fixture.walletId(userId, AssetType.DIAMONDS);
+
+        assertThatThrownBy(() -> walletOperationDispatcher.spend(userId, request(AssetType.DIAMONDS, "10.0001")))
+                .isInstanceOf(InsufficientBalanceException.class);
+
+        assertThat(jdbcTemplate.queryForObject("SELECT balance FROM wallets WHERE id = ?", BigDecimal.class, walletId))
+                .isEqualByComparingTo("10");
+        assertThat(ledgerBalancesAfter(walletId)).hasSize(1);
+    }
+
+    @Test
+    void retriedKeyReturnsTheOriginalResponseFromTheDatabase() {
+        WalletOperationRequestDto request = request(AssetType.LOYALTY_POINTS, "7");
+        WalletOperationResponseDto original = walletOperationDispatcher.grantIncentive(userId, request);
+
+        // Straight to the service, so the response cache in front of it is not what answers
+        WalletOperationResponseDto retried = walletService.applyAtomic(userId, WalletOperationType.INCENTIVE, request);
+
+        assertThat(retried.getTransactionId()).isEqualTo(original.getTransactionId());
+        assertThat(retried.getBalanceAfter()).isEqualByComparingTo("7");
+        assertThat(ledgerBalancesAfter(fixture.walletId(userId, AssetType.LOYALTY_POINTS))).hasSize(1);
+    }
+
+    @Test
+    void concurrentDebitsNeverOverdrawAndEachSeesItsOwnBalance() throws InterruptedException {
+        walletOperationDispatcher.topUp(userId, request(AssetType.GOLD_COINS, "100"));
+
+        int threads = 20;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger succeeded = new AtomicInteger();
+        ConcurrentLinkedQueue<Throwable> unexpected = new ConcurrentLinkedQueue<>();
+
+        for (int t = 0; t < threads; t++) {
+            executor.execute(() -> {
+                try {
+                    start.await();
+                    walletOperationDispatcher.spend(userId, request(AssetType.GOLD_COINS, "10"));
+                    succeeded.incrementAndGet();
+                } catch (InsufficientBalanceException expected) {
+                    // the eleventh and later debits
+                } catch (Throwable e) {
+                    unexpected.add(e);
+                }
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+        assertThat(executor.awaitTermination(1, TimeUnit.MINUTES)).isTrue();
+
+        assertThat(unexpected).isEmpty();
+        assertThat(succeeded).hasValue(10);
+
+        Long walletId = fixture.walletId(userId, AssetType.GOLD_COINS);
+        assertThat(jdbcTemplate.queryForObject("SELECT balance FROM wallets WHERE id = ?", BigDecimal.class, walletId))
+                .isEqualByComparingTo("0");
+        // Every debit read its balanceAfter from its own UPDATE, so the chain has no repeats or gaps
+        assertThat(ledgerBalancesAfter(walletId)).extracting(BigDecimal::intValue)
+                .containsExactlyInAnyOrder(100, 90, 80, 70, 60, 50, 40, 30, 20, 10, 0);
+    }
+
+    private List<BigDecimal> ledgerBalancesAfter(Long walletId) {
+        return jdbcTemplate.queryForList("SELECT balance_after FROM ledger_entries WHERE wallet_id = ? ORDER BY id",
+                BigDecimal.class, walletId);
+    }
+}
@@ -0,0 +1,220 @@
+package com.wallet.service;
+
+import com.walletService.Dto.WalletEvent;
+import com.walletService.Entity.AssetType;
+import com.walletService.Entity.TransactionType;
+import com.walletService.Repository.WalletEventRepository;
+import com.walletService.Service.InMemoryWalletEventSink;
+import com.walletService.Service.TreasuryService;
+import com.walletService.Service.WalletEventRelay;
+import com.walletService.Service.WalletOperationDispatcher;
+import com.walletService.Service.WalletService;
+import com.walletService.WalletServiceApplication;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static com.wallet.service.WalletTestFixture.request;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@Import({TestcontainersConfiguration.class, WalletTestFixture.class})
+@SpringBootTest(classes = WalletServiceApplication.class, properties = {
+        "wallet.outbox.sink=memory",
+        "wallet.outbox.relay.enabled=false"
+})
+class WalletEventOutboxTests {
+
+    @Autowired
+    private WalletService walletService;
+
+    @Autowired
+    private WalletOperationDispatcher dispatcher;
+
+    @Autowired
+    private TreasuryService treasuryService;
+
+    @Autowired
+    private WalletEventRelay walletEventRelay;
+
+    @Autowired
+    private WalletEventRepository walletEventRepository;
+
+    @Autowired
+    private InMemoryWalletEventSink sink;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private WalletTestFixture fixture;
+
+    @Test
+    void everyLedgerEntryIsPublishedInWalletOrder() {
+        Long userId = fixture.insertUser();
+        walletService.topUp(userId, request(AssetType.GOLD_COINS, "100"));
+        walletService.spend(userId, request(AssetType.GOLD_COINS, "40"));
+        walletService.grantIncentive(userId, request(AssetType.GOLD_COINS, "5"));
+        walletService.grantIncentive(userId, request(AssetType.DIAMONDS, "7"));
+        double publishedBefore = meterRegistry.get("wallet.outbox.published").counter().count();
+
+        drain();
+
+        List<WalletEvent> gold = eventsOf(fixture.walletId(userId, AssetType.GOLD_COINS));
+        assertThat(gold).extracting(WalletEvent::transactionType)
+                .containsExactly(TransactionType.CREDIT, TransactionType.DEBIT, TransactionType.CREDIT);
+        assertThat(gold).extracting(WalletEvent::balanceAfter).usingElementComparator(BigDecimal::compareTo)
+                .containsExactly(new BigDecimal("100"), new BigDecimal("60"), new BigDecimal("65"));
+        assertThat(gold).extracting(WalletEvent::eventId).isSorted();
+        assertThat(gold).allSatisfy(event -> assertThat(event.userId()).isEqualTo(userId));
+        assertThat(eventsOf(fixture.walletId(userId, AssetType.DIAMONDS))).hasSize(1);
+
+        assertThat(pendingFor(userId)).isZero();
+        assertThat(meterRegistry.get("wallet.outbox.published").counter().count() - publishedBefore)
+                .isGreaterThanOrEqualTo(4);
+        assertThat(meterRegistry.get("wallet.outbox.lag").timer().count()).isPositive();
+    }
+
+    @Test
+    void failedDeliveryLeavesTheBatchForTheNextAttempt() {
+        Long userId = fixture.insertUser();
+        walletService.topUp(userId, request(AssetType.LOYALTY_POINTS, "10"));
+
+        SimpleMeterRegistry failingRegistry = new SimpleMeterRegistry();
+        WalletEventRelay failing = new WalletEventRelay(walletEventRepository, events -> {
+            throw new IllegalStateException("sink unavailable");
+        }, failingRegistry);
+        assertThatThrownBy(() -> new TransactionTemplate(transactionManager)
+                .execute(status -> failing.relayBatch(100)))
+                .isInstanceOf(IllegalStateException.class);
+
+        assertThat(pendingFor(userId)).isEqualTo(1);
+        assertThat(failingRegistry.get("wallet.outbox.publish").tag("outcome", "IllegalStateException")
+                .timer().count()).isEqualTo(1);
+
+        drain();
+
+        assertThat(eventsOf(fixture.walletId(userId, AssetType.LOYALTY_POINTS))).hasSize(1);
+        assertThat(pendingFor(userId)).isZero();
+    }
+
+    @Test
+    void eventWhoseEntryIsGoneIsDeadLetteredInsteadOfHoldingUpTheRelay() {
+        Long userId = fixture.insertUser();
+        walletService.topUp(userId, request(AssetType.GOLD_COINS, "10"));
+        Long walletId = fixture.walletId(userId, AssetType.GOLD_COINS);
+        Long orphanId = jdbcTemplate.queryForObject("INSERT INTO wallet_events " +
+                        "(wallet_id, ledger_entry_id, ledger_created_at, created_at) " +
+                        "VALUES (?, -1, now(), now()) RETURNING id", Long.class, walletId);
+        walletService.spend(userId, request(AssetType.GOLD_COINS, "4"));
+
+        drain();
+
+        assertThat(eventsOf(walletId)).extracting(WalletEvent::transactionType)
+                .containsExactly(TransactionType.CREDIT, TransactionType.DEBIT);
+        assertThat(pendingFor(userId)).isZero();
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM wallet_events_dead_letter WHERE id = ?",
+                Long.class, orphanId)).isEqualTo(1);
+        assertThat(meterRegistry.get("wallet.outbox.dead.lettered").counter().count()).isPositive();
+    }
+
+    @Test
+    void shardedTreasuryEventsArriveInOrderPerSlotUnderConcurrentWriters() throws Exception {
+        Long treasuryUserId = fixture.insertUser();
+        walletService.topUp(treasuryUserId, request(AssetType.GOLD_COINS, "1000"));
+        Long walletId = fixture.walletId(treasuryUserId, AssetType.GOLD_COINS);
+        ReflectionTestUtils.setField(treasuryService, "treasuryUserId", treasuryUserId);
+        ReflectionTestUtils.setField(treasuryService, "walletIds", new ConcurrentHashMap<>());
+        treasuryService.rebalance(AssetType.GOLD_COINS);
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<?>> writers = List.of(
+                    executor.submit(() -> writeTreasury(treasuryUserId, start)),
+                    executor.submit(() -> writeTreasury(treasuryUserId, start)));
+            start.countDown();
+            for (Future<?> writer : writers) {
+                writer.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        drain();
+
+        Map<Integer, List<WalletEvent>> bySlot = eventsOf(walletId).stream()
+                .filter(event -> event.slotIndex() != null)
+                .collect(Collectors.groupingBy(WalletEvent::slotIndex));
+        assertThat(bySlot.values().stream().mapToInt(List::size).sum()).isGreaterThanOrEqualTo(80);
+        bySlot.values().forEach(slotEvents -> {
+            assertThat(slotEvents).extracting(WalletEvent::eventId).isSorted();
+            for (int i = 1; i < slotEvents.size(); i++) {
+                WalletEvent event = slotEvents.get(i);
+                BigDecimal signed = event.transactionType() == TransactionType.CREDIT
+                        ? event.amount() : event.amount().negate();
+                assertThat(event.balanceAfter())
+                        .isEqualByComparingTo(slotEvents.get(i - 1).balanceAfter().add(signed));
+            }
+        });
+    }
+
+    /**
+     * Forty alternating top-ups and spends on the treasury, released together with the other writer.
+     */
+    private void writeTreasury(Long treasuryUserId, CountDownLatch start) {
+        try {
+            start.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+        for (int i = 0; i < 40; i++) {
+            if (i % 2 == 0) {
+                dispatcher.topUp(treasuryUserId, request(AssetType.GOLD_COINS, "2"));
+            } else {
+                dispatcher.spend(treasuryUserId, request(AssetType.GOLD_COINS, "1"));
+            }
+        }
+    }
+
+    private void drain() {
+        while (walletEventRelay.relayBatch(2) > 0) {
+            // small batches so a wallet's events span several of them
+        }
+    }
+
+    private List<WalletEvent> eventsOf(Long walletId) {
+        return sink.events().stream().filter(event -> event.walletId() == walletId).toList();
+    }
+
+    private Long pendingFor(Long userId) {
+        return jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM wallet_events o JOIN wallets w ON w.id = o.wallet_id WHERE w.user_id = ?",
+                Long.class, userId);
+    }
+}
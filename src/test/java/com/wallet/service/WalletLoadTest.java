@@ -0,0 +1,323 @@
+package com.wallet.service;
+
+import com.walletService.WalletServiceApplication;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.core.JdbcTemplate;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.SerializationFeature;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Closed-loop HTTP load test against the full application on Testcontainers Postgres. Worker threads send
+ * top-up, spend, balance and history requests for users drawn from a Zipfian distribution, optionally
+ * replaying a previous idempotency key, and the run writes per-endpoint ops/s and HDR latency percentiles
+ * to a JSON report with stable key order so reports from two commits can be diffed.
+ * <p>
+ * Run with {@code ./mvnw test -Dtest=WalletLoadTest -Dloadtest=true}; every {@code loadtest.*} setting
+ * below can be overridden the same way. Passing {@code -Dloadtest.baseline=<earlier report>} adds the change
+ * in ops/s and p99 per endpoint against that run, e.g. virtual threads
+ * ({@code -Dspring.threads.virtual.enabled=true}) against the platform-thread pool.
+ */
+@Import(TestcontainersConfiguration.class)
+@SpringBootTest(classes = WalletServiceApplication.class, webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "jwt.enabled=false")
+@EnabledIfSystemProperty(named = "loadtest", matches = "true")
+class WalletLoadTest {
+
+    private static final int USERS = Integer.getInteger("loadtest.users", 1_000);
+    private static final int THREADS = Integer.getInteger("loadtest.threads", 32);
+    private static final int WARMUP_SECONDS = Integer.getInteger("loadtest.warmup-seconds", 10);
+    private static final int DURATION_SECONDS = Integer.getInteger("loadtest.duration-seconds", 60);
+    private static final double ZIPF_EXPONENT = doubleProperty("loadtest.zipf-exponent", 1.0);
+    private static final double READ_RATIO = doubleProperty("loadtest.read-ratio", 0.5);
+    private static final double HISTORY_SHARE = doubleProperty("loadtest.history-share", 0.2);
+    private static final double SPEND_SHARE = doubleProperty("loadtest.spend-share", 0.4);
+    private static final double DUPLICATE_RATE = doubleProperty("loadtest.duplicate-rate", 0.05);
+    private static final String REPORT = System.getProperty("loadtest.report", "target/loadtest/report.json");
+    private static final String LABEL = System.getProperty("loadtest.label", "");
+    private static final String BASELINE = System.getProperty("loadtest.baseline");
+
+    @Value("${local.server.port}")
+    private int port;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private Environment environment;
+
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+
+    private final Map<Endpoint, EndpointStats> stats = new ConcurrentHashMap<>();
+
+    private final Map<Long, String[]> lastWrites = new ConcurrentHashMap<>();
+
+    private volatile boolean recording;
+
+    @Test
+    void runLoad() throws Exception {
+        List<Long> userIds = seedUsers();
+        ZipfianGenerator users = new ZipfianGenerator(userIds.size(), ZIPF_EXPONENT);
+        for (Endpoint endpoint : Endpoint.values()) {
+            stats.put(endpoint, new EndpointStats());
+        }
+
+        ExecutorService workers = Executors.newFixedThreadPool(THREADS);
+        long warmupEnd = System.nanoTime() + TimeUnit.SECONDS.toNanos(WARMUP_SECONDS);
+        long end = warmupEnd + TimeUnit.SECONDS.toNanos(DURATION_SECONDS);
+
+        for (int i = 0; i < THREADS; i++) {
+            workers.submit(() -> {
+                while (System.nanoTime() < end) {
+                    if (!recording && System.nanoTime() >= warmupEnd) {
+                        recording = true;
+                    }
+                    sendOne(userIds.get(users.next()));
+                }
+                return null;
+            });
+        }
+
+        workers.shutdown();
+        assertThat(workers.awaitTermination(WARMUP_SECONDS + DURATION_SECONDS + 60, TimeUnit.SECONDS)).isTrue();
+
+        ObjectMapper mapper = JsonMapper.builder().enable(SerializationFeature.INDENT_OUTPUT).build();
+        Map<String, Object> report = report();
+        if (BASELINE != null) {
+            report.put("comparison", compare(report, mapper.readTree(Files.readString(Path.of(BASELINE)))));
+        }
+
+        Path path = Path.of(REPORT);
+        Files.createDirectories(path.toAbsolutePath().getParent());
+        Files.writeString(path, mapper.writeValueAsString(report));
+        System.out.println(mapper.writeValueAsString(report));
+
+        assertThat(stats.values().stream().mapToLong(s -> s.serverErrors.sum()).sum()).isZero();
+    }
+
+    private List<Long> seedUsers() {
+        List<Long> userIds = jdbcTemplate.queryForList(
+                "INSERT INTO users (status, user_name, email_address, created_at, updated_at) " +
+                        "SELECT 'ACTIVE', 'load', 'load-' || g || '-' || ? || '@example.com', now(), now() " +
+                        "FROM generate_series(1, ?) g RETURNING id",
+                Long.class, UUID.randomUUID().toString(), USERS);
+        jdbcTemplate.update(
+                "INSERT INTO wallets (user_id, balance, asset_type, version, created_at, updated_at) " +
+                        "SELECT u, 1000000, 'GOLD_COINS', 0, now(), now() FROM unnest(?::bigint[]) u",
+                (Object) userIds.toArray(new Long[0]));
+        return userIds;
+    }
+
+    private void sendOne(Long userId) throws IOException, InterruptedException {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        Endpoint endpoint;
+        HttpRequest.Builder request;
+
+        if (random.nextDouble() < READ_RATIO) {
+            if (random.nextDouble() < HISTORY_SHARE) {
+                endpoint = Endpoint.HISTORY;
+                request = HttpRequest.newBuilder(uri("/transactions?assetType=GOLD_COINS&limit=20")).GET();
+            } else {
+                endpoint = Endpoint.BALANCE;
+                request = HttpRequest.newBuilder(uri("/balance?assetType=GOLD_COINS")).GET();
+            }
+        } else {
+            String[] previous = lastWrites.get(userId);
+            String path;
+            String body;
+
+            if (previous != null && random.nextDouble() < DUPLICATE_RATE) {
+                path = previous[0];
+                body = previous[1];
+            } else {
+                path = random.nextDouble() < SPEND_SHARE ? "/spend" : "/topup";
+                body = String.format("{\"idempotencyKey\":\"%s\",\"amount\":%d.00,\"assetType\":\"GOLD_COINS\"}",
+                        UUID.randomUUID(), 1 + random.nextInt(100));
+                lastWrites.put(userId, new String[]{path, body});
+            }
+
+            endpoint = path.equals("/spend") ? Endpoint.SPEND : Endpoint.TOP_UP;
+            request = HttpRequest.newBuilder(uri(path))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(body));
+        }
+
+        HttpRequest built = request.header("X-User-Id", userId.toString())
+                .timeout(Duration.ofSeconds(30))
+                .build();
+
+        long start = System.nanoTime();
+        HttpResponse<Void> response = httpClient.send(built, HttpResponse.BodyHandlers.discarding());
+        long micros = (System.nanoTime() - start) / 1_000;
+
+        if (recording) {
+            stats.get(endpoint).record(micros, response.statusCode());
+        }
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://localhost:" + port + "/api/v1/wallets" + path);
+    }
+
+    private Map<String, Object> report() {
+        Map<String, Object> config = new LinkedHashMap<>();
+        config.put("users", USERS);
+        config.put("threads", THREADS);
+        config.put("durationSeconds", DURATION_SECONDS);
+        config.put("zipfExponent", ZIPF_EXPONENT);
+        config.put("readRatio", READ_RATIO);
+        config.put("historyShare", HISTORY_SHARE);
+        config.put("spendShare", SPEND_SHARE);
+        config.put("duplicateRate", DUPLICATE_RATE);
+        config.put("virtualThreads", environment.getProperty("spring.threads.virtual.enabled", Boolean.class, false));
+        config.put("hikariMaxPoolSize", environment.getProperty("spring.datasource.hikari.maximum-pool-size"));
+
+        Map<String, Object> endpoints = new LinkedHashMap<>();
+        for (Endpoint endpoint : Endpoint.values()) {
+            endpoints.put(endpoint.name(), stats.get(endpoint).summary(DURATION_SECONDS));
+        }
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("label", LABEL);
+        report.put("config", config);
+        report.put("endpoints", endpoints);
+        return report;
+    }
+
+    /**
+     * Relative ops/s change and absolute p99 change in milliseconds of each endpoint against a baseline report.
+     */
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> compare(Map<String, Object> report, JsonNode baseline) {
+        Map<String, Object> endpoints = (Map<String, Object>) report.get("endpoints");
+        Map<String, Object> comparison = new LinkedHashMap<>();
+        comparison.put("baselineLabel", baseline.path("label").asString());
+
+        for (Endpoint endpoint : Endpoint.values()) {
+            Map<String, Object> current = (Map<String, Object>) endpoints.get(endpoint.name());
+            JsonNode previous = baseline.path("endpoints").path(endpoint.name());
+            double previousOps = previous.path("opsPerSecond").asDouble();
+            double currentOps = (double) current.get("opsPerSecond");
+            double previousP99 = previous.path("latencyMillis").path("p99").asDouble();
+            double currentP99 = (double) ((Map<String, Object>) current.get("latencyMillis")).get("p99");
+
+            Map<String, Object> delta = new LinkedHashMap<>();
+            delta.put("opsPerSecondChangePercent", previousOps > 0
+                    ? Math.round((currentOps - previousOps) / previousOps * 1000) / 10.0 : null);
+            delta.put("p99ChangeMillis", Math.round((currentP99 - previousP99) * 1000) / 1000.0);
+            comparison.put(endpoint.name(), delta);
+        }
+        return comparison;
+    }
+
+    private static double doubleProperty(String name, double defaultValue) {
+        String value = System.getProperty(name);
+        return value != null ? Double.parseDouble(value) : defaultValue;
+    }
+
+    private enum Endpoint {
+        TOP_UP, SPEND, BALANCE, HISTORY
+    }
+
+    private static final class EndpointStats {
+
+        private final Histogram latencyMicros = new ConcurrentHistogram(3);
+        private final LongAdder clientErrors = new LongAdder();
+        private final LongAdder serverErrors = new LongAdder();
+
+        void record(long micros, int status) {
+            latencyMicros.recordValue(micros);
+            if (status >= 500) {
+                serverErrors.increment();
+            } else if (status >= 400) {
+                clientErrors.increment();
+            }
+        }
+
+        Map<String, Object> summary(int seconds) {
+            Map<String, Object> summary = new LinkedHashMap<>();
+            long count = latencyMicros.getTotalCount();
+            summary.put("requests", count);
+            summary.put("opsPerSecond", Math.round(count / (double) seconds * 10) / 10.0);
+            summary.put("clientErrors", clientErrors.sum());
+            summary.put("serverErrors", serverErrors.sum());
+
+            Map<String, Object> percentiles = new LinkedHashMap<>();
+            for (double percentile : new double[]{50, 90, 99, 99.9}) {
+                percentiles.put("p" + (percentile == Math.rint(percentile) ? String.valueOf((int) percentile)
+                        : String.valueOf(percentile)), latencyMicros.getValueAtPercentile(percentile) / 1000.0);
+            }
+            percentiles.put("max", latencyMicros.getMaxValue() / 1000.0);
+            summary.put("latencyMillis", percentiles);
+            return summary;
+        }
+    }
+
+    /**
+     * Draws ranks 0..n-1 with probability proportional to 1 / (rank + 1)^exponent, so rank 0 is the
+     * hottest wallet. Inverts a precomputed CDF by binary search.
+     */
+    private static final class ZipfianGenerator {
+
+        private final double[] cdf;
+
+        ZipfianGenerator(int n, double exponent) {
+            cdf = new double[n];
+            double sum = 0;
+            for (int i = 0; i < n; i++) {
+                sum += 1 / Math.pow(i + 1, exponent);
+                cdf[i] = sum;
+            }
+            for (int i = 0; i < n; i++) {
+                cdf[i] /= sum;
+            }
+        }
+
+        int next() {
+            double u = ThreadLocalRandom.current().nextDouble();
+            int low = 0;
+            int high = cdf.length - 1;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (cdf[mid] < u) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+    }
+}
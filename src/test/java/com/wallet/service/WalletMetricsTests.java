@@ -0,0 +1,84 @@
+package com.wallet.service;
+
+import com.walletService.Entity.AssetType;
+import com.walletService.Exceptions.WalletNotFoundException;
+import com.walletService.Service.WalletMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class WalletMetricsTests {
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private WalletMetrics walletMetrics;
+
+    @BeforeEach
+    void createMetrics() {
+        meterRegistry = new SimpleMeterRegistry();
+        walletMetrics = new WalletMetrics(meterRegistry);
+    }
+
+    @Test
+    void phaseIsTaggedWithOperationAssetTypeAndSuccess() {
+        String result = walletMetrics.phase("topUp", "lock_acquisition", AssetType.GOLD_COINS, () -> "locked");
+
+        assertThat(result).isEqualTo("locked");
+        assertThat(meterRegistry.get("wallet.operation.phase")
+                .tag("operation", "topUp")
+                .tag("phase", "lock_acquisition")
+                .tag("asset_type", "GOLD_COINS")
+                .tag("outcome", "success")
+                .timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void failedOperationIsTaggedWithExceptionAndRethrown() {
+        assertThatThrownBy(() -> walletMetrics.operation("spend", AssetType.GOLD_COINS, () -> {
+            throw new WalletNotFoundException("User not found: 1");
+        })).isInstanceOf(WalletNotFoundException.class);
+
+        assertThat(meterRegistry.get("wallet.operation")
+                .tag("operation", "spend")
+                .tag("outcome", "WalletNotFoundException")
+                .timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void multiAssetPhaseIsTaggedMixed() {
+        walletMetrics.phase("applyBulkChunk", "ledger_insert", null, () -> { });
+
+        assertThat(meterRegistry.get("wallet.operation.phase")
+                .tag("asset_type", "MIXED")
+                .timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void duplicateCountsIdempotencyHitAndOperation() {
+        walletMetrics.recordDuplicate("topUp", AssetType.GOLD_COINS, "cache", System.nanoTime());
+
+        assertThat(meterRegistry.get("wallet.idempotency.hits")
+                .tag("operation", "topUp").tag("source", "cache").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("wallet.operation")
+                .tag("outcome", "duplicate").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void databaseHitDuringAnOperationTagsItDuplicate() {
+        walletMetrics.operation("spend", AssetType.GOLD_COINS, () -> {
+            walletMetrics.idempotencyHit("spend", "database");
+            return "stored response";
+        });
+        walletMetrics.operation("spend", AssetType.GOLD_COINS, () -> "new response");
+
+        assertThat(meterRegistry.get("wallet.idempotency.hits")
+                .tag("operation", "spend").tag("source", "database").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("wallet.operation")
+                .tag("operation", "spend").tag("outcome", "duplicate").timer().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("wallet.operation")
+                .tag("operation", "spend").tag("outcome", "success").timer().count()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,75 @@
+package com.wallet.service;
+
+import com.walletService.Dto.WalletOperationRequestDto;
+import com.walletService.Entity.AssetType;
+import com.walletService.Service.WalletService;
+import com.walletService.WalletServiceApplication;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+
+import static com.wallet.service.WalletTestFixture.request;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Pins the number of database round trips each write on the locking path makes, counted at the DataSource
+ * so JdbcTemplate statements such as the outbox insert are included, so an extra lookup sneaking back into
+ * the hot path fails the build. Ids come from pooled sequence blocks whose refills depend on the ids earlier
+ * tests took, so {@code nextval} calls are left out of the pinned counts.
+ */
+@Import({TestcontainersConfiguration.class, WalletTestFixture.class, JdbcRoundTripCounter.class})
+@SpringBootTest(classes = WalletServiceApplication.class)
+class WalletServiceStatementCountTests {
+
+    @Autowired
+    private WalletService walletService;
+
+    @Autowired
+    private WalletTestFixture fixture;
+
+    private Long userId;
+
+    @BeforeEach
+    void createUser() {
+        userId = fixture.insertUser();
+    }
+
+    @Test
+    void firstTopUpCreatesWalletWithNineRoundTrips() {
+        // idempotency lookup, user, wallet lock (miss), wallet insert, outbox insert, ledger insert,
+        // key insert, wallet update, commit
+        assertThat(roundTripsFor(() -> walletService.topUp(userId, request(AssetType.GOLD_COINS, "100")))).isEqualTo(9);
+    }
+
+    @Test
+    void topUpOnExistingWalletUsesEightRoundTrips() {
+        walletService.topUp(userId, request(AssetType.GOLD_COINS, "100"));
+
+        // idempotency lookup, user, wallet lock, outbox insert, ledger insert, key insert, wallet update, commit
+        assertThat(roundTripsFor(() -> walletService.topUp(userId, request(AssetType.GOLD_COINS, "5")))).isEqualTo(8);
+    }
+
+    @Test
+    void spendOnExistingWalletUsesEightRoundTrips() {
+        walletService.topUp(userId, request(AssetType.DIAMONDS, "100"));
+
+        assertThat(roundTripsFor(() -> walletService.spend(userId, request(AssetType.DIAMONDS, "40")))).isEqualTo(8);
+    }
+
+    @Test
+    void duplicateRequestOnlyLooksUpTheIdempotencyKey() {
+        WalletOperationRequestDto request = request(AssetType.LOYALTY_POINTS, "10");
+        walletService.grantIncentive(userId, request);
+
+        // idempotency lookup, commit
+        assertThat(roundTripsFor(() -> walletService.grantIncentive(userId, request))).isEqualTo(2);
+    }
+
+    private int roundTripsFor(Runnable operation) {
+        JdbcRoundTripCounter.reset();
+        operation.run();
+        return JdbcRoundTripCounter.count() - JdbcRoundTripCounter.sequenceCalls();
+    }
+}
@@ -0,0 +1,43 @@
+package com.wallet.service;
+
+import com.walletService.Dto.WalletOperationRequestDto;
+import com.walletService.Entity.AssetType;
+import org.springframework.boot.test.context.TestComponent;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+/**
+ * Test data shared by the Spring Boot tests: users inserted straight into the table, wallet lookups and
+ * write requests with a fresh idempotency key. Import it next to {@link TestcontainersConfiguration}.
+ */
+@TestComponent
+class WalletTestFixture {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    WalletTestFixture(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    Long insertUser() {
+        return jdbcTemplate.queryForObject(
+                "INSERT INTO users (status, user_name, email_address, created_at, updated_at) " +
+                        "VALUES ('ACTIVE', 'test', ?, now(), now()) RETURNING id",
+                Long.class, UUID.randomUUID() + "@example.com");
+    }
+
+    Long walletId(Long userId, AssetType assetType) {
+        return jdbcTemplate.queryForObject("SELECT id FROM wallets WHERE user_id = ? AND asset_type = ?",
+                Long.class, userId, assetType.name());
+    }
+
+    static WalletOperationRequestDto request(AssetType assetType, String amount) {
+        return WalletOperationRequestDto.builder()
+                .idempotencyKey(UUID.randomUUID().toString())
+                .assetType(assetType)
+                .amount(new BigDecimal(amount))
+                .build();
+    }
+}
@@ -0,0 +1,77 @@
+package com.wallet.service;
+
+import com.walletService.Exceptions.ConcurrentModificationException;
+import com.walletService.Exceptions.InsufficientBalanceException;
+import com.walletService.Service.WalletTransactionRetrier;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.sql.SQLException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class WalletTransactionRetrierTests {
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private WalletTransactionRetrier retrier;
+
+    @BeforeEach
+    void createRetrier() {
+        meterRegistry = new SimpleMeterRegistry();
+        retrier = new WalletTransactionRetrier(meterRegistry);
+        ReflectionTestUtils.setField(retrier, "maxAttempts", 3);
+        ReflectionTestUtils.setField(retrier, "initialBackoffMs", 1L);
+        ReflectionTestUtils.setField(retrier, "maxBackoffMs", 5L);
+    }
+
+    @Test
+    void retriesSerializationFailureUntilItSucceeds() {
+        AtomicInteger calls = new AtomicInteger();
+
+        String result = retrier.execute("topUp", () -> {
+            if (calls.incrementAndGet() < 3) {
+                throw new PessimisticLockingFailureException("could not serialize",
+                        new SQLException("could not serialize access", "40001"));
+            }
+            return "ok";
+        });
+
+        assertThat(result).isEqualTo("ok");
+        assertThat(calls).hasValue(3);
+        assertThat(meterRegistry.get("wallet.retry.attempts")
+                .tag("operation", "topUp").tag("reason", "serialization_failure").counter().count()).isEqualTo(2);
+    }
+
+    @Test
+    void givesUpAfterMaxAttemptsAndCountsIt() {
+        AtomicInteger calls = new AtomicInteger();
+
+        assertThatThrownBy(() -> retrier.execute("spend", () -> {
+            calls.incrementAndGet();
+            throw new ConcurrentModificationException("changed concurrently");
+        })).isInstanceOf(ConcurrentModificationException.class);
+
+        assertThat(calls).hasValue(3);
+        assertThat(meterRegistry.get("wallet.retry.exhausted")
+                .tag("operation", "spend").tag("reason", "concurrent_modification").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void businessErrorsAreNotRetried() {
+        AtomicInteger calls = new AtomicInteger();
+
+        assertThatThrownBy(() -> retrier.execute("spend", () -> {
+            calls.incrementAndGet();
+            throw new InsufficientBalanceException("Insufficient balance");
+        })).isInstanceOf(InsufficientBalanceException.class);
+
+        assertThat(calls).hasValue(1);
+        assertThat(meterRegistry.find("wallet.retry.attempts").counters()).isEmpty();
+    }
+}
@@ -0,0 +1,106 @@
+package com.wallet.service;
+
+import com.walletService.Dto.TransferRequestDto;
+import com.walletService.Entity.AssetType;
+import com.walletService.Service.WalletService;
+import com.walletService.WalletServiceApplication;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static com.wallet.service.WalletTestFixture.request;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Hammers a handful of wallets with concurrent transfers in both directions. Ordered locking must keep
+ * every transfer deadlock-free and the total balance unchanged; the achieved transfers/second is printed.
+ */
+@Import({TestcontainersConfiguration.class, WalletTestFixture.class})
+@SpringBootTest(classes = WalletServiceApplication.class)
+class WalletTransferContentionTests {
+
+    private static final int WALLETS = 4;
+    private static final int THREADS = 8;
+    private static final int TRANSFERS_PER_THREAD = 250;
+    private static final BigDecimal INITIAL_BALANCE = new BigDecimal("1000000");
+
+    @Autowired
+    private WalletService walletService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private WalletTestFixture fixture;
+
+    @Test
+    void concurrentOppositeDirectionTransfersNeitherDeadlockNorLoseFunds() throws InterruptedException {
+        List<Long> userIds = new ArrayList<>();
+        for (int i = 0; i < WALLETS; i++) {
+            Long userId = fixture.insertUser();
+            walletService.topUp(userId, request(AssetType.GOLD_COINS, INITIAL_BALANCE.toPlainString()));
+            userIds.add(userId);
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        ConcurrentLinkedQueue<Throwable> failures = new ConcurrentLinkedQueue<>();
+
+        for (int t = 0; t < THREADS; t++) {
+            executor.submit(() -> {
+                start.await();
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < TRANSFERS_PER_THREAD; i++) {
+                    int from = random.nextInt(WALLETS);
+                    int to = (from + 1 + random.nextInt(WALLETS - 1)) % WALLETS;
+                    try {
+                        walletService.transfer(userIds.get(from), TransferRequestDto.builder()
+                                .idempotencyKey(UUID.randomUUID().toString())
+                                .toUserId(userIds.get(to))
+                                .assetType(AssetType.GOLD_COINS)
+                                .amount(BigDecimal.ONE)
+                                .build());
+                    } catch (RuntimeException e) {
+                        failures.add(e);
+                    }
+                }
+                return null;
+            });
+        }
+
+        long begin = System.nanoTime();
+        start.countDown();
+        executor.shutdown();
+        assertThat(executor.awaitTermination(5, TimeUnit.MINUTES)).isTrue();
+        double seconds = (System.nanoTime() - begin) / 1_000_000_000.0;
+
+        System.out.printf("%d transfers across %d wallets on %d threads: %,.0f transfers/s%n",
+                THREADS * TRANSFERS_PER_THREAD, WALLETS, THREADS, THREADS * TRANSFERS_PER_THREAD / seconds);
+
+        assertThat(failures).isEmpty();
+
+        BigDecimal total = jdbcTemplate.queryForObject(
+                "SELECT SUM(balance) FROM wallets WHERE user_id IN (?, ?, ?, ?) AND asset_type = 'GOLD_COINS'",
+                BigDecimal.class, userIds.toArray());
+        assertThat(total).isEqualByComparingTo(INITIAL_BALANCE.multiply(BigDecimal.valueOf(WALLETS)));
+
+        Integer transferEntries = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM ledger_entries l JOIN wallets w ON w.id = l.wallet_id " +
+                        "WHERE w.user_id IN (?, ?, ?, ?) AND l.description LIKE 'Transfer %'",
+                Integer.class, userIds.toArray());
+        assertThat(transferEntries).isEqualTo(2 * THREADS * TRANSFERS_PER_THREAD);
+    }
+}
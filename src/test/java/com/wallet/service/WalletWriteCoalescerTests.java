@@ -0,0 +1,242 @@
+package com.wallet.service;
+
+import com.walletService.Dto.WalletOperationResponseDto;
+import com.walletService.Entity.AssetType;
+import com.walletService.Service.WalletOperation;
+import com.walletService.Service.WalletOperationOutcome;
+import com.walletService.Service.WalletOperationType;
+import com.walletService.Service.WalletService;
+import com.walletService.Service.WalletTransactionRetrier;
+import com.walletService.Service.WalletWriteCoalescer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class WalletWriteCoalescerTests {
+
+    private static final BigDecimal POISON = new BigDecimal("13");
+
+    private StubWalletService walletService;
+
+    private WalletWriteCoalescer coalescer;
+
+    @BeforeEach
+    void createCoalescer() {
+        walletService = new StubWalletService();
+
+        WalletTransactionRetrier retrier = new WalletTransactionRetrier(new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(retrier, "maxAttempts", 1);
+
+        coalescer = new WalletWriteCoalescer(walletService, retrier);
+        ReflectionTestUtils.setField(coalescer, "maxBatchSize", 4);
+        ReflectionTestUtils.setField(coalescer, "workers", 4);
+        ReflectionTestUtils.setField(coalescer, "timeoutMs", 5000L);
+        ReflectionTestUtils.invokeMethod(coalescer, "start");
+    }
+
+    @AfterEach
+    void stopCoalescer() {
+        ReflectionTestUtils.invokeMethod(coalescer, "stop");
+    }
+
+    @Test
+    void appliesOneWalletsOperationsInSubmissionOrder() {
+        List<CompletableFuture<WalletOperationResponseDto>> futures = new ArrayList<>();
+        for (int i = 1; i <= 50; i++) {
+            futures.add(coalescer.submit(1L, WalletOperationType.TOP_UP,
+                    WalletTestFixture.request(AssetType.GOLD_COINS, String.valueOf(i))));
+        }
+        CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).join();
+
+        List<BigDecimal> applied = walletService.appliedAmounts(1L);
+        assertThat(applied).hasSize(50);
+        for (int i = 0; i < applied.size(); i++) {
+            assertThat(applied.get(i)).isEqualByComparingTo(String.valueOf(i + 1));
+        }
+        assertThat(walletService.maxConcurrentPerWallet).hasValue(1);
+    }
+
+    @Test
+    void operationsQueuedBehindAWriteAreBatchedUpToTheLimit() throws Exception {
+        walletService.blockFirstCall();
+
+        CompletableFuture<WalletOperationResponseDto> first = coalescer.submit(1L, WalletOperationType.TOP_UP,
+                WalletTestFixture.request(AssetType.GOLD_COINS, "1"));
+        assertThat(walletService.firstCallStarted.await(5, TimeUnit.SECONDS)).isTrue();
+
+        List<CompletableFuture<WalletOperationResponseDto>> queued = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            queued.add(coalescer.submit(1L, WalletOperationType.TOP_UP,
+                    WalletTestFixture.request(AssetType.GOLD_COINS, "2")));
+        }
+        walletService.releaseFirstCall.countDown();
+
+        first.join();
+        CompletableFuture.allOf(queued.toArray(CompletableFuture[]::new)).join();
+
+        // 1 alone, then the 10 that queued behind it in batches of at most 4
+        assertThat(walletService.batchSizes).containsExactly(1, 4, 4, 2);
+    }
+
+    @Test
+    void failedBatchIsRetriedOneOperationAtATime() throws Exception {
+        walletService.blockFirstCall();
+
+        CompletableFuture<WalletOperationResponseDto> first = coalescer.submit(1L, WalletOperationType.SPEND,
+                WalletTestFixture.request(AssetType.GOLD_COINS, "1"));
+        assertThat(walletService.firstCallStarted.await(5, TimeUnit.SECONDS)).isTrue();
+
+        CompletableFuture<WalletOperationResponseDto> before = coalescer.submit(1L, WalletOperationType.SPEND,
+                WalletTestFixture.request(AssetType.GOLD_COINS, "2"));
+        CompletableFuture<WalletOperationResponseDto> poisoned = coalescer.submit(1L, WalletOperationType.SPEND,
+                WalletTestFixture.request(AssetType.GOLD_COINS, POISON.toPlainString()));
+        CompletableFuture<WalletOperationResponseDto> after = coalescer.submit(1L, WalletOperationType.SPEND,
+                WalletTestFixture.request(AssetType.GOLD_COINS, "3"));
+        walletService.releaseFirstCall.countDown();
+
+        first.join();
+        assertThat(before.get(5, TimeUnit.SECONDS).getAmount()).isEqualByComparingTo("2");
+        assertThat(after.get(5, TimeUnit.SECONDS).getAmount()).isEqualByComparingTo("3");
+        assertThatThrownBy(poisoned::join).hasCauseInstanceOf(IllegalStateException.class);
+
+        // The batch of three failed as a whole, then each operation ran on its own, in order
+        assertThat(walletService.batchSizes).containsExactly(1, 3, 1, 1, 1);
+        assertThat(walletService.appliedAmounts(1L)).extracting(BigDecimal::intValue).containsExactly(1, 2, 3);
+    }
+
+    @Test
+    void concurrentSubmittersNeverDrainOneWalletTwiceAtOnce() throws Exception {
+        int threads = 8;
+        int perThread = 200;
+        ExecutorService submitters = Executors.newFixedThreadPool(threads);
+        List<CompletableFuture<WalletOperationResponseDto>> futures = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch start = new CountDownLatch(1);
+
+        try {
+            for (int t = 0; t < threads; t++) {
+                long userId = t % 2 + 1;
+                submitters.execute(() -> {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                    for (int i = 0; i < perThread; i++) {
+                        futures.add(coalescer.submit(userId, WalletOperationType.TOP_UP,
+                                WalletTestFixture.request(AssetType.GOLD_COINS, "1")));
+                        // Let lanes go idle now and then so retirement races with new submissions
+                        if (i % 25 == 0) {
+                            Thread.yield();
+                        }
+                    }
+                });
+            }
+            start.countDown();
+            submitters.shutdown();
+            assertThat(submitters.awaitTermination(30, TimeUnit.SECONDS)).isTrue();
+
+            CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).get(30, TimeUnit.SECONDS);
+        } finally {
+            submitters.shutdownNow();
+        }
+
+        assertThat(walletService.appliedAmounts(1L)).hasSize(threads / 2 * perThread);
+        assertThat(walletService.appliedAmounts(2L)).hasSize(threads / 2 * perThread);
+        assertThat(walletService.maxConcurrentPerWallet).hasValue(1);
+
+        // Futures complete just before the drain retires its lane
+        Map<?, ?> lanes = (Map<?, ?>) ReflectionTestUtils.getField(coalescer, "lanes");
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!lanes.isEmpty() && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(lanes).isEmpty();
+    }
+
+
+    /**
+     * Records every coalesced call. A batch holding {@link #POISON} fails as a whole, like a transaction
+     * that hit an unexpected error, and a single poisoned operation fails on its own.
+     */
+    private static final class StubWalletService extends WalletService {
+
+        private final Map<Long, List<BigDecimal>> applied = new ConcurrentHashMap<>();
+
+        private final Map<Long, AtomicInteger> inFlight = new ConcurrentHashMap<>();
+
+        private final AtomicInteger maxConcurrentPerWallet = new AtomicInteger();
+
+        private final List<Integer> batchSizes = Collections.synchronizedList(new ArrayList<>());
+
+        private final CountDownLatch firstCallStarted = new CountDownLatch(1);
+
+        private volatile CountDownLatch releaseFirstCall = new CountDownLatch(0);
+
+        private StubWalletService() {
+            super(null, null, null, null, null, null, null, null, null, null, null, null);
+        }
+
+        void blockFirstCall() {
+            releaseFirstCall = new CountDownLatch(1);
+        }
+
+        List<BigDecimal> appliedAmounts(Long userId) {
+            return applied.getOrDefault(userId, List.of());
+        }
+
+        @Override
+        public List<WalletOperationOutcome> applyCoalesced(Long userId, AssetType assetType,
+                                                           List<WalletOperation> operations) {
+            AtomicInteger running = inFlight.computeIfAbsent(userId, id -> new AtomicInteger());
+            maxConcurrentPerWallet.accumulateAndGet(running.incrementAndGet(), Math::max);
+            try {
+                batchSizes.add(operations.size());
+                if (firstCallStarted.getCount() > 0) {
+                    firstCallStarted.countDown();
+                    releaseFirstCall.await(5, TimeUnit.SECONDS);
+                }
+
+                boolean poisoned = operations.stream()
+                        .anyMatch(operation -> operation.request().getAmount().compareTo(POISON) == 0);
+                if (poisoned) {
+                    throw new IllegalStateException("poisoned batch");
+                }
+
+                List<WalletOperationOutcome> outcomes = new ArrayList<>();
+                for (WalletOperation operation : operations) {
+                    applied.computeIfAbsent(userId, id -> Collections.synchronizedList(new ArrayList<>()))
+                            .add(operation.request().getAmount());
+                    outcomes.add(WalletOperationOutcome.success(WalletOperationResponseDto.builder()
+                            .amount(operation.request().getAmount())
+                            .assetType(assetType)
+                            .build()));
+                }
+                return outcomes;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(e);
+            } finally {
+                running.decrementAndGet();
+            }
+        }
+    }
+}